@@ -118,6 +118,12 @@ public class TimedCollection {
     this.dateRange = want;
   }
 
+  private TimedCollection(TimedCollection from, List<TimedCollection.Dataset> want) {
+    this.manager = from.manager;
+    this.datasets = want;
+    this.dateRange = from.dateRange;
+  }
+
   public TimedCollection.Dataset getPrototype() {
     int idx = manager.getProtoIndex(datasets.size());
     return datasets.get(idx);
@@ -131,6 +137,15 @@ public class TimedCollection {
     return new TimedCollection(this, range);
   }
 
+  /**
+   * Subset to the given datasets, eg those that some index says are wanted.
+   * @param want the datasets to keep, taken from getDatasets(), in the same order
+   * @return subsetted collection, with the same date range
+   */
+  public TimedCollection subset(List<TimedCollection.Dataset> want) {
+    return new TimedCollection(this, want);
+  }
+
   public CalendarDateRange getDateRange() {
     return dateRange;
   }
@@ -152,16 +167,22 @@ public class TimedCollection {
     String location;
     CalendarDateRange dateRange;
     CalendarDate start;
+    MFile mfile;
 
     Dataset(MFile f) {
       this.location = f.getPath();
       this.start = manager.extractRunDate(f);
+      this.mfile = f;
     }
 
     public String getLocation() {
       return location;
     }
 
+    public MFile getMFile() {
+      return mfile;
+    }
+
     public CalendarDateRange getDateRange() {
       return dateRange;
     }
@@ -497,7 +497,7 @@ public class NetcdfFile implements ucar.nc2.util.cache.FileCacheable {
 
     if (bufferSize <= 0)
       bufferSize = default_buffersize;
-    ucar.unidata.io.RandomAccessFile raf = new ucar.unidata.io.RandomAccessFile(uriString, "r", bufferSize);
+    ucar.unidata.io.RandomAccessFile raf = ucar.unidata.io.RandomAccessFile.openReadOnly(uriString, bufferSize);
 
     NetcdfFile result = new NetcdfFile(spi, raf, location, cancelTask);
 
@@ -547,13 +547,11 @@ public class NetcdfFile implements ucar.nc2.util.cache.FileCacheable {
 
       if (uncompressedFileName != null) {
         // open uncompressed file as a RandomAccessFile.
-        raf = new ucar.unidata.io.RandomAccessFile(uncompressedFileName, "r", buffer_size);
-        //raf = new ucar.unidata.io.MMapRandomAccessFile(uncompressedFileName, "r");
+        raf = ucar.unidata.io.RandomAccessFile.openReadOnly(uncompressedFileName, buffer_size);
 
       } else {
         // normal case - not compressed
-        raf = new ucar.unidata.io.RandomAccessFile(uriString, "r", buffer_size);
-        //raf = new ucar.unidata.io.MMapRandomAccessFile(uriString, "r");
+        raf = ucar.unidata.io.RandomAccessFile.openReadOnly(uriString, buffer_size);
       }
     }
 
@@ -1407,8 +1405,7 @@ public class NetcdfFile implements ucar.nc2.util.cache.FileCacheable {
    */
   public NetcdfFile(String filename) throws IOException {
     this.location = filename;
-    ucar.unidata.io.RandomAccessFile raf = new ucar.unidata.io.RandomAccessFile(filename, "r");
-    //ucar.unidata.io.RandomAccessFile raf = new ucar.unidata.io.MMapRandomAccessFile(filename, "r");
+    ucar.unidata.io.RandomAccessFile raf = ucar.unidata.io.RandomAccessFile.openReadOnly(filename, -1);
     this.spi = SPFactory.getServiceProvider();
     spi.open(raf, this, null);
     finish();
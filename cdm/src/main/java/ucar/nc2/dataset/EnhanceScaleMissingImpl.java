@@ -612,8 +612,19 @@ class EnhanceScaleMissingImpl implements EnhanceScaleMissing {
   }
 
   public Array convertScaleOffsetMissing(Array data) {
+    return convertScaleOffsetMissing(data, false);
+  }
+
+  /**
+   * Convert Data with scale and offset, and missing data to NaNs if useNaNs = true.
+   *
+   * @param data    data to convert
+   * @param inPlace the caller owns data, so it may be overwritten when it already has the converted type
+   * @return converted data.
+   */
+  Array convertScaleOffsetMissing(Array data, boolean inPlace) {
     if (hasScaleOffset())
-      data = convertScaleOffset(data);
+      data = convertScaleOffset(data, inPlace);
     else if (hasMissing() && getUseNaNs())
       data = convertMissing(data);
     return data;
@@ -623,13 +634,19 @@ class EnhanceScaleMissingImpl implements EnhanceScaleMissing {
    * Convert Data with scale and offset.
    * Also translate missing data to NaNs if useNaNs = true.
    *
-   * @param in data to convert
+   * @param in      data to convert
+   * @param inPlace in may be overwritten with the result
    * @return converted data.
    */
-  private Array convertScaleOffset(Array in) {
+  private Array convertScaleOffset(Array in, boolean inPlace) {
     if (!hasScaleOffset) return in;
     if (debugRead) System.out.println("convertScaleOffset ");
 
+    if (((convertedDataType == DataType.FLOAT) || (convertedDataType == DataType.DOUBLE)) && !in.isConstant()) {
+      Array out = convertScaleOffsetBulk(in, inPlace);
+      if (out != null) return out;
+    }
+
     Array out = Array.factory(convertedDataType.getPrimitiveClassType(), in.getShape());
     IndexIterator iterIn = in.getIndexIterator();
     IndexIterator iterOut = out.getIndexIterator();
@@ -651,6 +668,84 @@ class EnhanceScaleMissingImpl implements EnhanceScaleMissing {
     return out;
   }
 
+  /**
+   * Convert to float or double by looping over the java arrays, instead of going through an IndexIterator.
+   *
+   * @param in      data to convert, not constant
+   * @param inPlace in may be overwritten with the result
+   * @return converted data, or null if the element type isnt handled here
+   */
+  private Array convertScaleOffsetBulk(Array in, boolean inPlace) {
+    Class<?> elemType = in.getElementType();
+    if ((elemType != byte.class) && (elemType != short.class) && (elemType != int.class) &&
+        (elemType != long.class) && (elemType != float.class) && (elemType != double.class))
+      return null;
+
+    Object src = in.get1DJavaArray(elemType); // not a copy if in is in canonical order
+    int n = (int) in.getSize();
+    boolean ownSrc = inPlace || (src != in.getStorage());
+    boolean toFloat = (convertedDataType == DataType.FLOAT);
+
+    float[] outf = null;
+    double[] outd = null;
+    if (toFloat)
+      outf = (ownSrc && elemType == float.class) ? (float[]) src : new float[n];
+    else
+      outd = (ownSrc && elemType == double.class) ? (double[]) src : new double[n];
+
+    boolean checkMissing = useNaNs && hasMissing();
+    if (elemType == byte.class) {
+      byte[] a = (byte[]) src;
+      for (int i = 0; i < n; i++) {
+        double val = scale * (isUnsigned ? DataType.unsignedByteToShort(a[i]) : a[i]) + offset;
+        if (checkMissing && isMissing_(val)) val = Double.NaN;
+        if (toFloat) outf[i] = (float) val; else outd[i] = val;
+      }
+
+    } else if (elemType == short.class) {
+      short[] a = (short[]) src;
+      for (int i = 0; i < n; i++) {
+        double val = scale * (isUnsigned ? DataType.unsignedShortToInt(a[i]) : a[i]) + offset;
+        if (checkMissing && isMissing_(val)) val = Double.NaN;
+        if (toFloat) outf[i] = (float) val; else outd[i] = val;
+      }
+
+    } else if (elemType == int.class) {
+      int[] a = (int[]) src;
+      for (int i = 0; i < n; i++) {
+        double val = scale * (isUnsigned ? DataType.unsignedIntToLong(a[i]) : a[i]) + offset;
+        if (checkMissing && isMissing_(val)) val = Double.NaN;
+        if (toFloat) outf[i] = (float) val; else outd[i] = val;
+      }
+
+    } else if (elemType == long.class) {
+      long[] a = (long[]) src;
+      for (int i = 0; i < n; i++) {
+        double val = scale * a[i] + offset;
+        if (checkMissing && isMissing_(val)) val = Double.NaN;
+        if (toFloat) outf[i] = (float) val; else outd[i] = val;
+      }
+
+    } else if (elemType == float.class) {
+      float[] a = (float[]) src;
+      for (int i = 0; i < n; i++) {
+        double val = scale * a[i] + offset;
+        if (checkMissing && isMissing_(val)) val = Double.NaN;
+        if (toFloat) outf[i] = (float) val; else outd[i] = val;
+      }
+
+    } else {
+      double[] a = (double[]) src;
+      for (int i = 0; i < n; i++) {
+        double val = scale * a[i] + offset;
+        if (checkMissing && isMissing_(val)) val = Double.NaN;
+        if (toFloat) outf[i] = (float) val; else outd[i] = val;
+      }
+    }
+
+    return Array.factory(convertedDataType, in.getShape(), toFloat ? outf : outd);
+  }
+
   private void convertScaleOffsetUnsignedByte(IndexIterator iterIn, IndexIterator iterOut) {
     boolean checkMissing = useNaNs && hasMissing();
     while (iterIn.hasNext()) {
@@ -687,6 +782,23 @@ class EnhanceScaleMissingImpl implements EnhanceScaleMissing {
   private Array convertMissing(Array in) {
     if (debugRead) System.out.println("convertMissing ");
 
+    // canonical order: change the backing java array directly
+    if (!in.isConstant() && (in.getElementType() == double.class || in.getElementType() == float.class)) {
+      Object storage = in.getStorage();
+      if ((java.lang.reflect.Array.getLength(storage) == in.getSize()) && (in.get1DJavaArray(in.getElementType()) == storage)) {
+        if (storage instanceof double[]) {
+          double[] a = (double[]) storage;
+          for (int i = 0; i < a.length; i++)
+            if (isMissing_(a[i])) a[i] = Double.NaN;
+        } else {
+          float[] a = (float[]) storage;
+          for (int i = 0; i < a.length; i++)
+            if (isMissing_(a[i])) a[i] = Float.NaN;
+        }
+        return in;
+      }
+    }
+
     IndexIterator iterIn = in.getIndexIterator();
     if (in.getElementType() == double.class) {
       while (iterIn.hasNext()) {
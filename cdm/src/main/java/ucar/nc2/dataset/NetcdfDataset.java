@@ -314,6 +314,18 @@ public class NetcdfDataset extends ucar.nc2.NetcdfFile {
     defaultNetcdfFileFactory = new MyNetcdfFileFactory();
   }
 
+  /**
+   * Enable file caching with the given cache, eg a ucar.nc2.util.cache.FileCacheConcurrent.
+   * Call this before calling acquireFile().
+   * When application terminates, call NetcdfDataset.shutdown().
+   *
+   * @param cache use this FileCache
+   */
+  static public void initNetcdfFileCache(ucar.nc2.util.cache.FileCache cache) {
+    fileCache = cache;
+    defaultNetcdfFileFactory = new MyNetcdfFileFactory();
+  }
+
   static public void disableNetcdfFileCache() {
     if (null != fileCache) fileCache.disable();
     fileCache = null;
@@ -503,13 +503,19 @@ public class VariableDS extends ucar.nc2.Variable implements VariableEnhanced, E
       result = proxyReader.reallyRead(this, null);
 
     if (needScaleOffsetMissing)
-      return convertScaleOffsetMissing(result);
+      return scaleMissingProxy.convertScaleOffsetMissing(result, ownsReadData());
     else if (needEnumConversion)
       return convertEnums(result);
     else
       return result;
   }
 
+  // cached data and our own reallyRead() return a new Array, so the conversion can overwrite it.
+  // other proxy readers (eg aggregations) may hand back an Array they keep.
+  private boolean ownsReadData() {
+    return hasCachedData() || (proxyReader == this);
+  }
+
   // do not call directly
   @Override
   public Array reallyRead(Variable client, CancelTask cancelTask) throws IOException {
@@ -533,7 +539,7 @@ public class VariableDS extends ucar.nc2.Variable implements VariableEnhanced, E
       result = proxyReader.reallyRead(this, section, null);
 
     if (needScaleOffsetMissing)
-      return convertScaleOffsetMissing(result);
+      return scaleMissingProxy.convertScaleOffsetMissing(result, ownsReadData());
     else if (needEnumConversion)
       return convertEnums(result);
     else
@@ -859,10 +859,8 @@ public class GridCoordSys extends CoordinateSystem implements ucar.nc2.dt.GridCo
       return result;
 
     } else if ((horizXaxis instanceof CoordinateAxis2D) && (horizYaxis instanceof CoordinateAxis2D)) {
-      if (g2d == null)
-        g2d = new GridCoordinate2D((CoordinateAxis2D) horizYaxis, (CoordinateAxis2D) horizXaxis);
       int[] result2 = new int[2];
-      boolean found = g2d.findCoordElement(y_coord, x_coord, result2);
+      boolean found = getGridCoordinate2D().findCoordElement(y_coord, x_coord, result2);
       if (found) {
         result[0] = result2[1];
         result[1] = result2[0];
@@ -877,6 +875,45 @@ public class GridCoordSys extends CoordinateSystem implements ucar.nc2.dt.GridCo
     throw new IllegalStateException("GridCoordSystem.findXYindexFromCoord");
   }
 
+  /**
+   * Given many points in x,y coordinate space, find their x,y indices in the coordinate system.
+   * For 2D horizontal axes, this uses an index of the cells kept with this coordinate system.
+   *
+   * @param x_coords positions in x coordinate space.
+   * @param y_coords positions in y coordinate space.
+   * @param xindex   put x index of each point in here, -1 if out of range
+   * @param yindex   put y index of each point in here, -1 if out of range
+   * @return number of points found in the coordinate system
+   */
+  public int findXYindexFromCoords(double[] x_coords, double[] y_coords, int[] xindex, int[] yindex) {
+    if ((horizXaxis instanceof CoordinateAxis1D) && (horizYaxis instanceof CoordinateAxis1D)) {
+      int count = 0;
+      for (int i = 0; i < x_coords.length; i++) {
+        xindex[i] = ((CoordinateAxis1D) horizXaxis).findCoordElement(x_coords[i]);
+        yindex[i] = ((CoordinateAxis1D) horizYaxis).findCoordElement(y_coords[i]);
+        if (xindex[i] < 0 || yindex[i] < 0) {
+          xindex[i] = -1;
+          yindex[i] = -1;
+        } else {
+          count++;
+        }
+      }
+      return count;
+
+    } else if ((horizXaxis instanceof CoordinateAxis2D) && (horizYaxis instanceof CoordinateAxis2D)) {
+      return getGridCoordinate2D().findCoordElements(y_coords, x_coords, yindex, xindex);
+    }
+
+    // cant happen
+    throw new IllegalStateException("GridCoordSystem.findXYindexFromCoords");
+  }
+
+  private synchronized GridCoordinate2D getGridCoordinate2D() {
+    if (g2d == null)
+      g2d = new GridCoordinate2D((CoordinateAxis2D) horizYaxis, (CoordinateAxis2D) horizXaxis);
+    return g2d;
+  }
+
   /**
    * Given a point in x,y coordinate space, find the x,y index in the coordinate system.
    * If outside the range, the closest point is returned, eg, 0 or n-1 depending on if the coordinate is too small or too large.
@@ -897,11 +934,8 @@ public class GridCoordSys extends CoordinateSystem implements ucar.nc2.dt.GridCo
       return result;
 
     } else if ((horizXaxis instanceof CoordinateAxis2D) && (horizYaxis instanceof CoordinateAxis2D)) {
-      if (g2d == null)
-        g2d = new GridCoordinate2D((CoordinateAxis2D) horizYaxis, (CoordinateAxis2D) horizXaxis);
-
       int[] result2 = new int[2];
-      g2d.findCoordElement(y_coord, x_coord, result2); // returns best guess
+      getGridCoordinate2D().findCoordElement(y_coord, x_coord, result2); // returns best guess
       result[0] = result2[1];
       result[1] = result2[0];
       return result;
@@ -43,8 +43,9 @@ import java.io.IOException;
 /**
  * 2D Coordinate System has lat(x,y) and lon(x,y).
  * This class implements finding the index (i,j) from (lat, lon) coord.
- * This is for "one-off" computation, not a systematic lookup table for all points in a pixel array.
- * Hueristic search of the 2D space for the cell that contains the point.
+ * A few lookups use a hueristic search of the 2D space for the cell that contains the point.
+ * After that, a bucket index over the cells' lat/lon bounding boxes is built, so repeated and batch lookups
+ * only test the cells whose bounds overlap the point.
  *
  * @author caron
  * @since Jul 10, 2009
@@ -60,6 +61,15 @@ public class GridCoordinate2D {
   private ArrayDouble.D2 latEdge, lonEdge;
   private MAMath.MinMax latMinMax, lonMinMax;
 
+  // number of single lookups done before the index is built
+  static private int lookupsBeforeIndex = 8;
+  static public void setLookupsBeforeIndex(int n) {
+    lookupsBeforeIndex = n;
+  }
+
+  private int lookups;                // racy count, only decides when to build the index
+  private volatile CellIndex index;
+
   GridCoordinate2D(CoordinateAxis2D latCoord, CoordinateAxis2D lonCoord) {
     this.latCoord = latCoord;
     this.lonCoord = lonCoord;
@@ -72,7 +82,7 @@ public class GridCoordinate2D {
     ncols = shape[1];
   }
 
-  private void findBounds() {
+  private synchronized void findBounds() {
     if (lonMinMax != null) return;
 
     lonEdge = lonCoord.getXEdges();
@@ -113,8 +123,161 @@ public class GridCoordinate2D {
   }
 
   public boolean findCoordElement(double wantLat, double wantLon, int[] rectIndex) {
+    CellIndex ci = index;
+    if (ci == null && ++lookups > lookupsBeforeIndex)
+      ci = getIndex();
+    if (ci != null && ci.find(wantLat, wantLon, rectIndex))
+      return true;
+    // not in an indexed cell: search anyway, for the best guess in rectIndex
     return findCoordElementNoForce(wantLat, wantLon,rectIndex);
-  }  
+  }
+
+  /**
+   * Find the (row,col) index of many lat,lon points, using the cell index.
+   * @param wantLat  lat of points
+   * @param wantLon  lon of points
+   * @param rows     return row index here, -1 if not in the grid
+   * @param cols     return col index here, -1 if not in the grid
+   * @return number of points found in the grid
+   */
+  public int findCoordElements(double[] wantLat, double[] wantLon, int[] rows, int[] cols) {
+    CellIndex ci = getIndex();
+    int[] rectIndex = new int[2];
+    int count = 0;
+    for (int i = 0; i < wantLat.length; i++) {
+      boolean found = ci.find(wantLat[i], wantLon[i], rectIndex);
+      if (!found && !ci.complete)
+        found = findCoordElementNoForce(wantLat[i], wantLon[i], rectIndex);
+      if (found) {
+        rows[i] = rectIndex[0];
+        cols[i] = rectIndex[1];
+        count++;
+      } else {
+        rows[i] = -1;
+        cols[i] = -1;
+      }
+    }
+    return count;
+  }
+
+  private CellIndex getIndex() {
+    CellIndex ci = index;
+    if (ci != null) return ci;
+    synchronized (this) {
+      if (index == null) {
+        findBounds();
+        index = new CellIndex();
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Buckets of cells on a regular lat/lon grid spanning the edges.
+   * Each cell is put in every bucket its bounding box overlaps; a lookup tests only the cells in the point's bucket.
+   * Cells with missing corners are left out, as are cells overlapping too many buckets (eg wrapping around the seam):
+   * those are still found by the search in findCoordElementNoForce().
+   */
+  private class CellIndex {
+    static private final int maxBucketsPerCell = 64;
+
+    final double latMin, lonMin, latScale, lonScale; // buckets per degree
+    final int nlat, nlon;
+    final int[] start;  // bucket b has cells[start[b] .. start[b+1])
+    final int[] cells;  // row * ncols + col
+    boolean complete = true; // all cells are indexed
+
+    CellIndex() {
+      // about 4 cells per bucket
+      nlat = Math.max(1, nrows / 2);
+      nlon = Math.max(1, ncols / 2);
+      latMin = latMinMax.min;
+      lonMin = lonMinMax.min;
+      latScale = (latMinMax.max > latMinMax.min) ? nlat / (latMinMax.max - latMinMax.min) : 0.0;
+      lonScale = (lonMinMax.max > lonMinMax.min) ? nlon / (lonMinMax.max - lonMinMax.min) : 0.0;
+
+      // count the cells in each bucket, then fill
+      int[] bounds = new int[4];
+      int[] count = new int[nlat * nlon + 1];
+      for (int row = 0; row < nrows; row++) {
+        for (int col = 0; col < ncols; col++) {
+          if (!bucketBounds(row, col, bounds)) {
+            complete = false;
+            continue;
+          }
+          for (int i = bounds[0]; i <= bounds[1]; i++)
+            for (int j = bounds[2]; j <= bounds[3]; j++)
+              count[i * nlon + j + 1]++;
+        }
+      }
+
+      start = new int[nlat * nlon + 1];
+      for (int b = 1; b < start.length; b++)
+        start[b] = start[b - 1] + count[b];
+      cells = new int[start[start.length - 1]];
+
+      int[] next = new int[nlat * nlon];
+      System.arraycopy(start, 0, next, 0, next.length);
+      for (int row = 0; row < nrows; row++) {
+        for (int col = 0; col < ncols; col++) {
+          if (!bucketBounds(row, col, bounds)) continue;
+          for (int i = bounds[0]; i <= bounds[1]; i++)
+            for (int j = bounds[2]; j <= bounds[3]; j++)
+              cells[next[i * nlon + j]++] = row * ncols + col;
+        }
+      }
+
+      if (debug)
+        System.out.printf("CellIndex (%d %d) buckets has %d entries for %d cells %n", nlat, nlon, cells.length, nrows * ncols);
+    }
+
+    // range of buckets overlapped by the cell: minLat, maxLat, minLon, maxLon; false if the cell is not indexed
+    private boolean bucketBounds(int row, int col, int[] bounds) {
+      double lat1 = latEdge.get(row, col), lat2 = latEdge.get(row, col + 1);
+      double lat3 = latEdge.get(row + 1, col + 1), lat4 = latEdge.get(row + 1, col);
+      double lon1 = lonEdge.get(row, col), lon2 = lonEdge.get(row, col + 1);
+      double lon3 = lonEdge.get(row + 1, col + 1), lon4 = lonEdge.get(row + 1, col);
+
+      double minLat = Math.min(Math.min(lat1, lat2), Math.min(lat3, lat4));
+      double maxLat = Math.max(Math.max(lat1, lat2), Math.max(lat3, lat4));
+      double minLon = Math.min(Math.min(lon1, lon2), Math.min(lon3, lon4));
+      double maxLon = Math.max(Math.max(lon1, lon2), Math.max(lon3, lon4));
+      if (Double.isNaN(minLat) || Double.isNaN(maxLat) || Double.isNaN(minLon) || Double.isNaN(maxLon))
+        return false;
+
+      bounds[0] = latBucket(minLat);
+      bounds[1] = latBucket(maxLat);
+      bounds[2] = lonBucket(minLon);
+      bounds[3] = lonBucket(maxLon);
+      return (bounds[1] - bounds[0] + 1) * (bounds[3] - bounds[2] + 1) <= maxBucketsPerCell;
+    }
+
+    private int latBucket(double lat) {
+      int b = (int) ((lat - latMin) * latScale);
+      return Math.max(0, Math.min(b, nlat - 1));
+    }
+
+    private int lonBucket(double lon) {
+      int b = (int) ((lon - lonMin) * lonScale);
+      return Math.max(0, Math.min(b, nlon - 1));
+    }
+
+    boolean find(double wantLat, double wantLon, int[] rectIndex) {
+      if (wantLat < latMinMax.min) return false;
+      if (wantLat > latMinMax.max) return false;
+      if (wantLon < lonMinMax.min) return false;
+      if (wantLon > lonMinMax.max) return false;
+
+      int b = latBucket(wantLat) * nlon + lonBucket(wantLon);
+      for (int k = start[b]; k < start[b + 1]; k++) {
+        rectIndex[0] = cells[k] / ncols;
+        rectIndex[1] = cells[k] % ncols;
+        if (contains(wantLat, wantLon, rectIndex))
+          return true;
+      }
+      return false;
+    }
+  }
 
 
   /**
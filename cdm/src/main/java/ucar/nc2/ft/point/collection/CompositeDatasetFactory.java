@@ -45,6 +45,7 @@ import java.io.IOException;
 import java.io.FileNotFoundException;
 import java.util.Formatter;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Factory for point feature dataset collections (CompositePointDataset).
@@ -59,6 +60,49 @@ public class CompositeDatasetFactory {
   static private org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CompositeDatasetFactory.class);
   static boolean debug = false;
 
+  // experimental multithreading: read several datasets of a collection at once
+  static Executor executor;
+  static int maxParallel = 4;
+  static boolean timeOrder = true;
+
+  /**
+   * Point and station collections read their datasets with this Executor, up to setMaxParallel() at once.
+   * If null (the default), the datasets are read one after another in the calling thread.
+   * @param exec read datasets with this; may be null
+   */
+  static public void setExecutor(Executor exec) {
+    executor = exec;
+  }
+
+  /**
+   * Max number of datasets one iteration reads at once, when an Executor is set.
+   * @param max max datasets
+   */
+  static public void setMaxParallel(int max) {
+    maxParallel = Math.max(1, max);
+  }
+
+  /**
+   * When reading in parallel, whether features come out in the (time) order of the datasets,
+   * or as soon as they are read. Default is true.
+   * @param b true for time order
+   */
+  static public void setTimeOrder(boolean b) {
+    timeOrder = b;
+  }
+
+  // experimental: summarize each dataset so subsetting can skip the ones that have nothing wanted
+  static private boolean useSummaryIndex = false;
+
+  /**
+   * Whether to keep a PointCollectionIndex for each collection, scanning every new or changed dataset
+   * in the background when the collection is opened or rescanned. Default is false.
+   * @param b use a summary index
+   */
+  static public void setSummaryIndex(boolean b) {
+    useSummaryIndex = b;
+  }
+
   static public FeatureDataset factory(String location, FeatureType wantFeatureType, CollectionManager dcm, Formatter errlog) throws IOException {
 
     TimedCollection collection = new TimedCollection(dcm, errlog);
@@ -73,16 +117,24 @@ public class CompositeDatasetFactory {
       proto.close(); // LOOK - try to use
     }
 
+    PointCollectionIndex index = null;
+    if (useSummaryIndex && (wantFeatureType == FeatureType.POINT || wantFeatureType == FeatureType.STATION)) {
+      index = new PointCollectionIndex(dcm, wantFeatureType);
+      index.updateInBackground(collection, executor);
+    }
+
     //LatLonRect bb = null;
     FeatureCollection fc = null;
     switch (wantFeatureType) {
       case POINT:
         CompositePointCollection pfc = new CompositePointCollection(dcm.getCollectionName(), collection);
+        pfc.index = index;
         //bb = pfc.getBoundingBox();
         fc = pfc;
         break;
       case STATION:
         CompositeStationCollection sfc = new CompositeStationCollection(dcm.getCollectionName(), collection, null, null);
+        sfc.index = index;
         //bb = sfc.getBoundingBox();
         fc = sfc;
         break;
@@ -56,6 +56,12 @@ public class CompositePointCollection extends PointCollectionImpl implements Upd
   private TimedCollection pointCollections;
   protected List<VariableSimpleIF> dataVariables;
 
+  // when reading in parallel, subsetting is done by the readers
+  private LatLonRect filterBB;
+  private CalendarDateRange filterDate;
+
+  PointCollectionIndex index; // may be null
+
   protected CompositePointCollection(String name, TimedCollection pointCollections) throws IOException {
     super(name);
     this.pointCollections = pointCollections;
@@ -91,16 +97,57 @@ public class CompositePointCollection extends PointCollectionImpl implements Upd
   public PointFeatureCollection subset(LatLonRect boundingBox, CalendarDateRange dateRange) throws IOException {
     if ((dateRange == null) && (boundingBox == null))
       return this;
-    else if (dateRange == null)
+
+    TimedCollection subsetCollection = (dateRange == null) ? pointCollections : pointCollections.subset(dateRange);
+    if (index != null)
+      subsetCollection = index.subset(subsetCollection, boundingBox, dateRange, null);
+
+    if (CompositeDatasetFactory.executor != null) {
+      CompositePointCollection subset = new CompositePointCollection(name, subsetCollection);
+      subset.dataVariables = dataVariables;
+      subset.index = index;
+      subset.filterBB = (boundingBox == null) ? filterBB : (filterBB == null) ? boundingBox : filterBB.intersect(boundingBox);
+      subset.filterDate = (dateRange == null) ? filterDate : (filterDate == null) ? dateRange : filterDate.intersect(dateRange);
+      subset.setBoundingBox(subset.filterBB);
+      subset.setCalendarDateRange(subset.filterDate);
+      return subset;
+    }
+    else if (subsetCollection == pointCollections)
       return new PointCollectionSubset(this, boundingBox, dateRange);
     else {
-      CompositePointCollection dateSubset = new CompositePointCollection(name, pointCollections.subset(dateRange));
+      CompositePointCollection dateSubset = new CompositePointCollection(name, subsetCollection);
+      dateSubset.dataVariables = dataVariables;
+      dateSubset.index = index;
       return new PointCollectionSubset(dateSubset, boundingBox, dateRange);
     }
   }
 
   public PointFeatureIterator getPointFeatureIterator(int bufferSize) throws IOException {
-    CompositePointFeatureIterator iter = new CompositePointFeatureIterator();
+    PointIteratorAbstract iter;
+    if ((CompositeDatasetFactory.executor != null) || (filterBB != null) || (filterDate != null)) {
+      iter = new CompositePointIteratorParallel(pointCollections.getDatasets(), CompositeDatasetFactory.executor,
+              CompositeDatasetFactory.maxParallel, CompositeDatasetFactory.timeOrder, filterBB, filterDate) {
+
+        protected FeatureDatasetPoint openDataset(TimedCollection.Dataset td) throws IOException {
+          Formatter errlog = new Formatter();
+          FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.POINT, td.getLocation(), null, errlog);
+          if (CompositeDatasetFactory.debug)
+            System.out.printf("CompositePointIteratorParallel open dataset %s%n", td.getLocation());
+          return fdp;
+        }
+
+        protected PointFeatureIterator getIterator(FeatureDatasetPoint fdp, int bufferSize) throws IOException {
+          List<FeatureCollection> fcList = fdp.getPointFeatureCollectionList();
+          PointFeatureCollection pc = (PointFeatureCollection) fcList.get(0);
+          return pc.getPointFeatureIterator(bufferSize);
+        }
+      };
+      iter.setBufferSize(bufferSize);
+
+    } else {
+      iter = new CompositePointFeatureIterator();
+    }
+
     if ((boundingBox == null) || (dateRange == null) || (npts < 0))
       iter.setCalculateBounds(this);
     return iter;
@@ -109,6 +156,8 @@ public class CompositePointCollection extends PointCollectionImpl implements Upd
   @Override
   public void update() {
     pointCollections.update();
+    if (index != null)
+      index.updateInBackground(pointCollections, CompositeDatasetFactory.executor);
   }
 
   private class CompositePointFeatureIterator extends PointIteratorAbstract {
@@ -183,73 +232,4 @@ public class CompositePointCollection extends PointCollectionImpl implements Upd
     }
   }
 
-  private class CompositePointFeatureIteratorMultithreaded extends PointIteratorAbstract {
-    private boolean finished = false;
-    private int bufferSize = -1;
-    private Iterator<TimedCollection.Dataset> iter;
-    private FeatureDatasetPoint currentDataset;
-    private PointFeatureIterator pfIter = null;
-
-    CompositePointFeatureIteratorMultithreaded() {
-      iter = pointCollections.getDatasets().iterator();
-    }
-
-    private PointFeatureIterator getNextIterator() throws IOException {
-      if (!iter.hasNext()) return null;
-      TimedCollection.Dataset td = iter.next();
-      Formatter errlog = new Formatter();
-      currentDataset = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.POINT, td.getLocation(), null, errlog);
-      if (CompositeDatasetFactory.debug)
-        System.out.printf("CompositePointFeatureIterator open dataset %s%n", td.getLocation());
-      List<FeatureCollection> fcList = currentDataset.getPointFeatureCollectionList();
-      PointFeatureCollection pc = (PointFeatureCollection) fcList.get(0);
-      return pc.getPointFeatureIterator(bufferSize);
-    }
-
-    public boolean hasNext() throws IOException {
-
-      if (pfIter == null) {
-        pfIter = getNextIterator();
-        if (pfIter == null) {
-          finish();
-          return false;
-        }
-      }
-
-      if (!pfIter.hasNext()) {
-        pfIter.finish();
-        currentDataset.close();
-        pfIter = getNextIterator();
-        return hasNext();
-      }
-
-      return true;
-    }
-
-    public PointFeature next() throws IOException {
-      return pfIter.next();
-    }
-
-    public void finish() {
-      if (finished) return;
-
-      if (pfIter != null)
-        pfIter.finish();
-      finishCalcBounds();
-
-      if (currentDataset != null)
-        try {
-          currentDataset.close();
-        } catch (IOException e) {
-          throw new RuntimeException(e);
-        }
-
-      finished = true;
-    }
-
-    public void setBufferSize(int bytes) {
-      bufferSize = bytes;
-    }
-  }
-
 }
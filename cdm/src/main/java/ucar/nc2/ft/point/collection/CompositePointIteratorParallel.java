@@ -0,0 +1,334 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ft.point.collection;
+
+import thredds.inventory.TimedCollection;
+import ucar.nc2.ft.FeatureDatasetPoint;
+import ucar.nc2.ft.PointFeature;
+import ucar.nc2.ft.PointFeatureIterator;
+import ucar.nc2.ft.point.PointIteratorAbstract;
+import ucar.nc2.time.CalendarDateRange;
+import ucar.unidata.geoloc.LatLonRect;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Iterate over the PointFeatures of a list of datasets, reading up to maxParallel of the datasets at once.
+ * Each dataset is opened, its features read and filtered, and closed, by a task on the Executor.
+ * The features are handed to the caller in batches through bounded queues.
+ * <p>
+ * In time order, the features come out one dataset after another, in the order of the list
+ * (a TimedCollection is sorted by start time), so later datasets wait once their queue is full.
+ * Otherwise the batches come out in the order they are read.
+ * <p>
+ * An iterator that is dropped without finish() would leave its readers waiting for space forever, with their
+ * datasets open. So if the caller has not taken a batch for abandonMillis, and is not waiting for one, the readers
+ * stop and close their datasets, and the iterator throws an IOException if it is used again.
+ *
+ * @since Oct 18, 2026
+ */
+abstract class CompositePointIteratorParallel extends PointIteratorAbstract {
+  static private final int BATCH_SIZE = 500;  // features in a batch
+  static private final int QUEUE_BATCHES = 8; // batches waiting, per dataset being read
+
+  static private long abandonMillis = 5 * 60 * 1000;
+
+  // for testing
+  static void setAbandonMillis(long millis) {
+    abandonMillis = millis;
+  }
+
+  /**
+   * Open a dataset.
+   * @param td the dataset
+   * @return the opened dataset, or null to skip it
+   * @throws IOException on read error
+   */
+  protected abstract FeatureDatasetPoint openDataset(TimedCollection.Dataset td) throws IOException;
+
+  /**
+   * Get the features wanted from an opened dataset.
+   * @param fdp        from openDataset()
+   * @param bufferSize buffer size hint
+   * @return the iterator, or null to skip the dataset
+   * @throws IOException on read error
+   */
+  protected abstract PointFeatureIterator getIterator(FeatureDatasetPoint fdp, int bufferSize) throws IOException;
+
+  private final Iterator<TimedCollection.Dataset> datasets;
+  private final Executor executor;
+  private final int maxParallel;
+  private final boolean timeOrder;
+  private final LatLonRect filter_bb;
+  private final CalendarDateRange filter_date;
+
+  private final LinkedList<Reader> readers = new LinkedList<Reader>(); // started and not yet drained, in list order
+  private final Channel shared; // all readers use this when not in time order
+  private int bufferSize = -1;
+
+  private List<PointFeature> batch;
+  private int batchPos;
+  private boolean finished = false;
+
+  // when the caller last took a batch, and if it is waiting for one now; read by the readers
+  private volatile long lastTake = System.currentTimeMillis();
+  private volatile boolean taking = false;
+
+  /**
+   * Constructor.
+   * @param datasets    iterate over these datasets
+   * @param executor    read the datasets with this; if null, read each dataset whole in the calling thread
+   * @param maxParallel read at most this many datasets at once
+   * @param timeOrder   hand out the features in the order of the datasets, else in the order they are read
+   * @param filter_bb   only features inside this, may be null
+   * @param filter_date only features inside this, may be null
+   */
+  CompositePointIteratorParallel(List<TimedCollection.Dataset> datasets, Executor executor, int maxParallel, boolean timeOrder,
+                                 LatLonRect filter_bb, CalendarDateRange filter_date) {
+    this.datasets = datasets.iterator();
+    this.executor = executor;
+    this.maxParallel = Math.max(1, maxParallel);
+    this.timeOrder = timeOrder;
+    this.filter_bb = filter_bb;
+    this.filter_date = filter_date;
+    this.shared = timeOrder ? null : new Channel(this.maxParallel * QUEUE_BATCHES);
+  }
+
+  public boolean hasNext() throws IOException {
+    if (finished) return false;
+    while ((batch == null) || (batchPos >= batch.size())) {
+      batch = nextBatch();
+      batchPos = 0;
+      if (batch == null) {
+        finish();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public PointFeature next() throws IOException {
+    if ((batch == null) || (batchPos >= batch.size())) return null;
+    PointFeature pf = batch.get(batchPos++);
+    calcBounds(pf);
+    return pf;
+  }
+
+  public void setBufferSize(int bytes) {
+    bufferSize = bytes;
+  }
+
+  public void finish() {
+    if (finished) return;
+    for (Reader r : readers)
+      r.cancelled = true; // each closes its own dataset
+    readers.clear();
+    batch = null;
+    finishCalcBounds();
+    finished = true;
+  }
+
+  // next batch, or null when all datasets are done
+  private List<PointFeature> nextBatch() throws IOException {
+    while (true) {
+      startReaders();
+      if (readers.isEmpty()) return null;
+
+      Batch b;
+      taking = true;
+      try {
+        if (timeOrder) {
+          b = readers.getFirst().channel.take();
+        } else {
+          b = shared.take();
+        }
+      } finally {
+        lastTake = System.currentTimeMillis();
+        taking = false;
+      }
+
+      if (b.last) readers.remove(b.from);
+      if (b.error != null) {
+        finish();
+        if (b.error instanceof IOException) throw (IOException) b.error;
+        throw new IOException(b.from.td.getLocation(), b.error);
+      }
+      if (b.features.size() > 0) return b.features;
+    }
+  }
+
+  private void startReaders() {
+    while ((readers.size() < maxParallel) && datasets.hasNext()) {
+      Reader r = new Reader(datasets.next(), timeOrder ? new Channel(QUEUE_BATCHES) : shared);
+      readers.add(r);
+      try {
+        if (executor == null) throw new RejectedExecutionException();
+        executor.execute(r);
+      } catch (RejectedExecutionException e) {
+        r.channel.unbounded = true; // read it here, all at once
+        r.run();
+      }
+    }
+  }
+
+  // the caller has not taken a batch for too long
+  private boolean isAbandoned() {
+    return !taking && (System.currentTimeMillis() - lastTake > abandonMillis);
+  }
+
+  private boolean filter(PointFeature pdata) {
+    if ((filter_date != null) && !filter_date.includes(pdata.getObservationTimeAsCalendarDate()))
+      return false;
+
+    if ((filter_bb != null) && !filter_bb.contains(pdata.getLocation().getLatitude(), pdata.getLocation().getLongitude()))
+      return false;
+
+    return true;
+  }
+
+  static private class Batch {
+    final Reader from;
+    final List<PointFeature> features;
+    final boolean last;      // no more batches from this reader
+    final Throwable error;
+
+    Batch(Reader from, List<PointFeature> features, boolean last, Throwable error) {
+      this.from = from;
+      this.features = features;
+      this.last = last;
+      this.error = error;
+    }
+  }
+
+  // a queue of batches; a Semaphore bounds how many wait, so the last batch can always be added
+  static private class Channel {
+    private final LinkedBlockingQueue<Batch> queue = new LinkedBlockingQueue<Batch>();
+    private final Semaphore space;
+    volatile boolean unbounded = false;
+
+    Channel(int capacity) {
+      space = new Semaphore(capacity);
+    }
+
+    // false if the reader was cancelled or abandoned while waiting
+    boolean put(Batch b, Reader from) {
+      if (!b.last && !unbounded) {
+        try {
+          while (!space.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            if (from.cancelled) return false;
+            if (from.isAbandoned()) {
+              from.abandoned = true;
+              return false;
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      queue.add(b);
+      return true;
+    }
+
+    Batch take() throws IOException {
+      try {
+        Batch b = queue.take();
+        if (!b.last) space.release();
+        return b;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("interrupted waiting for point features", e);
+      }
+    }
+  }
+
+  // open one dataset, read and filter its features into the channel, close it
+  private class Reader implements Runnable {
+    final TimedCollection.Dataset td;
+    final Channel channel;
+    volatile boolean cancelled = false;
+    boolean abandoned = false; // only used by the reading thread
+
+    Reader(TimedCollection.Dataset td, Channel channel) {
+      this.td = td;
+      this.channel = channel;
+    }
+
+    boolean isAbandoned() {
+      return CompositePointIteratorParallel.this.isAbandoned();
+    }
+
+    public void run() {
+      FeatureDatasetPoint fdp = null;
+      PointFeatureIterator pfIter = null;
+      Throwable error = null;
+      List<PointFeature> features = new ArrayList<PointFeature>(BATCH_SIZE);
+      try {
+        if (!cancelled) fdp = openDataset(td);
+        if (fdp != null && !cancelled) pfIter = getIterator(fdp, bufferSize);
+        if (pfIter != null) {
+          while (!cancelled && pfIter.hasNext()) {
+            PointFeature pf = pfIter.next();
+            if (!filter(pf)) continue;
+            pf.getData(); // the dataset is closed before the caller sees the feature
+            features.add(pf);
+            if (features.size() >= BATCH_SIZE) {
+              if (!channel.put(new Batch(this, features, false, null), this)) break;
+              features = new ArrayList<PointFeature>(BATCH_SIZE);
+            }
+          }
+        }
+
+      } catch (Throwable t) {
+        error = t;
+
+      } finally {
+        if (pfIter != null) pfIter.finish();
+        if (fdp != null) {
+          try {
+            fdp.close();
+          } catch (IOException ioe) {
+            if (error == null) error = ioe;
+          }
+        }
+        if (abandoned && (error == null))
+          error = new IOException("no point features taken for " + abandonMillis / 1000 + " secs, stopped reading " + td.getLocation());
+        boolean keep = !cancelled && !abandoned;
+        channel.put(new Batch(this, keep ? features : Collections.<PointFeature>emptyList(), true, error), this);
+      }
+    }
+  }
+
+}
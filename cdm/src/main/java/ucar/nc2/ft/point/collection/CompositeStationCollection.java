@@ -43,6 +43,7 @@ import ucar.unidata.geoloc.LatLonRect;
 import ucar.unidata.geoloc.Station;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Formatter;
 import java.util.List;
@@ -56,6 +57,7 @@ import java.util.List;
 public class CompositeStationCollection extends StationTimeSeriesCollectionImpl implements UpdateableCollection {
   private TimedCollection dataCollection;
   protected List<VariableSimpleIF> dataVariables;
+  PointCollectionIndex index; // may be null
 
   protected CompositeStationCollection(String name, TimedCollection dataCollection,
                                        List<Station> stns, List<VariableSimpleIF> dataVariables) throws IOException {
@@ -115,6 +117,8 @@ public class CompositeStationCollection extends StationTimeSeriesCollectionImpl
   @Override
   public void update() {
     dataCollection.update();
+    if (index != null)
+      index.updateInBackground(dataCollection, CompositeDatasetFactory.executor);
   }
 
   // Must override default subsetting implementation for efficiency
@@ -123,14 +127,18 @@ public class CompositeStationCollection extends StationTimeSeriesCollectionImpl
   @Override
   public StationTimeSeriesFeatureCollection subset(List<Station> stations) throws IOException {
     if (stations == null) return this;
-    return new CompositeStationCollection(getName(), dataCollection, stations, dataVariables);
+    CompositeStationCollection subset = new CompositeStationCollection(getName(), dataCollection, stations, dataVariables);
+    subset.index = index;
+    return subset;
   }
 
   @Override
   public StationTimeSeriesFeatureCollection subset(ucar.unidata.geoloc.LatLonRect boundingBox) throws IOException {
     if (boundingBox == null) return this;
     List<Station> stations = stationHelper.getStations(boundingBox);
-    return new CompositeStationCollection(getName(), dataCollection, stations, dataVariables);
+    CompositeStationCollection subset = new CompositeStationCollection(getName(), dataCollection, stations, dataVariables);
+    subset.index = index;
+    return subset;
   }
 
   @Override
@@ -141,6 +149,8 @@ public class CompositeStationCollection extends StationTimeSeriesCollectionImpl
   @Override
   public PointFeatureCollection flatten(LatLonRect boundingBox, CalendarDateRange dateRange) throws IOException {
     TimedCollection subsetCollection = (dateRange != null) ? dataCollection.subset(dateRange) : dataCollection;
+    if (index != null)
+      subsetCollection = index.subset(subsetCollection, boundingBox, dateRange, null);
     return new CompositeStationCollectionFlattened(getName(), boundingBox, dateRange, subsetCollection);
 
     //return flatten(stationHelper.getStations(boundingBox), dateRange, null);
@@ -149,6 +159,8 @@ public class CompositeStationCollection extends StationTimeSeriesCollectionImpl
   @Override
   public PointFeatureCollection flatten(List<String> stations, CalendarDateRange dateRange, List<VariableSimpleIF> varList) throws IOException {
     TimedCollection subsetCollection = (dateRange != null) ? dataCollection.subset(dateRange) : dataCollection;
+    if (index != null)
+      subsetCollection = index.subset(subsetCollection, null, dateRange, stations);
     return new CompositeStationCollectionFlattened(getName(), stations, dateRange, varList, subsetCollection);
   }
 
@@ -226,7 +238,9 @@ public class CompositeStationCollection extends StationTimeSeriesCollectionImpl
       private boolean finished = false;
 
       CompositeStationFeatureIterator() {
-        iter = collForFeature.getDatasets().iterator();
+        // skip the datasets that dont have this station
+        TimedCollection coll = (index == null) ? collForFeature : index.subset(collForFeature, null, null, Collections.singletonList(getName()));
+        iter = coll.getDatasets().iterator();
       }
 
       private PointFeatureIterator getNextIterator() throws IOException {
@@ -83,12 +83,55 @@ public class CompositeStationCollectionFlattened extends PointCollectionImpl {
   }
 
   public PointFeatureIterator getPointFeatureIterator(int bufferSize) throws IOException {
-    PointIterator iter = new PointIterator();
+    PointIteratorAbstract iter;
+    if (CompositeDatasetFactory.executor != null) {
+      iter = new CompositePointIteratorParallel(stnCollections.getDatasets(), CompositeDatasetFactory.executor,
+              CompositeDatasetFactory.maxParallel, CompositeDatasetFactory.timeOrder, null, null) {
+
+        protected FeatureDatasetPoint openDataset(TimedCollection.Dataset td) throws IOException {
+          return openStationDataset(td);
+        }
+
+        protected PointFeatureIterator getIterator(FeatureDatasetPoint fdp, int bufferSize) throws IOException {
+          return flatten(fdp).getPointFeatureIterator(bufferSize);
+        }
+      };
+      iter.setBufferSize(bufferSize);
+
+    } else {
+      iter = new PointIterator();
+    }
+
     if ((boundingBox == null) || (dateRange == null) || (npts < 0))
       iter.setCalculateBounds(this);
     return iter;
   }
 
+  private FeatureDatasetPoint openStationDataset(TimedCollection.Dataset td) throws IOException {
+    Formatter errlog = new Formatter();
+    FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.STATION, td.getLocation(), null, errlog);
+    if (fdp == null) {
+      logger.error("FeatureDatasetFactoryManager failed to open: " + td.getLocation() + " \nerrlog = " + errlog);
+      return null;
+    }
+
+    if (CompositeDatasetFactory.debug)
+      System.out.printf("CompositeStationCollectionFlattened.Iterator open new dataset: %s%n", td.getLocation());
+    return fdp;
+  }
+
+  // the wanted stations of one dataset, flattened
+  private PointFeatureCollection flatten(FeatureDatasetPoint fdp) throws IOException {
+    // it will have a StationTimeSeriesFeatureCollection
+    List<FeatureCollection> fcList = fdp.getPointFeatureCollectionList();
+    StationTimeSeriesFeatureCollection stnCollection = (StationTimeSeriesFeatureCollection) fcList.get(0);
+
+    if (wantStationsubset)
+      return stnCollection.flatten(stationsSubset, dateRange, varList);
+    else
+      return stnCollection.flatten(bbSubset, dateRange);
+  }
+
   private class PointIterator extends PointIteratorAbstract {
     private boolean finished = false;
     private int bufferSize = -1;
@@ -103,29 +146,13 @@ public class CompositeStationCollectionFlattened extends PointCollectionImpl {
     private PointFeatureIterator getNextIterator() throws IOException {
       if (!iter.hasNext()) return null;
       TimedCollection.Dataset td = iter.next();
-      Formatter errlog = new Formatter();
 
       // open the next dataset
-      currentDataset = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(FeatureType.STATION, td.getLocation(), null, errlog);
-      if (currentDataset == null) {
-        logger.error("FeatureDatasetFactoryManager failed to open: " + td.getLocation() + " \nerrlog = " + errlog);
+      currentDataset = openStationDataset(td);
+      if (currentDataset == null)
         return getNextIterator();
-      }
-
-      if (CompositeDatasetFactory.debug)
-        System.out.printf("CompositeStationCollectionFlattened.Iterator open new dataset: %s%n", td.getLocation());
-
-      // it will have a StationTimeSeriesFeatureCollection
-      List<FeatureCollection> fcList = currentDataset.getPointFeatureCollectionList();
-      StationTimeSeriesFeatureCollection stnCollection = (StationTimeSeriesFeatureCollection) fcList.get(0);
-
-      PointFeatureCollection pc = null;
-      if (wantStationsubset)
-        pc = stnCollection.flatten(stationsSubset, dateRange, varList);
-      else
-        pc = stnCollection.flatten(bbSubset, dateRange);
 
-      return pc.getPointFeatureIterator(bufferSize);
+      return flatten(currentDataset).getPointFeatureIterator(bufferSize);
     }
 
     public boolean hasNext() throws IOException {
@@ -0,0 +1,431 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ft.point.collection;
+
+import thredds.inventory.CollectionManager;
+import thredds.inventory.CollectionManagerAbstract;
+import thredds.inventory.MFile;
+import thredds.inventory.TimedCollection;
+import ucar.nc2.constants.FeatureType;
+import ucar.nc2.ft.*;
+import ucar.nc2.time.CalendarDate;
+import ucar.nc2.time.CalendarDateRange;
+import ucar.unidata.geoloc.LatLonRect;
+import ucar.unidata.geoloc.Station;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A summary of each dataset in a point or station collection: bounding box, time range, station names
+ * and number of records. Subsetting the collection uses these to skip datasets that have nothing wanted,
+ * instead of opening and scanning every one of them.
+ * <p>
+ * A dataset is scanned in the background when the collection is opened, and when the collection is rescanned. Its
+ * summary is kept in the collection's MetadataManager, so it is scanned again only when the file changes.
+ * A dataset with no current summary is never skipped, so subsetting works while the summaries are being made.
+ *
+ * @since Oct 18, 2026
+ */
+public class PointCollectionIndex {
+  static private org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PointCollectionIndex.class);
+  static private final String KEY = "pointSummary";
+  static private final int VERSION = 1;
+  static boolean debug = false;
+  static private Timer timer; // runs background updates when there is no Executor
+
+  private final CollectionManager manager;
+  private final FeatureType featureType;
+  private final Map<String, Summary> summaries = new ConcurrentHashMap<String, Summary>(); // key is location
+  private final Map<String, String> names = new HashMap<String, String>(); // share station names between summaries
+  private volatile boolean useMetadata;
+
+  /**
+   * Constructor.
+   * @param manager     the collection; if a CollectionManagerAbstract, the summaries are stored in its MetadataManager
+   * @param featureType POINT or STATION
+   */
+  public PointCollectionIndex(CollectionManager manager, FeatureType featureType) {
+    this.manager = manager;
+    this.featureType = featureType;
+    this.useMetadata = (manager instanceof CollectionManagerAbstract);
+  }
+
+  /**
+   * Make sure each dataset of the collection has a current summary, scanning the ones that dont.
+   * Summaries of datasets no longer in the collection are dropped.
+   * @param collection the datasets of the collection
+   */
+  public synchronized void update(TimedCollection collection) {
+    Set<String> current = new HashSet<String>();
+    int nscan = 0;
+    for (TimedCollection.Dataset td : collection.getDatasets()) {
+      current.add(td.getLocation());
+      try {
+        if (summarize(td)) nscan++;
+      } catch (Throwable t) {
+        logger.warn("PointCollectionIndex failed to summarize " + td.getLocation(), t);
+      }
+    }
+    summaries.keySet().retainAll(current);
+    if (debug) System.out.printf("PointCollectionIndex %s: %d datasets, %d scanned%n", manager.getCollectionName(), current.size(), nscan);
+  }
+
+  /**
+   * Call update() in the background, so that opening the collection does not wait for the datasets to be scanned.
+   * @param collection the datasets of the collection
+   * @param executor   run the update with this; if null, or it rejects the task, use a daemon Timer thread
+   */
+  public void updateInBackground(final TimedCollection collection, Executor executor) {
+    if (executor != null) {
+      try {
+        executor.execute(new Runnable() {
+          public void run() {
+            updateLogErrors(collection);
+          }
+        });
+        return;
+      } catch (RejectedExecutionException e) {
+        // use the timer
+      }
+    }
+    getTimer().schedule(new TimerTask() {
+      public void run() {
+        updateLogErrors(collection);
+      }
+    }, 0);
+  }
+
+  private void updateLogErrors(TimedCollection collection) {
+    try {
+      update(collection);
+    } catch (Throwable t) {
+      logger.error("PointCollectionIndex update failed on " + manager.getCollectionName(), t);
+    }
+  }
+
+  static private synchronized Timer getTimer() {
+    if (timer == null)
+      timer = new Timer("PointCollectionIndex", true);
+    return timer;
+  }
+
+  /**
+   * Get the current summary of a dataset.
+   * @param td the dataset
+   * @return its summary, or null if it has none or the file has changed since
+   */
+  public Summary getSummary(TimedCollection.Dataset td) {
+    Summary s = summaries.get(td.getLocation());
+    return (s != null) && s.isCurrent(td.getMFile()) ? s : null;
+  }
+
+  /**
+   * Subset a collection to the datasets that may have features wanted.
+   * @param collection subset this, may already be subset by date
+   * @param bb         want features inside this, may be null
+   * @param dateRange  want features inside this, may be null
+   * @param stations   want features from these stations, may be null or empty
+   * @return subsetted collection, or the same collection if no dataset can be skipped
+   */
+  public TimedCollection subset(TimedCollection collection, LatLonRect bb, CalendarDateRange dateRange, List<String> stations) {
+    List<TimedCollection.Dataset> datasets = collection.getDatasets();
+    List<TimedCollection.Dataset> want = new ArrayList<TimedCollection.Dataset>(datasets.size());
+    for (TimedCollection.Dataset td : datasets) {
+      Summary s = getSummary(td);
+      if ((s == null) || s.intersects(bb, dateRange, stations))
+        want.add(td);
+    }
+
+    if (debug) System.out.printf("PointCollectionIndex subset %d of %d datasets%n", want.size(), datasets.size());
+    return (want.size() == datasets.size()) ? collection : collection.subset(want);
+  }
+
+  // return true if the dataset was scanned
+  private boolean summarize(TimedCollection.Dataset td) throws IOException {
+    MFile mfile = td.getMFile();
+    if (getSummary(td) != null) return false;
+
+    Summary s = null;
+    byte[] b = getMetadata(mfile);
+    if (b != null) {
+      s = decode(b);
+      if ((s != null) && !s.isCurrent(mfile)) s = null;
+    }
+
+    boolean scanned = (s == null);
+    if (scanned) {
+      s = scan(td.getLocation(), mfile.getLastModified());
+      putMetadata(mfile, s.encode());
+    }
+    summaries.put(td.getLocation(), s);
+    return scanned;
+  }
+
+  private byte[] getMetadata(MFile mfile) {
+    if (!useMetadata) return null;
+    try {
+      return ((CollectionManagerAbstract) manager).getMetadata(mfile, KEY);
+    } catch (RuntimeException e) {
+      logger.warn("PointCollectionIndex cant use MetadataManager for " + manager.getCollectionName() + "; summaries will not persist", e);
+      useMetadata = false;
+      return null;
+    }
+  }
+
+  private void putMetadata(MFile mfile, byte[] value) {
+    if (!useMetadata) return;
+    try {
+      ((CollectionManagerAbstract) manager).putMetadata(mfile, KEY, value);
+    } catch (RuntimeException e) {
+      logger.warn("PointCollectionIndex cant use MetadataManager for " + manager.getCollectionName() + "; summaries will not persist", e);
+      useMetadata = false;
+    }
+  }
+
+  // read all the features of one dataset
+  private Summary scan(String location, long lastModified) throws IOException {
+    Formatter errlog = new Formatter();
+    FeatureDatasetPoint fdp = (FeatureDatasetPoint) FeatureDatasetFactoryManager.open(featureType, location, null, errlog);
+    if (fdp == null)
+      throw new IOException("FeatureDatasetFactoryManager failed to open: " + location + " \nerrlog = " + errlog);
+
+    try {
+      FeatureCollection fc = fdp.getPointFeatureCollectionList().get(0);
+      StationTimeSeriesFeatureCollection stnCollection = null;
+      PointFeatureCollection pc;
+      if (featureType == FeatureType.STATION) {
+        stnCollection = (StationTimeSeriesFeatureCollection) fc;
+        pc = stnCollection.flatten((List<String>) null, (CalendarDateRange) null, null);
+      } else {
+        pc = (PointFeatureCollection) fc;
+      }
+
+      Summary s = new Summary(lastModified);
+      Set<String> stns = (stnCollection == null) ? null : new HashSet<String>();
+      PointFeatureIterator iter = pc.getPointFeatureIterator(-1);
+      try {
+        while (iter.hasNext()) {
+          PointFeature pf = iter.next();
+          s.add(pf.getLocation().getLatitude(), pf.getLocation().getLongitude(), pf.getObservationTimeAsCalendarDate());
+          if (stns != null) {
+            Station stn = stnCollection.getStation(pf);
+            if (stn != null) stns.add(stn.getName());
+          }
+        }
+      } finally {
+        iter.finish();
+      }
+
+      if (stns != null)
+        s.setStations(share(stns.toArray(new String[stns.size()])));
+      if (debug) System.out.printf("PointCollectionIndex scan %s = %s%n", location, s);
+      return s;
+
+    } finally {
+      fdp.close();
+    }
+  }
+
+  private String[] share(String[] stns) {
+    synchronized (names) {
+      for (int i = 0; i < stns.length; i++) {
+        String had = names.get(stns[i]);
+        if (had == null)
+          names.put(stns[i], stns[i]);
+        else
+          stns[i] = had;
+      }
+    }
+    return stns;
+  }
+
+  // for testing
+  void putSummary(String location, Summary s) {
+    summaries.put(location, s);
+  }
+
+  Summary decode(byte[] b) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(b));
+      if (in.readInt() != VERSION) return null;
+      Summary s = new Summary(in.readLong());
+      s.nrecords = in.readInt();
+      s.latMin = in.readDouble();
+      s.latMax = in.readDouble();
+      s.lonMin = in.readDouble();
+      s.lonMax = in.readDouble();
+      s.timeStart = in.readLong();
+      s.timeEnd = in.readLong();
+      int nstns = in.readInt();
+      if (nstns >= 0) {
+        String[] stns = new String[nstns];
+        for (int i = 0; i < nstns; i++)
+          stns[i] = in.readUTF();
+        s.setStations(share(stns));
+      }
+      return s;
+
+    } catch (IOException e) {
+      logger.warn("PointCollectionIndex bad summary in MetadataManager for " + manager.getCollectionName(), e);
+      return null;
+    }
+  }
+
+  /**
+   * The summary of one dataset.
+   */
+  static public class Summary {
+    private final long lastModified;
+    private int nrecords;
+    private double latMin = Double.MAX_VALUE, latMax = -Double.MAX_VALUE;
+    private double lonMin = Double.MAX_VALUE, lonMax = -Double.MAX_VALUE;
+    private long timeStart = Long.MAX_VALUE, timeEnd = Long.MIN_VALUE;
+    private String[] stations; // sorted; null if not a station dataset
+
+    Summary(long lastModified) {
+      this.lastModified = lastModified;
+    }
+
+    void add(double lat, double lon, CalendarDate date) {
+      nrecords++;
+      if (!Double.isNaN(lat)) {
+        latMin = Math.min(latMin, lat);
+        latMax = Math.max(latMax, lat);
+      }
+      if (!Double.isNaN(lon)) {
+        lonMin = Math.min(lonMin, lon);
+        lonMax = Math.max(lonMax, lon);
+      }
+      if (date != null) {
+        timeStart = Math.min(timeStart, date.getMillis());
+        timeEnd = Math.max(timeEnd, date.getMillis());
+      }
+    }
+
+    void setStations(String[] stations) {
+      Arrays.sort(stations);
+      this.stations = stations;
+    }
+
+    boolean isCurrent(MFile mfile) {
+      return (mfile == null) || (mfile.getLastModified() == lastModified);
+    }
+
+    public int getNrecords() {
+      return nrecords;
+    }
+
+    /**
+     * @return the names of the stations with records, or null if not a station dataset
+     */
+    public List<String> getStations() {
+      return (stations == null) ? null : Collections.unmodifiableList(Arrays.asList(stations));
+    }
+
+    /**
+     * Could this dataset have features in the subset ?
+     * Features with missing locations or times always count as being inside.
+     * @param bb        bounding box, may be null
+     * @param dateRange date range, may be null
+     * @param stns      station names, may be null or empty
+     * @return false if it has none
+     */
+    public boolean intersects(LatLonRect bb, CalendarDateRange dateRange, List<String> stns) {
+      if (nrecords == 0) return false;
+      return intersects(bb) && intersects(dateRange) && hasAny(stns);
+    }
+
+    private boolean intersects(LatLonRect bb) {
+      if ((bb == null) || (latMin > latMax) || (lonMin > lonMax)) return true;
+      if ((latMax < bb.getLatMin()) || (latMin > bb.getLatMax())) return false;
+      if (lonMax - lonMin >= 360.0) return true;
+      for (int k = -1; k <= 1; k++) { // lon may be in either [-180,180] or [0,360]
+        double shift = 360.0 * k;
+        if ((lonMax + shift >= bb.getLonMin()) && (lonMin + shift <= bb.getLonMax()))
+          return true;
+      }
+      return false;
+    }
+
+    private boolean intersects(CalendarDateRange dateRange) {
+      if ((dateRange == null) || (timeStart > timeEnd)) return true;
+      return (timeEnd >= dateRange.getStart().getMillis()) && (timeStart <= dateRange.getEnd().getMillis());
+    }
+
+    private boolean hasAny(List<String> stns) {
+      if ((stations == null) || (stns == null) || (stns.size() == 0)) return true;
+      for (String name : stns)
+        if (Arrays.binarySearch(stations, name) >= 0) return true;
+      return false;
+    }
+
+    byte[] encode() throws IOException {
+      ByteArrayOutputStream bout = new ByteArrayOutputStream(64 + ((stations == null) ? 0 : 8 * stations.length));
+      DataOutputStream out = new DataOutputStream(bout);
+      out.writeInt(VERSION);
+      out.writeLong(lastModified);
+      out.writeInt(nrecords);
+      out.writeDouble(latMin);
+      out.writeDouble(latMax);
+      out.writeDouble(lonMin);
+      out.writeDouble(lonMax);
+      out.writeLong(timeStart);
+      out.writeLong(timeEnd);
+      if (stations == null) {
+        out.writeInt(-1);
+      } else {
+        out.writeInt(stations.length);
+        for (String name : stations)
+          out.writeUTF(name);
+      }
+      out.flush();
+      return bout.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+      Formatter f = new Formatter();
+      f.format("nrecords=%d lat=[%f,%f] lon=[%f,%f]", nrecords, latMin, latMax, lonMin, lonMax);
+      if (timeStart <= timeEnd)
+        f.format(" time=[%s,%s]", CalendarDate.of(timeStart), CalendarDate.of(timeEnd));
+      if (stations != null)
+        f.format(" nstations=%d", stations.length);
+      return f.toString();
+    }
+  }
+
+}
@@ -34,29 +34,38 @@ package ucar.nc2.iosp;
 
 import ucar.unidata.io.RandomAccessFile;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Helper for reading data that has been bit packed.
+ * <p>
+ * Reads from the RandomAccessFile a byte at a time, or, when constructed with the length of the packed data,
+ * reads it all into memory at once and takes the bits from the array.
+ * The array case also has a bulk method that unpacks many values of the same width in one call.
  *
  * @author caron
  * @since Apr 7, 2008
  */
 public class BitReader {
+  static private final int PAD = 8; // array is padded so a whole word can always be loaded
+
   private RandomAccessFile raf;
   private long startPos;
 
-  private byte[] test;
-  private int testPos = 0;
-
   private int bitBuf = 0; // current byte
   private int bitPos = 0; // Current bit position in bitBuf.
 
-  // for testing
-  BitReader(byte[] test) {
-    this.test = test;
-    this.testPos = 0;
-    this.bitBuf = 0;
-    this.bitPos = 0;
+  private byte[] buf;     // all of the packed data, if read at once
+  private long bitIndex;  // next bit to read from buf
+
+  /**
+   * Read packed bits from a byte array.
+   * @param packed the packed data
+   */
+  public BitReader(byte[] packed) {
+    this.buf = new byte[packed.length + PAD];
+    System.arraycopy(packed, 0, buf, 0, packed.length);
+    this.bitIndex = 0;
   }
 
   /**
@@ -71,10 +80,31 @@ public class BitReader {
     raf.seek(startPos);
   }
 
+  /**
+   * Constructor that reads all of the packed data into memory in one read.
+   * Use this when the length of the packed data is known.
+   * @param raf the RandomAccessFile
+   * @param startPos points to start of data in data section, in bytes
+   * @param nbytes length of the packed data, in bytes
+   * @throws IOException on read error
+   */
+  public BitReader( RandomAccessFile raf, long startPos, int nbytes) throws IOException {
+    this.startPos = startPos;
+    int n = (int) Math.max(0, Math.min(nbytes, raf.length() - startPos)); // truncated file reads zeroes at the end
+    this.buf = new byte[n + PAD];
+    raf.seek(startPos);
+    raf.readFully(buf, 0, n);
+    this.bitIndex = 0;
+  }
+
   /**
    * Go to the next byte in the stream
    */
   public void incrByte() {
+    if (buf != null) {
+      bitIndex = (bitIndex + 7) & ~7L;
+      return;
+    }
     this.bitPos = 0;
   }
 
@@ -84,6 +114,11 @@ public class BitReader {
    * @throws IOException on io error
    */
   public void setBitOffset(int bitOffset) throws IOException {
+    if (buf != null) {
+      bitIndex = bitOffset;
+      return;
+    }
+
     if (bitOffset % 8 == 0) {
       raf.seek(startPos + bitOffset/8);
       bitPos = 0;
@@ -100,8 +135,7 @@ public class BitReader {
   }
 
   private int nextByte() throws IOException {
-    if (raf != null) return raf.read();
-    return (int) test[testPos++];
+    return raf.read();
   }
 
   /**
@@ -112,6 +146,8 @@ public class BitReader {
    * @throws java.io.IOException on read error
    */
   public long bits2UInt(int nb) throws IOException {
+    if (buf != null)
+      return bufBits(nb);
 
     int bitsLeft = nb;
     int result = 0;
@@ -144,8 +180,118 @@ public class BitReader {
     }
   }
 
+  // one value from the array: a single 64 bit load covers up to 57 bits at any bit offset
+  private long bufBits(int nb) {
+    if (nb <= 0) return 0;
+    if (nb > 57) {
+      long high = bufBits(nb - 32);
+      return (high << 32) | bufBits(32);
+    }
+    ensure(bitIndex + 64);
+    long word = getLong(buf, (int) (bitIndex >>> 3));
+    long result = (word << (bitIndex & 7)) >>> (64 - nb);
+    bitIndex += nb;
+    return result;
+  }
+
+  /**
+   * Read n values of nb bits each, same as calling bits2UInt(nb) n times.
+   * This is much faster when the packed data was read into memory.
+   *
+   * @param nb     number of bits in each value. A 32 bit value may come back negative,
+   *               wider values are truncated to their low 32 bits, as if cast to int.
+   * @param n      number of values
+   * @param result put values here
+   * @param offset starting at this index
+   * @throws IOException on read error
+   */
+  public void bits2UInt(int nb, int n, int[] result, int offset) throws IOException {
+    if (buf == null || nb > 32) {
+      for (int i = 0; i < n; i++)
+        result[offset + i] = (int) bits2UInt(nb);
+      return;
+    }
+
+    if (n <= 0) return;
+    if (nb <= 0) {
+      Arrays.fill(result, offset, offset + n, 0);
+      return;
+    }
+
+    ensure(bitIndex + (long) nb * n);
+    int p = (int) (bitIndex >>> 3);
+    if ((bitIndex & 7) == 0) {  // common widths, byte aligned
+      switch (nb) {
+        case 8:
+          for (int i = 0; i < n; i++)
+            result[offset + i] = buf[p++] & 0xff;
+          bitIndex += 8L * n;
+          return;
+
+        case 12: {
+          int i = 0;
+          for (; i + 1 < n; i += 2, p += 3) { // 2 values in 3 bytes
+            int b1 = buf[p + 1] & 0xff;
+            result[offset + i] = ((buf[p] & 0xff) << 4) | (b1 >>> 4);
+            result[offset + i + 1] = ((b1 & 0x0f) << 8) | (buf[p + 2] & 0xff);
+          }
+          if (i < n)
+            result[offset + i] = ((buf[p] & 0xff) << 4) | ((buf[p + 1] & 0xff) >>> 4);
+          bitIndex += 12L * n;
+          return;
+        }
+
+        case 16:
+          for (int i = 0; i < n; i++, p += 2)
+            result[offset + i] = ((buf[p] & 0xff) << 8) | (buf[p + 1] & 0xff);
+          bitIndex += 16L * n;
+          return;
+
+        case 24:
+          for (int i = 0; i < n; i++, p += 3)
+            result[offset + i] = ((buf[p] & 0xff) << 16) | ((buf[p + 1] & 0xff) << 8) | (buf[p + 2] & 0xff);
+          bitIndex += 24L * n;
+          return;
+      }
+    }
+
+    // general case: a 64 bit accumulator, refilled 32 bits at a time
+    int skip = (int) (bitIndex & 7);
+    long acc = buf[p++] & (0xff >>> skip);
+    int accBits = 8 - skip;
+    long mask = (1L << nb) - 1;
+    for (int i = 0; i < n; i++) {
+      if (accBits < nb) {
+        acc = (acc << 32) | (getInt(buf, p) & 0xffffffffL);
+        p += 4;
+        accBits += 32;
+      }
+      accBits -= nb;
+      result[offset + i] = (int) ((acc >>> accBits) & mask);
+    }
+    bitIndex += (long) nb * n;
+  }
+
+  // reading past the end of the packed data gets zeroes
+  private void ensure(long endBit) {
+    long need = (endBit + 7) / 8 + PAD;
+    if (need > buf.length)
+      buf = Arrays.copyOf(buf, (int) need);
+  }
+
+  static private int getInt(byte[] b, int p) {
+    return ((b[p] & 0xff) << 24) | ((b[p + 1] & 0xff) << 16) | ((b[p + 2] & 0xff) << 8) | (b[p + 3] & 0xff);
+  }
+
+  static private long getLong(byte[] b, int p) {
+    return ((long) getInt(b, p) << 32) | (getInt(b, p + 4) & 0xffffffffL);
+  }
+
   // debugging
-  public long getPos() throws IOException { return raf.getFilePointer(); }
+  public long getPos() throws IOException {
+    if (buf != null) return startPos + bitIndex / 8;
+    return raf.getFilePointer();
+  }
 
   static public void main( String args[]) throws IOException {
     BitReader bu = new BitReader(new byte[] {-1,2,4,8});
@@ -0,0 +1,234 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.iosp.hdf5;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A JVM-wide cache of decompressed HDF5 chunks, bounded by the number of bytes held.
+ * <p/>
+ * Chunks are keyed by file location, variable name, chunk offset and the file's last modified time, so
+ * all open copies of a file share the cache, and a rewritten file does not see stale chunks.
+ * Least recently used chunks are dropped first. Off (maxBytes = 0) by default.
+ *
+ * @since Oct 18, 2026
+ */
+@ThreadSafe
+public class H5chunkCache {
+  static private final H5chunkCache defaultCache = new H5chunkCache(0);
+
+  /**
+   * The cache used by H5iosp.
+   * @return the shared cache
+   */
+  static public H5chunkCache getDefault() {
+    return defaultCache;
+  }
+
+  //////////////////////////////////////////////////////////////////////////
+
+  @GuardedBy("this")
+  private long maxBytes;
+  @GuardedBy("this")
+  private final LinkedHashMap<Key, byte[]> lru = new LinkedHashMap<Key, byte[]>(100, .75f, true);
+  @GuardedBy("this")
+  private long bytes;
+
+  // stats
+  @GuardedBy("this")
+  private long hits, misses, evictions;
+
+  /**
+   * Constructor.
+   * @param maxBytes keep the chunks under this many bytes, 0 to not cache
+   */
+  public H5chunkCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Set the size of the cache, dropping chunks if needed.
+   * @param maxBytes keep the chunks under this many bytes, 0 to not cache
+   */
+  public synchronized void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    evict();
+  }
+
+  public synchronized long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public synchronized boolean isEnabled() {
+    return maxBytes > 0;
+  }
+
+  /**
+   * Get a decompressed chunk. The result is shared, and must not be modified.
+   * @param key the chunk
+   * @return the chunk bytes, or null if not in the cache
+   */
+  public synchronized byte[] get(Key key) {
+    if (maxBytes <= 0) return null;
+    byte[] data = lru.get(key);
+    if (data != null) hits++;
+    else misses++;
+    return data;
+  }
+
+  /**
+   * Add a decompressed chunk. The caller must not modify it afterwards.
+   * Chunks larger than the cache are not added.
+   * @param key the chunk
+   * @param data the chunk bytes
+   */
+  public synchronized void put(Key key, byte[] data) {
+    if (data.length > maxBytes) return;
+    byte[] old = lru.put(key, data);
+    if (old != null) bytes -= old.length;
+    bytes += data.length;
+    evict();
+  }
+
+  @GuardedBy("this")
+  private void evict() {
+    Iterator<byte[]> iter = lru.values().iterator();
+    while (bytes > maxBytes && iter.hasNext()) {
+      bytes -= iter.next().length;
+      iter.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * Remove all chunks.
+   */
+  public synchronized void clearCache() {
+    lru.clear();
+    bytes = 0;
+  }
+
+  public synchronized long getBytesUsed() {
+    return bytes;
+  }
+
+  public synchronized int getCount() {
+    return lru.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Add stat report (hits, misses, etc) to formatter.
+   *
+   * @param format add to this
+   */
+  public synchronized void showStats(Formatter format) {
+    format.format("  hits= %d miss= %d evictions= %d nchunks= %d bytes= %d maxBytes= %d\n",
+            hits, misses, evictions, lru.size(), bytes, maxBytes);
+  }
+
+  /**
+   * Show the cache contents and stats.
+   *
+   * @param format add to this
+   */
+  public synchronized void showCache(Formatter format) {
+    format.format("H5chunkCache%n");
+    showStats(format);
+  }
+
+  /**
+   * Identifies a chunk of a variable in a file.
+   */
+  static public class Key {
+    private final String location;
+    private final String varName;
+    private final int[] offset;
+    private final long lastModified;
+    private final int hashCode;
+
+    /**
+     * Constructor.
+     * @param location file location
+     * @param varName variable full name
+     * @param offset chunk offset
+     * @param lastModified file last modified time
+     */
+    public Key(String location, String varName, int[] offset, long lastModified) {
+      this.location = location;
+      this.varName = varName;
+      this.offset = offset;
+      this.lastModified = lastModified;
+
+      int result = 17;
+      result = 31 * result + location.hashCode();
+      result = 31 * result + varName.hashCode();
+      result = 31 * result + Arrays.hashCode(offset);
+      result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+      this.hashCode = result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return hashCode == key.hashCode && lastModified == key.lastModified && Arrays.equals(offset, key.offset)
+              && varName.equals(key.varName) && location.equals(key.location);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return location + " " + varName + " " + Arrays.toString(offset);
+    }
+  }
+}
@@ -48,6 +48,7 @@ import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Formatter;
+import java.util.concurrent.Executor;
 
 /**
  * HDF5 I/O
@@ -72,6 +73,29 @@ public class H5iosp extends AbstractIOServiceProvider {
 
   static private org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(H5iosp.class);
 
+  // filtered chunks are decompressed on this executor, default is to decompress in the reading thread
+  static Executor chunkExecutor;
+  static int chunkReadAhead = 16;
+
+  /**
+   * Decompress filtered (eg deflated) chunks on this executor. The reading thread reads the raw chunk bytes ahead
+   * of use, in file order, and the executor runs the filters.
+   *
+   * @param exec use this executor, null to decompress in the reading thread.
+   */
+  static public void setChunkExecutor(Executor exec) {
+    chunkExecutor = exec;
+  }
+
+  /**
+   * Number of chunks a read may have read ahead when using the chunk executor.
+   *
+   * @param nchunks number of chunks, must be > 1 to read ahead.
+   */
+  static public void setChunkReadAhead(int nchunks) {
+    chunkReadAhead = nchunks;
+  }
+
   static public void setDebugFlags(ucar.nc2.util.DebugFlags debugFlag) {
     debug = debugFlag.isSet("H5iosp/read");
     debugPos = debugFlag.isSet("H5iosp/filePos");
@@ -38,14 +38,19 @@ import ucar.ma2.Section;
 import ucar.nc2.iosp.LayoutBB;
 import ucar.nc2.iosp.LayoutBBTiled;
 import ucar.nc2.Variable;
-import ucar.nc2.util.IO;
 import ucar.unidata.io.RandomAccessFile;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
 
 /**
  * Iterator to read/write subsets of an array.
@@ -65,9 +70,15 @@ class H5tiledLayoutBB implements LayoutBB {
   private Section want;
   private int[] chunkSize; // from the StorageLayout message (exclude the elemSize)
   private int elemSize; // last dimension of the StorageLayout message
+  private int chunkBytes; // uncompressed size of a chunk, 0 if unknown
   private int nChunkDims;
 
-  private boolean debug = false;
+  // decompressed chunks are shared through the chunk cache, if enabled
+  private H5chunkCache chunkCache;
+  private String varName;
+  private long lastModified;
+
+  static private boolean debug = false;
 
   /**
    * Constructor.
@@ -106,9 +117,25 @@ class H5tiledLayoutBB implements LayoutBB {
     System.arraycopy(vinfo.storageSize, 0, chunkSize, 0, nChunkDims);
     this.elemSize = vinfo.storageSize[vinfo.storageSize.length - 1]; // last one is always the elements size
 
+    long nbytes = elemSize;
+    for (int len : chunkSize) nbytes *= len;
+    this.chunkBytes = (nbytes < Integer.MAX_VALUE) ? (int) nbytes : 0;
+
+    H5chunkCache cache = H5chunkCache.getDefault();
+    if (cache.isEnabled() && (raf.getLocation() != null)) {
+      this.chunkCache = cache;
+      this.varName = v2.getFullName();
+      this.lastModified = raf.getLastModified();
+    }
+
     // create the data chunk iterator
     DataBTree.DataChunkIterator iter = vinfo.btree.getDataChunkIteratorFilter(this.want);
-    DataChunkIterator dcIter = new DataChunkIterator(iter);
+    LayoutBBTiled.DataChunkIterator dcIter;
+    Executor exec = H5iosp.chunkExecutor;
+    if ((exec != null) && (H5iosp.chunkReadAhead > 1))
+      dcIter = new ReadAheadChunkIterator(iter, exec, H5iosp.chunkReadAhead);
+    else
+      dcIter = new DataChunkIterator(iter);
     delegate = new LayoutBBTiled(dcIter, chunkSize, elemSize, this.want);
     
     if (debug) System.out.println(" H5tiledLayout: " + this);
@@ -175,92 +202,286 @@ class H5tiledLayoutBB implements LayoutBB {
       return offset;
     }
 
-    public ByteBuffer getByteBuffer() throws IOException {
-      // read the data
+    byte[] readRaw() throws IOException {
       byte[] data = new byte[delegate.size];
       raf.seek(delegate.filePos);
       raf.readFully(data);
+      return data;
+    }
 
-      // apply filters backwards
-      for (int i = filters.length - 1; i >= 0; i--) {
-        H5header.Filter f = filters[i];
-        if (isBitSet(delegate.filterMask, i)) {
-          if (debug) System.out.println("skip for chunk " + delegate);
-          continue;
-        }
-        if (f.id == 1) {
-          data = inflate(data);
-        } else if (f.id == 2) {
-          data = shuffle(data, f.data[0]);
-        } else if (f.id == 3) {
-          data = checkfletcher32(data);
-        } else
-          throw new RuntimeException("Unknown filter type="+f.id);
+    H5chunkCache.Key getCacheKey() {
+      return (chunkCache == null) ? null : new H5chunkCache.Key(raf.getLocation(), varName, delegate.offset, lastModified);
+    }
+
+    public ByteBuffer getByteBuffer() throws IOException {
+      H5chunkCache.Key key = getCacheKey();
+      if (key != null) {
+        byte[] data = chunkCache.get(key);
+        if (data != null) return wrap(data);
       }
 
-      ByteBuffer result = ByteBuffer.wrap(data);
-      result.order(byteOrder);
-      return result;
+      byte[] data = decode(readRaw(), delegate.filterMask);
+      if (key != null) chunkCache.put(key, data);
+      return wrap(data);
     }
+  }
 
-    /**
-     * inflate data
-     *
-     * @param compressed compressed data
-     * @return uncompressed data
-     * @throws IOException on I/O error
-     */
-    private byte[] inflate(byte[] compressed) throws IOException {
-      // run it through the Inflator
-      ByteArrayInputStream in = new ByteArrayInputStream(compressed);
-      java.util.zip.InflaterInputStream inflater = new java.util.zip.InflaterInputStream(in);
-      ByteArrayOutputStream out = new ByteArrayOutputStream(8 * compressed.length);
-      IO.copy(inflater, out);
-
-      byte[] uncomp = out.toByteArray();
-      if (debug) System.out.println(" inflate bytes in= " + compressed.length + " bytes out= " + uncomp.length);
-      return uncomp;
+  /////////////////////////////////////////////////////////////////////////////////////
+  // read ahead
+
+  /*
+   * Reads the chunks that intersect want ahead of the consumer. A batch of up to readAhead chunks is taken from the
+   * btree, their bytes are read in file order on the calling thread, and the filters are run on the executor.
+   * Chunks are returned in btree order; getByteBuffer() waits for the decoding to finish.
+   * Stops taking chunks from the btree once the chunks found cover the wanted section.
+   */
+  private class ReadAheadChunkIterator implements LayoutBBTiled.DataChunkIterator {
+    private final DataBTree.DataChunkIterator btreeIter;
+    private final Executor executor;
+    private final int readAhead;
+    private final ArrayDeque<PendingChunk> pending = new ArrayDeque<PendingChunk>();
+    private final long wantNelems;
+    private long foundNelems;
+    private IOException error; // from fill(), thrown by next()
+
+    ReadAheadChunkIterator(DataBTree.DataChunkIterator btreeIter, Executor executor, int readAhead) {
+      this.btreeIter = btreeIter;
+      this.executor = executor;
+      this.readAhead = readAhead;
+      this.wantNelems = want.computeSize();
     }
 
-    // just strip off the 4-byte fletcher32 checksum at the end
-    private byte[] checkfletcher32(byte[] org) throws IOException {
-      byte[] result = new byte[org.length-4];
-      System.arraycopy(org, 0, result, 0, result.length);
-      if (debug) System.out.println(" checkfletcher32 bytes in= " + org.length + " bytes out= " + result.length);
-      return result;
+    public boolean hasNext() {
+      if (pending.isEmpty() && error == null)
+        fillQuietly();
+      return !pending.isEmpty() || error != null;
     }
 
-    private byte[] shuffle(byte[] data, int n) throws IOException {
-      if (debug) System.out.println(" shuffle bytes in= " + data.length + " n= " + n);
+    public LayoutBBTiled.DataChunk next() throws IOException {
+      if (pending.isEmpty()) {
+        if (error == null) fillQuietly();
+        if (error != null) {
+          IOException e = error;
+          error = null;
+          throw e;
+        }
+        if (pending.isEmpty()) throw new NoSuchElementException();
+      }
 
-      assert data.length % n == 0;
-      if (n <= 1) return data;
+      PendingChunk result = pending.removeFirst();
+      if (pending.size() <= readAhead / 2) // keep the workers busy while this one is consumed
+        fillQuietly();
+      return result;
+    }
 
-      int m = data.length / n;
-      int[] count = new int[n];
-      for (int k = 0; k < n; k++) count[k] = k * m;
+    private void fillQuietly() {
+      try {
+        fill();
+      } catch (IOException ioe) {
+        error = ioe;
+      }
+    }
 
-      byte[] result = new byte[data.length];
-      /* for (int i = 0; i < data.length; i += n) {
-        for (int k = 0; k < n; k++) {
-          result[count[k]++] = data[i + k];
+    private void fill() throws IOException {
+      List<PendingChunk> batch = new ArrayList<PendingChunk>();
+      while ((pending.size() + batch.size() < readAhead) && (foundNelems < wantNelems) && btreeIter.hasNext()) {
+        PendingChunk pc = new PendingChunk(btreeIter.next());
+        try {
+          Section dataSection = new Section(pc.getOffset(), chunkSize);
+          if (!dataSection.intersects(want)) continue; // LayoutBBTiled would skip it
+          foundNelems += dataSection.intersect(want).computeSize();
+        } catch (InvalidRangeException e) {
+          throw new IOException(e.getMessage());
+        }
+        batch.add(pc);
+      }
+      if (batch.isEmpty()) return;
+
+      // read in file order
+      List<PendingChunk> byFilePos = new ArrayList<PendingChunk>(batch);
+      Collections.sort(byFilePos, new Comparator<PendingChunk>() {
+        public int compare(PendingChunk o1, PendingChunk o2) {
+          long diff = o1.delegate.filePos - o2.delegate.filePos;
+          return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+      });
+      for (PendingChunk pc : byFilePos) {
+        final H5chunkCache.Key key = pc.getCacheKey();
+        if (key != null) {
+          pc.cached = chunkCache.get(key);
+          if (pc.cached != null) continue;
         }
-      } */
 
-      for (int i = 0; i < m; i++) {
-        for (int j = 0; j < n; j++) {
-          result[i*n+j] = data[i + count[j]];
+        final byte[] raw = pc.readRaw();
+        final int filterMask = pc.delegate.filterMask;
+        pc.future = new FutureTask<byte[]>(new Callable<byte[]>() {
+          public byte[] call() throws IOException {
+            byte[] data = decode(raw, filterMask);
+            if (key != null) chunkCache.put(key, data);
+            return data;
+          }
+        });
+        try {
+          executor.execute(pc.future);
+        } catch (RejectedExecutionException e) {
+          pc.future.run(); // executor is shut down or full, decode here
         }
       }
 
-      return result;
+      pending.addAll(batch);
+    }
+  }
+
+  private class PendingChunk extends DataChunk {
+    FutureTask<byte[]> future;
+    byte[] cached;
+
+    PendingChunk(DataBTree.DataChunk delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() throws IOException {
+      if (cached != null) return wrap(cached);
+      try {
+        return wrap(future.get());
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted waiting for chunk " + delegate);
+
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) throw (IOException) cause;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        throw new IOException(cause);
+      }
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////////////
+  // filters; thread safe, may be called from the read ahead executor
+
+  private ByteBuffer wrap(byte[] data) {
+    ByteBuffer result = ByteBuffer.wrap(data);
+    result.order(byteOrder);
+    return result;
+  }
+
+  private byte[] decode(byte[] data, int filterMask) throws IOException {
+    // apply filters backwards
+    for (int i = filters.length - 1; i >= 0; i--) {
+      H5header.Filter f = filters[i];
+      if (isBitSet(filterMask, i)) {
+        if (debug) System.out.println("skip filter " + i);
+        continue;
+      }
+      if (f.id == 1) {
+        data = inflate(data, chunkBytes);
+      } else if (f.id == 2) {
+        data = shuffle(data, f.data[0]);
+      } else if (f.id == 3) {
+        data = checkfletcher32(data);
+      } else
+        throw new RuntimeException("Unknown filter type="+f.id);
+    }
+    return data;
+  }
+
+  // Inflaters hold native memory; reuse them rather than making one per chunk
+  static private final ConcurrentLinkedQueue<Inflater> inflaterPool = new ConcurrentLinkedQueue<Inflater>();
+  static private final AtomicInteger inflaterPoolSize = new AtomicInteger();
+  static private final int inflaterPoolMax = 32;
+
+  /**
+   * inflate data
+   *
+   * @param compressed compressed data
+   * @param expected expected size of the uncompressed data, used to size the result
+   * @return uncompressed data
+   * @throws IOException on I/O error
+   */
+  static byte[] inflate(byte[] compressed, int expected) throws IOException {
+    Inflater inflater = inflaterPool.poll();
+    if (inflater != null)
+      inflaterPoolSize.decrementAndGet();
+    else
+      inflater = new Inflater();
+
+    try {
+      inflater.setInput(compressed);
+      byte[] uncomp = new byte[(expected > 0) ? expected : 8 * compressed.length];
+      int n = 0;
+      while (!inflater.finished()) {
+        if (n == uncomp.length)
+          uncomp = Arrays.copyOf(uncomp, 2 * uncomp.length);
+        int count = inflater.inflate(uncomp, n, uncomp.length - n);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+          throw new EOFException("Unexpected end of ZLIB input stream");
+        n += count;
+      }
+      if (n != uncomp.length)
+        uncomp = Arrays.copyOf(uncomp, n);
+
+      if (debug) System.out.println(" inflate bytes in= " + compressed.length + " bytes out= " + uncomp.length);
+      return uncomp;
+
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+
+    } finally {
+      inflater.reset();
+      if (inflaterPoolSize.incrementAndGet() <= inflaterPoolMax)
+        inflaterPool.offer(inflater);
+      else {
+        inflaterPoolSize.decrementAndGet();
+        inflater.end();
+      }
     }
+  }
+
+  // for testing
+  static int getInflaterPoolSize() {
+    return inflaterPoolSize.get();
+  }
 
-    boolean isBitSet(int val, int bitno) {
-      return ((val >>> bitno) & 1) != 0;
+  // just strip off the 4-byte fletcher32 checksum at the end
+  private byte[] checkfletcher32(byte[] org) throws IOException {
+    byte[] result = new byte[org.length-4];
+    System.arraycopy(org, 0, result, 0, result.length);
+    if (debug) System.out.println(" checkfletcher32 bytes in= " + org.length + " bytes out= " + result.length);
+    return result;
+  }
+
+  private byte[] shuffle(byte[] data, int n) throws IOException {
+    if (debug) System.out.println(" shuffle bytes in= " + data.length + " n= " + n);
+
+    assert data.length % n == 0;
+    if (n <= 1) return data;
+
+    int m = data.length / n;
+    int[] count = new int[n];
+    for (int k = 0; k < n; k++) count[k] = k * m;
+
+    byte[] result = new byte[data.length];
+    /* for (int i = 0; i < data.length; i += n) {
+      for (int k = 0; k < n; k++) {
+        result[count[k]++] = data[i + k];
+      }
+    } */
+
+    for (int i = 0; i < m; i++) {
+      for (int j = 0; j < n; j++) {
+        result[i*n+j] = data[i + count[j]];
+      }
     }
 
+    return result;
   }
 
+  static private boolean isBitSet(int val, int bitno) {
+    return ((val >>> bitno) & 1) != 0;
+  }
 
-}
\ No newline at end of file
+}
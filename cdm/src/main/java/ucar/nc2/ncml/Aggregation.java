@@ -115,6 +115,16 @@ public abstract class Aggregation {
   // this is where  persist() reads/writes files
   static public void setPersistenceCache(DiskCache2 dc) {
     diskCache2 = dc;
+    CacheVarStore.getDefault().setDiskCache(dc); // evicted cache var values spill here
+  }
+
+  /**
+   * Set the memory budget for cached coordinate and promoted values, shared by all aggregations.
+   * Least recently used values beyond this are evicted, and spilled to the persistence cache if set.
+   * @param maxBytes max bytes kept in memory
+   */
+  static public void setCacheVarMemory(long maxBytes) {
+    CacheVarStore.getDefault().setMaxBytes(maxBytes);
   }
 
   // experimental multithreading
@@ -123,6 +133,12 @@ public abstract class Aggregation {
     executor = exec;
   }
 
+  // max number of nested datasets one read will have in the executor at once
+  static protected int maxParallel = 8;
+  static public void setMaxParallel(int max) {
+    maxParallel = Math.max(1, max);
+  }
+
   static public void setTypicalDatasetMode(String mode) {
     if (mode.equalsIgnoreCase("random"))
       typicalDatasetMode = TypicalDataset.RANDOM;
@@ -135,6 +135,16 @@ public abstract class AggregationOuterDimension extends Aggregation implements P
     return null;
   }
 
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close(); // persists the cache vars first
+    } finally {
+      for (CacheVar cv : cacheList)
+        cv.clear();
+    }
+  }
+
   /**
    * Get the list of aggregation variable names: variables whose data spans multiple files.
    * For type joinNew only.
@@ -275,7 +285,11 @@ public abstract class AggregationOuterDimension extends Aggregation implements P
 
     if (debug) System.out.println("   agg wants range=" + mainv.getFullName() + "(" + joinRange + ")");
 
-    // LOOK: could multithread here
+    if (executor != null) {
+      boolean ok = readSectionParallel(mainv, cancelTask, dtype, sectionData, joinRange, ranges, innerSection);
+      return ok ? sectionData : null;
+    }
+
     List<Dataset> nestedDatasets = getDatasets();
     for (Dataset nested : nestedDatasets) {
       DatasetOuterDimension dod = (DatasetOuterDimension) nested;
@@ -384,6 +398,103 @@ public abstract class AggregationOuterDimension extends Aggregation implements P
     return allData;
   }
 
+  // Read the section from each nested dataset in the executor, at most maxParallel at a time.
+  // Each task copies its data into its own part of sectionData, so the result is the same as reading serially.
+  // return false if cancelled
+  private boolean readSectionParallel(Variable mainv, CancelTask cancelTask, DataType dtype, Array sectionData,
+                   Range joinRange, List<Range> ranges, List<Range> innerSection) throws IOException, InvalidRangeException {
+
+    long innerSize = new Section(innerSection).computeSize();
+    List<SectionReaderTask> tasks = new ArrayList<SectionReaderTask>();
+    long destPos = 0;
+    for (Dataset nested : getDatasets()) {
+      DatasetOuterDimension dod = (DatasetOuterDimension) nested;
+      Range nestedJoinRange = dod.getNestedJoinRange(joinRange);
+      if (nestedJoinRange == null)
+        continue;
+
+      List<Range> nestedSection;
+      long size;
+      if ((type == Type.joinNew) || (type == Type.forecastModelRunCollection)) {
+        nestedSection = innerSection;
+        size = innerSize;
+      } else {
+        nestedSection = new ArrayList<Range>(ranges); // each task gets its own copy
+        nestedSection.set(0, nestedJoinRange);
+        size = nestedJoinRange.length() * innerSize;
+      }
+      tasks.add(new SectionReaderTask(dod, mainv, cancelTask, nestedSection, dtype, sectionData, (int) destPos, (int) size));
+      destPos += size;
+    }
+
+    CompletionService<Boolean> completionService = new ExecutorCompletionService<Boolean>(executor);
+    List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(tasks.size());
+    int next = 0;
+    try {
+      for (int done = 0; done < tasks.size(); done++) {
+        while (next < tasks.size() && next - done < maxParallel)
+          futures.add(completionService.submit(tasks.get(next++)));
+
+        boolean ok = completionService.take().get();
+        if (!ok || ((cancelTask != null) && cancelTask.isCancel()))
+          return false;
+      }
+      return true;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof InvalidRangeException) throw (InvalidRangeException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      throw new IOException(e.getMessage());
+
+    } finally {
+      // dont interrupt running tasks, that would close the channels of cached files
+      for (Future<Boolean> f : futures)
+        f.cancel(false);
+    }
+  }
+
+  private class SectionReaderTask implements Callable<Boolean> {
+    DatasetOuterDimension dod;
+    Variable mainv;
+    CancelTask cancelTask;
+    List<Range> section;
+    DataType dtype;
+    Array sectionData;
+    int destPos, size;
+
+    SectionReaderTask(DatasetOuterDimension dod, Variable mainv, CancelTask cancelTask, List<Range> section,
+                      DataType dtype, Array sectionData, int destPos, int size) {
+      this.dod = dod;
+      this.mainv = mainv;
+      this.cancelTask = cancelTask;
+      this.section = section;
+      this.dtype = dtype;
+      this.sectionData = sectionData;
+      this.destPos = destPos;
+      this.size = size;
+    }
+
+    public Boolean call() throws Exception {
+      if ((cancelTask != null) && cancelTask.isCancel())
+        return false;
+      Array varData = dod.read(mainv, cancelTask, section);
+      if ((varData == null) || ((cancelTask != null) && cancelTask.isCancel()))
+        return false;
+      varData = MAMath.convert(varData, dtype); // just in case it need to be converted
+
+      if (varData.getSize() != size)
+        throw new IllegalStateException("AggOuterDimension read " + varData.getSize() + " values from " + dod.getLocation() + ", expected " + size);
+      Array.arraycopy(varData, 0, sectionData, destPos, size);
+      return true;
+    }
+  }
+
   private class ReaderTask implements Callable<Result> {
     Dataset ds;
     Variable mainv;
@@ -793,7 +904,8 @@ public abstract class AggregationOuterDimension extends Aggregation implements P
   class CacheVar {
     String varName;
     DataType dtype;
-    private Map<String, Array> dataMap = new HashMap<String, Array>();
+    // per-dataset values live in the shared, memory-bounded store, keyed on this CacheVar
+    private final CacheVarStore store = CacheVarStore.getDefault();
 
     CacheVar(String varName, DataType dtype) {
       this.varName = varName;
@@ -807,16 +919,17 @@ public abstract class AggregationOuterDimension extends Aggregation implements P
       return varName + " (" + getClass().getName() + ")";
     }
 
-    // clear out old stuff from the Hash, so it doesnt grow forever
+    // clear out values for datasets no longer in the aggregation
     void reset() {
-      Map<String, Array> newMap = new HashMap<String, Array>();
-      for (Dataset ds : datasets) {
-        String id = ds.getId();
-        Array data = dataMap.get(id);
-        if (data != null)
-          newMap.put(id, data);
-      }
-      dataMap = newMap;
+      Set<String> ids = new HashSet<String>();
+      for (Dataset ds : datasets)
+        ids.add(ds.getId());
+      store.retain(this, ids);
+    }
+
+    // release all values, when the aggregation is closed
+    void clear() {
+      store.remove(this);
     }
 
     // public access to the data
@@ -880,11 +993,11 @@ public abstract class AggregationOuterDimension extends Aggregation implements P
     }
 
     protected void putData(String id, Array data) {
-      dataMap.put(id, data);
+      store.put(this, id, data);
     }
 
     protected Array getData(String id) {
-      return dataMap.get(id);
+      return store.get(this, id);
     }
 
     // get the Array of data for this var in this dataset, use cache else acquire file and read
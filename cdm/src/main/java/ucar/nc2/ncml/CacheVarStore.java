@@ -0,0 +1,505 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ncml;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.IndexIterator;
+import ucar.nc2.util.DiskCache2;
+
+import java.io.*;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * A memory-budgeted store for the per-dataset values of aggregation cache variables
+ * (coordinate values, promoted global attributes).
+ * <p/>
+ * One store is shared by all aggregations in the JVM. Values are kept in LRU order and their size in bytes is
+ * tracked; when the total exceeds maxBytes, the least recently used values are evicted. If a DiskCache2 is set, an
+ * evicted value is first written to a file in the cache directory, and a later get() reloads it from there instead
+ * of reopening the dataset. Otherwise get() returns null and the caller reads it again.
+ * <p/>
+ * Spill files are only valid for the life of the JVM; they are deleted when the value is replaced or removed.
+ * They are written and read without holding the store's lock, so a slow disk does not hold up other lookups.
+ * <p/>
+ * Owners are held weakly, so the values of an owner that is garbage collected without being removed are dropped.
+ *
+ * @since Oct 18, 2026
+ */
+@ThreadSafe
+public class CacheVarStore {
+  static private org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CacheVarStore.class);
+
+  static private final CacheVarStore defaultStore = new CacheVarStore(64 * 1000 * 1000);
+
+  /**
+   * The store used by all aggregations.
+   * @return the shared store
+   */
+  static public CacheVarStore getDefault() {
+    return defaultStore;
+  }
+
+  //////////////////////////////////////////////////////////////////////////
+
+  private long maxBytes;
+  private DiskCache2 diskCache;
+
+  @GuardedBy("this")
+  private final LinkedHashMap<Key, Entry> lru = new LinkedHashMap<Key, Entry>(100, .75f, true);
+  @GuardedBy("this")
+  private final Map<Key, Array> pending = new HashMap<Key, Array>(); // evicted, being written to a spill file
+  @GuardedBy("this")
+  private final Map<Key, File> spilled = new HashMap<Key, File>();
+  @GuardedBy("this")
+  private final Map<Owner, Owner> owners = new HashMap<Owner, Owner>(); // the Owner of each owner with values
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>(); // owners that were garbage collected
+  @GuardedBy("this")
+  private long bytes;
+
+  // stats
+  @GuardedBy("this")
+  private int hits, misses, evictions, spills, reloads;
+
+  /**
+   * Constructor.
+   * @param maxBytes keep the values in memory under this many bytes
+   */
+  public CacheVarStore(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Set the memory budget, evicting values if needed.
+   * @param maxBytes keep the values in memory under this many bytes
+   */
+  public void setMaxBytes(long maxBytes) {
+    List<Key> spill;
+    synchronized (this) {
+      this.maxBytes = maxBytes;
+      spill = evict();
+    }
+    spill(spill);
+  }
+
+  public synchronized long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Evicted values are written into this cache directory. If null, evicted values are dropped.
+   * @param diskCache spill here, may be null
+   */
+  public synchronized void setDiskCache(DiskCache2 diskCache) {
+    this.diskCache = diskCache;
+  }
+
+  /**
+   * Get a value.
+   * @param owner the cache variable, compared by identity
+   * @param id the dataset id
+   * @return the value, or null if not stored or evicted without being spilled
+   */
+  public Array get(Object owner, String id) {
+    Key key = null;
+    File spillFile = null;
+    Array data = null;
+    List<File> delete;
+    synchronized (this) {
+      delete = expunge();
+      Owner o = owners.get(new Owner(owner, null));
+      if (o != null) {
+        key = new Key(o, id);
+        Entry e = lru.get(key);
+        data = (e != null) ? e.data : pending.get(key); // an evicted value is still here while it is being spilled
+        if (data == null) spillFile = spilled.get(key);
+      }
+      if (data != null) hits++;
+      else if (spillFile == null) misses++;
+    }
+    delete(delete);
+    if (spillFile == null) return data;
+
+    try {
+      data = readSpill(spillFile);
+    } catch (IOException ioe) {
+      logger.warn("Failed to reload CacheVar data from " + spillFile.getPath(), ioe);
+      synchronized (this) {
+        if (spilled.get(key) == spillFile) spilled.remove(key);
+      }
+      spillFile.delete();
+      return null;
+    }
+
+    List<Key> spill;
+    synchronized (this) {
+      if (spilled.get(key) != spillFile) { // replaced or removed while we were reading
+        Entry e = lru.get(key);
+        return (e == null) ? null : e.data;
+      }
+      reloads++;
+      if (lru.containsKey(key)) return data;
+      spill = add(key, data);
+    }
+    spill(spill);
+    return data;
+  }
+
+  /**
+   * Store a value, replacing any previous one.
+   * @param owner the cache variable, compared by identity
+   * @param id the dataset id
+   * @param data the value
+   */
+  public void put(Object owner, String id, Array data) {
+    List<File> delete;
+    List<Key> spill;
+    synchronized (this) {
+      delete = expunge();
+      Owner o = owners.get(new Owner(owner, null));
+      if (o == null) {
+        o = new Owner(owner, collected);
+        owners.put(o, o);
+      }
+      Key key = new Key(o, id);
+      Entry e = lru.remove(key);
+      if (e != null) bytes -= e.size;
+      pending.remove(key);
+      File old = spilled.remove(key);
+      if (old != null) delete.add(old);
+      o.ids.add(id);
+      spill = add(key, data);
+    }
+    delete(delete);
+    spill(spill);
+  }
+
+  /**
+   * Remove the values of this owner whose dataset id is not in keep.
+   * @param owner the cache variable
+   * @param keep dataset ids to keep; if null, remove all of owner's values
+   */
+  public void retain(Object owner, Collection<String> keep) {
+    List<File> delete;
+    synchronized (this) {
+      delete = expunge();
+      Owner o = owners.get(new Owner(owner, null));
+      if (o != null) {
+        removeValues(o, keep, delete);
+        if (o.ids.isEmpty()) owners.remove(o);
+      }
+    }
+    delete(delete);
+  }
+
+  /**
+   * Remove all the values of this owner.
+   * @param owner the cache variable
+   */
+  public void remove(Object owner) {
+    retain(owner, null);
+  }
+
+  public synchronized long getBytesUsed() {
+    return bytes;
+  }
+
+  public synchronized int getCount() {
+    return lru.size();
+  }
+
+  public synchronized int getSpilledCount() {
+    return spilled.size();
+  }
+
+  public synchronized void showStats(Formatter f) {
+    f.format("CacheVarStore: %d values, %d / %d bytes, %d spilled; hits=%d misses=%d evictions=%d spills=%d reloads=%d%n",
+            lru.size(), bytes, maxBytes, spilled.size(), hits, misses, evictions, spills, reloads);
+  }
+
+  // for testing: remove the values of owners that were garbage collected
+  void expungeCollected() {
+    List<File> delete;
+    synchronized (this) {
+      delete = expunge();
+    }
+    delete(delete);
+  }
+
+  ////////////////////////////////////////////////////////////////
+
+  // remove the values of owners that were garbage collected, return the spill files to delete
+  @GuardedBy("this")
+  private List<File> expunge() {
+    List<File> delete = new ArrayList<File>();
+    Reference<?> ref;
+    while ((ref = collected.poll()) != null) {
+      Owner o = (Owner) ref;
+      if (owners.remove(o) != null)
+        removeValues(o, null, delete);
+    }
+    return delete;
+  }
+
+  @GuardedBy("this")
+  private void removeValues(Owner o, Collection<String> keep, List<File> delete) {
+    Iterator<String> iter = o.ids.iterator();
+    while (iter.hasNext()) {
+      String id = iter.next();
+      if (keep != null && keep.contains(id)) continue;
+      Key key = new Key(o, id);
+      Entry e = lru.remove(key);
+      if (e != null) bytes -= e.size;
+      pending.remove(key);
+      File f = spilled.remove(key);
+      if (f != null) delete.add(f);
+      iter.remove();
+    }
+  }
+
+  static private void delete(List<File> delete) {
+    for (File f : delete)
+      f.delete();
+  }
+
+  // add a value, return the evicted values to spill
+  @GuardedBy("this")
+  private List<Key> add(Key key, Array data) {
+    Entry e = new Entry(data, sizeOf(data));
+    lru.put(key, e);
+    bytes += e.size;
+    return evict();
+  }
+
+  // evict least recently used until under budget. The ones to spill are kept in pending until spill() has written them,
+  // which is done without holding the lock
+  @GuardedBy("this")
+  private List<Key> evict() {
+    List<Key> spill = new ArrayList<Key>();
+    Iterator<Map.Entry<Key, Entry>> iter = lru.entrySet().iterator();
+    while (bytes > maxBytes && iter.hasNext()) {
+      Map.Entry<Key, Entry> me = iter.next();
+      Key key = me.getKey();
+      Entry e = me.getValue();
+      iter.remove();
+      bytes -= e.size;
+      evictions++;
+
+      if (diskCache != null && !spilled.containsKey(key) && canSpill(DataType.getType(e.data.getElementType()))) {
+        pending.put(key, e.data);
+        spill.add(key);
+      }
+    }
+    return spill;
+  }
+
+  // write the evicted values to spill files, not holding the lock
+  private void spill(List<Key> spill) {
+    for (Key key : spill) {
+      Array data;
+      DiskCache2 dc;
+      synchronized (this) {
+        data = pending.get(key);
+        dc = diskCache;
+      }
+      if (data == null || dc == null) continue; // replaced or removed
+
+      File f = null;
+      try {
+        f = dc.createUniqueFile("aggCacheVar", ".bin");
+        writeSpill(data, f);
+      } catch (IOException ioe) {
+        logger.warn("Failed to spill CacheVar data for " + key.id, ioe);
+        synchronized (this) {
+          if (pending.get(key) == data) pending.remove(key);
+        }
+        if (f != null) f.delete();
+        continue;
+      }
+
+      boolean keep;
+      synchronized (this) {
+        keep = (pending.get(key) == data); // not replaced or removed while writing
+        if (keep) {
+          pending.remove(key);
+          spilled.put(key, f);
+          spills++;
+        }
+      }
+      if (!keep) f.delete();
+    }
+  }
+
+  static private boolean canSpill(DataType dtype) {
+    if (dtype == null) return false;
+    return dtype.isNumeric() || dtype == DataType.CHAR || dtype == DataType.STRING || dtype == DataType.BOOLEAN;
+  }
+
+  // approximate heap use
+  static long sizeOf(Array data) {
+    DataType dtype = DataType.getType(data.getElementType());
+    if (dtype == null || dtype.getSize() <= 0)  // structures, opaque: a guess
+      return 16 + 64 * data.getSize();
+    if (dtype != DataType.STRING)
+      return 16 + data.getSizeBytes();
+
+    long size = 16;
+    IndexIterator ii = data.getIndexIterator();
+    while (ii.hasNext()) {
+      Object s = ii.getObjectNext();
+      size += 40 + ((s == null) ? 0 : 2 * s.toString().length());
+    }
+    return size;
+  }
+
+  static void writeSpill(Array data, File f) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+    try {
+      DataType dtype = DataType.getType(data.getElementType());
+      out.writeUTF(dtype.name());
+      int[] shape = data.getShape();
+      out.writeInt(shape.length);
+      for (int len : shape) out.writeInt(len);
+
+      IndexIterator ii = data.getIndexIterator();
+      while (ii.hasNext()) {
+        switch (dtype) {
+          case BOOLEAN: out.writeBoolean(ii.getBooleanNext()); break;
+          case BYTE: out.writeByte(ii.getByteNext()); break;
+          case CHAR: out.writeChar(ii.getCharNext()); break;
+          case SHORT: out.writeShort(ii.getShortNext()); break;
+          case INT: out.writeInt(ii.getIntNext()); break;
+          case LONG: out.writeLong(ii.getLongNext()); break;
+          case FLOAT: out.writeFloat(ii.getFloatNext()); break;
+          case DOUBLE: out.writeDouble(ii.getDoubleNext()); break;
+          case STRING: out.writeUTF(ii.getObjectNext().toString()); break;
+          default: throw new IllegalArgumentException("cant spill " + dtype);
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  static Array readSpill(File f) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+    try {
+      DataType dtype = DataType.getType(in.readUTF());
+      if (dtype == null) throw new IOException("Unknown data type in " + f.getPath());
+      int[] shape = new int[in.readInt()];
+      for (int i = 0; i < shape.length; i++) shape[i] = in.readInt();
+
+      Array data = Array.factory(dtype, shape);
+      IndexIterator ii = data.getIndexIterator();
+      while (ii.hasNext()) {
+        switch (dtype) {
+          case BOOLEAN: ii.setBooleanNext(in.readBoolean()); break;
+          case BYTE: ii.setByteNext(in.readByte()); break;
+          case CHAR: ii.setCharNext(in.readChar()); break;
+          case SHORT: ii.setShortNext(in.readShort()); break;
+          case INT: ii.setIntNext(in.readInt()); break;
+          case LONG: ii.setLongNext(in.readLong()); break;
+          case FLOAT: ii.setFloatNext(in.readFloat()); break;
+          case DOUBLE: ii.setDoubleNext(in.readDouble()); break;
+          case STRING: ii.setObjectNext(in.readUTF()); break;
+          default: throw new IOException("cant reload " + dtype);
+        }
+      }
+      return data;
+    } finally {
+      in.close();
+    }
+  }
+
+  static private class Entry {
+    final Array data;
+    final long size;
+
+    Entry(Array data, long size) {
+      this.data = data;
+      this.size = size;
+    }
+  }
+
+  // an owner, held weakly and compared by identity, and its dataset ids. Its values are removed once it is collected
+  static private class Owner extends WeakReference<Object> {
+    final int hash;
+    final Set<String> ids = new HashSet<String>();
+
+    Owner(Object owner, ReferenceQueue<Object> queue) {
+      super(owner, queue);
+      this.hash = System.identityHashCode(owner);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Owner)) return false;
+      Object mine = get();
+      return mine != null && mine == ((Owner) o).get();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  static private class Key {
+    final Owner owner;
+    final String id;
+
+    Key(Owner owner, String id) {
+      this.owner = owner;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return owner == key.owner && id.equals(key.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * owner.hash + id.hashCode();
+    }
+  }
+}
@@ -61,10 +61,33 @@ public class CdmRemote extends ucar.nc2.NetcdfFile {
   static private org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CdmRemote.class);
   static private boolean showRequest = false;
 
+  static private boolean chunkedData = false;
+  static private boolean deflateData = false;
+
   static public void setDebugFlags(ucar.nc2.util.DebugFlags debugFlag) {
     showRequest = debugFlag.isSet("CdmRemote/showRequest");
   }
 
+  /**
+   * Ask the server to send large data requests as a sequence of bounded chunks, which are reassembled here.
+   * Servers that dont know about chunking ignore this and send a single message. Default false, so that
+   * the data is read directly from the stream unless chunking is asked for.
+   *
+   * @param chunked request chunked data
+   */
+  static public void setChunkedData(boolean chunked) {
+    chunkedData = chunked;
+  }
+
+  /**
+   * Ask the server to deflate each chunk of data. Default false.
+   *
+   * @param deflate request deflated data
+   */
+  static public void setDeflateData(boolean deflate) {
+    deflateData = deflate;
+  }
+
   /**
    * Create the canonical form of the URL.
    * If the urlName starts with "http:", change it to start with "cdmremote:", otherwise
@@ -158,6 +181,8 @@ public class CdmRemote extends ucar.nc2.NetcdfFile {
       f.format("(%s)", section.toString());
     }
     sbuff.append( URLEncoder.encode(f.toString(), "UTF-8")); // % escape entire thing varname and section
+    if (chunkedData) sbuff.append("&chunked=true");
+    if (deflateData) sbuff.append("&deflate=true");
 
     if (showRequest)
       System.out.println(" CdmRemote data request for variable: " + v.getFullName() + " section= " + section + " url=" + sbuff);
@@ -179,7 +204,7 @@ public class CdmRemote extends ucar.nc2.NetcdfFile {
         int readLen = Integer.parseInt(s);
         if (showRequest)
           System.out.printf(" content-length = %d%n", readLen);
-        if (v.getDataType() != DataType.SEQUENCE) {
+        if (v.getDataType() != DataType.SEQUENCE && !chunkedData && !deflateData) {
           int wantSize = (int) (v.getElementSize() * (section == null ? v.getSize() : section.computeSize()));
           if (readLen != wantSize)
             throw new IOException("content-length= " + readLen + " not equal expected Size= " + wantSize); // LOOK
@@ -188,7 +213,8 @@ public class CdmRemote extends ucar.nc2.NetcdfFile {
 
       InputStream is = method.getResponseAsStream();
       NcStreamReader reader = new NcStreamReader();
-      NcStreamReader.DataResult result = reader.readData(is, this);
+      Section want = (section == null) ? v.getShapeAsSection() : new Section(section.getRanges(), v.getShape());
+      NcStreamReader.DataResult result = reader.readDataChunked(is, this, want);
 
       assert v.getFullNameEscaped().equals(result.varNameFullEsc);
       result.data.setUnsigned(v.isUnsigned());
@@ -208,6 +208,21 @@ public class NcStream {
     return builder.build();
   }
 
+  /**
+   * Can the data of this variable be sent as multiple contiguous chunks, and reassembled into one byte array?
+   * True for fixed length primitive types.
+   *
+   * @param v the variable
+   * @return true if chunkable
+   */
+  static public boolean isChunkable(Variable v) {
+    return !v.isVariableLength() && isChunkable(v.getDataType());
+  }
+
+  static boolean isChunkable(DataType dtype) {
+    return dtype.isNumeric() || dtype.isEnum() || (dtype == DataType.CHAR);
+  }
+
   static NcStreamProto.Data encodeDataProto(Variable var, Section section, boolean deflate, int uncompressedLength) {
     NcStreamProto.Data.Builder builder = NcStreamProto.Data.newBuilder();
     builder.setVarName(var.getFullNameEscaped());
@@ -49,7 +49,9 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Formatter;
 import java.util.List;
+import java.util.zip.DataFormatException;
 import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 /**
@@ -192,6 +194,71 @@ public class NcStreamIosp extends AbstractIOServiceProvider {
 
   public Array readData(Variable v, Section section) throws IOException, InvalidRangeException {
     List<DataStorage> storage = (List<DataStorage>) v.getSPobject();
+    if (!NcStream.isChunkable(v))
+      return readDataWhole(v, section, storage);
+
+    // the data may be in many chunks: copy the part of each chunk that intersects the wanted section into the result
+    // reading one chunk at a time
+    Array result = Array.factory(v.getDataType(), section.getShape());
+    for (DataStorage dataStorage : storage) {
+      if (!dataStorage.section.intersects(section)) continue;
+      Section intersect = dataStorage.section.intersect(section);
+      if (intersect.computeSize() == 0) continue;
+
+      byte[] data = readChunk(v, dataStorage);
+      Array chunk = Array.factory(v.getDataType(), dataStorage.section.getShape(), ByteBuffer.wrap(data));
+      Array from = chunk.sectionNoReduce(relative(intersect, dataStorage.section));
+      Array to = result.sectionNoReduce(relative(intersect, section));
+      MAMath.copy(to, from);
+    }
+    return result;
+  }
+
+  // read the bytes of one chunk, inflating if needed
+  private byte[] readChunk(Variable v, DataStorage dataStorage) throws IOException {
+    raf.seek(dataStorage.filePos);
+    byte[] data = new byte[dataStorage.size];
+    raf.readFully(data);
+    if (!dataStorage.isDeflate)
+      return data;
+
+    int len = dataStorage.nelems * v.getElementSize();
+    byte[] result = new byte[len];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      int done = 0;
+      while (done < len) {
+        int n = inflater.inflate(result, done, len - done);
+        if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+          break;
+        done += n;
+      }
+      if (done != len)
+        throw new IOException("Inflated " + done + " bytes, expected " + len + " for " + v.getFullName());
+    } catch (DataFormatException e) {
+      throw new IOException(e.getMessage());
+    } finally {
+      inflater.end();
+    }
+    return result;
+  }
+
+  // the ranges of sub (contained in base) as indices into an array with base's shape
+  // LOOK assumes sub and base strides are compatible, as from Section.intersect()
+  private List<Range> relative(Section sub, Section base) throws InvalidRangeException {
+    List<Range> result = new ArrayList<Range>(sub.getRank());
+    for (int i = 0; i < sub.getRank(); i++) {
+      Range r = sub.getRange(i);
+      Range b = base.getRange(i);
+      int first = (r.first() - b.first()) / b.stride();
+      int stride = Math.max(1, r.stride() / b.stride());
+      result.add(new Range(first, first + (r.length() - 1) * stride, stride));
+    }
+    return result;
+  }
+
+  private Array readDataWhole(Variable v, Section section, List<DataStorage> storage) throws IOException, InvalidRangeException {
     ByteBuffer result = null;
 
     for (DataStorage dataStorage : storage) {
@@ -36,9 +36,12 @@ import ucar.nc2.NetcdfFile;
 import ucar.nc2.Structure;
 import ucar.ma2.*;
 
+import java.io.EOFException;
 import java.io.InputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import ucar.nc2.constants.CDM;
@@ -118,13 +121,20 @@ public class NcStreamReader {
     if (!readAndTest(is, NcStream.MAGIC_DATA))
       throw new IOException("Data transfer corrupted on "+ncfile.getLocation());
 
+    NcStreamProto.Data dproto = readDataProto(is);
+    return readData(is, ncfile, dproto);
+  }
+
+  private NcStreamProto.Data readDataProto(InputStream is) throws IOException {
     int psize = NcStream.readVInt(is);
     if (debug) System.out.println("  readData data message len= " + psize);
     byte[] dp = new byte[psize];
     NcStream.readFully(is, dp);
-    NcStreamProto.Data dproto = NcStreamProto.Data.parseFrom(dp);
-    // if (debug) System.out.println(" readData proto = " + dproto);
+    return NcStreamProto.Data.parseFrom(dp);
+  }
 
+  // read the data following the data proto
+  private DataResult readData(InputStream is, NetcdfFile ncfile, NcStreamProto.Data dproto) throws IOException {
     DataType dataType = NcStream.decodeDataType(dproto.getDataType());
     Section section = (dataType == DataType.SEQUENCE) ? new Section() : NcStream.decodeSection(dproto.getSection());
 
@@ -158,6 +168,11 @@ public class NcStreamReader {
     if (debug) System.out.println("  readData data len= " + dsize);
     byte[] datab = new byte[dsize];
     NcStream.readFully(is, datab);
+    if (dproto.getCompress() == NcStreamProto.Compress.DEFLATE) {
+      byte[] uncompressed = new byte[dproto.getUncompressedSize()];
+      inflate(datab, uncompressed, 0, uncompressed.length);
+      datab = uncompressed;
+    }
 
     if (dataType == DataType.STRUCTURE) {
       Structure s = (Structure) ncfile.findVariable(dproto.getVarName());
@@ -179,6 +194,116 @@ public class NcStreamReader {
     }
   }
 
+  /**
+   * Read the result of a data request for one variable, which may have been sent as a sequence of chunks
+   * (see NcStreamWriter.sendDataChunked). Each chunk is read (and inflated) directly into its place in the result,
+   * so the only large allocation is the result itself. Reads until MAGIC_END or the end of the stream.
+   *
+   * @param is     read from input stream
+   * @param ncfile need the metadata from here to interpret structure data
+   * @param want   the section that was requested, with no null ranges
+   * @return DataResult
+   * @throws IOException on read error, or if the chunks dont exactly cover the requested section
+   */
+  public DataResult readDataChunked(InputStream is, NetcdfFile ncfile, Section want) throws IOException {
+    byte[] result = null;
+    int pos = 0;
+    DataType dataType = null;
+    String varName = null;
+    DataResult single = null;
+
+    byte[] b = new byte[4];
+    while (true) {
+      int n = NcStream.readFully(is, b);
+      if (n == 0) break; // end of stream
+      if (n == 4 && test(b, NcStream.MAGIC_END)) break;
+      if (n != 4 || !test(b, NcStream.MAGIC_DATA) || (single != null))
+        throw new IOException("Data transfer corrupted on " + ncfile.getLocation());
+
+      NcStreamProto.Data dproto = readDataProto(is);
+      DataType chunkType = NcStream.decodeDataType(dproto.getDataType());
+      if (!NcStream.isChunkable(chunkType) || dproto.getVdata()) {
+        if (result != null)
+          throw new IOException("Data transfer corrupted on " + ncfile.getLocation());
+        single = readData(is, ncfile, dproto); // not chunked
+        continue;
+      }
+
+      Section chunkSection = NcStream.decodeSection(dproto.getSection());
+      if (result == null) {
+        dataType = chunkType;
+        varName = dproto.getVarName();
+        long nbytes = want.computeSize() * dataType.getSize();
+        if (nbytes > Integer.MAX_VALUE)
+          throw new IOException("Request too large for one array: " + nbytes + " bytes");
+        result = new byte[(int) nbytes];
+      } else if (!varName.equals(dproto.getVarName())) {
+        throw new IOException("Expected data for " + varName + " got " + dproto.getVarName());
+      }
+
+      long chunkBytes = chunkSection.computeSize() * dataType.getSize();
+      if (pos + chunkBytes > result.length)
+        throw new IOException("Data chunks exceed requested section " + want + " on " + ncfile.getLocation());
+      int len = (int) chunkBytes;
+
+      int dsize = NcStream.readVInt(is);
+      if (dproto.getCompress() == NcStreamProto.Compress.DEFLATE) {
+        byte[] compressed = new byte[dsize]; // bounded by the chunk size
+        if (NcStream.readFully(is, compressed) != dsize)
+          throw new EOFException("Data transfer truncated on " + ncfile.getLocation());
+        inflate(compressed, result, pos, len);
+      } else {
+        if (dsize != len)
+          throw new IOException("Data chunk has " + dsize + " bytes, expected " + len);
+        if (readFully(is, result, pos, len) != len)
+          throw new EOFException("Data transfer truncated on " + ncfile.getLocation());
+      }
+      if (debug) System.out.printf("  readDataChunked %s chunk %s at %d%n", varName, chunkSection, pos);
+      pos += len;
+    }
+
+    if (single != null)
+      return single;
+    if (result == null)
+      throw new IOException("No data returned from " + ncfile.getLocation());
+    if (pos != result.length)
+      throw new IOException("Data chunks cover " + pos + " bytes of " + result.length + " on " + ncfile.getLocation());
+
+    Array data = Array.factory(dataType, want.getShape(), ByteBuffer.wrap(result));
+    return new DataResult(varName, want, data);
+  }
+
+  // inflate exactly len bytes into result starting at pos
+  private void inflate(byte[] compressed, byte[] result, int pos, int len) throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      int done = 0;
+      while (done < len) {
+        int n = inflater.inflate(result, pos + done, len - done);
+        if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+          break;
+        done += n;
+      }
+      if (done != len)
+        throw new IOException("Inflated " + done + " bytes, expected " + len);
+    } catch (DataFormatException e) {
+      throw new IOException(e.getMessage());
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private int readFully(InputStream is, byte[] b, int pos, int len) throws IOException {
+    int done = 0;
+    while (done < len) {
+      int n = is.read(b, pos + done, len - done);
+      if (n == -1) break;
+      done += n;
+    }
+    return done;
+  }
+
   public StructureDataIterator getStructureIterator(InputStream is, NetcdfFile ncfile) throws IOException {
     if (!readAndTest(is, NcStream.MAGIC_DATA))
       throw new IOException("Data transfer corrupted on "+ncfile.getLocation());
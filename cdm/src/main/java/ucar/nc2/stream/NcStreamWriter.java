@@ -154,6 +154,60 @@ public class NcStreamWriter {
     return size;
   }
 
+  /**
+   * Send the data for a section of a variable as a sequence of data messages, each holding at most
+   * maxChunk bytes of uncompressed data. Each chunk is read, optionally deflated, and written before the next one is
+   * read, so memory use is bounded by the chunk size rather than the size of the section. The chunks are contiguous
+   * runs of the section in row-major order; see NcStreamReader.readDataChunked().
+   * Types that cant be split (see NcStream.isChunkable) are sent as a single message.
+   *
+   * @param v             send data for this variable
+   * @param section       this section of the variable
+   * @param out           write to here
+   * @param deflate       deflate each chunk
+   * @return number of bytes written
+   * @throws IOException           on read or write error
+   * @throws InvalidRangeException if section is invalid
+   */
+  public long sendDataChunked(Variable v, Section section, OutputStream out, boolean deflate) throws IOException, InvalidRangeException {
+    return sendDataChunked(v, section, out, deflate, maxChunk);
+  }
+
+  /**
+   * Send the data for a section of a variable as a sequence of data messages, with a given chunk size.
+   *
+   * @param v             send data for this variable
+   * @param section       this section of the variable
+   * @param out           write to here
+   * @param deflate       deflate each chunk
+   * @param maxChunkBytes max size of each chunk, before compression
+   * @return number of bytes written
+   * @throws IOException           on read or write error
+   * @throws InvalidRangeException if section is invalid
+   * @see #sendDataChunked(Variable, Section, OutputStream, boolean)
+   */
+  public long sendDataChunked(Variable v, Section section, OutputStream out, boolean deflate, long maxChunkBytes) throws IOException, InvalidRangeException {
+    section = new Section(section.getRanges(), v.getShape()); // fill in any nulls
+    long nbytes = section.computeSize() * v.getElementSize();
+    if (!NcStream.isChunkable(v) || (nbytes <= maxChunkBytes))
+      return sendData(v, section, out, deflate);
+
+    long maxChunkElems = Math.max(1, maxChunkBytes / v.getElementSize());
+    FileWriter2.ChunkingIndex index = new FileWriter2.ChunkingIndex(section.getShape());
+    long size = 0;
+    int count = 0;
+    while (index.currentElement() < index.getSize()) {
+      int[] chunkOrigin = index.getCurrentCounter();
+      int[] chunkShape = index.computeChunkShape(maxChunkElems);
+      Section chunk = section.compose(new Section(chunkOrigin, chunkShape)); // relative to section
+      size += sendData(v, chunk, out, deflate);
+      index.setCurrentCounter(index.currentElement() + (int) Index.computeSize(chunkShape));
+      count++;
+    }
+    if (show) System.out.printf(" NcStreamWriter sent %s in %d chunks, size = %d%n", v.getFullName(), count, size);
+    return size;
+  }
+
   /* public long sendData(WritableByteChannel out, StructureData sdata) throws IOException {
     long size = 0;
     ByteBuffer bb = IospHelper.copyToByteBuffer(sdata);
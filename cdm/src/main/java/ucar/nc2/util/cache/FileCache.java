@@ -91,12 +91,19 @@ public class FileCache {
   /**
    * You must call shutdown() to shut down the background threads in order to get a clean process shutdown.
    */
-  static public void shutdown() {
+  static public synchronized void shutdown() {
     if (exec != null)
       exec.shutdown();
     exec = null;
   }
 
+  // shared by all caches, including subclasses; see shutdown()
+  static synchronized ScheduledExecutorService getScheduler() {
+    if (exec == null)
+      exec = Executors.newSingleThreadScheduledExecutor();
+    return exec;
+  }
+
   /////////////////////////////////////////////////////////////////////////////////////////
 
   private String name;
@@ -154,9 +161,7 @@ public class FileCache {
     files = new ConcurrentHashMap<FileCacheable, CacheElement.CacheFile>(4 * softLimit, 0.75f, 8);
 
     if (period > 0) {
-      if (exec == null)
-        exec = Executors.newSingleThreadScheduledExecutor();
-      exec.scheduleAtFixedRate(new CleanupTask(), period, period, TimeUnit.SECONDS);
+      getScheduler().scheduleAtFixedRate(new CleanupTask(), period, period, TimeUnit.SECONDS);
       cacheLog.debug("FileCache " + name + " cleanup every " + period + " secs");
     }
   }
@@ -0,0 +1,641 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.util.cache;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ucar.nc2.util.CancelTask;
+
+/**
+ * A FileCache for heavily concurrent servers, with the same contract as FileCache.
+ * <ol>
+ * <li>Lookups do not lock: each key maps to a lock-free list of open copies, and a copy is claimed with a CAS on its lock flag.
+ * <li>Opens are coalesced: when several threads miss on the same key at once, only one calls FileFactory.open().
+ *     The others wait for it, then wait up to coalesceWait msecs for that copy to be released before opening their own.
+ * <li>Eviction uses the CLOCK approximation of LRU: files sit in a queue in the order they were added,
+ *     a released file gets a second chance, and cleanup stops as soon as enough files have been closed.
+ *     Nothing sorts or locks the whole cache, so acquire() proceeds while a cleanup is running.
+ * </ol>
+ * Since it is a FileCache, it can be passed anywhere a FileCache is used, eg NetcdfDataset.initNetcdfFileCache(FileCache)
+ * or GribCollection.initDataRafCache(FileCache).
+ *
+ * @since Oct 18, 2026
+ */
+@ThreadSafe
+public class FileCacheConcurrent extends FileCache {
+  static private final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FileCacheConcurrent.class);
+  static private final org.slf4j.Logger cacheLog = org.slf4j.LoggerFactory.getLogger("cacheLogger");
+  static private final int DEFAULT_COALESCE_WAIT = 100; // msecs
+
+  private final String name;
+  private final int softLimit, minElements, hardLimit;
+  private final int coalesceWait;
+
+  private final ConcurrentHashMap<Object, CacheElement> cache; // unique files (by key, often = filename)
+  private final ConcurrentHashMap<FileCacheable, CacheFile> files; // all files in the cache
+  private final ConcurrentHashMap<Object, FutureTask<FileCacheable>> opening; // opens in progress
+  private final ConcurrentLinkedQueue<CacheFile> clock; // eviction order
+  private final AtomicInteger clockClosed = new AtomicInteger(); // closed files still in the clock, skipped by evict()
+  private final AtomicBoolean purging = new AtomicBoolean(false); // purgeClock() is running
+  private final AtomicBoolean hasScheduled = new AtomicBoolean(false); // a cleanup is scheduled
+  private final AtomicBoolean disabled = new AtomicBoolean(false);  // cache is disabled
+
+  // stats
+  private final AtomicInteger cleanups = new AtomicInteger();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger miss = new AtomicInteger();
+  private final AtomicInteger coalesced = new AtomicInteger();
+  private final AtomicInteger evicted = new AtomicInteger();
+
+  /**
+   * Constructor.
+   *
+   * @param name                of file cache
+   * @param minElementsInMemory keep this number in the cache
+   * @param softLimit           trigger a cleanup if it goes over this number.
+   * @param hardLimit           if > 0, never allow more than this many elements. This causes a cleanup to be done in the calling thread.
+   * @param period              if > 0, do periodic cleanups every this number of seconds.
+   */
+  public FileCacheConcurrent(String name, int minElementsInMemory, int softLimit, int hardLimit, int period) {
+    this(name, minElementsInMemory, softLimit, hardLimit, period, DEFAULT_COALESCE_WAIT);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name                of file cache
+   * @param minElementsInMemory keep this number in the cache
+   * @param softLimit           trigger a cleanup if it goes over this number.
+   * @param hardLimit           if > 0, never allow more than this many elements. This causes a cleanup to be done in the calling thread.
+   * @param period              if > 0, do periodic cleanups every this number of seconds.
+   * @param coalesceWait        (msecs) when another thread has just opened the same file, wait this long for it to be released
+   *                            before opening another copy.
+   */
+  public FileCacheConcurrent(String name, int minElementsInMemory, int softLimit, int hardLimit, int period, int coalesceWait) {
+    super(name, 0, 0, 0, 0); // superclass state is not used
+    this.name = name;
+    this.minElements = minElementsInMemory;
+    this.softLimit = softLimit;
+    this.hardLimit = hardLimit;
+    this.coalesceWait = coalesceWait;
+
+    cache = new ConcurrentHashMap<Object, CacheElement>(2 * softLimit, 0.75f, 32);
+    files = new ConcurrentHashMap<FileCacheable, CacheFile>(4 * softLimit, 0.75f, 32);
+    opening = new ConcurrentHashMap<Object, FutureTask<FileCacheable>>(16, 0.75f, 32);
+    clock = new ConcurrentLinkedQueue<CacheFile>();
+
+    if (period > 0) {
+      getScheduler().scheduleAtFixedRate(new CleanupTask(), period, period, TimeUnit.SECONDS);
+      cacheLog.debug("FileCacheConcurrent " + name + " cleanup every " + period + " secs");
+    }
+  }
+
+  @Override
+  public void disable() {
+    this.disabled.set(true);
+    clearCache(true);
+  }
+
+  @Override
+  public void enable() {
+    this.disabled.set(false);
+  }
+
+  /**
+   * Acquire a FileCacheable from the cache, and lock it so no one else can use it.
+   * If not already in cache, open it with the FileFactory, and put in cache.
+   * If another thread is already opening the same hashKey, wait for it rather than opening a second copy.
+   *
+   * @param factory     use this factory to open the file if not in the cache; may not be null
+   * @param hashKey     unique key for this file. If null, the location will be used
+   * @param location    file location, may also used as the cache name, will be passed to the NetcdfFileFactory
+   * @param buffer_size RandomAccessFile buffer size, if <= 0, use default size
+   * @param cancelTask  user can cancel, ok to be null.
+   * @param spiObject   sent to iosp.setSpecial() if not null
+   * @return FileCacheable corresponding to location.
+   * @throws IOException on error
+   */
+  @Override
+  public FileCacheable acquire(FileFactory factory, Object hashKey,
+                               String location, int buffer_size, CancelTask cancelTask, Object spiObject) throws IOException {
+
+    if (null == hashKey) hashKey = location;
+    FileCacheable ncfile = acquireCacheOnly(hashKey);
+    if (ncfile != null) {
+      hits.incrementAndGet();
+      return ncfile;
+    }
+    miss.incrementAndGet();
+
+    if (disabled.get())
+      return factory.open(location, buffer_size, cancelTask, spiObject);
+
+    FutureTask<FileCacheable> task = new FutureTask<FileCacheable>(new Opener(factory, hashKey, location, buffer_size, cancelTask, spiObject));
+    FutureTask<FileCacheable> inProgress = opening.putIfAbsent(hashKey, task);
+
+    if (inProgress == null) {
+      // we are the opener; the file is added to the cache, locked, before any waiter is woken up
+      try {
+        task.run();
+        ncfile = getResult(task);
+      } finally {
+        opening.remove(hashKey, task);
+      }
+
+    } else {
+      // someone else is opening it; share their copy if it gets released soon enough
+      getResult(inProgress);
+      ncfile = waitForRelease(hashKey);
+      if (ncfile != null) {
+        coalesced.incrementAndGet();
+        return ncfile;
+      }
+      ncfile = new Opener(factory, hashKey, location, buffer_size, cancelTask, spiObject).call();
+    }
+
+    if (ncfile != null)
+      checkLimits();
+    return ncfile;
+  }
+
+  private FileCacheable getResult(FutureTask<FileCacheable> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("FileCacheConcurrent " + name + " interrupted while opening file");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IOException(cause.getMessage());
+    }
+  }
+
+  // open the file and put it in the cache, locked
+  private class Opener implements Callable<FileCacheable> {
+    final FileFactory factory;
+    final Object hashKey;
+    final String location;
+    final int buffer_size;
+    final CancelTask cancelTask;
+    final Object spiObject;
+
+    Opener(FileFactory factory, Object hashKey, String location, int buffer_size, CancelTask cancelTask, Object spiObject) {
+      this.factory = factory;
+      this.hashKey = hashKey;
+      this.location = location;
+      this.buffer_size = buffer_size;
+      this.cancelTask = cancelTask;
+      this.spiObject = spiObject;
+    }
+
+    public FileCacheable call() throws IOException {
+      FileCacheable ncfile = factory.open(location, buffer_size, cancelTask, spiObject);
+      if (cacheLog.isDebugEnabled())
+        cacheLog.debug("FileCacheConcurrent " + name + " acquire " + hashKey + " " + ncfile.getLocation());
+
+      // user may have canceled
+      if ((cancelTask != null) && (cancelTask.isCancel())) {
+        ncfile.close();
+        return null;
+      }
+
+      if (!disabled.get())
+        add(hashKey, ncfile);
+      return ncfile;
+    }
+  }
+
+  private void add(Object hashKey, FileCacheable ncfile) {
+    CacheFile file = null;
+    while (file == null) {
+      CacheElement elem = cache.get(hashKey);
+      if (elem == null) {
+        CacheElement newElem = new CacheElement(hashKey);
+        elem = cache.putIfAbsent(hashKey, newElem);
+        if (elem == null) elem = newElem;
+      }
+      file = elem.addFile(ncfile); // null if elem was just retired; try again
+    }
+    files.put(ncfile, file);
+    clock.add(file);
+  }
+
+  /**
+   * Try to find an unlocked file in the cache, without blocking.
+   *
+   * @param hashKey used as the key.
+   * @return file if its in the cache, null otherwise.
+   */
+  private FileCacheable acquireCacheOnly(Object hashKey) {
+    if (disabled.get()) return null;
+
+    CacheElement elem = cache.get(hashKey);
+    if (elem == null) return null;
+
+    for (CacheFile want : elem.list) {
+      if (!want.isLocked.compareAndSet(false, true)) continue;
+      FileCacheable ncfile = want.ncfile;
+      if (ncfile == null) continue; // lost a race with remove()
+
+      // check if modified, discard if so
+      if (ncfile.getLastModified() != want.lastModified) {
+        if (cacheLog.isDebugEnabled())
+          cacheLog.debug("FileCacheConcurrent " + name + ": acquire from cache " + hashKey + " " + ncfile.getLocation() + " was changed; discard");
+        close(want);
+        continue;
+      }
+      want.referenced = true;
+      return ncfile;
+    }
+    return null;
+  }
+
+  // wait for a copy of hashKey to be released, up to coalesceWait msecs
+  private FileCacheable waitForRelease(Object hashKey) {
+    long deadline = System.currentTimeMillis() + coalesceWait;
+    while (true) {
+      FileCacheable ncfile = acquireCacheOnly(hashKey);
+      if (ncfile != null) return ncfile;
+
+      long wait = deadline - System.currentTimeMillis();
+      CacheElement elem = cache.get(hashKey);
+      if (wait <= 0 || elem == null) return null;
+      try {
+        elem.awaitRelease(wait);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+  }
+
+  private void checkLimits() {
+    int count = files.size();
+    if ((hardLimit > 0) && (count > hardLimit)) {
+      // only do enough work in the calling thread to get back under the hard limit
+      int removed = evict(count - hardLimit);
+      if (removed < count - hardLimit)
+        cacheLog.warn("FileCacheConcurrent " + name + " couldnt get under the hard limit= " + hardLimit + " due to locked files");
+    }
+
+    if ((count > softLimit) && hasScheduled.compareAndSet(false, true))
+      getScheduler().schedule(new CleanupTask(), 100, TimeUnit.MILLISECONDS); // immediate cleanup in 100 msec
+  }
+
+  @Override
+  public void remove(Object hashKey) {
+    if (disabled.get()) return;
+
+    CacheElement elem = cache.remove(hashKey);
+    if (elem == null) return;
+    elem.retire();
+
+    for (CacheFile want : elem.list)
+      close(want);
+  }
+
+  /**
+   * Release the file. This unlocks it, updates its lastAccessed date.
+   * Normally applications need not call this, just close the file as usual.
+   *
+   * @param ncfile release this file.
+   * @throws IOException if file not in cache.
+   */
+  @Override
+  public void release(FileCacheable ncfile) throws IOException {
+    if (ncfile == null) return;
+
+    if (disabled.get()) {
+      ncfile.setFileCache(null); // prevent infinite loops
+      ncfile.close();
+      return;
+    }
+
+    CacheFile file = files.get(ncfile); // using hashCode of the FileCacheable
+    if (file == null)
+      throw new IOException("FileCacheConcurrent " + name + " release does not have file in cache = " + ncfile.getLocation());
+
+    if (!file.isLocked.get()) {
+      Exception e = new Exception("Stack trace");
+      cacheLog.warn("FileCacheConcurrent " + name + " release " + ncfile.getLocation() + " not locked; hash= " + ncfile.hashCode(), e);
+    }
+    file.lastAccessed = System.currentTimeMillis();
+    file.countAccessed.incrementAndGet();
+    file.referenced = true;
+    file.isLocked.set(false);
+    file.elem.signalRelease();
+    if (cacheLog.isDebugEnabled())
+      cacheLog.debug("FileCacheConcurrent " + name + " release " + ncfile.getLocation() + "; hash= " + ncfile.hashCode());
+  }
+
+  @Override
+  public String getInfo(FileCacheable ncfile) throws IOException {
+    if (ncfile == null) return "";
+    CacheFile file = files.get(ncfile);
+    return (file != null) ? "File is in cache= " + file : "File not in cache";
+  }
+
+  @Override
+  public void clearCache(boolean force) {
+    int count = 0;
+    for (CacheFile file : files.values()) {
+      boolean gotLock = file.isLocked.compareAndSet(false, true);
+      if (!gotLock && !force) continue;
+      if (!gotLock)
+        cacheLog.warn("FileCacheConcurrent " + name + " force close locked file= " + file);
+      close(file);
+      count++;
+    }
+    cacheLog.debug("*FileCacheConcurrent " + name + " clearCache force= " + force + " deleted= " + count + " left=" + files.size());
+  }
+
+  @Override
+  public void showCache(Formatter format) {
+    List<CacheFile> allFiles = getSortedFiles();
+    format.format("FileCacheConcurrent %s (%d):%n", name, allFiles.size());
+    format.format("isLocked  accesses lastAccess                   location %n");
+    for (CacheFile file : allFiles) {
+      FileCacheable ncfile = file.ncfile;
+      String loc = ncfile != null ? ncfile.getLocation() : "null";
+      format.format("%8s %9d %s %s %n", file.isLocked, file.countAccessed.get(), new Date(file.lastAccessed), loc);
+    }
+  }
+
+  @Override
+  public List<String> showCache() {
+    List<CacheFile> allFiles = getSortedFiles();
+    List<String> result = new ArrayList<String>(allFiles.size());
+    for (CacheFile file : allFiles)
+      result.add(file.toString());
+    return result;
+  }
+
+  private List<CacheFile> getSortedFiles() {
+    List<CacheFile> allFiles = new ArrayList<CacheFile>(files.values());
+    Collections.sort(allFiles, new Comparator<CacheFile>() { // sort so oldest are on top
+      public int compare(CacheFile o1, CacheFile o2) {
+        return (o1.lastAccessed < o2.lastAccessed) ? -1 : ((o1.lastAccessed == o2.lastAccessed) ? 0 : 1);
+      }
+    });
+    return allFiles;
+  }
+
+  @Override
+  public void showStats(Formatter format) {
+    format.format("  hits= %d miss= %d coalesced= %d nfiles= %d elems= %d cleanups= %d evicted= %d\n", hits.get(), miss.get(),
+            coalesced.get(), files.size(), cache.size(), cleanups.get(), evicted.get());
+  }
+
+  // for testing
+  int getHits() {
+    return hits.get();
+  }
+
+  int getMiss() {
+    return miss.get();
+  }
+
+  int getCoalesced() {
+    return coalesced.get();
+  }
+
+  int getEvicted() {
+    return evicted.get();
+  }
+
+  int getClockSize() {
+    return clock.size();
+  }
+
+  /**
+   * Cleanup the cache, bringing it down to minimum number.
+   * Closes unlocked files that have not been used since the last pass of the clock first.
+   * Does not lock the cache, so may run at the same time as acquire() and release().
+   */
+  @Override
+  void cleanup(int maxElements) {
+    if (disabled.get()) return;
+
+    try {
+      int size = files.size();
+      if (size <= minElements) return;
+      cleanups.incrementAndGet();
+
+      long start = System.currentTimeMillis();
+      int removed = evict(size - minElements);
+      if (size - removed > maxElements)
+        cacheLog.warn("FileCacheConcurrent " + name + " cleanup couldnt remove enough to keep under the maximum= " + maxElements + " due to locked files; currently at = " + (size - removed));
+
+      long took = System.currentTimeMillis() - start;
+      cacheLog.debug(" FileCacheConcurrent " + name + " cleanup had= " + size + " removed= " + removed + " took=" + took + " msec");
+
+    } finally {
+      hasScheduled.set(false);
+    }
+  }
+
+  // close up to need files, using the clock algorithm. Each file gets at most one second chance per call.
+  private int evict(int need) {
+    int removed = 0;
+    int budget = 2 * files.size() + 1;
+    while ((removed < need) && (budget-- > 0)) {
+      CacheFile file = clock.poll();
+      if (file == null) break;
+      if (file.ncfile == null) { // already closed, drop it
+        if (file.dropped.compareAndSet(false, true)) clockClosed.decrementAndGet();
+        continue;
+      }
+
+      if (file.referenced || file.isLocked.get()) {
+        file.referenced = false;
+        clock.add(file);
+        continue;
+      }
+      if (!file.isLocked.compareAndSet(false, true)) {
+        clock.add(file);
+        continue;
+      }
+      close(file, false);
+      evicted.incrementAndGet();
+      removed++;
+    }
+    return removed;
+  }
+
+  // caller must have locked the file; removes it from the cache and really closes it
+  private void close(CacheFile file) {
+    close(file, true);
+  }
+
+  // inClock: the file has not been taken off the clock by evict(). It is left there, to be skipped and dropped
+  // by evict(), since taking it out of the queue means searching it
+  private void close(CacheFile file, boolean inClock) {
+    if (!file.closed.compareAndSet(false, true)) return;
+    FileCacheable ncfile = file.ncfile;
+    file.ncfile = null;
+
+    file.elem.removeFile(file);
+    files.remove(ncfile);
+    if (inClock && (clockClosed.incrementAndGet() > files.size()))
+      purgeClock();
+    ncfile.setFileCache(null);
+    try {
+      ncfile.close();
+    } catch (IOException e) {
+      log.error("FileCacheConcurrent " + name + " close failed on " + ncfile.getLocation(), e);
+    }
+    if (cacheLog.isDebugEnabled()) cacheLog.debug("FileCacheConcurrent " + name + " remove " + ncfile.getLocation());
+  }
+
+  // drop the closed files from the clock, once they outnumber the open ones, so the clock stays in proportion to the cache
+  private void purgeClock() {
+    if (!purging.compareAndSet(false, true)) return;
+    try {
+      Iterator<CacheFile> iter = clock.iterator();
+      while (iter.hasNext()) {
+        CacheFile file = iter.next();
+        if (file.ncfile == null) {
+          iter.remove();
+          if (file.dropped.compareAndSet(false, true)) clockClosed.decrementAndGet();
+        }
+      }
+    } finally {
+      purging.set(false);
+    }
+  }
+
+  private class CacheElement {
+    final Object hashKey;
+    final ConcurrentLinkedQueue<CacheFile> list = new ConcurrentLinkedQueue<CacheFile>(); // may have multiple copies of the same file opened
+    final AtomicInteger waiters = new AtomicInteger();
+    private boolean retired; // removed from the cache, dont add any more files
+
+    CacheElement(Object hashKey) {
+      this.hashKey = hashKey;
+    }
+
+    // return null if this element has been retired
+    synchronized CacheFile addFile(FileCacheable ncfile) {
+      if (retired) return null;
+      CacheFile file = new CacheFile(this, ncfile);
+      list.add(file);
+      return file;
+    }
+
+    void removeFile(CacheFile file) {
+      list.remove(file);
+      if (!list.isEmpty()) return;
+      synchronized (this) {
+        if (list.isEmpty() && !retired) {
+          retired = true;
+          cache.remove(hashKey, this);
+        }
+      }
+    }
+
+    synchronized void retire() {
+      retired = true;
+    }
+
+    void awaitRelease(long msecs) throws InterruptedException {
+      synchronized (this) {
+        waiters.incrementAndGet();
+        try {
+          if (!hasUnlocked()) wait(msecs);
+        } finally {
+          waiters.decrementAndGet();
+        }
+      }
+    }
+
+    void signalRelease() {
+      if (waiters.get() == 0) return;
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+
+    private boolean hasUnlocked() {
+      for (CacheFile file : list)
+        if (!file.isLocked.get()) return true;
+      return false;
+    }
+
+    public String toString() {
+      return hashKey + " count=" + list.size();
+    }
+  }
+
+  private class CacheFile {
+    final CacheElement elem;
+    volatile FileCacheable ncfile; // null when closed
+    final AtomicBoolean isLocked = new AtomicBoolean(true);
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    final AtomicBoolean dropped = new AtomicBoolean(false); // closed and taken off the clock
+    final AtomicInteger countAccessed = new AtomicInteger(1);
+    final long lastModified;
+    volatile long lastAccessed;
+    volatile boolean referenced = true; // clock bit
+
+    CacheFile(CacheElement elem, FileCacheable ncfile) {
+      this.elem = elem;
+      this.ncfile = ncfile;
+      this.lastModified = ncfile.getLastModified();
+      this.lastAccessed = System.currentTimeMillis();
+
+      ncfile.setFileCache(FileCacheConcurrent.this);
+      if (cacheLog.isDebugEnabled()) cacheLog.debug("FileCacheConcurrent " + name + " add to cache " + elem.hashKey);
+    }
+
+    public String toString() {
+      FileCacheable f = ncfile;
+      return isLocked + " " + countAccessed + " " + new Date(lastAccessed) + " " + (f == null ? elem.hashKey : f.getLocation());
+    }
+  }
+
+  private class CleanupTask implements Runnable {
+    public void run() {
+      cleanup(softLimit);
+    }
+  }
+
+}
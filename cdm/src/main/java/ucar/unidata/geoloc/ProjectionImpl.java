@@ -36,6 +36,7 @@ import ucar.unidata.geoloc.projection.LatLonProjection;
 import ucar.unidata.util.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Superclass for our implementations of geoloc.Projection.
@@ -422,10 +423,14 @@ public abstract class ProjectionImpl implements Projection, java.io.Serializable
               + "from array not same length as to array");
     }
 
+    ProjectionPointImpl ppi = new ProjectionPointImpl();
+    LatLonPointImpl llpi = new LatLonPointImpl();
+
     for (int i = 0; i < from[0].length; i++) {
-      LatLonPoint endL = projToLatLon(from[0][i], from[1][i]);
-      to[0][i] = endL.getLatitude();
-      to[1][i] = endL.getLongitude();
+      ppi.setLocation(from[0][i], from[1][i]);
+      projToLatLon(ppi, llpi);
+      to[0][i] = llpi.getLatitude();
+      to[1][i] = llpi.getLongitude();
     }
 
     return to;
@@ -661,6 +666,188 @@ public abstract class ProjectionImpl implements Projection, java.io.Serializable
     return to;
   }
 
+  ///////////////////////////////////////////////////////////////////////////////////
+  // splitting large array conversions across threads
+
+  static private Executor executor;
+  static private int minSlicePoints = 50 * 1000;
+
+  /**
+   * Set the Executor used by projToLatLonParallel() and latLonToProjParallel().
+   * If null (the default), those run entirely on the calling thread.
+   *
+   * @param exec run slices of large conversions on this; may be null
+   */
+  static public void setExecutor(Executor exec) {
+    executor = exec;
+  }
+
+  /**
+   * Set the smallest number of points given to one thread by the parallel conversions.
+   *
+   * @param n minimum points per slice
+   */
+  static public void setMinSlicePoints(int n) {
+    minSlicePoints = Math.max(1, n);
+  }
+
+  /**
+   * Same as projToLatLon(double[][] from, double[][] to), but large arrays are split into slices
+   * that are converted concurrently, using the Executor set in setExecutor().
+   * The projection is shared between the threads, so its point conversions must not modify its state.
+   *
+   * @param from array of projection coordinates: from[2][n]
+   * @param to   resulting array of lat/lon coordinates: to[2][n]
+   * @return the "to" array
+   */
+  public double[][] projToLatLonParallel(double[][] from, double[][] to) {
+    checkArrays("projToLatLonParallel", from, to);
+    convertSlices(from, to, from[0].length, true, INDEX_LAT, INDEX_LON);
+    return to;
+  }
+
+  /**
+   * Same as projToLatLon(float[][] from, float[][] to), but large arrays are split into slices
+   * that are converted concurrently, using the Executor set in setExecutor().
+   *
+   * @param from array of projection coordinates: from[2][n]
+   * @param to   resulting array of lat/lon coordinates: to[2][n]
+   * @return the "to" array
+   */
+  public float[][] projToLatLonParallel(float[][] from, float[][] to) {
+    checkArrays("projToLatLonParallel", from, to);
+    convertSlices(from, to, from[0].length, true, INDEX_LAT, INDEX_LON);
+    return to;
+  }
+
+  /**
+   * Same as latLonToProj(double[][] from, double[][] to, int latIndex, int lonIndex), but large arrays are split
+   * into slices that are converted concurrently, using the Executor set in setExecutor().
+   *
+   * @param from     array of lat/lon coordinates: from[2][n]
+   * @param to       resulting array of projection coordinates: to[2][n]
+   * @param latIndex index of lat coordinate; must be 0 or 1
+   * @param lonIndex index of lon coordinate; must be 0 or 1
+   * @return the "to" array
+   */
+  public double[][] latLonToProjParallel(double[][] from, double[][] to, int latIndex, int lonIndex) {
+    checkArrays("latLonToProjParallel", from, to);
+    convertSlices(from, to, from[0].length, false, latIndex, lonIndex);
+    return to;
+  }
+
+  /**
+   * Same as latLonToProj(float[][] from, float[][] to, int latIndex, int lonIndex), but large arrays are split
+   * into slices that are converted concurrently, using the Executor set in setExecutor().
+   *
+   * @param from     array of lat/lon coordinates: from[2][n]
+   * @param to       resulting array of projection coordinates: to[2][n]
+   * @param latIndex index of lat coordinate; must be 0 or 1
+   * @param lonIndex index of lon coordinate; must be 0 or 1
+   * @return the "to" array
+   */
+  public float[][] latLonToProjParallel(float[][] from, float[][] to, int latIndex, int lonIndex) {
+    checkArrays("latLonToProjParallel", from, to);
+    convertSlices(from, to, from[0].length, false, latIndex, lonIndex);
+    return to;
+  }
+
+  private void checkArrays(String method, Object[] from, Object[] to) {
+    if ((from == null) || (from.length != 2)) {
+      throw new IllegalArgumentException("ProjectionImpl." + method + ":"
+              + "null array argument or wrong dimension (from)");
+    }
+    if ((to == null) || (to.length != 2)) {
+      throw new IllegalArgumentException("ProjectionImpl." + method + ":"
+              + "null array argument or wrong dimension (to)");
+    }
+    if (java.lang.reflect.Array.getLength(from[0]) != java.lang.reflect.Array.getLength(to[0])) {
+      throw new IllegalArgumentException("ProjectionImpl." + method + ":"
+              + "from array not same length as to array");
+    }
+  }
+
+  // the calling thread does the first slice, the executor the rest
+  private void convertSlices(final Object[] from, final Object[] to, int n, final boolean toLatLon,
+                             final int latIndex, final int lonIndex) {
+    Executor exec = executor;
+    int nslices = Math.min(Runtime.getRuntime().availableProcessors(), n / minSlicePoints);
+    if (exec == null || nslices < 2) {
+      convertSlice(from, to, 0, n, n, toLatLon, latIndex, lonIndex);
+      return;
+    }
+
+    final int total = n;
+    int sliceSize = (n + nslices - 1) / nslices;
+    List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>(nslices);
+    for (int start = sliceSize; start < n; start += sliceSize) {
+      final int sliceStart = start;
+      final int sliceLen = Math.min(sliceSize, n - start);
+      FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+        public Object call() {
+          convertSlice(from, to, sliceStart, sliceLen, total, toLatLon, latIndex, lonIndex);
+          return null;
+        }
+      });
+      try {
+        exec.execute(task);
+      } catch (RejectedExecutionException e) {
+        task.run();
+      }
+      tasks.add(task);
+    }
+
+    convertSlice(from, to, 0, sliceSize, n, toLatLon, latIndex, lonIndex);
+
+    for (FutureTask<Object> task : tasks) {
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("ProjectionImpl: interrupted while converting", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        throw new RuntimeException(cause);
+      }
+    }
+  }
+
+  // convert [start, start+len) through the subclass's array methods, copying in and out unless it's the whole array
+  private void convertSlice(Object[] from, Object[] to, int start, int len, int n, boolean toLatLon,
+                            int latIndex, int lonIndex) {
+    boolean whole = (start == 0) && (len == n);
+    if (from[0] instanceof double[]) {
+      double[][] f = whole ? (double[][]) from : new double[2][len];
+      double[][] t = whole ? (double[][]) to : new double[2][len];
+      if (!whole) {
+        System.arraycopy(from[0], start, f[0], 0, len);
+        System.arraycopy(from[1], start, f[1], 0, len);
+      }
+      if (toLatLon) projToLatLon(f, t);
+      else latLonToProj(f, t, latIndex, lonIndex);
+      if (!whole) {
+        System.arraycopy(t[0], 0, to[0], start, len);
+        System.arraycopy(t[1], 0, to[1], start, len);
+      }
+
+    } else {
+      float[][] f = whole ? (float[][]) from : new float[2][len];
+      float[][] t = whole ? (float[][]) to : new float[2][len];
+      if (!whole) {
+        System.arraycopy(from[0], start, f[0], 0, len);
+        System.arraycopy(from[1], start, f[1], 0, len);
+      }
+      if (toLatLon) projToLatLon(f, t);
+      else latLonToProj(f, t, latIndex, lonIndex);
+      if (!whole) {
+        System.arraycopy(t[0], 0, to[0], start, len);
+        System.arraycopy(t[1], 0, to[1], start, len);
+      }
+    }
+  }
+
   // bounding box utilities
 
   /**
@@ -235,6 +235,176 @@ public class RotatedPole extends ProjectionImpl {
     return destPoint;
   }
 
+  /**
+   * Convert lat/lon coordinates to rotated lon (X) and rotated lat (Y), without creating an object for each point.
+   *
+   * @param from     array of lat/lon coordinates: from[2][n], where
+   *                 (from[latIndex][i], from[lonIndex][i]) is the (lat,lon)
+   *                 coordinate of the ith point
+   * @param to       resulting array of projection coordinates: to[2][n]
+   *                 where (to[0][i], to[1][i]) is the (x,y) coordinate of
+   *                 the ith point
+   * @param latIndex index of lat coordinate; must be 0 or 1
+   * @param lonIndex index of lon coordinate; must be 0 or 1
+   * @return the "to" array
+   */
+  public double[][] latLonToProj(double[][] from, double[][] to, int latIndex, int lonIndex) {
+    int cnt = from[0].length;
+    double[] fromLatA = from[latIndex];
+    double[] fromLonA = from[lonIndex];
+    double[] resultXA = to[INDEX_X];
+    double[] resultYA = to[INDEX_Y];
+    double[] m = forwardMatrix();
+
+    for (int i = 0; i < cnt; i++) {
+      double lat = LatLonPointImpl.latNormal(fromLatA[i]) * RAD_PER_DEG;
+      double lon = fromLonA[i] * RAD_PER_DEG;
+      double cosLat = Math.cos(lat);
+      double x = cosLat * Math.cos(lon);
+      double y = cosLat * Math.sin(lon);
+      double z = Math.sin(lat);
+
+      double px = m[0] * x + m[1] * y + m[2] * z;
+      double py = m[3] * x + m[4] * y + m[5] * z;
+      double pz = m[6] * x + m[7] * y + m[8] * z;
+
+      resultXA[i] = LatLonPointImpl.range180(Math.atan2(py, px) * DEG_PER_RAD);
+      resultYA[i] = Math.asin(pz) * DEG_PER_RAD;
+    }
+    return to;
+  }
+
+  /**
+   * Convert lat/lon coordinates to rotated lon (X) and rotated lat (Y), without creating an object for each point.
+   *
+   * @param from     array of lat/lon coordinates: from[2][n], where
+   *                 (from[latIndex][i], from[lonIndex][i]) is the (lat,lon)
+   *                 coordinate of the ith point
+   * @param to       resulting array of projection coordinates: to[2][n]
+   *                 where (to[0][i], to[1][i]) is the (x,y) coordinate of
+   *                 the ith point
+   * @param latIndex index of lat coordinate; must be 0 or 1
+   * @param lonIndex index of lon coordinate; must be 0 or 1
+   * @return the "to" array
+   */
+  public float[][] latLonToProj(float[][] from, float[][] to, int latIndex, int lonIndex) {
+    int cnt = from[0].length;
+    float[] fromLatA = from[latIndex];
+    float[] fromLonA = from[lonIndex];
+    float[] resultXA = to[INDEX_X];
+    float[] resultYA = to[INDEX_Y];
+    double[] m = forwardMatrix();
+
+    for (int i = 0; i < cnt; i++) {
+      double lat = LatLonPointImpl.latNormal(fromLatA[i]) * RAD_PER_DEG;
+      double lon = fromLonA[i] * RAD_PER_DEG;
+      double cosLat = Math.cos(lat);
+      double x = cosLat * Math.cos(lon);
+      double y = cosLat * Math.sin(lon);
+      double z = Math.sin(lat);
+
+      double px = m[0] * x + m[1] * y + m[2] * z;
+      double py = m[3] * x + m[4] * y + m[5] * z;
+      double pz = m[6] * x + m[7] * y + m[8] * z;
+
+      resultXA[i] = (float) LatLonPointImpl.range180(Math.atan2(py, px) * DEG_PER_RAD);
+      resultYA[i] = (float) (Math.asin(pz) * DEG_PER_RAD);
+    }
+    return to;
+  }
+
+  /**
+   * Convert rotated lon (X) and rotated lat (Y) to lat/lon coordinates, without creating an object for each point.
+   *
+   * @param from array of projection coordinates: from[2][n], where
+   *             (from[0][i], from[1][i]) is the (x, y) coordinate
+   *             of the ith point
+   * @param to   resulting array of lat/lon coordinates: to[2][n] where
+   *             (to[0][i], to[1][i]) is the (lat, lon) coordinate of
+   *             the ith point
+   * @return the "to" array
+   */
+  public double[][] projToLatLon(double[][] from, double[][] to) {
+    int cnt = from[0].length;
+    double[] fromXA = from[INDEX_X];
+    double[] fromYA = from[INDEX_Y];
+    double[] toLatA = to[INDEX_LAT];
+    double[] toLonA = to[INDEX_LON];
+    double[] m = inverseMatrix();
+
+    for (int i = 0; i < cnt; i++) {
+      double lon = LatLonPointImpl.range180(fromXA[i]) * RAD_PER_DEG;
+      double lat = fromYA[i] * RAD_PER_DEG;
+      double cosLat = Math.cos(lat);
+      double x = cosLat * Math.cos(lon);
+      double y = cosLat * Math.sin(lon);
+      double z = Math.sin(lat);
+
+      double px = m[0] * x + m[1] * y + m[2] * z;
+      double py = m[3] * x + m[4] * y + m[5] * z;
+      double pz = m[6] * x + m[7] * y + m[8] * z;
+
+      toLatA[i] = LatLonPointImpl.latNormal(Math.asin(pz) * DEG_PER_RAD);
+      toLonA[i] = LatLonPointImpl.lonNormal(Math.atan2(py, px) * DEG_PER_RAD);
+    }
+    return to;
+  }
+
+  /**
+   * Convert rotated lon (X) and rotated lat (Y) to lat/lon coordinates, without creating an object for each point.
+   *
+   * @param from array of projection coordinates: from[2][n], where
+   *             (from[0][i], from[1][i]) is the (x, y) coordinate
+   *             of the ith point
+   * @param to   resulting array of lat/lon coordinates: to[2][n] where
+   *             (to[0][i], to[1][i]) is the (lat, lon) coordinate of
+   *             the ith point
+   * @return the "to" array
+   */
+  public float[][] projToLatLon(float[][] from, float[][] to) {
+    int cnt = from[0].length;
+    float[] fromXA = from[INDEX_X];
+    float[] fromYA = from[INDEX_Y];
+    float[] toLatA = to[INDEX_LAT];
+    float[] toLonA = to[INDEX_LON];
+    double[] m = inverseMatrix();
+
+    for (int i = 0; i < cnt; i++) {
+      double lon = LatLonPointImpl.range180(fromXA[i]) * RAD_PER_DEG;
+      double lat = fromYA[i] * RAD_PER_DEG;
+      double cosLat = Math.cos(lat);
+      double x = cosLat * Math.cos(lon);
+      double y = cosLat * Math.sin(lon);
+      double z = Math.sin(lat);
+
+      double px = m[0] * x + m[1] * y + m[2] * z;
+      double py = m[3] * x + m[4] * y + m[5] * z;
+      double pz = m[6] * x + m[7] * y + m[8] * z;
+
+      toLatA[i] = (float) LatLonPointImpl.latNormal(Math.asin(pz) * DEG_PER_RAD);
+      toLonA[i] = (float) LatLonPointImpl.lonNormal(Math.atan2(py, px) * DEG_PER_RAD);
+    }
+    return to;
+  }
+
+  // rotY * rotZ, row major
+  private double[] forwardMatrix() {
+    double[] m = new double[9];
+    for (int row = 0; row < 3; row++)
+      for (int col = 0; col < 3; col++)
+        m[3 * row + col] = rotY[row][0] * rotZ[0][col] + rotY[row][1] * rotZ[1][col] + rotY[row][2] * rotZ[2][col];
+    return m;
+  }
+
+  // transpose(rotZ) * transpose(rotY), row major
+  private double[] inverseMatrix() {
+    double[] m = new double[9];
+    for (int row = 0; row < 3; row++)
+      for (int col = 0; col < 3; col++)
+        m[3 * row + col] = rotZ[0][row] * rotY[col][0] + rotZ[1][row] * rotY[col][1] + rotZ[2][row] * rotY[col][2];
+    return m;
+  }
+
   public boolean crossSeam(ProjectionPoint pt1, ProjectionPoint pt2) {
      return Math.abs(pt1.getX() - pt2.getX()) > 270.0;
   }
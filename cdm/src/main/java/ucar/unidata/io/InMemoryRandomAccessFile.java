@@ -76,8 +76,23 @@ public class InMemoryRandomAccessFile extends ucar.unidata.io.RandomAccessFile {
     ; // do nothing
   }
 
+  // the buffer is the whole file, so it is never read again, only the file position moves
+  @Override
+  public void seek(long pos) throws IOException {
+    if (pos < 0)
+      throw new java.io.IOException("Negative seek offset");
+    filePosition = pos;
+    endOfFile = (pos >= dataEnd);
+  }
+
+  @Override
+  protected void readBuffer(long pos) throws IOException {
+    seek(pos);
+  }
+
   @Override
   protected int read_(long pos, byte[] b, int offset, int len) throws IOException {
+    if (pos >= buffer.length) return -1; // end of file, as RandomAccessFile.read
     len = Math.min(len, (int) (buffer.length - pos));
     // copy out of buffer
     System.arraycopy(buffer, (int) pos, b, offset, len);
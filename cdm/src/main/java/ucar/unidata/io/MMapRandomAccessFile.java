@@ -33,103 +33,150 @@
 package ucar.unidata.io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.MappedByteBuffer;
 
 /**
- * Use NIO MappedByteBuffer to implement a RandomAccessFile.
- * Limited to 2G size. Not currently used - NOT UP TO DATE DO NOT USE
+ * A read-only RandomAccessFile that memory maps the file with NIO MappedByteBuffers.
+ * Files larger than 2G are mapped as a sequence of windows.
+ * <p/>
+ * The positional reads (readAt(), readFullyAt(), readIntAt(), etc) copy directly from the mapped memory and are
+ * thread safe, so one open file may be shared by any number of threads without locking.
+ * The usual stateful methods (seek(), read(), readInt(), etc) also work, through the normal buffer, and as always
+ * must not be shared across threads.
+ * <p/>
+ * A file that is still being appended to is mapped again when it is read past the end of the mapping, or when
+ * length() finds it has grown. Reading from the mapping is not interruptible, and the mapping is made with its own
+ * channel, so an interrupted thread never closes the file for other threads.
+ * <p/>
+ * Select this for all local files opened by NetcdfFile with RandomAccessFile.setReadOnlyMemoryMapped(true).
+ *
  * @author john
  */
-class MMapRandomAccessFile extends RandomAccessFile {
+public class MMapRandomAccessFile extends RandomAccessFile {
+  static private final int WINDOW_SHIFT = 30;  // 1 Gbyte windows
+  static private final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+
+  // the file mapped at some length
+  static private class Mapping {
+    final long length;
+    final MappedByteBuffer[] windows;
+
+    Mapping(long length, MappedByteBuffer[] windows) {
+      this.length = length;
+      this.windows = windows;
+    }
+  }
 
-  private MappedByteBuffer source;
+  private volatile Mapping mapping; // null when closed
 
   /**
-    * Constructor for in-memory "files"
-    * @param location used as a name
-    * @param mode the open mode
-    * @throws java.io.IOException on error
-    */
-  MMapRandomAccessFile(String location, String mode ) throws IOException {
-    super(location, mode, 1);
-    FileChannel channel = file.getChannel();
-    source = channel.map( readonly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, (long) 0, channel.size());
-    channel.close();
-
-    bufferStart = 0;
-	  dataSize = (int) channel.size();
-	  dataEnd = channel.size();
-    filePosition = 0;
-    buffer = null;
-    endOfFile = false;
+   * Open and map a local file, read only.
+   *
+   * @param location location of the file
+   * @throws java.io.IOException on error
+   */
+  public MMapRandomAccessFile(String location) throws IOException {
+    this(location, defaultBufferSize);
   }
 
+  /**
+   * Open and map a local file, read only.
+   *
+   * @param location   location of the file
+   * @param bufferSize size of the buffer used by the stateful read methods
+   * @throws java.io.IOException on error
+   */
+  public MMapRandomAccessFile(String location, int bufferSize) throws IOException {
+    super(location, "r", bufferSize);
+    mapping = map();
+  }
 
-  public void flush() throws IOException {
-    if (bufferModified) {
-      source.force();
-      bufferModified = false;
+  // map the file at its current length, with a channel of its own, since the mapping stays valid after it is closed
+  private Mapping map() throws IOException {
+    java.io.RandomAccessFile mapFile = new java.io.RandomAccessFile(location, "r");
+    try {
+      FileChannel channel = mapFile.getChannel();
+      long fileLength = channel.size();
+      int nwindows = (int) ((fileLength + WINDOW_SIZE - 1) >> WINDOW_SHIFT);
+      MappedByteBuffer[] w = new MappedByteBuffer[nwindows];
+      for (int i = 0; i < nwindows; i++) {
+        long start = (long) i << WINDOW_SHIFT;
+        w[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, fileLength - start));
+      }
+      return new Mapping(fileLength, w);
+    } finally {
+      mapFile.close();
     }
   }
 
+  // the mapping, mapped again if the file has grown past it
+  private Mapping getMapping(long needLength) throws IOException {
+    Mapping m = mapping;
+    if (m == null) throw new IOException("File closed: " + location);
+    if (needLength <= m.length) return m;
+    synchronized (this) {
+      m = mapping;
+      if (m == null) throw new IOException("File closed: " + location);
+      if (m.length < needLength && m.length < file.length())
+        mapping = m = map();
+      return m;
+    }
+  }
+
+  @Override
   public void close() throws IOException {
     if (fileCache != null) {
       fileCache.release(this);
       return;
     }
-
-    if (!readonly) flush();
-    source = null;
+    mapping = null; // mapping is released when garbage collected
+    super.close();
   }
 
-  public long length( ) {
-    return dataEnd;
+  @Override
+  public long length() throws IOException {
+    if (mapping == null) throw new IOException("File closed: " + location);
+    return getMapping(file.length()).length; // may have grown since it was mapped
   }
 
-  public void seek( long pos ) {
-    filePosition = pos;
-    if( filePosition < dataEnd )
-      source.position((int) filePosition);
-    else
-      endOfFile = true;
+  // the stateful reads fill the buffer from the mapped memory
+  @Override
+  protected int read_(long pos, byte[] b, int offset, int len) throws IOException {
+    int n = readAt(pos, b, offset, len);
+    return (n < 0) ? 0 : n;
   }
 
-   public void unread( ) {
-     seek( filePosition-1);
-   }
-
-  public int read() throws IOException {
-    // If the file position is within the data, return the byte...
-    if( filePosition < dataEnd ) {
-      filePosition++;
-      return source.get() & 0xff;
-
-    } else {
-       return -1;
+  @Override
+  public int readAt(long pos, byte[] b, int off, int len) throws IOException {
+    Mapping m = getMapping(pos + len);
+    MappedByteBuffer[] w = m.windows;
+    if (pos >= m.length) return -1;
+
+    len = (int) Math.min(len, m.length - pos);
+    int total = 0;
+    while (total < len) {
+      int index = (int) (pos >> WINDOW_SHIFT);
+      int start = (int) (pos & (WINDOW_SIZE - 1));
+      ByteBuffer view = w[index].duplicate(); // independent position, so this is thread safe
+      int n = Math.min(len - total, view.capacity() - start);
+      view.position(start);
+      view.get(b, off + total, n);
+      total += n;
+      pos += n;
     }
+    return total;
   }
 
-   protected int readBytes( byte dst[], int offset, int length ) throws IOException {
-     if( endOfFile ) return -1;
-
-     length = (int) Math.min( length, dataEnd - filePosition);
-     if (length > 0) {
-       source.get(dst, offset, length);
-       filePosition += length;
-     }
-     return length;
-   }
-
-  public void write( int b ) throws IOException {
-     source.put( (byte)b);
-     filePosition++;
-     bufferModified = true;
+  @Override
+  public void write(int b) throws IOException {
+    throw new IOException("MMapRandomAccessFile is read only");
   }
 
-  public void writeBytes( byte dst[], int offset, int length ) throws IOException {
-    source.put(dst, offset, length);
-    filePosition += length;
+  @Override
+  public void writeBytes(byte b[], int off, int len) throws IOException {
+    throw new IOException("MMapRandomAccessFile is read only");
   }
 
-}
\ No newline at end of file
+}
@@ -38,6 +38,7 @@ import ucar.nc2.util.cache.FileCache;
 import ucar.nc2.util.cache.FileCacheable;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -158,11 +159,48 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
   static protected boolean showOpen = false;
   static protected boolean showRead = false;
 
+  static private boolean readOnlyMemoryMapped = false;
+
+  /**
+   * Choose how openReadOnly() opens local files.
+   *
+   * @param b if true, use MMapRandomAccessFile, whose positional reads (readAt() etc) copy from mapped memory.
+   *          Otherwise use RandomAccessFile, whose positional reads use FileChannel. Default is false.
+   */
+  static public void setReadOnlyMemoryMapped(boolean b) {
+    readOnlyMemoryMapped = b;
+  }
+
+  static public boolean isReadOnlyMemoryMapped() {
+    return readOnlyMemoryMapped;
+  }
+
+  /**
+   * Open a local file read-only, memory mapped if setReadOnlyMemoryMapped(true) was called.
+   *
+   * @param location   location of the file
+   * @param bufferSize size of buffer to use, if <= 0, use default size
+   * @return open RandomAccessFile
+   * @throws IOException on open error
+   */
+  static public RandomAccessFile openReadOnly(String location, int bufferSize) throws IOException {
+    if (bufferSize <= 0)
+      bufferSize = defaultBufferSize;
+    if (readOnlyMemoryMapped)
+      return new MMapRandomAccessFile(location, bufferSize);
+    return new RandomAccessFile(location, "r", bufferSize);
+  }
+
   /**
    * The default buffer size, in bytes.
    */
   protected static final int defaultBufferSize = 8092;
 
+  /**
+   * The largest chunk read at once by the array readers, when the data is not in the buffer.
+   */
+  private static final int bulkChunkSize = 256 * 1024;
+
   /////////////////////////////////////////////////////////////////////////////////////////////
 
   /**
@@ -177,6 +215,10 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
   protected java.io.RandomAccessFile file;
   protected java.nio.channels.FileChannel fileChannel;
 
+  // the positional reads use their own channel, see readAt()
+  private volatile java.nio.channels.FileChannel readChannel;
+  private final Object readChannelLock = new Object();
+
   /**
    * The offset in bytes from the file start, of the next read or
    * write operation.
@@ -362,8 +404,12 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
     }
 
     // Close the underlying file object.
-    file.close();
-    file = null;  // help the gc
+    synchronized (readChannelLock) {
+      if (readChannel != null) readChannel.close();
+      readChannel = null;
+      file.close();
+      file = null;  // help the gc
+    }
   }
 
   /* @Override
@@ -676,6 +722,165 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
     return n;
   }
 
+  //////////////////////////////////////////////////////////////////////////////////////////////
+  // Positional reads.
+  // These do not use or change the file pointer or the buffer, so any number of threads may call them
+  // on the same open file without synchronizing. They use the current byte order, so set it before sharing the file.
+  // A local file is read through a second, read-only channel, opened on the first positional read.
+
+  /**
+   * Read up to <code>len</code> bytes at the given file position, bypassing the buffer and the file pointer.
+   * Thread safe.
+   *
+   * @param pos start here in the file
+   * @param b   put data into this array
+   * @param off starting at b[off]
+   * @param len read this many bytes
+   * @return the actual number of bytes read, or -1 if pos is at or past the end of the file
+   * @throws IOException on io error
+   */
+  public int readAt(long pos, byte[] b, int off, int len) throws IOException {
+    if (file == null)  // subclasses that do not use a local file, eg InMemoryRandomAccessFile, HTTPRandomAccessFile
+      return read_(pos, b, off, len);
+
+    // An interrupt during a FileChannel read closes the channel, for all threads. So the positional reads use
+    // their own channel, which is reopened when that happens, and the read is done again.
+    boolean interrupted = false;
+    try {
+      java.nio.channels.FileChannel channel = getReadChannel(null);
+      while (true) {
+        try {
+          return readAt(channel, pos, b, off, len);
+        } catch (java.nio.channels.ClosedChannelException e) {
+          interrupted |= Thread.interrupted(); // clear it to read again, set it again when done
+          channel = getReadChannel(channel);
+        }
+      }
+    } finally {
+      if (interrupted) Thread.currentThread().interrupt();
+    }
+  }
+
+  // the channel used by the positional reads, reopened if it is the closed one
+  private java.nio.channels.FileChannel getReadChannel(java.nio.channels.FileChannel closed) throws IOException {
+    java.nio.channels.FileChannel channel = readChannel;
+    if (channel != null && channel != closed) return channel;
+    synchronized (readChannelLock) {
+      if (file == null) throw new IOException("File closed: " + location);
+      if (readChannel == null || readChannel == closed)
+        readChannel = new java.io.RandomAccessFile(location, "r").getChannel();
+      return readChannel;
+    }
+  }
+
+  private int readAt(java.nio.channels.FileChannel channel, long pos, byte[] b, int off, int len) throws IOException {
+    ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+    int total = 0;
+    while (total < len) {
+      int n = channel.read(bb, pos + total);
+      if (n < 0) break;
+      total += n;
+    }
+    if (debugAccess) {
+      debug_nseeks.incrementAndGet();
+      debug_nbytes.addAndGet(total);
+    }
+    return (total == 0 && len > 0) ? -1 : total;
+  }
+
+  /**
+   * Read exactly <code>len</code> bytes at the given file position, bypassing the buffer and the file pointer.
+   * Thread safe.
+   *
+   * @param pos start here in the file
+   * @param b   put data into this array
+   * @param off starting at b[off]
+   * @param len read this many bytes
+   * @throws EOFException if the end of the file is reached first
+   * @throws IOException  on io error
+   */
+  public void readFullyAt(long pos, byte[] b, int off, int len) throws IOException {
+    int n = 0;
+    while (n < len) {
+      int count = readAt(pos + n, b, off + n, len - n);
+      if (count <= 0)
+        throw new EOFException("Reading " + location + " at " + (pos + n) + " file length = " + length());
+      n += count;
+    }
+  }
+
+  /**
+   * Read <code>len</code> bytes at the given file position into a new ByteBuffer, with the current byte order.
+   * Thread safe.
+   *
+   * @param pos start here in the file
+   * @param len read this many bytes
+   * @return ByteBuffer with position 0 and limit len
+   * @throws IOException on io error
+   */
+  public ByteBuffer readBufferAt(long pos, int len) throws IOException {
+    byte[] b = new byte[len];
+    readFullyAt(pos, b, 0, len);
+    ByteBuffer bb = ByteBuffer.wrap(b);
+    bb.order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    return bb;
+  }
+
+  /**
+   * Read a short at the given file position, using the current byte order. Thread safe.
+   *
+   * @param pos file position
+   * @return short value
+   * @throws IOException on io error
+   */
+  public short readShortAt(long pos) throws IOException {
+    return readBufferAt(pos, 2).getShort();
+  }
+
+  /**
+   * Read an int at the given file position, using the current byte order. Thread safe.
+   *
+   * @param pos file position
+   * @return int value
+   * @throws IOException on io error
+   */
+  public int readIntAt(long pos) throws IOException {
+    return readBufferAt(pos, 4).getInt();
+  }
+
+  /**
+   * Read a long at the given file position, using the current byte order. Thread safe.
+   *
+   * @param pos file position
+   * @return long value
+   * @throws IOException on io error
+   */
+  public long readLongAt(long pos) throws IOException {
+    return readBufferAt(pos, 8).getLong();
+  }
+
+  /**
+   * Read a float at the given file position, using the current byte order. Thread safe.
+   *
+   * @param pos file position
+   * @return float value
+   * @throws IOException on io error
+   */
+  public float readFloatAt(long pos) throws IOException {
+    return readBufferAt(pos, 4).getFloat();
+  }
+
+  /**
+   * Read a double at the given file position, using the current byte order. Thread safe.
+   *
+   * @param pos file position
+   * @return double value
+   * @throws IOException on io error
+   */
+  public double readDoubleAt(long pos) throws IOException {
+    return readBufferAt(pos, 8).getDouble();
+  }
+
   /**
    * Read up to <code>len</code> bytes into an array, at a specified
    * offset. This will block until at least one byte has been read.
@@ -1034,8 +1239,12 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
    * @throws IOException on read error
    */
   public final void readShort(short[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = readShort();
+    while (n > 0) {
+      ByteBuffer bb = nextChunk(n, 2);
+      int count = bb.remaining() / 2;
+      bb.asShortBuffer().get(pa, start, count);
+      start += count;
+      n -= count;
     }
   }
 
@@ -1187,8 +1396,12 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
    * @throws IOException on read error
    */
   public final void readInt(int[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = readInt();
+    while (n > 0) {
+      ByteBuffer bb = nextChunk(n, 4);
+      int count = bb.remaining() / 4;
+      bb.asIntBuffer().get(pa, start, count);
+      start += count;
+      n -= count;
     }
   }
 
@@ -1253,8 +1466,12 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
    * @throws IOException on read error
    */
   public final void readLong(long[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = readLong();
+    while (n > 0) {
+      ByteBuffer bb = nextChunk(n, 8);
+      int count = bb.remaining() / 8;
+      bb.asLongBuffer().get(pa, start, count);
+      start += count;
+      n -= count;
     }
   }
 
@@ -1290,8 +1507,12 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
    * @throws IOException on read error
    */
   public final void readFloat(float[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = Float.intBitsToFloat(readInt());
+    while (n > 0) {
+      ByteBuffer bb = nextChunk(n, 4);
+      int count = bb.remaining() / 4;
+      bb.asFloatBuffer().get(pa, start, count);
+      start += count;
+      n -= count;
     }
   }
 
@@ -1327,9 +1548,42 @@ public class RandomAccessFile implements DataInput, DataOutput, FileCacheable {
    * @throws IOException on read error
    */
   public final void readDouble(double[] pa, int start, int n) throws IOException {
-    for (int i = 0; i < n; i++) {
-      pa[start + i] = Double.longBitsToDouble(readLong());
+    while (n > 0) {
+      ByteBuffer bb = nextChunk(n, 8);
+      int count = bb.remaining() / 8;
+      bb.asDoubleBuffer().get(pa, start, count);
+      start += count;
+      n -= count;
+    }
+  }
+
+  /**
+   * Used by the array readers to decode many elements at once.
+   * If whole elements are in the buffer, return a view of them, otherwise read a chunk of at most bulkChunkSize bytes
+   * from the file. Either way the file pointer is advanced past the returned bytes.
+   *
+   * @param nelems   want this many elements, must be > 0
+   * @param elemSize size of each element in bytes
+   * @return ByteBuffer in the current byte order, positioned at the first element, holding at least one whole element
+   * @throws IOException on read error, EOFException if the file ends first
+   */
+  private ByteBuffer nextChunk(int nelems, int elemSize) throws IOException {
+    ByteBuffer bb;
+    long inBuffer = (filePosition >= bufferStart) ? (dataEnd - filePosition) / elemSize : 0;
+    if (inBuffer > 0) {
+      int nbytes = (int) Math.min(nelems, inBuffer) * elemSize;
+      bb = ByteBuffer.wrap(buffer, (int) (filePosition - bufferStart), nbytes);
+      filePosition += nbytes;
+
+    } else {
+      // large reads go directly from the file to the chunk, small ones refill the buffer
+      int nbytes = (int) Math.min((long) nelems * elemSize, bulkChunkSize - bulkChunkSize % elemSize);
+      byte[] chunk = new byte[nbytes];
+      readFully(chunk);
+      bb = ByteBuffer.wrap(chunk);
     }
+    bb.order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    return bb;
   }
 
   /**
@@ -110,6 +110,44 @@ public class TestScaleOffset {
     doSubset();
   }
 
+  // float to float is converted in the array that was read; make sure it only happens once
+  @Test
+  public void testFloatInPlace() throws Exception {
+    String floatFile = TestLocal.temporaryDataDir + "scaleOffsetFloat.nc";
+    NetcdfFileWriteable ncfile = NetcdfFileWriteable.createNew(floatFile);
+    ncfile.addDimension("lat", 20);
+    ncfile.addDimension("lon", 30);
+    ncfile.addVariable("packed", DataType.FLOAT, "lat lon");
+    ncfile.addVariableAttribute("packed", CDM.SCALE_FACTOR, 2.0f);
+    ncfile.addVariableAttribute("packed", "add_offset", 1.0f);
+    ncfile.create();
+
+    ArrayFloat.D2 raw = new ArrayFloat.D2(20, 30);
+    for (int i = 0; i < 20; i++)
+      for (int j = 0; j < 30; j++)
+        raw.set(i, j, i * 30 + j);
+    ncfile.write("packed", raw);
+    ncfile.close();
+
+    NetcdfDataset ncd = NetcdfDataset.openDataset(floatFile);
+    Variable vs = ncd.findVariable("packed");
+    assert vs != null;
+    assert vs.getDataType() == DataType.FLOAT;
+
+    for (int trial = 0; trial < 2; trial++) { // nothing is shared between reads
+      Array data = vs.read();
+      for (int i = 0; i < 20; i++)
+        for (int j = 0; j < 30; j++)
+          assert data.getFloat(data.getIndex().set(i, j)) == 2.0f * raw.get(i, j) + 1.0f;
+
+      Array strided = vs.read("1:19:3,0:29:2");
+      for (int i = 0; i < strided.getShape()[0]; i++)
+        for (int j = 0; j < strided.getShape()[1]; j++)
+          assert strided.getFloat(strided.getIndex().set(i, j)) == 2.0f * raw.get(1 + 3 * i, 2 * j) + 1.0f;
+    }
+    ncd.close();
+  }
+
   void testClose(Array packed, Array data1, Array data2, double close) {
     IndexIterator iterp = packed.getIndexIterator();
     IndexIterator iter1 = data1.getIndexIterator();
@@ -0,0 +1,151 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.dt.grid;
+
+import junit.framework.TestCase;
+import ucar.ma2.ArrayDouble;
+import ucar.ma2.DataType;
+import ucar.nc2.NetcdfFileWriteable;
+import ucar.nc2.dataset.CoordinateAxis2D;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Compare the batch lookup GridCoordSys.findXYindexFromCoords(), which uses the cell index in GridCoordinate2D,
+ * with the brute force search of each point, on a curvilinear 2D lat/lon grid.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGridCoordinate2D extends TestCase {
+  static private final int ny = 40, nx = 60;
+
+  private File file;
+
+  public TestGridCoordinate2D(String name) {
+    super(name);
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    file = File.createTempFile("TestGridCoordinate2D", ".nc");
+    NetcdfFileWriteable ncfile = NetcdfFileWriteable.createNew(file.getPath(), false);
+    ncfile.addGlobalAttribute("Conventions", "CF-1.0");
+    ncfile.addDimension("y", ny);
+    ncfile.addDimension("x", nx);
+    ncfile.addVariable("lat", DataType.DOUBLE, "y x");
+    ncfile.addVariableAttribute("lat", "units", "degrees_north");
+    ncfile.addVariable("lon", DataType.DOUBLE, "y x");
+    ncfile.addVariableAttribute("lon", "units", "degrees_east");
+    ncfile.addVariable("data", DataType.FLOAT, "y x");
+    ncfile.addVariableAttribute("data", "coordinates", "lat lon");
+    ncfile.create();
+
+    // a rotated, slightly curved grid
+    ArrayDouble.D2 lat = new ArrayDouble.D2(ny, nx);
+    ArrayDouble.D2 lon = new ArrayDouble.D2(ny, nx);
+    for (int j = 0; j < ny; j++) {
+      for (int i = 0; i < nx; i++) {
+        lat.set(j, i, 30.0 + 0.5 * j + 0.1 * i + 0.001 * i * i);
+        lon.set(j, i, -100.0 + 0.5 * i - 0.1 * j);
+      }
+    }
+    ncfile.write("lat", lat);
+    ncfile.write("lon", lon);
+    ncfile.close();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    if (file != null) file.delete();
+  }
+
+  public void testFindXYindexFromCoords() throws Exception {
+    GridDataset gds = GridDataset.open(file.getPath());
+    try {
+      GeoGrid grid = gds.findGridByName("data");
+      assertNotNull(grid);
+      GridCoordSys gcs = (GridCoordSys) grid.getCoordinateSystem();
+      assertTrue(gcs.getXHorizAxis() instanceof CoordinateAxis2D);
+      GridCoordinate2D g2d = new GridCoordinate2D((CoordinateAxis2D) gcs.getYHorizAxis(), (CoordinateAxis2D) gcs.getXHorizAxis());
+
+      // random points over and around the grid, and some far outside it
+      Random random = new Random(1234);
+      int n = 2000;
+      double[] lats = new double[n + 4];
+      double[] lons = new double[n + 4];
+      for (int k = 0; k < n; k++) {
+        lats[k] = 20.0 + 45.0 * random.nextDouble();
+        lons[k] = -115.0 + 50.0 * random.nextDouble();
+      }
+      lats[n] = -80.0; lons[n] = -100.0;
+      lats[n + 1] = 45.0; lons[n + 1] = 120.0;
+      lats[n + 2] = 89.0; lons[n + 2] = -75.0;
+      lats[n + 3] = 25.0; lons[n + 3] = -70.0;
+
+      int[] xindex = new int[lats.length];
+      int[] yindex = new int[lats.length];
+      int count = gcs.findXYindexFromCoords(lons, lats, xindex, yindex);
+
+      int[] rectIndex = new int[2];
+      int want = 0, outside = 0;
+      for (int k = 0; k < lats.length; k++) {
+        String msg = "point " + k + " lat=" + lats[k] + " lon=" + lons[k];
+        if (g2d.findCoordElementForce(lats[k], lons[k], rectIndex)) {
+          assertEquals(msg, rectIndex[0], yindex[k]);
+          assertEquals(msg, rectIndex[1], xindex[k]);
+          want++;
+        } else {
+          assertEquals(msg, -1, yindex[k]);
+          assertEquals(msg, -1, xindex[k]);
+          outside++;
+        }
+      }
+      assertEquals(want, count);
+      assertTrue(want > 0);
+      assertTrue(outside >= 4);
+
+      // the single point lookups, after the index is built, agree with the batch
+      for (int k = 0; k < lats.length; k++) {
+        if (xindex[k] < 0) continue; // single lookups may search for a best guess
+        int[] result = gcs.findXYindexFromCoord(lons[k], lats[k], null);
+        assertEquals("point " + k, xindex[k], result[0]);
+        assertEquals("point " + k, yindex[k], result[1]);
+      }
+
+    } finally {
+      gds.close();
+    }
+  }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ft.point.collection;
+
+import org.junit.After;
+import org.junit.Test;
+import thredds.inventory.CollectionManager;
+import thredds.inventory.MFile;
+import thredds.inventory.TimedCollection;
+import ucar.nc2.ft.FeatureDatasetPoint;
+import ucar.nc2.ft.PointFeature;
+import ucar.nc2.ft.PointFeatureCollection;
+import ucar.nc2.ft.PointFeatureIterator;
+import ucar.nc2.time.CalendarDateRange;
+import ucar.nc2.units.DateRange;
+import ucar.unidata.geoloc.LatLonRect;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * CompositePointIteratorParallel over fake datasets: ordering, finishing early, reader errors, and abandoned iterators.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestCompositePointIteratorParallel {
+  static private final int ndatasets = 6, nfeatures = 1234;
+
+  private final ExecutorService exec = Executors.newFixedThreadPool(4);
+  private final AtomicInteger opened = new AtomicInteger(), closed = new AtomicInteger();
+
+  @After
+  public void shutdown() {
+    exec.shutdownNow();
+    CompositePointIteratorParallel.setAbandonMillis(5 * 60 * 1000);
+  }
+
+  @Test
+  public void testTimeOrder() throws Exception {
+    CompositePointIteratorParallel iter = makeIterator(nfeatures, -1, true);
+    int count = 0;
+    while (iter.hasNext()) {
+      PointFeature pf = iter.next();
+      assertEquals(expected(count / nfeatures, count % nfeatures), pf.getObservationTime(), 0.0);
+      count++;
+    }
+    assertEquals(ndatasets * nfeatures, count);
+    assertFalse(iter.hasNext());
+    assertClosed();
+  }
+
+  @Test
+  public void testReadOrder() throws Exception {
+    CompositePointIteratorParallel iter = makeIterator(nfeatures, -1, false);
+    int[] next = new int[ndatasets]; // features of each dataset stay in order
+    int count = 0;
+    while (iter.hasNext()) {
+      double time = iter.next().getObservationTime();
+      int ds = (int) (time / 100000);
+      assertEquals(expected(ds, next[ds]), time, 0.0);
+      next[ds]++;
+      count++;
+    }
+    assertEquals(ndatasets * nfeatures, count);
+    for (int n : next)
+      assertEquals(nfeatures, n);
+    assertClosed();
+  }
+
+  @Test
+  public void testFinishEarly() throws Exception {
+    CompositePointIteratorParallel iter = makeIterator(20 * 1000, -1, true);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(iter.hasNext());
+      assertEquals(expected(0, i), iter.next().getObservationTime(), 0.0);
+    }
+    iter.finish();
+    assertFalse(iter.hasNext());
+    assertClosed();
+  }
+
+  @Test
+  public void testReaderException() throws Exception {
+    CompositePointIteratorParallel iter = makeIterator(nfeatures, 2, true);
+    int count = 0;
+    try {
+      while (iter.hasNext()) {
+        iter.next();
+        count++;
+      }
+      fail("no exception");
+    } catch (IOException ioe) {
+      assertTrue(ioe.getMessage(), ioe.getMessage().contains("dataset2"));
+    }
+    assertTrue("count= " + count, count >= 2 * nfeatures);
+    assertClosed();
+  }
+
+  @Test
+  public void testAbandoned() throws Exception {
+    CompositePointIteratorParallel.setAbandonMillis(200);
+    CompositePointIteratorParallel iter = makeIterator(20 * 1000, -1, true);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(iter.hasNext());
+      iter.next();
+    }
+    // dropped without finish(): the readers give up and close their datasets
+    assertClosed();
+
+    try {
+      while (iter.hasNext())
+        iter.next();
+      fail("no exception");
+    } catch (IOException ioe) {
+      assertTrue(ioe.getMessage(), ioe.getMessage().contains("stopped reading"));
+    }
+  }
+
+  // wait for every dataset that was opened to be closed
+  private void assertClosed() throws InterruptedException {
+    long start = System.currentTimeMillis();
+    while ((closed.get() < opened.get()) && (System.currentTimeMillis() - start < 10 * 1000))
+      Thread.sleep(20);
+    assertTrue("opened= " + opened.get(), opened.get() > 0);
+    assertEquals(opened.get(), closed.get());
+  }
+
+  static private double expected(int ds, int n) {
+    return ds * 100000 + n;
+  }
+
+  // dataset number bad throws an IOException halfway through
+  private CompositePointIteratorParallel makeIterator(final int n, final int bad, boolean timeOrder) throws IOException {
+    final List<MFile> files = new ArrayList<MFile>();
+    for (int i = 0; i < ndatasets; i++)
+      files.add(stub(MFile.class, "getPath", "dataset" + i));
+    CollectionManager manager = stub(CollectionManager.class, "getFiles", files);
+    List<TimedCollection.Dataset> datasets = new TimedCollection(manager, new Formatter()).getDatasets();
+
+    return new CompositePointIteratorParallel(datasets, exec, 3, timeOrder, null, null) {
+      protected FeatureDatasetPoint openDataset(TimedCollection.Dataset td) throws IOException {
+        opened.incrementAndGet();
+        return (FeatureDatasetPoint) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{FeatureDatasetPoint.class},
+            new Stub("getLocation", td.getLocation()) {
+              public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("close")) closed.incrementAndGet();
+                return super.invoke(proxy, method, args);
+              }
+            });
+      }
+
+      protected PointFeatureIterator getIterator(FeatureDatasetPoint fdp, int bufferSize) throws IOException {
+        int ds = Integer.parseInt(fdp.getLocation().substring("dataset".length()));
+        return new FakeIterator(ds, n, ds == bad);
+      }
+    };
+  }
+
+  static private <T> T stub(Class<T> c, String method, Object value) {
+    return c.cast(Proxy.newProxyInstance(c.getClassLoader(), new Class[]{c}, new Stub(method, value)));
+  }
+
+  // answers one method, and default values for the rest
+  static private class Stub implements InvocationHandler {
+    final String name;
+    final Object value;
+
+    Stub(String name, Object value) {
+      this.name = name;
+      this.value = value;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getName().equals(name)) return value;
+      if (method.getName().equals("toString")) return name + "=" + value;
+      if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+      if (method.getName().equals("equals")) return proxy == args[0];
+      Class<?> type = method.getReturnType();
+      if (type == boolean.class) return Boolean.FALSE;
+      if (type == int.class) return 0;
+      if (type == long.class) return 0L;
+      if (type == double.class) return 0.0;
+      if (type == float.class) return 0.0f;
+      return null;
+    }
+  }
+
+  static private class FakeIterator implements PointFeatureIterator {
+    final int ds, n;
+    final boolean bad;
+    int count;
+
+    FakeIterator(int ds, int n, boolean bad) {
+      this.ds = ds;
+      this.n = n;
+      this.bad = bad;
+    }
+
+    public boolean hasNext() throws IOException {
+      if (bad && count == n / 2) throw new IOException("cant read dataset" + ds);
+      return count < n;
+    }
+
+    public PointFeature next() throws IOException {
+      return stub(PointFeature.class, "getObservationTime", expected(ds, count++));
+    }
+
+    public void finish() {
+    }
+
+    public void setBufferSize(int bytes) {
+    }
+
+    public void setCalculateBounds(PointFeatureCollection collection) {
+    }
+
+    public LatLonRect getBoundingBox() {
+      return null;
+    }
+
+    public DateRange getDateRange() {
+      return null;
+    }
+
+    public CalendarDateRange getCalendarDateRange() {
+      return null;
+    }
+
+    public int getCount() {
+      return count;
+    }
+  }
+
+}
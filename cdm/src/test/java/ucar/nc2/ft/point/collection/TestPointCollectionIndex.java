@@ -0,0 +1,172 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ft.point.collection;
+
+import org.junit.Test;
+import thredds.inventory.CollectionManager;
+import thredds.inventory.MFile;
+import thredds.inventory.TimedCollection;
+import ucar.nc2.constants.FeatureType;
+import ucar.nc2.time.CalendarDate;
+import ucar.nc2.time.CalendarDateRange;
+import ucar.unidata.geoloc.LatLonPointImpl;
+import ucar.unidata.geoloc.LatLonRect;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * PointCollectionIndex summaries: encoding round trip, and skipping datasets by bounding box, time and station.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestPointCollectionIndex {
+  static private final long day = 24 * 3600 * 1000L;
+  static private final long t0 = CalendarDate.parseISOformat(null, "2012-01-01T00:00:00Z").getMillis();
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    PointCollectionIndex index = new PointCollectionIndex(makeManager(0), FeatureType.STATION);
+    PointCollectionIndex.Summary s = makeSummary(10.0, 20.0, -105.0, -95.0, 0, "KDEN", "KBOU", "KFNL");
+    s.add(Double.NaN, Double.NaN, null); // missing location and time only count the record
+    byte[] b = s.encode();
+
+    PointCollectionIndex.Summary s2 = index.decode(b);
+    assertNotNull(s2);
+    assertEquals(s.toString(), s2.toString());
+    assertEquals(s.getNrecords(), s2.getNrecords());
+    assertEquals(Arrays.asList("KBOU", "KDEN", "KFNL"), s2.getStations());
+    assertArrayEquals(b, s2.encode());
+
+    PointCollectionIndex.Summary point = new PointCollectionIndex.Summary(123L);
+    point.add(1.0, 2.0, CalendarDate.of(t0));
+    PointCollectionIndex.Summary point2 = index.decode(point.encode());
+    assertNull(point2.getStations());
+    assertEquals(point.toString(), point2.toString());
+
+    b[3]++; // wrong version
+    assertNull(index.decode(b));
+  }
+
+  @Test
+  public void testIntersects() throws Exception {
+    PointCollectionIndex.Summary s = makeSummary(10.0, 20.0, -105.0, -95.0, 0, "KDEN");
+
+    assertTrue(s.intersects(null, null, null));
+    assertTrue(s.intersects(box(15.0, 30.0, -100.0, -80.0), null, null));
+    assertFalse(s.intersects(box(21.0, 30.0, -100.0, -80.0), null, null));
+    assertFalse(s.intersects(box(15.0, 30.0, -90.0, -80.0), null, null));
+
+    assertTrue(s.intersects(null, range(t0 + day / 2, t0 + 2 * day), null));
+    assertFalse(s.intersects(null, range(t0 + 2 * day, t0 + 3 * day), null));
+    assertFalse(s.intersects(null, range(t0 - 3 * day, t0 - day), null));
+
+    assertTrue(s.intersects(null, null, Arrays.asList("KXXX", "KDEN")));
+    assertFalse(s.intersects(null, null, Arrays.asList("KXXX")));
+    assertTrue(s.intersects(null, null, new ArrayList<String>()));
+
+    assertFalse(new PointCollectionIndex.Summary(0).intersects(null, null, null)); // no records
+  }
+
+  @Test
+  public void testSubset() throws Exception {
+    CollectionManager manager = makeManager(4);
+    TimedCollection collection = new TimedCollection(manager, new Formatter());
+    List<TimedCollection.Dataset> datasets = collection.getDatasets();
+    PointCollectionIndex index = new PointCollectionIndex(manager, FeatureType.STATION);
+
+    // one day each, moving north and east; dataset3 has no summary
+    for (int i = 0; i < 3; i++)
+      index.putSummary(datasets.get(i).getLocation(), makeSummary(10.0 * i, 10.0 * i + 5, 10.0 * i, 10.0 * i + 5, i, "S" + i));
+
+    assertSame(collection, index.subset(collection, null, null, null));
+    assertEquals(Arrays.asList("dataset1", "dataset3"), locations(index.subset(collection, box(11.0, 12.0, 11.0, 12.0), null, null)));
+    assertEquals(Arrays.asList("dataset0", "dataset1", "dataset3"), locations(index.subset(collection, null, range(t0, t0 + day + 1), null)));
+    assertEquals(Arrays.asList("dataset2", "dataset3"), locations(index.subset(collection, null, null, Arrays.asList("S2"))));
+    assertEquals(Arrays.asList("dataset3"), locations(index.subset(collection, box(-50.0, -40.0, 0.0, 1.0), null, null)));
+  }
+
+  // one record at each corner, the day after t0 + days
+  static private PointCollectionIndex.Summary makeSummary(double latMin, double latMax, double lonMin, double lonMax, int days, String... stns) {
+    PointCollectionIndex.Summary s = new PointCollectionIndex.Summary(0);
+    long start = t0 + days * day;
+    s.add(latMin, lonMin, CalendarDate.of(start));
+    s.add(latMax, lonMax, CalendarDate.of(start + day / 2));
+    s.add(latMin, lonMax, CalendarDate.of(start + day - 1));
+    if (stns.length > 0) s.setStations(stns.clone());
+    return s;
+  }
+
+  static private LatLonRect box(double latMin, double latMax, double lonMin, double lonMax) {
+    return new LatLonRect(new LatLonPointImpl(latMin, lonMin), new LatLonPointImpl(latMax, lonMax));
+  }
+
+  static private CalendarDateRange range(long start, long end) {
+    return CalendarDateRange.of(CalendarDate.of(start), CalendarDate.of(end));
+  }
+
+  static private List<String> locations(TimedCollection collection) {
+    List<String> result = new ArrayList<String>();
+    for (TimedCollection.Dataset td : collection.getDatasets())
+      result.add(td.getLocation());
+    return result;
+  }
+
+  // a collection of n files named datasetN, with lastModified = 0
+  static private CollectionManager makeManager(int n) {
+    final List<MFile> files = new ArrayList<MFile>();
+    for (int i = 0; i < n; i++)
+      files.add(stub(MFile.class, "getPath", "dataset" + i));
+    return stub(CollectionManager.class, "getFiles", files);
+  }
+
+  static private <T> T stub(Class<T> c, final String name, final Object value) {
+    return c.cast(Proxy.newProxyInstance(c.getClassLoader(), new Class[]{c}, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals(name)) return value;
+        if (method.getName().equals("equals")) return proxy == args[0];
+        if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) return Boolean.FALSE;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+      }
+    }));
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.iosp;
+
+import junit.framework.TestCase;
+import ucar.unidata.io.InMemoryRandomAccessFile;
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compare the bulk BitReader.bits2UInt(nb, n, result, offset) on data in memory with reading one value at a time
+ * from a RandomAccessFile.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestBitReader extends TestCase {
+  static private final int[] leads = {0, 1, 3, 7, 8, 13};   // bits read before the bulk read
+  static private final int[] counts = {0, 1, 2, 3, 17, 100}; // values in the bulk read
+  static private final int offset = 5;
+
+  private byte[] packed;
+
+  public TestBitReader(String name) {
+    super(name);
+  }
+
+  @Override
+  protected void setUp() {
+    packed = new byte[1000];
+    new Random(1234).nextBytes(packed);
+  }
+
+  public void testBulk() throws IOException {
+    for (int nb = 1; nb <= 32; nb++)
+      for (int lead : leads)
+        for (int n : counts)
+          compare(nb, lead, n);
+  }
+
+  // a second bulk read after incrByte(), as the GRIB readers do
+  public void testIncrByte() throws IOException {
+    for (int nb = 1; nb <= 32; nb++) {
+      BitReader bulk = new BitReader(packed);
+      BitReader single = new BitReader(makeRaf(), 0);
+      int[] want = new int[7];
+      int[] got = new int[7];
+
+      for (int k = 0; k < 3; k++) {
+        bulk.bits2UInt(nb, got.length, got, 0);
+        for (int i = 0; i < want.length; i++)
+          want[i] = (int) single.bits2UInt(nb);
+        for (int i = 0; i < want.length; i++)
+          assertEquals("nb=" + nb + " k=" + k + " i=" + i, want[i], got[i]);
+        bulk.incrByte();
+        single.incrByte();
+      }
+      assertEquals("nb=" + nb, single.bits2UInt(11), bulk.bits2UInt(11));
+    }
+  }
+
+  public void testSetBitOffset() throws IOException {
+    for (int nb = 1; nb <= 32; nb++) {
+      for (int bitOffset : new int[]{0, 5, 16, 77}) {
+        BitReader bulk = new BitReader(packed);
+        BitReader single = new BitReader(makeRaf(), 0);
+        bulk.setBitOffset(bitOffset);
+        single.setBitOffset(bitOffset);
+        int[] got = new int[9];
+        bulk.bits2UInt(nb, got.length, got, 0);
+        for (int i = 0; i < got.length; i++)
+          assertEquals("nb=" + nb + " bitOffset=" + bitOffset + " i=" + i, (int) single.bits2UInt(nb), got[i]);
+      }
+    }
+  }
+
+  private void compare(int nb, int lead, int n) throws IOException {
+    String msg = "nb=" + nb + " lead=" + lead + " n=" + n;
+    BitReader bulk = new BitReader(packed);
+    BitReader single = new BitReader(makeRaf(), 0);
+    if (lead > 0)
+      assertEquals(msg, single.bits2UInt(lead), bulk.bits2UInt(lead));
+
+    int[] got = new int[offset + n + 1];
+    got[offset + n] = -999; // must not be touched
+    bulk.bits2UInt(nb, n, got, offset);
+    for (int i = 0; i < n; i++)
+      assertEquals(msg + " i=" + i, (int) single.bits2UInt(nb), got[offset + i]);
+    for (int i = 0; i < offset; i++)
+      assertEquals(msg, 0, got[i]);
+    assertEquals(msg, -999, got[offset + n]);
+
+    // both readers end up at the same place
+    assertEquals(msg, single.bits2UInt(9), bulk.bits2UInt(9));
+  }
+
+  private RandomAccessFile makeRaf() throws IOException {
+    return new InMemoryRandomAccessFile("TestBitReader", packed);
+  }
+
+}
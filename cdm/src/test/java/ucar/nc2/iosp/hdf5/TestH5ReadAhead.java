@@ -0,0 +1,169 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.iosp.hdf5;
+
+import junit.framework.TestCase;
+import ucar.ma2.Array;
+import ucar.ma2.MAMath;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+import ucar.unidata.test.util.TestDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Test that reading deflated chunks ahead on an executor gives the same data as the synchronous read,
+ * and that pooled Inflaters survive bad input.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestH5ReadAhead extends TestCase {
+  // float salinity(time=1, depth=40, lat=667, lon=622), chunked and deflated
+  private static final String location = TestDir.cdmUnitTestDir + "formats/netcdf4/ncom_relo_fukushima_1km_tmp_2011040800_t000.nc4";
+  private static final String[] sections = {null, "0,11:12,22,:", "0,5:30:3,100:200,300:621", "0,39,666,621"};
+
+  private long saveCacheSize;
+  private int saveReadAhead;
+
+  public TestH5ReadAhead(String name) {
+    super(name);
+  }
+
+  @Override
+  protected void setUp() {
+    saveCacheSize = H5chunkCache.getDefault().getMaxBytes();
+    H5chunkCache.getDefault().setMaxBytes(0); // every read must decode its chunks
+    saveReadAhead = H5iosp.chunkReadAhead;
+  }
+
+  @Override
+  protected void tearDown() {
+    H5iosp.setChunkExecutor(null);
+    H5iosp.setChunkReadAhead(saveReadAhead);
+    H5chunkCache.getDefault().setMaxBytes(saveCacheSize);
+  }
+
+  public void testReadAheadMatchesSynchronous() throws Exception {
+    NetcdfFile ncfile = NetcdfFile.open(location);
+    ExecutorService exec = Executors.newFixedThreadPool(3);
+    try {
+      Variable v = ncfile.findVariable("salinity");
+      assertNotNull(v);
+      H5header.Vinfo vinfo = (H5header.Vinfo) v.getSPobject();
+      assertTrue(vinfo.isChunked);
+      assertNotNull(vinfo.mfp);
+
+      for (String section : sections) {
+        H5iosp.setChunkExecutor(null);
+        Array sync = read(v, section);
+
+        // small read ahead so that a read takes several batches
+        for (int readAhead : new int[]{2, 5, 16}) {
+          H5iosp.setChunkExecutor(exec);
+          H5iosp.setChunkReadAhead(readAhead);
+          Array ahead = read(v, section);
+          assertTrue(section + " readAhead=" + readAhead, MAMath.isEqual(sync, ahead));
+        }
+      }
+
+    } finally {
+      exec.shutdown();
+      ncfile.close();
+    }
+  }
+
+  private Array read(Variable v, String section) throws Exception {
+    return (section == null) ? v.read() : v.read(section);
+  }
+
+  public void testInflate() throws IOException {
+    byte[] orgData = new byte[10000];
+    for (int i = 0; i < orgData.length; i++)
+      orgData[i] = (byte) (i % 37);
+    byte[] compressed = deflate(orgData);
+
+    // expected size right, too small, or unknown
+    for (int expected : new int[]{orgData.length, 100, 0}) {
+      byte[] result = H5tiledLayoutBB.inflate(compressed, expected);
+      assertEquals(orgData.length, result.length);
+      for (int i = 0; i < orgData.length; i++)
+        assertEquals(orgData[i], result[i]);
+    }
+  }
+
+  public void testInflaterReturnedOnError() throws IOException {
+    H5tiledLayoutBB.inflate(deflate(new byte[10]), 10); // the pool has at least one
+    int poolSize = H5tiledLayoutBB.getInflaterPoolSize();
+    assertTrue(poolSize > 0);
+
+    byte[] compressed = deflate(new byte[1000]);
+    byte[] truncated = new byte[compressed.length / 2];
+    System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+    byte[] garbage = new byte[100];
+    for (int i = 0; i < garbage.length; i++) garbage[i] = (byte) (255 - i);
+
+    for (int i = 0; i < 5; i++) {
+      try {
+        H5tiledLayoutBB.inflate(truncated, 1000);
+        fail();
+      } catch (EOFException e) {
+        // expected
+      }
+      try {
+        H5tiledLayoutBB.inflate(garbage, 1000);
+        fail();
+      } catch (ZipException e) {
+        // expected
+      }
+      assertEquals(poolSize, H5tiledLayoutBB.getInflaterPoolSize());
+    }
+
+    // the returned inflaters were reset and still work
+    byte[] result = H5tiledLayoutBB.inflate(compressed, 1000);
+    assertEquals(1000, result.length);
+  }
+
+  private byte[] deflate(byte[] data) throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    DeflaterOutputStream out = new DeflaterOutputStream(bout);
+    out.write(data);
+    out.close();
+    return bout.toByteArray();
+  }
+}
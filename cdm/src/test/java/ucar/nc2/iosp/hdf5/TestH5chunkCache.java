@@ -0,0 +1,102 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.iosp.hdf5;
+
+import junit.framework.TestCase;
+
+import java.util.Formatter;
+
+/**
+ * Test H5chunkCache keys, LRU eviction and stats.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestH5chunkCache extends TestCase {
+
+  public TestH5chunkCache(String name) {
+    super(name);
+  }
+
+  private H5chunkCache.Key key(int time, long lastModified) {
+    return new H5chunkCache.Key("/data/file.nc4", "temp", new int[]{time, 0, 0, 0}, lastModified);
+  }
+
+  public void testKey() {
+    assertEquals(key(3, 100), key(3, 100));
+    assertEquals(key(3, 100).hashCode(), key(3, 100).hashCode());
+    assertFalse(key(3, 100).equals(key(4, 100)));
+    assertFalse(key(3, 100).equals(key(3, 101))); // file was rewritten
+    assertFalse(key(3, 100).equals(new H5chunkCache.Key("/data/file.nc4", "salt", new int[]{3, 0, 0, 0}, 100)));
+  }
+
+  public void testDisabled() {
+    H5chunkCache cache = new H5chunkCache(0);
+    assertFalse(cache.isEnabled());
+    cache.put(key(0, 1), new byte[10]);
+    assertNull(cache.get(key(0, 1)));
+    assertEquals(0, cache.getCount());
+  }
+
+  public void testEviction() {
+    H5chunkCache cache = new H5chunkCache(300);
+    for (int i = 0; i < 3; i++)
+      cache.put(key(i, 1), new byte[100]);
+    assertEquals(300, cache.getBytesUsed());
+
+    assertNotNull(cache.get(key(0, 1))); // now 1 is least recently used
+    cache.put(key(3, 1), new byte[100]);
+    assertNull(cache.get(key(1, 1)));
+    assertNotNull(cache.get(key(0, 1)));
+    assertNotNull(cache.get(key(3, 1)));
+    assertEquals(300, cache.getBytesUsed());
+
+    cache.put(key(9, 1), new byte[301]); // bigger than the cache
+    assertNull(cache.get(key(9, 1)));
+    assertEquals(3, cache.getCount());
+
+    assertEquals(3, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    cache.setMaxBytes(100);
+    assertEquals(1, cache.getCount());
+    assertEquals(100, cache.getBytesUsed());
+
+    Formatter f = new Formatter();
+    cache.showStats(f);
+    assertTrue(f.toString().contains("hits= 3 miss= 2"));
+
+    cache.clearCache();
+    assertEquals(0, cache.getBytesUsed());
+    assertEquals(0, cache.getCount());
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ncml;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.MAMath;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.TestLocal;
+import ucar.nc2.Variable;
+import ucar.nc2.util.IO;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that reading a section of a joinExisting aggregation in parallel gives the same data as reading it serially,
+ * and that a failed read of one nested dataset fails the whole read.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestAggReadParallel {
+  static private final String[] members = {"jan.nc", "feb.nc", "jan.nc", "feb.nc"}; // 31 + 28 + 31 + 28 times
+
+  private File dir;
+  private ExecutorService exec;
+
+  @Before
+  public void makeFiles() throws IOException {
+    dir = new File(System.getProperty("java.io.tmpdir"), "TestAggReadParallel");
+    dir.mkdirs();
+    for (int i = 0; i < members.length; i++)
+      IO.copyFile(new File(TestNcML.topDir + "nc/" + members[i]), new File(dir, "member" + i + ".nc"));
+  }
+
+  @After
+  public void reset() {
+    Aggregation.setExecutor(null);
+    Aggregation.setMaxParallel(8);
+    if (exec != null) exec.shutdownNow();
+    for (File f : dir.listFiles()) f.delete();
+    dir.delete();
+  }
+
+  private String makeNcml() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+    sb.append("<netcdf xmlns='http://www.unidata.ucar.edu/namespaces/netcdf/ncml-2.2'>\n");
+    sb.append("  <aggregation dimName='time' type='joinExisting'>\n");
+    for (int i = 0; i < members.length; i++)
+      sb.append("    <netcdf location='file:").append(new File(dir, "member" + i + ".nc").getPath()).append("'/>\n");
+    sb.append("  </aggregation>\n</netcdf>\n");
+    return sb.toString();
+  }
+
+  private void setParallel(boolean parallel) {
+    if (parallel) {
+      exec = Executors.newFixedThreadPool(3);
+      Aggregation.setExecutor(exec);
+      Aggregation.setMaxParallel(2); // fewer than the nested datasets
+    } else {
+      Aggregation.setExecutor(null);
+    }
+  }
+
+  private Array readSection(boolean parallel, String section) throws IOException, InvalidRangeException {
+    setParallel(parallel);
+    NetcdfFile ncfile = NcMLReader.readNcML(new StringReader(makeNcml()), null);
+    try {
+      Variable v = ncfile.findVariable("T");
+      assertNotNull(v);
+      return v.read(section);
+    } finally {
+      ncfile.close();
+    }
+  }
+
+  private void compare(String section) throws IOException, InvalidRangeException {
+    Array serial = readSection(false, section);
+    Array parallel = readSection(true, section);
+    assertArrayEquals(serial.getShape(), parallel.getShape());
+    assertTrue(section, MAMath.isEqual(serial, parallel));
+  }
+
+  @Test
+  public void testSameAsSerial() throws IOException, InvalidRangeException {
+    compare("10:100,:,:");   // spans all the nested datasets
+    compare("5:110:3,1,2");  // strided time series at a point
+    compare("40:50,0:1,:");  // inside one nested dataset
+  }
+
+  @Test
+  public void testNestedFails() throws IOException, InvalidRangeException {
+    setParallel(true);
+    NetcdfFile ncfile = NcMLReader.readNcML(new StringReader(makeNcml()), null);
+    try {
+      Variable v = ncfile.findVariable("T");
+      assertTrue(new File(dir, "member2.nc").delete());
+      try {
+        Array data = v.read("10:100,:,:");
+        fail("read of a missing nested dataset returned " + data);
+      } catch (IOException e) {
+        // expected
+      }
+    } finally {
+      ncfile.close();
+    }
+  }
+
+}
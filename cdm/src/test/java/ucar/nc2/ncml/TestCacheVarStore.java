@@ -0,0 +1,155 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ncml;
+
+import junit.framework.TestCase;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.util.DiskCache2;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Test CacheVarStore eviction, spill and reload.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestCacheVarStore extends TestCase {
+
+  public TestCacheVarStore(String name) {
+    super(name);
+  }
+
+  private Array makeDoubles(int n, double start) {
+    Array data = Array.factory(DataType.DOUBLE, new int[]{n});
+    for (int i = 0; i < n; i++)
+      data.setDouble(i, start + i);
+    return data;
+  }
+
+  public void testEvictWithoutSpill() {
+    Object owner = new Object();
+    long size = CacheVarStore.sizeOf(makeDoubles(100, 0));
+    CacheVarStore store = new CacheVarStore(3 * size);
+
+    for (int i = 0; i < 5; i++)
+      store.put(owner, "ds" + i, makeDoubles(100, i));
+    assertEquals(3, store.getCount());
+    assertEquals(3 * size, store.getBytesUsed());
+    assertNull(store.get(owner, "ds0"));
+    assertNull(store.get(owner, "ds1"));
+    assertEquals(4.0, store.get(owner, "ds4").getDouble(0));
+
+    // LRU: touching ds2 means ds3 goes next
+    store.get(owner, "ds2");
+    store.put(owner, "ds5", makeDoubles(100, 5));
+    assertNotNull(store.get(owner, "ds2"));
+    assertNull(store.get(owner, "ds3"));
+  }
+
+  public void testSpillAndReload() throws Exception {
+    File dir = new File(System.getProperty("java.io.tmpdir"), "TestCacheVarStore" + System.nanoTime());
+    DiskCache2 dc = new DiskCache2(dir.getPath(), false, 0, 0);
+    try {
+      Object owner = new Object();
+      Array s = Array.factory(DataType.STRING, new int[]{2});
+      s.setObject(0, "2012-01-01T00:00:00Z");
+      s.setObject(1, "2012-01-01T06:00:00Z");
+      CacheVarStore store = new CacheVarStore(CacheVarStore.sizeOf(s)); // room for one of them
+      store.setDiskCache(dc);
+
+      store.put(owner, "a", makeDoubles(10, 100));
+      store.put(owner, "b", s);  // evicts a
+      assertEquals(1, store.getSpilledCount());
+
+      Array a = store.get(owner, "a");  // reload a, evicts b
+      assertNotNull(a);
+      assertEquals(10, a.getSize());
+      assertEquals(109.0, a.getDouble(9));
+      assertEquals(2, store.getSpilledCount());
+
+      Array b = store.get(owner, "b");
+      assertEquals(DataType.STRING, DataType.getType(b.getElementType()));
+      assertEquals("2012-01-01T06:00:00Z", b.getObject(1));
+
+      // reset keeps only "b"; the spill file of "a" is deleted
+      store.retain(owner, Arrays.asList("b"));
+      assertNull(store.get(owner, "a"));
+      assertEquals(1, store.getSpilledCount());
+
+      store.remove(owner);
+      assertEquals(0, store.getCount());
+      assertEquals(0, store.getSpilledCount());
+      assertEquals(0, store.getBytesUsed());
+      String[] left = dir.list();
+      assertTrue(left == null || left.length == 0);
+
+    } finally {
+      File[] files = dir.listFiles();
+      if (files != null)
+        for (File f : files) f.delete();
+      dir.delete();
+    }
+  }
+
+  public void testOwnersAreSeparate() {
+    Object owner1 = new Object();
+    Object owner2 = new Object();
+    CacheVarStore store = new CacheVarStore(1000 * 1000);
+    store.put(owner1, "ds", makeDoubles(1, 1));
+    store.put(owner2, "ds", makeDoubles(1, 2));
+    assertEquals(1.0, store.get(owner1, "ds").getDouble(0));
+    assertEquals(2.0, store.get(owner2, "ds").getDouble(0));
+
+    store.remove(owner1);
+    assertNull(store.get(owner1, "ds"));
+    assertNotNull(store.get(owner2, "ds"));
+  }
+
+  public void testCollectedOwnerIsDropped() throws Exception {
+    CacheVarStore store = new CacheVarStore(1000 * 1000);
+    Object keep = new Object();
+    store.put(keep, "ds", makeDoubles(10, 1));
+    store.put(new Object(), "ds", makeDoubles(10, 2)); // owner never removed
+
+    for (int i = 0; i < 50 && store.getCount() > 1; i++) {
+      System.gc();
+      Thread.sleep(20);
+      store.expungeCollected();
+    }
+    assertEquals(1, store.getCount());
+    assertEquals(CacheVarStore.sizeOf(makeDoubles(10, 1)), store.getBytesUsed());
+    assertEquals(1.0, store.get(keep, "ds").getDouble(0));
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.stream;
+
+import junit.framework.TestCase;
+import ucar.ma2.*;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Test sending data as a sequence of chunks, and reassembling it.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestNcStreamChunked extends TestCase {
+
+  public TestNcStreamChunked(String name) {
+    super(name);
+  }
+
+  private File makeFile() throws IOException, InvalidRangeException {
+    File f = File.createTempFile("TestNcStreamChunked", ".nc");
+    f.deleteOnExit();
+    NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, f.getPath());
+    writer.addDimension(null, "time", 7);
+    writer.addDimension(null, "y", 30);
+    writer.addDimension(null, "x", 50);
+    writer.addVariable(null, "data", DataType.FLOAT, "time y x");
+    writer.create();
+
+    Array data = Array.factory(DataType.FLOAT, new int[]{7, 30, 50});
+    for (int i = 0; i < data.getSize(); i++)
+      data.setFloat(i, i);
+    writer.write(writer.findVariable("data"), data);
+    writer.close();
+    return f;
+  }
+
+  private void sendAndRead(NetcdfFile ncfile, String spec, boolean deflate) throws IOException, InvalidRangeException {
+    Variable v = ncfile.findVariable("data");
+    Section section = new Section(spec);
+
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    NcStreamWriter writer = new NcStreamWriter(ncfile, null);
+    writer.sendDataChunked(v, section, bout, deflate, 1000); // many small chunks
+
+    NcStreamReader reader = new NcStreamReader();
+    NcStreamReader.DataResult result = reader.readDataChunked(new ByteArrayInputStream(bout.toByteArray()), ncfile, section);
+    Array want = v.read(section);
+    assertEquals(want.getSize(), result.data.getSize());
+    for (int i = 0; i < want.getSize(); i++)
+      assertEquals(spec + " elem " + i, want.getFloat(i), result.data.getFloat(i));
+  }
+
+  public void testChunkedRoundTrip() throws IOException, InvalidRangeException {
+    NetcdfFile ncfile = NetcdfFile.open(makeFile().getPath());
+    try {
+      sendAndRead(ncfile, "0:6,0:29,0:49", false);
+      sendAndRead(ncfile, "0:6,0:29,0:49", true);
+      sendAndRead(ncfile, "1:5:2,3:27,10:44:3", false);
+      sendAndRead(ncfile, "2,0:29,7", true);
+    } finally {
+      ncfile.close();
+    }
+  }
+
+  public void testNotChunked() throws IOException, InvalidRangeException {
+    NetcdfFile ncfile = NetcdfFile.open(makeFile().getPath());
+    try {
+      // a single message is read the same way
+      Variable v = ncfile.findVariable("data");
+      Section section = new Section("3,0:29,0:49");
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      new NcStreamWriter(ncfile, null).sendData(v, section, bout, false);
+      NcStreamReader.DataResult result = new NcStreamReader().readDataChunked(new ByteArrayInputStream(bout.toByteArray()), ncfile, section);
+      assertTrue(MAMath.isEqual(v.read(section), result.data));
+    } finally {
+      ncfile.close();
+    }
+  }
+
+  public void testIospReassembles() throws IOException, InvalidRangeException {
+    NetcdfFile ncfile = NetcdfFile.open(makeFile().getPath());
+    File ncs = File.createTempFile("TestNcStreamChunked", ".ncs");
+    ncs.deleteOnExit();
+    try {
+      // variable is larger than NcStreamWriter maxChunk, so written in chunks
+      Variable v = ncfile.findVariable("data");
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      NcStreamWriter writer = new NcStreamWriter(ncfile, null);
+      writer.sendStart(bout);
+      writer.sendHeader(bout);
+      writer.sendDataChunked(v, v.getShapeAsSection(), bout, true, 2000);
+      writer.sendEnd(bout);
+      FileOutputStream fos = new FileOutputStream(ncs);
+      bout.writeTo(fos);
+      fos.close();
+
+      NetcdfFile ncfileBack = NetcdfFile.open(ncs.getPath());
+      try {
+        Variable vback = ncfileBack.findVariable("data");
+        for (String spec : new String[]{"0:6,0:29,0:49", "4,12:17,0:49:5", "0:6:3,29,49"}) {
+          Section section = new Section(spec);
+          assertTrue(spec, MAMath.isEqual(v.read(section), vback.read(section)));
+        }
+      } finally {
+        ncfileBack.close();
+      }
+    } finally {
+      ncfile.close();
+    }
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.util.cache;
+
+import org.junit.Test;
+import ucar.nc2.util.CancelTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test FileCacheConcurrent with an in-memory FileCacheable, so no test data is needed.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestFileCacheConcurrentOpen {
+
+  static class DummyFile implements FileCacheable {
+    final String location;
+    long lastModified = 1;
+    boolean closed;
+    FileCache fileCache;
+
+    DummyFile(String location) {
+      this.location = location;
+    }
+
+    public String getLocation() {
+      return location;
+    }
+
+    public void close() throws IOException {
+      if (fileCache != null)
+        fileCache.release(this);
+      else
+        closed = true;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public void setFileCache(FileCache fileCache) {
+      this.fileCache = fileCache;
+    }
+  }
+
+  static class CountingFactory implements FileFactory {
+    final AtomicInteger opens = new AtomicInteger();
+    final int openMsecs;
+
+    CountingFactory(int openMsecs) {
+      this.openMsecs = openMsecs;
+    }
+
+    public FileCacheable open(String location, int buffer_size, CancelTask cancelTask, Object iospMessage) throws IOException {
+      opens.incrementAndGet();
+      try {
+        Thread.sleep(openMsecs);
+      } catch (InterruptedException e) {
+        throw new IOException("interrupted");
+      }
+      return new DummyFile(location);
+    }
+  }
+
+  @Test
+  public void testSingleOpen() throws Exception {
+    final FileCacheConcurrent cache = new FileCacheConcurrent("test", 0, 100, -1, 0, 5000);
+    final CountingFactory factory = new CountingFactory(200);
+    int nthreads = 20;
+
+    ExecutorService pool = Executors.newFixedThreadPool(nthreads);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+    for (int i = 0; i < nthreads; i++) {
+      results.add(pool.submit(new Callable<Boolean>() {
+        public Boolean call() throws Exception {
+          start.await();
+          FileCacheable fc = cache.acquire(factory, "same", null);
+          assertNotNull(fc);
+          fc.close();
+          return true;
+        }
+      }));
+    }
+    start.countDown();
+    for (Future<Boolean> f : results)
+      assertTrue(f.get(30, TimeUnit.SECONDS));
+    pool.shutdown();
+
+    assertEquals(1, factory.opens.get());
+    assertEquals(1, cache.showCache().size());
+    assertEquals(nthreads, cache.getHits() + cache.getMiss());
+    assertEquals(cache.getMiss() - 1, cache.getCoalesced()); // every miss but the opener shared its copy
+    cache.clearCache(true);
+    assertEquals(0, cache.getClockSize());
+  }
+
+  @Test
+  public void testExclusiveUse() throws Exception {
+    FileCacheConcurrent cache = new FileCacheConcurrent("test", 0, 100, -1, 0, 0);
+    CountingFactory factory = new CountingFactory(0);
+
+    FileCacheable f1 = cache.acquire(factory, "loc", null);
+    FileCacheable f2 = cache.acquire(factory, "loc", null);
+    assertNotSame(f1, f2);  // first is still locked
+    f1.close();
+    FileCacheable f3 = cache.acquire(factory, "loc", null);
+    assertSame(f1, f3);
+    assertEquals(2, factory.opens.get());
+    f2.close();
+    f3.close();
+    cache.clearCache(true);
+  }
+
+  @Test
+  public void testModifiedDiscarded() throws Exception {
+    FileCacheConcurrent cache = new FileCacheConcurrent("test", 0, 100, -1, 0);
+    CountingFactory factory = new CountingFactory(0);
+
+    DummyFile f1 = (DummyFile) cache.acquire(factory, "loc", null);
+    f1.close();
+    f1.lastModified = 2;
+    FileCacheable f2 = cache.acquire(factory, "loc", null);
+    assertNotSame(f1, f2);
+    assertTrue(f1.closed);
+    assertEquals(2, factory.opens.get());
+    assertEquals(1, cache.getClockSize()); // the discarded file is not left in the clock
+    f2.close();
+    cache.clearCache(true);
+    assertEquals(0, cache.getClockSize());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    FileCacheConcurrent cache = new FileCacheConcurrent("test", 5, 10, 20, 0);
+    CountingFactory factory = new CountingFactory(0);
+
+    List<DummyFile> all = new ArrayList<DummyFile>();
+    for (int i = 0; i < 50; i++) {
+      DummyFile f = (DummyFile) cache.acquire(factory, "loc" + i, null);
+      f.close();
+      all.add(f);
+    }
+    assertTrue(cache.showCache().size() <= 20); // hard limit
+
+    cache.cleanup(10);
+    assertEquals(5, cache.showCache().size());
+    assertEquals(5, cache.getClockSize());
+    assertEquals(45, cache.getEvicted());
+
+    // the most recently used should survive
+    FileCacheable last = cache.acquire(factory, "loc49", null);
+    assertSame(all.get(49), last);
+    last.close();
+
+    // locked files are never closed
+    DummyFile locked = (DummyFile) cache.acquire(factory, "loc49", null);
+    cache.clearCache(false);
+    assertFalse(locked.closed);
+    assertEquals(1, cache.showCache().size());
+    assertTrue(cache.getClockSize() <= 2); // closed files are left in the clock, no more of them than open ones
+    locked.close();
+    cache.clearCache(true);
+    assertEquals(0, cache.getClockSize());
+  }
+
+  @Test
+  public void testClockStaysSmall() throws Exception {
+    FileCacheConcurrent cache = new FileCacheConcurrent("test", 0, 1000, -1, 0);
+    CountingFactory factory = new CountingFactory(0);
+
+    cache.acquire(factory, "keep", null).close();
+    for (int i = 0; i < 200; i++) {
+      cache.acquire(factory, "loc" + i, null).close();
+      cache.remove("loc" + i); // closed files are left in the clock, till they outnumber the open ones
+      assertTrue("clock size " + cache.getClockSize(), cache.getClockSize() <= 3);
+    }
+    assertEquals(1, cache.showCache().size());
+    cache.clearCache(true);
+    assertEquals(0, cache.getClockSize());
+  }
+}
@@ -322,6 +322,58 @@ public class TestProjections extends TestCase {
   }
 
   // UTM failing - no not use
+  // the array methods must give the same answer as converting one point at a time
+  private void testArrays(ProjectionImpl proj, double centerLat, double centerLon) {
+    java.util.Random r = new java.util.Random((long) this.hashCode());
+    int n = 1000;
+    double[][] latlon = new double[2][n];
+    for (int i = 0; i < n; i++) {
+      latlon[0][i] = centerLat + 20.0 * (r.nextDouble() - .5);
+      latlon[1][i] = centerLon + 20.0 * (r.nextDouble() - .5);
+    }
+
+    double[][] xy = proj.latLonToProj(latlon, new double[2][n], ProjectionImpl.INDEX_LAT, ProjectionImpl.INDEX_LON);
+    double[][] back = proj.projToLatLon(xy, new double[2][n]);
+    float[][] xyf = proj.latLonToProj(toFloat(latlon), new float[2][n], ProjectionImpl.INDEX_LAT, ProjectionImpl.INDEX_LON);
+
+    ProjectionImpl.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(3));
+    ProjectionImpl.setMinSlicePoints(100);
+    double[][] xyp = proj.latLonToProjParallel(latlon, new double[2][n], ProjectionImpl.INDEX_LAT, ProjectionImpl.INDEX_LON);
+    double[][] backp = proj.projToLatLonParallel(xy, new double[2][n]);
+    ProjectionImpl.setExecutor(null);
+
+    for (int i = 0; i < n; i++) {
+      ProjectionPoint p = proj.latLonToProj(new LatLonPointImpl(latlon[0][i], latlon[1][i]));
+      assertEquals(proj.getClassName() + " x", p.getX(), xy[0][i], 1.0e-6);
+      assertEquals(proj.getClassName() + " y", p.getY(), xy[1][i], 1.0e-6);
+      assertEquals(proj.getClassName() + " float x", p.getX(), xyf[0][i], 1.0e-3 * Math.max(1.0, Math.abs(p.getX())));
+      assertEquals(proj.getClassName() + " parallel x", xy[0][i], xyp[0][i], 0.0);
+      assertEquals(proj.getClassName() + " parallel y", xy[1][i], xyp[1][i], 0.0);
+
+      LatLonPoint ll = proj.projToLatLon(new ProjectionPointImpl(xy[0][i], xy[1][i]));
+      assertEquals(proj.getClassName() + " lat", ll.getLatitude(), back[0][i], 1.0e-6);
+      assertEquals(proj.getClassName() + " lon", ll.getLongitude(), back[1][i], 1.0e-6);
+      assertEquals(proj.getClassName() + " parallel lat", back[0][i], backp[0][i], 0.0);
+      assertEquals(proj.getClassName() + " parallel lon", back[1][i], backp[1][i], 0.0);
+    }
+  }
+
+  private float[][] toFloat(double[][] from) {
+    float[][] result = new float[2][from[0].length];
+    for (int i = 0; i < from[0].length; i++) {
+      result[0][i] = (float) from[0][i];
+      result[1][i] = (float) from[1][i];
+    }
+    return result;
+  }
+
+  public void testArrays() {
+    testArrays(new Mercator(-105.0, 20.0), 20.0, -105.0);
+    testArrays(new RotatedPole(37.5, 177.5), 50.0, 10.0);
+    testArrays(new LambertConformal(40.0, -105.0, 20.0, 60.0), 40.0, -105.0);
+    testArrays(new MSGnavigation(), 0.0, 0.0);
+  }
+
   public void testUTM() {
     // The central meridian = (zone * 6 - 183) degrees, where zone in [1,60].
     // zone = (lon + 183)/6
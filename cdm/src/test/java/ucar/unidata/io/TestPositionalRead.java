@@ -0,0 +1,217 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.unidata.io;
+
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the thread-safe positional reads of RandomAccessFile, MMapRandomAccessFile and InMemoryRandomAccessFile.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestPositionalRead {
+  static final int N = 100 * 1000;
+
+  // file of N big endian ints, value = index
+  private File makeFile() throws IOException {
+    File f = File.createTempFile("TestPositionalRead", ".dat");
+    f.deleteOnExit();
+    DataOutputStream out = new DataOutputStream(new FileOutputStream(f));
+    try {
+      for (int i = 0; i < N; i++) out.writeInt(i);
+    } finally {
+      out.close();
+    }
+    return f;
+  }
+
+  @Test
+  public void testRandomAccessFile() throws Exception {
+    File f = makeFile();
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r");
+    try {
+      checkPositional(raf);
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void testMMap() throws Exception {
+    File f = makeFile();
+    RandomAccessFile raf = new MMapRandomAccessFile(f.getPath());
+    try {
+      assertEquals(4 * N, raf.length());
+      checkPositional(raf);
+
+      // stateful reads still work
+      raf.seek(4 * 1234);
+      assertEquals(1234, raf.readInt());
+      int[] ia = new int[10];
+      raf.readInt(ia, 0, 10);
+      assertEquals(1235, ia[0]);
+      assertEquals(1244, ia[9]);
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void testInMemory() throws Exception {
+    File f = makeFile();
+    byte[] data = new byte[4 * N];
+    java.io.RandomAccessFile in = new java.io.RandomAccessFile(f, "r");
+    try {
+      in.readFully(data);
+    } finally {
+      in.close();
+    }
+    RandomAccessFile raf = new InMemoryRandomAccessFile("TestPositionalRead", data);
+    try {
+      checkPositional(raf);
+
+      // at or past the end of file, reads return -1 as RandomAccessFile does
+      byte[] b = new byte[8];
+      raf.seek(4 * N);
+      assertEquals(-1, raf.read());
+      assertEquals(-1, raf.read(b, 0, 8));
+      raf.seek(4 * N + 100);
+      assertEquals(-1, raf.read());
+      assertEquals(-1, raf.readAt(4 * N + 100, b, 0, 8));
+      try {
+        raf.readInt();
+        fail();
+      } catch (java.io.EOFException e) {
+        // expected
+      }
+
+      // and the data is still there
+      raf.seek(4 * 1234);
+      assertEquals(1234, raf.readInt());
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void testMMapGrows() throws Exception {
+    File f = makeFile();
+    RandomAccessFile raf = new MMapRandomAccessFile(f.getPath());
+    try {
+      raf.order(RandomAccessFile.BIG_ENDIAN);
+      assertEquals(4 * N, raf.length());
+
+      // append to the file after it was mapped
+      DataOutputStream out = new DataOutputStream(new FileOutputStream(f, true));
+      try {
+        for (int i = N; i < 2 * N; i++) out.writeInt(i);
+      } finally {
+        out.close();
+      }
+
+      assertEquals(N + 7, raf.readIntAt(4L * (N + 7)));
+      assertEquals(8 * N, raf.length());
+      raf.seek(4L * (2 * N - 1));
+      assertEquals(2 * N - 1, raf.readInt());
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void testInterrupted() throws Exception {
+    File f = makeFile();
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r");
+    try {
+      raf.order(RandomAccessFile.BIG_ENDIAN);
+      assertEquals(11, raf.readIntAt(4 * 11));
+
+      // an interrupted read still reads, keeps the interrupt, and does not close the file
+      Thread.currentThread().interrupt();
+      assertEquals(12, raf.readIntAt(4 * 12));
+      assertTrue(Thread.interrupted());
+
+      assertEquals(13, raf.readIntAt(4 * 13));
+      raf.seek(4 * 14);
+      assertEquals(14, raf.readInt());
+    } finally {
+      Thread.interrupted();
+      raf.close();
+    }
+  }
+
+  private void checkPositional(final RandomAccessFile raf) throws Exception {
+    raf.order(RandomAccessFile.BIG_ENDIAN);
+    raf.seek(8);
+    assertEquals(77, raf.readIntAt(4 * 77));
+    assertEquals(8, raf.getFilePointer()); // positional reads dont move the file pointer
+    assertEquals(2, raf.readInt());
+
+    byte[] b = new byte[8];
+    assertEquals(-1, raf.readAt(4 * N, b, 0, 8));
+    assertEquals(4, raf.readAt(4 * N - 4, b, 0, 8));
+    try {
+      raf.readFullyAt(4 * N - 4, b, 0, 8);
+      fail();
+    } catch (java.io.EOFException e) {
+      // expected
+    }
+
+    // many threads share the same file
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+    for (int t = 0; t < 8; t++) {
+      final int start = t;
+      results.add(pool.submit(new Callable<Boolean>() {
+        public Boolean call() throws Exception {
+          for (int i = start; i < N; i += 7)
+            if (raf.readIntAt(4L * i) != i) return false;
+          return true;
+        }
+      }));
+    }
+    for (Future<Boolean> r : results)
+      assertTrue(r.get(60, TimeUnit.SECONDS));
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.unidata.io;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the RandomAccessFile array readers against the single value readers.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestReadArrays {
+  static final int NBYTES = 1000 * 1000 + 3;
+
+  private File makeFile() throws IOException {
+    byte[] b = new byte[NBYTES];
+    new java.util.Random(17).nextBytes(b);
+    File f = File.createTempFile("TestReadArrays", ".dat");
+    f.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(f);
+    try {
+      out.write(b);
+    } finally {
+      out.close();
+    }
+    return f;
+  }
+
+  @Test
+  public void testArrays() throws IOException {
+    File f = makeFile();
+    for (int bufferSize : new int[]{100, 8092}) {
+      for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+        for (int offset : new int[]{0, 1, 97}) {
+          for (int n : new int[]{1, 7, 333, 50 * 1000}) {
+            check(f, bufferSize, order, offset, n);
+          }
+        }
+      }
+    }
+  }
+
+  private void check(File f, int bufferSize, ByteOrder order, int offset, int n) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r", bufferSize);
+    RandomAccessFile single = new RandomAccessFile(f.getPath(), "r", bufferSize);
+    raf.order(order);
+    single.order(order);
+    try {
+      // shorts, then ints, etc, continuing from where the last one left off
+      raf.seek(offset);
+      single.seek(offset);
+
+      short[] sa = new short[n];
+      raf.readShort(sa, 0, n);
+      for (int i = 0; i < n; i++) assertEquals(single.readShort(), sa[i]);
+
+      int[] ia = new int[n];
+      raf.readInt(ia, 0, n);
+      for (int i = 0; i < n; i++) assertEquals(single.readInt(), ia[i]);
+
+      float[] fa = new float[n];
+      raf.readFloat(fa, 0, n);
+      for (int i = 0; i < n; i++) assertEquals(Float.floatToRawIntBits(single.readFloat()), Float.floatToRawIntBits(fa[i]));
+
+      double[] da = new double[n+1];
+      raf.readDouble(da, 1, n);
+      for (int i = 1; i <= n; i++) assertEquals(Double.doubleToRawLongBits(single.readDouble()), Double.doubleToRawLongBits(da[i]));
+
+      assertEquals(single.getFilePointer(), raf.getFilePointer());
+      assertEquals(single.readByte(), raf.readByte());
+
+    } finally {
+      raf.close();
+      single.close();
+    }
+  }
+
+  @Test
+  public void testByteOrder() throws IOException {
+    File f = makeFile();
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r");
+    try {
+      byte[] b = new byte[40];
+      raf.readFully(b);
+      for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+        raf.order(order);
+        raf.seek(0);
+        int[] ia = new int[10];
+        raf.readInt(ia, 0, 10);
+        ByteBuffer bb = ByteBuffer.wrap(b).order(order);
+        for (int i = 0; i < 10; i++) assertEquals(bb.getInt(), ia[i]);
+      }
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void testEOF() throws IOException {
+    File f = makeFile();
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r");
+    try {
+      raf.seek(NBYTES - 10);
+      int[] ia = new int[3];
+      raf.readInt(ia, 0, 3);
+      fail();
+    } catch (EOFException e) {
+      // expected
+    } finally {
+      raf.close();
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package timing.IO;
+
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/*
+  100 Mbyte file in the OS cache:
+big    short  single=    320.6 Mb/sec  bulk=    820.0 Mb/sec  speedup= 2.6
+big    int    single=    310.2 Mb/sec  bulk=    761.3 Mb/sec  speedup= 2.5
+big    float  single=    298.4 Mb/sec  bulk=    858.8 Mb/sec  speedup= 2.9
+big    double single=    341.4 Mb/sec  bulk=    937.6 Mb/sec  speedup= 2.7
+little short  single=    386.2 Mb/sec  bulk=   1014.2 Mb/sec  speedup= 2.6
+little int    single=    322.9 Mb/sec  bulk=    935.5 Mb/sec  speedup= 2.9
+little float  single=    254.0 Mb/sec  bulk=    842.1 Mb/sec  speedup= 3.3
+little double single=    243.8 Mb/sec  bulk=    776.6 Mb/sec  speedup= 3.2
+ */
+
+/**
+ * Time RandomAccessFile array readers (readShort(short[]...), readInt(int[]...), etc) against
+ * reading one element at a time, which is what the array readers used to do.
+ * Both byte orders are timed. Usage: TimeReadArray [file] [nMbytes]
+ *
+ * @since Oct 18, 2026
+ */
+public class TimeReadArray {
+  static int nloops = 5;
+
+  static public void main(String args[]) throws IOException {
+    int nMbytes = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+    File f;
+    if (args.length > 0) {
+      f = new File(args[0]);
+    } else {
+      f = File.createTempFile("TimeReadArray", ".dat");
+      f.deleteOnExit();
+      makeFile(f, nMbytes);
+    }
+    int nbytes = (int) Math.min(f.length(), (long) nMbytes * 1000 * 1000);
+
+    for (int order : new int[]{RandomAccessFile.BIG_ENDIAN, RandomAccessFile.LITTLE_ENDIAN}) {
+      String orderName = (order == RandomAccessFile.BIG_ENDIAN) ? "big" : "little";
+      for (String type : new String[]{"short", "int", "float", "double"}) {
+        double single = 0, bulk = 0;
+        for (int loop = 0; loop < nloops; loop++) {  // first loop warms up
+          double s = time(f, order, type, nbytes, false);
+          double b = time(f, order, type, nbytes, true);
+          if (loop > 0) {
+            single += s;
+            bulk += b;
+          }
+        }
+        double mb = (double) nbytes * (nloops - 1) / 1000 / 1000;
+        System.out.printf("%-6s %-6s single= %8.1f Mb/sec  bulk= %8.1f Mb/sec  speedup= %.1f%n", orderName, type,
+                mb / single, mb / bulk, single / bulk);
+      }
+    }
+  }
+
+  // return secs
+  static double time(File f, int order, String type, int nbytes, boolean bulk) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r");
+    raf.order(order);
+    double sum = 0;
+    long start = System.nanoTime();
+    try {
+      if (type.equals("short")) {
+        short[] pa = new short[nbytes / 2];
+        if (bulk) raf.readShort(pa, 0, pa.length);
+        else for (int i = 0; i < pa.length; i++) pa[i] = raf.readShort();
+        sum = pa[pa.length - 1];
+      } else if (type.equals("int")) {
+        int[] pa = new int[nbytes / 4];
+        if (bulk) raf.readInt(pa, 0, pa.length);
+        else for (int i = 0; i < pa.length; i++) pa[i] = raf.readInt();
+        sum = pa[pa.length - 1];
+      } else if (type.equals("float")) {
+        float[] pa = new float[nbytes / 4];
+        if (bulk) raf.readFloat(pa, 0, pa.length);
+        else for (int i = 0; i < pa.length; i++) pa[i] = raf.readFloat();
+        sum = pa[pa.length - 1];
+      } else {
+        double[] pa = new double[nbytes / 8];
+        if (bulk) raf.readDouble(pa, 0, pa.length);
+        else for (int i = 0; i < pa.length; i++) pa[i] = raf.readDouble();
+        sum = pa[pa.length - 1];
+      }
+    } finally {
+      raf.close();
+    }
+    if (Double.isInfinite(sum)) System.out.print(""); // keep the result live
+    return (System.nanoTime() - start) / 1.0e9;
+  }
+
+  static void makeFile(File f, int nMbytes) throws IOException {
+    java.util.Random r = new java.util.Random(1);
+    byte[] b = new byte[1000 * 1000];
+    FileOutputStream out = new FileOutputStream(f);
+    try {
+      for (int i = 0; i < nMbytes; i++) {
+        r.nextBytes(b);
+        out.write(b);
+      }
+    } finally {
+      out.close();
+    }
+  }
+}
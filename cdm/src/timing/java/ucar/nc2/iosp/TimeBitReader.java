@@ -0,0 +1,98 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.iosp;
+
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Time unpacking a grid of bit packed values, one value at a time from the RandomAccessFile
+ * versus the whole section read into memory and unpacked with the bulk method.
+ * Uses a scratch file of random bytes, sized like a 0.5 degree global field.
+ *
+ * @since Oct 18, 2026
+ */
+public class TimeBitReader {
+  static private final int NPTS = 720 * 361;
+  static private final int NTRIALS = 10;
+
+  static private long timeSingle(RandomAccessFile raf, int nb, int[] result) throws IOException {
+    long start = System.nanoTime();
+    BitReader reader = new BitReader(raf, 0);
+    for (int i = 0; i < NPTS; i++)
+      result[i] = (int) reader.bits2UInt(nb);
+    return System.nanoTime() - start;
+  }
+
+  static private long timeBulk(RandomAccessFile raf, int nb, int[] result) throws IOException {
+    long start = System.nanoTime();
+    BitReader reader = new BitReader(raf, 0, (int) (((long) NPTS * nb + 7) / 8));
+    reader.bits2UInt(nb, NPTS, result, 0);
+    return System.nanoTime() - start;
+  }
+
+  public static void main(String args[]) throws IOException {
+    File f = File.createTempFile("TimeBitReader", ".bin");
+    f.deleteOnExit();
+    byte[] bytes = new byte[NPTS * 4];
+    new Random(17).nextBytes(bytes);
+    FileOutputStream out = new FileOutputStream(f);
+    out.write(bytes);
+    out.close();
+
+    int[] single = new int[NPTS];
+    int[] bulk = new int[NPTS];
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r");
+    try {
+      for (int nb : new int[]{8, 11, 12, 16, 19, 24, 32}) {
+        long best1 = Long.MAX_VALUE, best2 = Long.MAX_VALUE;
+        for (int trial = 0; trial < NTRIALS; trial++) {
+          best1 = Math.min(best1, timeSingle(raf, nb, single));
+          best2 = Math.min(best2, timeBulk(raf, nb, bulk));
+        }
+        for (int i = 0; i < NPTS; i++)
+          if (single[i] != bulk[i])
+            throw new IllegalStateException("nb=" + nb + " differs at " + i);
+
+        System.out.printf("nb=%2d single=%8.3f msecs bulk=%8.3f msecs speedup=%5.1f%n",
+                nb, best1 / 1.0e6, best2 / 1.0e6, (double) best1 / best2);
+      }
+    } finally {
+      raf.close();
+    }
+  }
+}
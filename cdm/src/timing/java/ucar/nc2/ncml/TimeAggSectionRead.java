@@ -0,0 +1,136 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.ncml;
+
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+import ucar.nc2.dataset.NetcdfDataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Time a subsetted read (a time series at one point) through a joinExisting aggregation of many small files,
+ * serially and with Aggregation.setExecutor().
+ * Usage: TimeAggSectionRead [nfiles] [nthreads]
+ *
+ * @since Oct 18, 2026
+ */
+public class TimeAggSectionRead {
+  static int ntimes = 4, ny = 100, nx = 100;
+  static int nloops = 5;
+
+  static public void main(String args[]) throws Exception {
+    int nfiles = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+    int nthreads = (args.length > 1) ? Integer.parseInt(args[1]) : 8;
+
+    File dir = new File(System.getProperty("java.io.tmpdir"), "TimeAggSectionRead");
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IOException("cant make " + dir);
+    long start = System.nanoTime();
+    for (int i = 0; i < nfiles; i++)
+      makeFile(new File(dir, String.format("day%05d.nc", i)), i);
+    System.out.printf("made %d files in %s, %.1f secs%n", nfiles, dir, (System.nanoTime() - start) / 1.0e9);
+
+    String ncml = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+            "<netcdf xmlns='http://www.unidata.ucar.edu/namespaces/netcdf/ncml-2.2'>\n" +
+            "  <aggregation dimName='time' type='joinExisting'>\n" +
+            "    <scan location='" + dir.getPath() + "' suffix='.nc' />\n" +
+            "  </aggregation>\n" +
+            "</netcdf>";
+
+    ExecutorService exec = Executors.newFixedThreadPool(nthreads);
+    try {
+      for (int loop = 0; loop < nloops; loop++) {  // first loop warms up
+        Aggregation.setExecutor(null);
+        double serial = time(ncml);
+        Aggregation.setExecutor(exec);
+        double parallel = time(ncml);
+        if (loop > 0)
+          System.out.printf("nfiles=%d serial= %.3f secs  parallel(%d threads)= %.3f secs  speedup= %.1f%n",
+                  nfiles, serial, nthreads, parallel, serial / parallel);
+      }
+    } finally {
+      Aggregation.setExecutor(null);
+      exec.shutdown();
+    }
+  }
+
+  // return secs
+  static double time(String ncml) throws IOException, InvalidRangeException {
+    NetcdfDataset ncd = NcMLReader.readNcML(new StringReader(ncml), null);
+    try {
+      long start = System.nanoTime();
+      Variable v = ncd.findVariable("data");
+      Array data = v.read("0:" + (v.getShape(0) - 1) + ", 50, 50"); // time series at one point
+      if (data.getSize() != v.getShape(0))
+        throw new IllegalStateException("read " + data.getSize());
+      return (System.nanoTime() - start) / 1.0e9;
+    } finally {
+      ncd.close();
+    }
+  }
+
+  static void makeFile(File f, int fileno) throws IOException, InvalidRangeException {
+    if (f.exists()) return;
+    NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, f.getPath());
+    try {
+      writer.addDimension(null, "time", ntimes);
+      writer.addDimension(null, "y", ny);
+      writer.addDimension(null, "x", nx);
+      Variable time = writer.addVariable(null, "time", DataType.DOUBLE, "time");
+      writer.addVariableAttribute(time, new Attribute("units", "hours since 2000-01-01"));
+      writer.addVariable(null, "data", DataType.FLOAT, "time y x");
+      writer.create();
+
+      Array timeData = Array.factory(DataType.DOUBLE, new int[]{ntimes});
+      for (int i = 0; i < ntimes; i++)
+        timeData.setDouble(i, fileno * 24 + i * 6);
+      writer.write(time, timeData);
+
+      Array data = Array.factory(DataType.FLOAT, new int[]{ntimes, ny, nx});
+      for (int i = 0; i < data.getSize(); i++)
+        data.setFloat(i, fileno + i);
+      writer.write(writer.findVariable("data"), data);
+    } finally {
+      writer.close();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.unidata.geoloc;
+
+import ucar.unidata.geoloc.projection.*;
+import ucar.unidata.geoloc.projection.sat.MSGnavigation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compare converting points one at a time against the array methods of ProjectionImpl,
+ * with and without an Executor.
+ * <pre>
+ *   TimeProjectionArrays [npoints] [ntrials]
+ * </pre>
+ *
+ * @since Oct 18, 2026
+ */
+public class TimeProjectionArrays {
+
+  static private class Case {
+    ProjectionImpl proj;
+    double centerLat, centerLon;
+
+    Case(ProjectionImpl proj, double centerLat, double centerLon) {
+      this.proj = proj;
+      this.centerLat = centerLat;
+      this.centerLon = centerLon;
+    }
+  }
+
+  static private Case[] cases = new Case[]{
+          new Case(new LambertConformal(40.0, -105.0, 20.0, 60.0), 40.0, -105.0),
+          new Case(new Stereographic(90.0, -105.0, 0.933), 60.0, -105.0),
+          new Case(new Mercator(-105.0, 20.0), 20.0, -105.0),
+          new Case(new RotatedPole(37.5, 177.5), 50.0, 10.0),
+          new Case(new AlbersEqualArea(23.0, -96.0, 29.5, 45.5), 40.0, -96.0),
+          new Case(new TransverseMercator(40.0, -105.0, 0.9996), 40.0, -105.0),
+          new Case(new UtmProjection(13, true), 40.0, -105.0),
+          new Case(new MSGnavigation(), 0.0, 0.0),
+  };
+
+  // a grid of n points spanning 20 degrees around the center
+  static private double[][] makeLatLon(Case c, int n) {
+    int side = (int) Math.ceil(Math.sqrt(n));
+    double[][] latlon = new double[2][n];
+    for (int i = 0; i < n; i++) {
+      latlon[0][i] = c.centerLat - 10.0 + 20.0 * (i / side) / side;
+      latlon[1][i] = c.centerLon - 10.0 + 20.0 * (i % side) / side;
+    }
+    return latlon;
+  }
+
+  static private double onePointAtATime(ProjectionImpl proj, double[][] latlon, double[][] xy, double[][] back) {
+    long start = System.nanoTime();
+    int n = latlon[0].length;
+    for (int i = 0; i < n; i++) {
+      ProjectionPoint pp = proj.latLonToProj(new LatLonPointImpl(latlon[0][i], latlon[1][i]));
+      xy[0][i] = pp.getX();
+      xy[1][i] = pp.getY();
+    }
+    for (int i = 0; i < n; i++) {
+      LatLonPoint llp = proj.projToLatLon(new ProjectionPointImpl(xy[0][i], xy[1][i]));
+      back[0][i] = llp.getLatitude();
+      back[1][i] = llp.getLongitude();
+    }
+    return (System.nanoTime() - start) * 1.0e-6;
+  }
+
+  static private double arrays(ProjectionImpl proj, double[][] latlon, double[][] xy, double[][] back) {
+    long start = System.nanoTime();
+    proj.latLonToProj(latlon, xy, ProjectionImpl.INDEX_LAT, ProjectionImpl.INDEX_LON);
+    proj.projToLatLon(xy, back);
+    return (System.nanoTime() - start) * 1.0e-6;
+  }
+
+  static private double parallel(ProjectionImpl proj, double[][] latlon, double[][] xy, double[][] back) {
+    long start = System.nanoTime();
+    proj.latLonToProjParallel(latlon, xy, ProjectionImpl.INDEX_LAT, ProjectionImpl.INDEX_LON);
+    proj.projToLatLonParallel(xy, back);
+    return (System.nanoTime() - start) * 1.0e-6;
+  }
+
+  // largest lat/lon difference between two results, ignoring points that dont project
+  static private double maxDiff(double[][] a, double[][] b) {
+    double max = 0.0;
+    for (int k = 0; k < 2; k++) {
+      for (int i = 0; i < a[k].length; i++) {
+        double d = Math.abs(a[k][i] - b[k][i]);
+        if (!Double.isNaN(d) && !Double.isInfinite(d)) max = Math.max(max, d);
+      }
+    }
+    return max;
+  }
+
+  public static void main(String args[]) {
+    int npoints = (args.length > 0) ? Integer.parseInt(args[0]) : 1000 * 1000;
+    int ntrials = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+    int nthreads = Runtime.getRuntime().availableProcessors();
+
+    ExecutorService exec = Executors.newFixedThreadPool(nthreads);
+    ProjectionImpl.setExecutor(exec);
+    System.out.printf("%d points, %d trials, %d threads; msecs for a round trip (best of trials)%n", npoints, ntrials, nthreads);
+    System.out.printf("%-20s %10s %10s %10s %10s%n", "projection", "point", "array", "parallel", "maxDiff");
+
+    try {
+      for (Case c : cases) {
+        double[][] latlon = makeLatLon(c, npoints);
+        double[][] xy = new double[2][npoints];
+        double[][] back1 = new double[2][npoints];
+        double[][] back2 = new double[2][npoints];
+        double[][] back3 = new double[2][npoints];
+
+        double tPoint = Double.MAX_VALUE, tArray = Double.MAX_VALUE, tParallel = Double.MAX_VALUE;
+        for (int trial = 0; trial < ntrials; trial++) {
+          tPoint = Math.min(tPoint, onePointAtATime(c.proj, latlon, xy, back1));
+          tArray = Math.min(tArray, arrays(c.proj, latlon, xy, back2));
+          tParallel = Math.min(tParallel, parallel(c.proj, latlon, xy, back3));
+        }
+
+        double diff = Math.max(maxDiff(back1, back2), maxDiff(back1, back3));
+        System.out.printf("%-20s %10.1f %10.1f %10.1f %10.3g%n", c.proj.getClass().getSimpleName(), tPoint, tArray, tParallel, diff);
+      }
+
+    } finally {
+      ProjectionImpl.setExecutor(null);
+      exec.shutdown();
+    }
+  }
+}
@@ -37,7 +37,7 @@
 package ucar.grib.grib2;
 
 
-import ucar.jpeg.jj2000.j2k.decoder.Grib2JpegDecoder;
+import ucar.nc2.grib.grib2.Grib2JpegUnpacker;
 
 import ucar.grib.GribNumbers;
 
@@ -878,27 +878,15 @@ public final class Grib2DataSection {
     float EE = (float) java.lang.Math.pow((double) 2.0, (double) E);
     //System.out.println( "DS EE=" + EE );
 
-    Grib2JpegDecoder g2j = null;
+    int[] packed = null;
+    int shift = 0;
     int numberPoints = 0;
     try {
       if (nb != 0) {  // there's data to decode
-        String[] argv = new String[4];
-        argv[0] = "-rate";
-        argv[1] = Integer.toString(nb);
-        argv[2] = "-verbose";
-        argv[3] = "off";
-        //argv[ 4 ] = "-debug" ;
-        //argv[ 2 ] = "-nocolorspace" ;
-        //argv[ 3 ] = "-Rno_roi" ;
-        //argv[ 4 ] = "-cdstr_info" ;
-        //argv[ 5 ] = "-verbose" ;
-        g2j = new Grib2JpegDecoder(argv);
-        // how jpeg2000.jar use to decode, used raf
-        //g2j.decode(raf, length - 5);
-        // jpeg-1.0.jar added method to have the data read first
-        byte[] buf = new byte[ length - 5 ];
-        raf.read( buf );
-        g2j.decode( buf );
+        // the decoder and its buffers are reused by this thread
+        Grib2JpegUnpacker unpacker = Grib2JpegUnpacker.get();
+        packed = unpacker.decode(raf, raf.getFilePointer(), length - 5, nb);
+        shift = unpacker.getLevelShift();
       }
       numberPoints = gds.getGdsVars().getNumberPoints();
       //System.out.println( "DS GDS NumberPoints=" +  gds.getNumberPoints() );
@@ -914,20 +902,20 @@ public final class Grib2DataSection {
             data[i] = mv;
         }
       } else if (bitmap == null) {
-        //System.out.println( "DS jpeg data length ="+ g2j.data.length );
-        if (g2j.data.length != numberPoints) {
+        //System.out.println( "DS jpeg data length ="+ packed.length );
+        if (packed.length != numberPoints) {
           data = null;
           return;
         }
         for (int i = 0; i < numberPoints; i++) {
           //Y = (R + ( 0 + X2) * EE)/DD ;
-          data[i] = (R + g2j.data[i] * EE) / DD;
+          data[i] = (R + (packed[i] + shift) * EE) / DD;
           //System.out.println( "DS data[ " + i +"  ]=" + data[ i ] );
         }
       } else {  // use bitmap
         for (int i = 0, j = 0; i < bitmap.length; i++) {
           if (bitmap[i]) {
-            data[i] = (R + g2j.data[j++] * EE) / DD;
+            data[i] = (R + (packed[j++] + shift) * EE) / DD;
           } else {
             data[i] = mv;
           }
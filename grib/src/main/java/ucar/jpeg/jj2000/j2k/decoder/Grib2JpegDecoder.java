@@ -102,6 +102,26 @@ public class Grib2JpegDecoder {
    */
   private HeaderInfo hi;
 
+  /**
+   * The default parameter list, built once and shared by all decoders
+   */
+  private static ParameterList defaults;
+
+  /**
+   * True when the parameters came from the command line and must be checked
+   */
+  private boolean checkArgs = true;
+
+  /**
+   * If false, the level shift of unsigned data is left for the caller to add
+   */
+  private boolean applyLevelShift = true;
+
+  /**
+   * The level shift not yet added to the data
+   */
+  private int levelShift;
+
   /**
    * The valid list of options prefixes
    */
@@ -241,13 +261,7 @@ public class Grib2JpegDecoder {
 
     // Initialize default parameters
     //System.err.println("calling Grib2JpegDecoder with argv argument");
-    defpl = new ParameterList();
-    String[][] param = Grib2JpegDecoder.getAllParameters();
-
-    for (int i = param.length - 1; i >= 0; i--) {
-      if (param[i][3] != null)
-        defpl.put(param[i][0], param[i][3]);
-    }
+    defpl = getDefaults();
 
     // Create parameter list using defaults
     pl = new ParameterList(defpl);
@@ -266,6 +280,66 @@ public class Grib2JpegDecoder {
     }
   } // end Grib2JpegDecoder constructor
 
+  /**
+   * Instantiates a decoder object without parsing a command line. The
+   * default parameters are shared, so this is cheap, and the decoder can be
+   * reused for any number of decode() calls.
+   *
+   * @param nbits number of bits of the packed data, the "rate" parameter
+   * @param debug print stack traces on errors
+   */
+  public Grib2JpegDecoder(int nbits, boolean debug) {
+    defpl = getDefaults();
+    pl = new ParameterList(defpl);
+    pl.put("rate", Integer.toString(nbits));
+    pl.put("verbose", "off");
+    pl.put("debug", debug ? "on" : "off");
+    checkArgs = false;
+  }
+
+  private static synchronized ParameterList getDefaults() {
+    if (defaults == null) {
+      ParameterList def = new ParameterList();
+      String[][] param = Grib2JpegDecoder.getAllParameters();
+      for (int i = param.length - 1; i >= 0; i--) {
+        if (param[i][3] != null)
+          def.put(param[i][0], param[i][3]);
+      }
+      defaults = def;
+    }
+    return defaults;
+  }
+
+  /**
+   * Set the number of bits of the packed data before the next decode().
+   *
+   * @param nbits number of bits, the "rate" parameter
+   */
+  public void setNBits(int nbits) {
+    pl.put("rate", Integer.toString(nbits));
+  }
+
+  /**
+   * If false, decode() leaves the level shift of unsigned data out of the
+   * data array, so the caller can add it in its own pass over the data.
+   *
+   * @param applyLevelShift add the level shift to the data (the default)
+   * @see #getLevelShift
+   */
+  public void setApplyLevelShift(boolean applyLevelShift) {
+    this.applyLevelShift = applyLevelShift;
+  }
+
+  /**
+   * The level shift that still has to be added to the data, nonzero only
+   * when setApplyLevelShift(false) and the data is unsigned.
+   *
+   * @return level shift to add to each value
+   */
+  public int getLevelShift() {
+    return levelShift;
+  }
+
   /**
    * Returns the exit code of the class. This is only initialized after the
    * constructor and when the run method returns.
@@ -296,6 +370,17 @@ public class Grib2JpegDecoder {
     return hasSignedProblem;
   }
 
+  /**
+   * Drop the decoded data and the headers of the last decode(), so a reused
+   * decoder does not keep them. The exit code, level shift and signed problem
+   * flag are kept.
+   */
+  public void clearData() {
+    data = null;
+    csMap = null;
+    hi = null;
+  }
+
   /**
    * Runs the decoder. After completion the exit code is set, a non-zero
    * value indicates that an error ocurred.
@@ -303,7 +388,23 @@ public class Grib2JpegDecoder {
    * @see #getExitCode
    */
   public void decode(byte buf[]) {
-    int dataSize = buf.length;
+    decode(buf, buf.length);
+  }
+
+  /**
+   * Runs the decoder on the first dataSize bytes of buf. The results of the
+   * previous decode are cleared first, so the decoder can be reused.
+   *
+   * @see #getExitCode
+   */
+  public void decode(byte buf[], int dataSize) {
+    data = null;
+    csMap = null;
+    hi = null;
+    exitCode = 0;
+    levelShift = 0;
+    hasSignedProblem = false;
+
     boolean verbose;
     int res; // resolution level to reconstruct
     RandomAccessIO in;
@@ -365,16 +466,18 @@ public class Grib2JpegDecoder {
       }
 
       // **** Check parameters ****
-      try {
-        pl.checkList(vprfxs, pl.toNameArray(pinfo));
-      } catch (IllegalArgumentException e) {
-        error(e.getMessage(), 2);
-        if (pl.getParameter("debug").equals("on")) {
-          e.printStackTrace();
-        } else {
-          error("Use '-debug' option for more details", 2);
+      if (checkArgs) {
+        try {
+          pl.checkList(vprfxs, pl.toNameArray(pinfo));
+        } catch (IllegalArgumentException e) {
+          error(e.getMessage(), 2);
+          if (pl.getParameter("debug").equals("on")) {
+            e.printStackTrace();
+          } else {
+            error("Use '-debug' option for more details", 2);
+          }
+          return;
         }
-        return;
       }
 
       // create a byte buf from raf for ISRandomAccessIO
@@ -382,7 +485,7 @@ public class Grib2JpegDecoder {
 
       //byte buf[] = new byte[ dataSize ];
       //raf.read( buf );
-      ByteArrayInputStream bais = new ByteArrayInputStream(buf);
+      ByteArrayInputStream bais = new ByteArrayInputStream(buf, 0, dataSize);
 
       in = new ISRandomAccessIO(bais, dataSize, 1, dataSize);
 
@@ -639,8 +742,12 @@ public class Grib2JpegDecoder {
             int levShift = 1 << (nb - 1);      // check
             if (nb != rate) hasSignedProblem = true;
 
-            for (int j = 0; j < data.length; j++)
-              data[j] += levShift;
+            if (applyLevelShift) {
+              for (int j = 0; j < data.length; j++)
+                data[j] += levShift;
+            } else {
+              levelShift = levShift;
+            }
           }
           packBytes = iwa.getPackBytes();
         } catch (IOException e) {
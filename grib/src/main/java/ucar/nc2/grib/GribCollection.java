@@ -52,6 +52,7 @@ import ucar.unidata.util.Parameter;
 import ucar.unidata.util.StringUtil2;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -77,13 +78,17 @@ public abstract class GribCollection implements FileCacheable {
     dataRafCache = new ucar.nc2.util.cache.FileCache("GribCollectionDataRafCache ", minElementsInMemory, maxElementsInMemory, -1, period);
   }
 
+  static public void initDataRafCache(FileCache cache) {
+    dataRafCache = cache;
+  }
+
   static public FileCache getDataRafCache() {
     return dataRafCache;
   }
 
   static private final ucar.nc2.util.cache.FileFactory dataRafFactory = new FileFactory() {
     public FileCacheable open(String location, int buffer_size, CancelTask cancelTask, Object iospMessage) throws IOException {
-      return new RandomAccessFile(location, "r");
+      return RandomAccessFile.openReadOnly(location, -1);
     }
   };
 
@@ -214,6 +219,10 @@ public abstract class GribCollection implements FileCacheable {
   // synchronize any access to indexRaf
   protected RandomAccessFile indexRaf; // this is the raf of the index (ncx) file
 
+  // packed record tables are views of this memory mapped part of the index file
+  private ByteBuffer recordsMap;
+  private long recordsMapStart;
+
   public String getName() {
     return name;
   }
@@ -251,6 +260,7 @@ public abstract class GribCollection implements FileCacheable {
    */
   public void setIndexRaf(RandomAccessFile indexRaf) {
     this.indexRaf = indexRaf;
+    this.recordsMap = null; // was a view of the old raf
     if (indexRaf != null) {
       if (indexFile == null) {
         indexFile = new File(indexRaf.getLocation());
@@ -276,6 +286,50 @@ public abstract class GribCollection implements FileCacheable {
     return indexFile;
   }
 
+  /**
+   * Get the packed record table stored at pos in the index file.
+   * The first time, the part of the index file that holds all the records is memory mapped,
+   * and tables are views of that. If it cant be mapped, the table is read into memory.
+   * Both use the open indexRaf, not its path, which may since have been replaced by a new index.
+   *
+   * @param pos table starts here in the index file
+   * @param len length of the table
+   * @return the table
+   * @throws IOException on read error
+   */
+  synchronized GribRecordTable getRecordTable(long pos, int len) throws IOException {
+    if (recordsMap == null) {
+      long start = Long.MAX_VALUE, end = 0;
+      for (GroupHcs g : groups) {
+        for (VariableIndex v : g.varIndex) {
+          if (v.recordsLen <= 0) continue;
+          start = Math.min(start, v.recordsPos);
+          end = Math.max(end, v.recordsPos + v.recordsLen);
+        }
+      }
+      if (start < end) {
+        recordsMap = GribRecordTable.map(indexRaf, start, end - start);
+        recordsMapStart = start;
+      }
+    }
+
+    if (recordsMap != null && pos >= recordsMapStart && pos + len <= recordsMapStart + recordsMap.capacity())
+      return new GribRecordTable(recordsMap, (int) (pos - recordsMapStart), len);
+
+    byte[] b = new byte[len];
+    readIndexBytes(pos, b);
+    return new GribRecordTable(ByteBuffer.wrap(b), 0, len);
+  }
+
+  // read from the open indexRaf. The positional reads of the raf open the file again by its path,
+  // which may since have been replaced by a new index.
+  private void readIndexBytes(long pos, byte[] b) throws IOException {
+    synchronized (indexRaf) {
+      indexRaf.seek(pos);
+      indexRaf.readFully(b);
+    }
+  }
+
   public File makeNewIndexFile(org.slf4j.Logger logger) {
     if (indexFile != null && indexFile.exists()) {
       if (!indexFile.delete())
@@ -664,6 +718,7 @@ public abstract class GribCollection implements FileCacheable {
 
     public int ntimes, nverts, nens;           // time, vert and ens coordinate lengths
     public Record[] records;                   // Record[ntimes*nverts*nens] - lazy init
+    private volatile GribRecordTable recordTable; // used instead of records[] when the index has a packed table
 
     public int partTimeCoordIdx; // partition time coordinate index
 
@@ -762,7 +817,10 @@ public abstract class GribCollection implements FileCacheable {
       sb.append(", ntimes=").append(ntimes);
       sb.append(", nverts=").append(nverts);
       sb.append(", nens=").append(nens);
-      sb.append(", records=").append(records == null ? "null" : Arrays.asList(records).toString());
+      if (recordTable != null)
+        sb.append(", records=packed(").append(recordTable.getNRecords()).append(")");
+      else
+        sb.append(", records=").append(records == null ? "null" : Arrays.asList(records).toString());
       sb.append(", partTimeCoordIdx=").append(partTimeCoordIdx);
       sb.append('}');
       return sb.toString();
@@ -770,19 +828,51 @@ public abstract class GribCollection implements FileCacheable {
 
     public Record[] getRecords() throws IOException {
       readRecords();
+      if (records == null && recordTable != null)
+        return recordTable.getRecords(); // a copy
       return records;
     }
 
+    /**
+     * Number of records, must call readRecords() first
+     * @return ntimes*nverts*nens
+     */
+    public int getNRecords() {
+      GribRecordTable table = recordTable;
+      return (table != null) ? table.getNRecords() : records.length;
+    }
+
+    /**
+     * Get a record, must call readRecords() first.
+     * With a packed table, this makes a new Record each time, which the caller should not hold on to.
+     * @param recordIndex from GribCollection.calcIndex()
+     * @return the record
+     */
+    public Record getRecord(int recordIndex) {
+      GribRecordTable table = recordTable;
+      return (table != null) ? table.getRecord(recordIndex) : records[recordIndex];
+    }
+
     // LOOK : use ehcache here ??
     public void readRecords() throws IOException {
-      if (records != null) return;
+      if (records != null || recordTable != null) return;
+
+      // a packed table is used in place
+      if (recordsLen >= GribRecordTable.HEADER_SIZE) {
+        byte[] magic = new byte[GribRecordTable.MAGIC.length];
+        readIndexBytes(recordsPos, magic);
+        if (GribRecordTable.isPacked(magic)) {
+          GribRecordTable table = getRecordTable(recordsPos, recordsLen);
+          if (table.getCdmHash() != this.cdmHash)
+            throw new IllegalStateException("Corrupted index");
+          recordTable = table;
+          return;
+        }
+      }
+
       byte[] b = new byte[recordsLen];
 
-      // synchronize to protect the raf, and records[]
-      synchronized (indexRaf) {
-        indexRaf.seek(recordsPos);
-        indexRaf.readFully(b);
-      }
+      readIndexBytes(recordsPos, b);
 
       // synchronize to protect records[]
       synchronized (this) {
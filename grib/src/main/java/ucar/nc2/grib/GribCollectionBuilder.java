@@ -6,9 +6,12 @@ import ucar.unidata.util.StringUtil2;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * superclass for GribCollectionBuilder GRIB1 and GRIB2
@@ -17,6 +20,310 @@ import java.util.List;
  * @since 5/6/13
  */
 public class GribCollectionBuilder {
+  // write each variable's records as a GribRecordTable instead of a protobuf message
+  static protected boolean writePackedRecords = false;
+
+  /**
+   * Write new collection indexes with packed record tables (see GribRecordTable), which can be used without reading them
+   * into the heap. Indexes are written with a new version number, so GRIB2 readers before this make a new index instead of
+   * misreading one. GRIB1 readers before this accept any later version, so should not share packed GRIB1 indexes.
+   * Single file indexes are never packed, since earlier readers of both accept later versions of those. Default is false.
+   *
+   * @param b true to write packed record tables
+   */
+  static public void setWritePackedRecords(boolean b) {
+    writePackedRecords = b;
+  }
+
+  // write packed record tables in this index
+  protected boolean packRecords() {
+    return writePackedRecords && !isSingleFile;
+  }
+
+  // read or create the gbx9 indexes, rectilyse groups and build partitions in parallel
+  static protected Executor indexExecutor;
+  static protected int indexParallel = 8;
+
+  /**
+   * Use this Executor to read or create the gbx9 index of each file, to rectilyse each group, and to build
+   * each partition of a time partitioned collection in parallel, when creating a collection index.
+   * Default is null, meaning do it all in the calling thread.
+   * A thread waiting on a task that has not started yet runs it itself, so the executor may be shared by nested builds.
+   *
+   * @param exec the executor
+   */
+  static public void setIndexExecutor(Executor exec) {
+    indexExecutor = exec;
+  }
+
+  /**
+   * Set the maximum number of files, groups or partitions that one collection build works on at once,
+   * when an index executor is set. This bounds the number of gbx9 indexes held in memory that have not been added to groups yet.
+   *
+   * @param maxParallel max tasks at once, less than 2 means no parallelism
+   */
+  static public void setIndexParallel(int maxParallel) {
+    indexParallel = maxParallel;
+  }
+
+  // build collection indexes from sorted keys instead of holding all the records
+  static protected boolean streamingBuild = false;
+  static protected int keysInMemory = 1000 * 1000;
+
+  /**
+   * Build GRIB2 collection indexes without holding all the records in memory: as each file's gbx9 index is read,
+   * its records are reduced to small keys (variable, coordinates, file and position), which are sorted by variable,
+   * on disk if there are more than keysInMemory of them. Only one variable's record table is made at a time.
+   * The index is the same as one built in memory. Single file indexes are always built in memory. Default is false.
+   *
+   * @param b true to build collection indexes by streaming
+   */
+  static public void setStreamingBuild(boolean b) {
+    streamingBuild = b;
+  }
+
+  /**
+   * Set the number of keys held in memory by a streaming build, before they are sorted into a temporary file.
+   * Each key is 32 bytes, and takes 40 bytes in memory along with its place in the sort order. Default is 1000000.
+   *
+   * @param n number of keys
+   */
+  static public void setKeysInMemory(int n) {
+    keysInMemory = n;
+  }
+
+  // update an existing collection index for new files, instead of making a new one
+  static protected boolean incrementalUpdate = false;
+
+  /**
+   * When a collection index is out of date (CollectionManager.Force.test), and the collection has only had files added to
+   * the end of it since the existing index was made, update that index instead: only the groups that the new files have
+   * records in are rectilysed again, the record tables of the other groups are copied. Falls back to making a new index
+   * when files were removed, changed or inserted, so the result is the same as a new index, as long as the collection
+   * configuration has not changed. Force.always still makes a new index. Only GRIB2 collections are updated this way.
+   * Default is false.
+   *
+   * @param b true to update indexes incrementally
+   */
+  static public void setIncrementalUpdate(boolean b) {
+    incrementalUpdate = b;
+  }
+
+  /**
+   * Replace an index file with a newly written one, by renaming it. Readers that have the old index open keep reading it.
+   *
+   * @param tempFile  the new index
+   * @param indexFile replace this
+   * @throws IOException if the new index cant be renamed
+   */
+  static protected void publishIndex(File tempFile, File indexFile) throws IOException {
+    if (!tempFile.renameTo(indexFile)) { // windows wont rename over an existing file
+      if (!indexFile.delete() || !tempFile.renameTo(indexFile))
+        throw new IOException("GribCollectionBuilder: cant rename " + tempFile.getPath() + " to " + indexFile.getPath());
+    }
+  }
+
+  /**
+   * The file to write a new index to, before it is published with publishIndex(). Removes one left by a failed build.
+   *
+   * @param indexFile the index file
+   * @return temporary file in the same directory
+   */
+  protected File makeTempFile(File indexFile) {
+    File tempFile = new File(indexFile.getPath() + ".tmp");
+    if (tempFile.exists() && !tempFile.delete())
+      logger.warn("GribCollectionBuilder: cant delete {}", tempFile.getPath());
+    return tempFile;
+  }
+
+  /**
+   * Work done on each item of a list, possibly in parallel, with the results handed back in the original order.
+   */
+  protected interface OrderedTask<S, T> {
+    /**
+     * Does the work, may be called in an index executor thread.
+     */
+    T call(S item) throws IOException;
+
+    /**
+     * Called in the calling thread, in the order of the items.
+     * @param item   the item
+     * @param result result of call(item), or null if it failed
+     * @param failed the IOException thrown by call(item), or null if it succeeded
+     */
+    void receive(S item, T result, IOException failed) throws IOException;
+  }
+
+  /**
+   * Run task.call() on each item, on the index executor if there is one, keeping at most indexParallel items in flight.
+   * task.receive() is called in this thread, in the order of the items, so the results can be numbered deterministically.
+   * Unchecked exceptions from call() are rethrown here.
+   */
+  protected <S, T> void runInOrder(Iterable<S> items, final OrderedTask<S, T> task) throws IOException {
+    int max = (indexExecutor == null) ? 1 : Math.max(1, indexParallel);
+    LinkedList<S> itemq = new LinkedList<S>();
+    LinkedList<FutureTask<T>> futureq = new LinkedList<FutureTask<T>>();
+
+    for (final S item : items) {
+      FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+        public T call() throws Exception {
+          return task.call(item);
+        }
+      });
+      itemq.add(item);
+      futureq.add(future);
+      if (max > 1) submit(future);
+      while (futureq.size() >= max)
+        receive(itemq.removeFirst(), futureq.removeFirst(), task);
+    }
+    while (futureq.size() > 0)
+      receive(itemq.removeFirst(), futureq.removeFirst(), task);
+  }
+
+  private <S, T> void receive(S item, FutureTask<T> future, OrderedTask<S, T> task) throws IOException {
+    T result = null;
+    IOException failed = null;
+    try {
+      result = join(future);
+    } catch (IOException ioe) {
+      failed = ioe;
+    }
+    task.receive(item, result, failed);
+  }
+
+  /**
+   * Run all the tasks, on the index executor if there is one, keeping at most indexParallel tasks in flight,
+   * and wait for them to finish. The first exception thrown by a task is rethrown after all have finished.
+   */
+  protected void runAll(List<Callable<Void>> tasks) throws IOException {
+    int max = (indexExecutor == null || tasks.size() < 2) ? 1 : Math.max(1, indexParallel);
+    LinkedList<FutureTask<Void>> futureq = new LinkedList<FutureTask<Void>>();
+    Failures failures = new Failures();
+
+    for (Callable<Void> task : tasks) {
+      FutureTask<Void> future = new FutureTask<Void>(task);
+      futureq.add(future);
+      if (max > 1) submit(future);
+      while (futureq.size() >= max)
+        failures.join(futureq.removeFirst());
+    }
+    while (futureq.size() > 0)
+      failures.join(futureq.removeFirst());
+    failures.rethrow();
+  }
+
+  // keep the first exceptions of runAll()
+  static private class Failures {
+    IOException ioe;
+    RuntimeException rte;
+
+    void join(FutureTask<Void> future) throws IOException {
+      try {
+        GribCollectionBuilder.join(future);
+      } catch (IOException e) {
+        if (ioe == null) ioe = e;
+      } catch (RuntimeException e) {
+        if (rte == null) rte = e;
+      }
+    }
+
+    void rethrow() throws IOException {
+      if (rte != null) throw rte;
+      if (ioe != null) throw ioe;
+    }
+  }
+
+  static private void submit(FutureTask<?> future) {
+    if (indexExecutor == null) return;
+    try {
+      indexExecutor.execute(future);
+    } catch (RejectedExecutionException e) {
+      // run it in the calling thread
+    }
+  }
+
+  // run it here if no one has started it, then wait for the result
+  static private <T> T join(FutureTask<T> future) throws IOException {
+    future.run();
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      throw new InterruptedIOException("interrupted building collection index");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Make the GribCollection of each partition, forcing it to be recreated.
+   * The partitions are independent, so they are made in parallel if there is an index executor.
+   *
+   * @param partitions make these
+   * @return the partitions that failed
+   */
+  protected List<TimePartition.Partition> makePartitionCollections(List<TimePartition.Partition> partitions) throws IOException {
+    final List<TimePartition.Partition> bad = new ArrayList<TimePartition.Partition>();
+    runInOrder(partitions, new OrderedTask<TimePartition.Partition, GribCollection>() {
+      public GribCollection call(TimePartition.Partition tpp) throws IOException {
+        try {
+          return tpp.makeGribCollection(CollectionManager.Force.always);    // force all partitions to be recreated
+        } catch (Throwable t) {
+          logger.error(" Failed to open partition " + tpp.getName(), t);
+          return null;
+        }
+      }
+
+      public void receive(TimePartition.Partition tpp, GribCollection pgc, IOException failed) throws IOException {
+        if (pgc == null) {
+          bad.add(tpp);  // LOOK may be a file leak ?
+          return;
+        }
+        tpp.gc = pgc;
+        logger.debug(" Open partition {}", tpp.getDcm().getCollectionName());
+      }
+    });
+    return bad;
+  }
+
+  static private final java.util.concurrent.atomic.AtomicInteger building = new java.util.concurrent.atomic.AtomicInteger();
+
+  /**
+   * Start measuring a collection build, must be followed by finishBuild().
+   * When no other build is running, resets the peak usage of the heap memory pools.
+   *
+   * @return start time in msecs
+   */
+  static protected long startBuild() {
+    if (building.getAndIncrement() == 0) {
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+      }
+    }
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Finish measuring a collection build: show how long it took and the peak heap used.
+   * The peak is the sum of the heap pools' peaks since the oldest running build started,
+   * so it includes other builds and whatever else the JVM was doing.
+   *
+   * @return message to log
+   */
+  static protected String finishBuild(String name, String what, long startMsecs) {
+    building.decrementAndGet();
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+    }
+    long took = System.currentTimeMillis() - startMsecs;
+    return String.format("%s: built index for %s in %d msecs, peak heap %d Mb%s", name, what, took, peak / 1000 / 1000,
+            (indexExecutor == null) ? "" : ", parallel " + indexParallel);
+  }
 
   // private final List<CollectionManager> collections = new ArrayList<CollectionManager>(); // are there every more than one ?
   protected final CollectionManager dcm; // may be null, when read in from index
@@ -37,6 +37,8 @@ import thredds.featurecollection.FeatureCollectionConfig;
 import ucar.nc2.iosp.AbstractIOServiceProvider;
 import ucar.nc2.ncml.NcMLReader;
 
+import java.util.concurrent.Executor;
+
 /**
  * Superclass for Grib1Iosp and Grib2Iosp
  * To share some common methods.
@@ -49,6 +51,45 @@ public abstract class GribIosp extends AbstractIOServiceProvider {
 
   private static final boolean debug = false;
 
+  // decode records in parallel, see GribReadPipeline
+  static protected Executor executor;
+  static protected int maxParallelDefault = 4;
+
+  /**
+   * Use this Executor to decode records in parallel when reading data.
+   * Default is null, meaning decode all records in the calling thread.
+   *
+   * @param exec the executor
+   */
+  static public void setExecutor(Executor exec) {
+    executor = exec;
+  }
+
+  /**
+   * Set the default maximum number of records that one read can decode at once, when an executor is set.
+   *
+   * @param maxParallel max records, less than 2 means no parallel decoding
+   */
+  static public void setMaxParallelDefault(int maxParallel) {
+    maxParallelDefault = maxParallel;
+  }
+
+  protected int maxParallel = maxParallelDefault;
+
+  /**
+   * Set the maximum number of records that one read on this file can decode at once.
+   * May also be set with the iosp message "gribMaxParallel=n".
+   *
+   * @param maxParallel max records, less than 2 means no parallel decoding
+   */
+  public void setMaxParallel(int maxParallel) {
+    this.maxParallel = maxParallel;
+  }
+
+  protected GribReadPipeline makeReadPipeline() {
+    return new GribReadPipeline(executor, maxParallel);
+  }
+
   // store custom tables in here
   protected FeatureCollectionConfig.GribConfig gribConfig = new FeatureCollectionConfig.GribConfig();
 
@@ -77,6 +118,16 @@ public abstract class GribIosp extends AbstractIOServiceProvider {
         int pos = s.indexOf("=");
         if (pos > 0)
           gribConfig.paramTablePath = s.substring(pos+1).trim();
+
+      } else if (s.startsWith("gribMaxParallel")) {
+        int pos = s.indexOf("=");
+        if (pos > 0) {
+          try {
+            maxParallel = Integer.parseInt(s.substring(pos+1).trim());
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal gribMaxParallel message "+s);
+          }
+        }
       }
 
       if (debug) System.out.printf("GRIB got IOSP message=%s%n", special);
@@ -0,0 +1,312 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Sorts fixed size binary keys by a bucket number, keeping the keys of a bucket in the order they were added.
+ * At most maxInMemory keys are held in memory, beyond that sorted runs are written to temporary files,
+ * which are merged when the keys are read back. Used to build a collection index without holding all of its records.
+ * <pre>
+ *   sorter.add(bucket, key) ...
+ *   sorter.sort();
+ *   while (sorter.next()) { sorter.getBucket(); sorter.getKey() ... }
+ *   sorter.close();
+ * </pre>
+ *
+ * @since Oct 18, 2026
+ */
+public class GribKeySorter implements Closeable {
+  static private final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GribKeySorter.class);
+  static private final int maxMerge = 64;         // merge at most this many runs at once
+  static private final int bufferSize = 32 * 1024; // for each run file
+
+  private final int keySize;
+  private final int maxInMemory;
+  private final File tempDir;
+
+  // adding
+  private byte[] keys;
+  private long[] order; // bucket << 32 | key number, so the sort keeps the order that the keys were added in
+  private int count;
+  private long total;
+  private final List<File> runs = new ArrayList<File>();
+
+  // reading
+  private boolean sorted;
+  private int next;
+  private PriorityQueue<Run> merge;
+  private int bucket;
+  private final byte[] current;
+  private final ByteBuffer currentBB;
+
+  /**
+   * Constructor.
+   *
+   * @param keySize     size of each key in bytes
+   * @param maxInMemory keep at most this many keys in memory
+   * @param tempDir     directory for the temporary files, null for the default
+   */
+  public GribKeySorter(int keySize, int maxInMemory, File tempDir) {
+    this.keySize = keySize;
+    this.maxInMemory = Math.max(1, Math.min(maxInMemory, Integer.MAX_VALUE / keySize));
+    this.tempDir = tempDir;
+    this.current = new byte[keySize];
+    this.currentBB = ByteBuffer.wrap(current);
+  }
+
+  /**
+   * Add a key.
+   *
+   * @param bucket sort by this, must be >= 0
+   * @param key    copy keySize bytes from here
+   * @throws IOException on error writing a temporary file
+   */
+  public void add(int bucket, byte[] key) throws IOException {
+    if (sorted) throw new IllegalStateException("GribKeySorter: already sorted");
+    if (bucket < 0) throw new IllegalArgumentException("GribKeySorter: bucket must be >= 0: " + bucket);
+    if (count == maxInMemory) writeRun();
+    if (keys == null || count == order.length) grow();
+
+    System.arraycopy(key, 0, keys, count * keySize, keySize);
+    order[count] = ((long) bucket << 32) | count;
+    count++;
+    total++;
+  }
+
+  private void grow() {
+    int n = (order == null) ? Math.min(1024, maxInMemory) : (int) Math.min((long) order.length * 2, maxInMemory);
+    long[] norder = new long[n];
+    byte[] nkeys = new byte[n * keySize];
+    if (order != null) {
+      System.arraycopy(order, 0, norder, 0, count);
+      System.arraycopy(keys, 0, nkeys, 0, count * keySize);
+    }
+    order = norder;
+    keys = nkeys;
+  }
+
+  // sort the keys in memory and write them to a temporary file
+  private void writeRun() throws IOException {
+    Arrays.sort(order, 0, count);
+    File run = File.createTempFile("gribKeys", ".tmp", tempDir);
+    runs.add(run);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), bufferSize));
+    try {
+      for (int i = 0; i < count; i++) {
+        out.writeInt((int) (order[i] >>> 32));
+        out.write(keys, (int) order[i] * keySize, keySize);
+      }
+    } finally {
+      out.close();
+    }
+    count = 0;
+  }
+
+  /**
+   * Done adding keys, start reading them back.
+   *
+   * @throws IOException on error reading or writing a temporary file
+   */
+  public void sort() throws IOException {
+    if (sorted) return;
+    sorted = true;
+
+    if (runs.size() == 0) { // all in memory
+      if (count > 0) Arrays.sort(order, 0, count);
+      return;
+    }
+
+    if (count > 0) writeRun();
+    keys = null;
+    order = null;
+
+    // merge the first runs into one, until there are few enough to merge while reading
+    while (runs.size() > maxMerge) {
+      List<File> first = new ArrayList<File>(runs.subList(0, maxMerge));
+      File merged = File.createTempFile("gribKeys", ".tmp", tempDir);
+      runs.add(0, merged);
+      mergeRuns(first, merged);
+      runs.removeAll(first);
+      deleteAll(first);
+    }
+    merge = openRuns(runs);
+    if (logger.isDebugEnabled()) logger.debug("GribKeySorter: merging {} runs of {} keys", runs.size(), total);
+  }
+
+  // merge the runs into one file, runs that come first in the list come first within a bucket
+  private void mergeRuns(List<File> in, File result) throws IOException {
+    PriorityQueue<Run> queue = openRuns(in);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(result), bufferSize));
+    try {
+      while (!queue.isEmpty()) {
+        Run run = queue.poll();
+        out.writeInt(run.bucket);
+        out.write(run.key);
+        if (run.advance()) queue.add(run);
+      }
+    } finally {
+      out.close();
+      for (Run run : queue) run.close();
+    }
+  }
+
+  private PriorityQueue<Run> openRuns(List<File> files) throws IOException {
+    PriorityQueue<Run> queue = new PriorityQueue<Run>(Math.max(1, files.size()));
+    try {
+      for (int i = 0; i < files.size(); i++) {
+        Run run = new Run(files.get(i), i);
+        if (run.advance()) queue.add(run);
+      }
+    } catch (IOException ioe) {
+      for (Run run : queue) run.close();
+      throw ioe;
+    }
+    return queue;
+  }
+
+  /**
+   * Move to the next key, in order of bucket.
+   *
+   * @return false when there are no more
+   * @throws IOException on error reading a temporary file
+   */
+  public boolean next() throws IOException {
+    if (!sorted) throw new IllegalStateException("GribKeySorter: call sort() first");
+
+    if (merge == null) {
+      if (next >= count) return false;
+      long o = order[next++];
+      bucket = (int) (o >>> 32);
+      System.arraycopy(keys, ((int) o) * keySize, current, 0, keySize);
+      return true;
+    }
+
+    Run run = merge.poll();
+    if (run == null) return false;
+    bucket = run.bucket;
+    System.arraycopy(run.key, 0, current, 0, keySize);
+    if (run.advance()) merge.add(run);
+    return true;
+  }
+
+  /**
+   * The bucket of the current key.
+   */
+  public int getBucket() {
+    return bucket;
+  }
+
+  /**
+   * The current key, positioned at its start. It is overwritten by next().
+   */
+  public ByteBuffer getKey() {
+    currentBB.clear();
+    return currentBB;
+  }
+
+  /**
+   * Number of keys added.
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  /**
+   * Number of temporary files written.
+   */
+  public int getNumRuns() {
+    return runs.size();
+  }
+
+  /**
+   * Release memory and delete the temporary files.
+   */
+  public void close() {
+    keys = null;
+    order = null;
+    if (merge != null) {
+      for (Run run : merge) run.close();
+      merge = null;
+    }
+    deleteAll(runs);
+    runs.clear();
+  }
+
+  private void deleteAll(List<File> files) {
+    for (File f : files) {
+      if (f.exists() && !f.delete())
+        logger.warn("GribKeySorter: cant delete {}", f.getPath());
+    }
+  }
+
+  // a sorted run being read back
+  private class Run implements Comparable<Run> {
+    final DataInputStream in;
+    final int runno;
+    final byte[] key = new byte[keySize];
+    int bucket;
+
+    Run(File f, int runno) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), bufferSize));
+      this.runno = runno;
+    }
+
+    boolean advance() throws IOException {
+      try {
+        bucket = in.readInt();
+      } catch (EOFException e) {
+        close();
+        return false;
+      }
+      in.readFully(key);
+      return true;
+    }
+
+    void close() {
+      try {
+        in.close();
+      } catch (IOException ioe) {
+        logger.warn("GribKeySorter: cant close run", ioe);
+      }
+    }
+
+    public int compareTo(Run o) {
+      if (bucket != o.bucket) return (bucket < o.bucket) ? -1 : 1;
+      return (runno < o.runno) ? -1 : (runno == o.runno ? 0 : 1);
+    }
+  }
+}
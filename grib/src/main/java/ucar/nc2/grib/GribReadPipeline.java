@@ -0,0 +1,334 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import net.jcip.annotations.ThreadSafe;
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reads the records of one GRIB data file in three stages:
+ * <ol>
+ * <li>adjacent records are read from the file together, in one positional read per chunk, on the calling thread;</li>
+ * <li>each record is decoded out of its chunk by a task on the executor;</li>
+ * <li>the decoded data is handed to the Receiver on the calling thread, in the same order as the records list.</li>
+ * </ol>
+ * At most maxParallel records are decoded at once for one call to read(). With no executor, or maxParallel &lt; 2,
+ * each record is decoded directly from the file as before.
+ * <p/>
+ * Records whose bytes can't be found ahead of time (Decoder.getLength() &lt;= 0), or whose decoding wanders outside
+ * of its chunk, are decoded from the file on the calling thread instead.
+ *
+ * @since Oct 18, 2026
+ */
+@ThreadSafe
+public class GribReadPipeline {
+  static private final int maxGap = 16 * 1000;            // read through gaps this small between records
+  static private final int maxChunk = 16 * 1000 * 1000;   // but dont read more than this at once
+
+  /**
+   * Knows where a record is in the data file, and how to decode it.
+   * @param <R> the record type
+   */
+  public interface Decoder<R> {
+    /**
+     * @param rec the record
+     * @return starting position of the bytes needed to decode the record
+     */
+    long getStartPos(R rec);
+
+    /**
+     * Find the number of bytes needed to decode the record. Use only the positional (readAt) methods of raf.
+     * @param raf the data file
+     * @param rec the record
+     * @return number of bytes starting at getStartPos(), or -1 if the record must be decoded directly from raf.
+     * @throws IOException on read error
+     */
+    int getLength(RandomAccessFile raf, R rec) throws IOException;
+
+    /**
+     * Decode the record's data. Must be safe to call from any thread, as long as each raf is used by one thread.
+     * @param raf read from here
+     * @param rec the record
+     * @return the data
+     * @throws IOException on read error
+     */
+    float[] decode(RandomAccessFile raf, R rec) throws IOException;
+  }
+
+  /**
+   * Receives the decoded data, always on the thread that called read().
+   * @param <R> the record type
+   */
+  public interface Receiver<R> {
+    void receive(R rec, float[] data) throws IOException;
+  }
+
+  //////////////////////////////////////////////////////////////
+
+  private final Executor executor;
+  private final int maxParallel;
+
+  /**
+   * Constructor.
+   * @param executor decode records with this, may be null
+   * @param maxParallel maximum number of records being decoded at once
+   */
+  public GribReadPipeline(Executor executor, int maxParallel) {
+    this.executor = executor;
+    this.maxParallel = maxParallel;
+  }
+
+  public boolean isParallel() {
+    return (executor != null) && (maxParallel > 1);
+  }
+
+  /**
+   * Read and decode records from one data file.
+   * @param raf the data file; the caller still owns it, and must close it
+   * @param records records in raf, sorted by position
+   * @param decoder decodes a record
+   * @param receiver gets the data, in the order of the records list
+   * @throws IOException on read error
+   */
+  public <R> void read(RandomAccessFile raf, List<R> records, Decoder<? super R> decoder, Receiver<? super R> receiver) throws IOException {
+    if (!isParallel()) {
+      for (R rec : records)
+        receiver.receive(rec, decoder.decode(raf, rec));
+      return;
+    }
+
+    int n = records.size();
+    long[] start = new long[n];
+    int[] len = new int[n];
+    for (int i = 0; i < n; i++) {
+      R rec = records.get(i);
+      start[i] = decoder.getStartPos(rec);
+      len[i] = decoder.getLength(raf, rec);
+    }
+
+    String location = raf.getLocation();
+    ArrayDeque<Pending<R>> pending = new ArrayDeque<Pending<R>>();
+    try {
+      int i = 0;
+      while (i < n) {
+        if (len[i] <= 0) {
+          pending.add(new Pending<R>(records.get(i), null));
+          i++;
+
+        } else {
+          // coalesce with following records that are close enough
+          long chunkStart = start[i];
+          long chunkEnd = start[i] + len[i];
+          int j = i + 1;
+          while (j < n && len[j] > 0 && start[j] >= chunkStart && start[j] - chunkEnd <= maxGap) {
+            long end = Math.max(chunkEnd, start[j] + len[j]);
+            if (end - chunkStart > maxChunk) break;
+            chunkEnd = end;
+            j++;
+          }
+
+          byte[] chunk = new byte[(int) (chunkEnd - chunkStart)];
+          raf.readFullyAt(chunkStart, chunk, 0, chunk.length);
+
+          for (int k = i; k < j; k++) {
+            R rec = records.get(k);
+            FutureTask<float[]> task = new FutureTask<float[]>(new DecodeTask<R>(decoder, rec, location, chunk, chunkStart));
+            try {
+              executor.execute(task);
+            } catch (RejectedExecutionException e) {
+              task.run(); // executor is shut down or full, decode here
+            }
+            pending.add(new Pending<R>(rec, task));
+            while (pending.size() >= maxParallel)
+              deliver(pending.removeFirst(), raf, decoder, receiver);
+          }
+          i = j;
+        }
+
+        // dont hold on to finished records
+        while (!pending.isEmpty() && pending.peekFirst().isDone())
+          deliver(pending.removeFirst(), raf, decoder, receiver);
+      }
+
+      while (!pending.isEmpty())
+        deliver(pending.removeFirst(), raf, decoder, receiver);
+
+    } finally {
+      for (Pending<R> p : pending)
+        if (p.task != null) p.task.cancel(false);
+    }
+  }
+
+  private <R> void deliver(Pending<R> p, RandomAccessFile raf, Decoder<? super R> decoder, Receiver<? super R> receiver) throws IOException {
+    float[] data = null;
+    if (p.task != null) {
+      try {
+        data = p.task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted reading " + raf.getLocation());
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) throw (IOException) cause;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        throw new IOException(cause);
+      }
+    }
+
+    if (data == null) // must be read directly
+      data = decoder.decode(raf, p.rec);
+
+    receiver.receive(p.rec, data);
+  }
+
+  static private class Pending<R> {
+    final R rec;
+    final FutureTask<float[]> task; // null means decode on the calling thread
+
+    Pending(R rec, FutureTask<float[]> task) {
+      this.rec = rec;
+      this.task = task;
+    }
+
+    boolean isDone() {
+      return (task == null) || task.isDone();
+    }
+  }
+
+  static private class DecodeTask<R> implements Callable<float[]> {
+    final Decoder<? super R> decoder;
+    final R rec;
+    final String location;
+    final byte[] chunk;
+    final long chunkStart;
+
+    DecodeTask(Decoder<? super R> decoder, R rec, String location, byte[] chunk, long chunkStart) {
+      this.decoder = decoder;
+      this.rec = rec;
+      this.location = location;
+      this.chunk = chunk;
+      this.chunkStart = chunkStart;
+    }
+
+    public float[] call() throws IOException {
+      try {
+        return decoder.decode(new ChunkRandomAccessFile(location, chunk, chunkStart), rec);
+      } catch (OutsideChunkException e) {
+        return null; // decode it from the file instead
+      }
+    }
+  }
+
+  //////////////////////////////////////////////////////////////
+
+  static private class OutsideChunkException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    OutsideChunkException(String location, long pos) {
+      super("GribReadPipeline: " + location + " position " + pos + " not in chunk");
+    }
+  }
+
+  /**
+   * A read-only view of part of a file that has already been read into memory, using the original file positions.
+   * Reading outside of the chunk throws OutsideChunkException. The chunk is shared, and never modified.
+   */
+  static private class ChunkRandomAccessFile extends RandomAccessFile {
+
+    ChunkRandomAccessFile(String location, byte[] chunk, long chunkStart) {
+      super(1);
+      this.location = location;
+      order(BIG_ENDIAN);
+
+      buffer = chunk;
+      bufferStart = chunkStart;
+      dataSize = chunk.length;
+      dataEnd = chunkStart + chunk.length;
+      filePosition = chunkStart;
+      endOfFile = false;
+    }
+
+    @Override
+    public long length() {
+      return dataEnd;
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+      if (pos < bufferStart || pos > dataEnd)
+        throw new OutsideChunkException(location, pos);
+      filePosition = pos;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (filePosition >= dataEnd)
+        throw new OutsideChunkException(location, filePosition);
+      return buffer[(int) (filePosition++ - bufferStart)] & 0xff;
+    }
+
+    @Override
+    protected int readBytes(byte[] b, int off, int len) throws IOException {
+      if (filePosition + len > dataEnd)
+        throw new OutsideChunkException(location, dataEnd);
+      System.arraycopy(buffer, (int) (filePosition - bufferStart), b, off, len);
+      filePosition += len;
+      return len;
+    }
+
+    @Override
+    protected void readBuffer(long pos) throws IOException {
+      throw new OutsideChunkException(location, pos);
+    }
+
+    @Override
+    protected int read_(long pos, byte[] b, int offset, int len) throws IOException {
+      if (pos < bufferStart || pos + len > dataEnd)
+        throw new OutsideChunkException(location, pos);
+      System.arraycopy(buffer, (int) (pos - bufferStart), b, offset, len);
+      return len;
+    }
+  }
+
+}
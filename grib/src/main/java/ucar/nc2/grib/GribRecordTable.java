@@ -0,0 +1,325 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import net.jcip.annotations.Immutable;
+import ucar.nc2.grib.grib1.Grib1CollectionBuilder;
+import ucar.nc2.grib.grib2.Grib2CollectionBuilder;
+import ucar.nc2.stream.NcStream;
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A variable's records in a GribCollection index (ncx) file, stored as a fixed width table instead of a
+ * GribCollectionProto.VariableRecords message, so that it can be used in place without making Record objects.
+ * <pre>
+ *   MAGIC (4 bytes)
+ *   cdmHash (int)
+ *   nrecords (int)
+ *   nrecords * {fileno (int), pos (long), bmsPos (long)}
+ * </pre>
+ * Big endian. A missing record has pos = GribCollection.MISSING_RECORD.
+ * The table is stored at VariableIndex.recordsPos, with length VariableIndex.recordsLen, just like the protobuf message,
+ * and is recognized by its MAGIC, which can't start a protobuf message. So an index may have either kind.
+ * <p/>
+ * Usually the table is a view of the index file, memory mapped by the GribCollection.
+ *
+ * @since Oct 18, 2026
+ */
+@Immutable
+public class GribRecordTable {
+  static private final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GribRecordTable.class);
+
+  static public final byte[] MAGIC = new byte[]{'G', 'R', 'E', 'C'}; // 'G' has protobuf wire type 7, which is illegal
+  static public final int HEADER_SIZE = 12;
+  static public final int RECORD_SIZE = 20;
+
+  /**
+   * Is this the start of a packed record table?
+   * @param b first bytes of the records section of a variable
+   * @return true if b starts with MAGIC
+   */
+  static public boolean isPacked(byte[] b) {
+    if (b.length < MAGIC.length) return false;
+    for (int i = 0; i < MAGIC.length; i++)
+      if (b[i] != MAGIC[i]) return false;
+    return true;
+  }
+
+  /**
+   * Write records as a packed table.
+   * @param cdmHash the variable's cdmHash
+   * @param records the records; missing records have pos = GribCollection.MISSING_RECORD
+   * @return the table
+   */
+  static public byte[] encode(int cdmHash, GribCollection.Record[] records) {
+    ByteBuffer bb = ByteBuffer.allocate(HEADER_SIZE + records.length * RECORD_SIZE); // big endian
+    bb.put(MAGIC);
+    bb.putInt(cdmHash);
+    bb.putInt(records.length);
+    for (GribCollection.Record r : records) {
+      bb.putInt(r.fileno);
+      bb.putLong(r.pos);
+      bb.putLong(r.bmsPos);
+    }
+    return bb.array();
+  }
+
+  ///////////////////////////////////////////////////////////
+
+  private final ByteBuffer bb;  // shared, only absolute gets are used
+  private final int start;      // table starts here in bb
+  private final int nrecords;
+  private final int cdmHash;
+
+  /**
+   * Wrap a packed table.
+   * @param bb table is in here. Not modified, and only absolute gets are used, so may be shared
+   * @param start table starts at this position in bb
+   * @param len length of the table in bytes
+   * @throws IOException if its not a packed table
+   */
+  public GribRecordTable(ByteBuffer bb, int start, int len) throws IOException {
+    if (len < HEADER_SIZE)
+      throw new IOException("GribRecordTable too small = "+len);
+    for (int i = 0; i < MAGIC.length; i++)
+      if (bb.get(start + i) != MAGIC[i])
+        throw new IOException("Not a GribRecordTable");
+    this.bb = bb;
+    this.start = start;
+    this.cdmHash = bb.getInt(start + 4);
+    this.nrecords = bb.getInt(start + 8);
+    if (nrecords < 0 || HEADER_SIZE + (long) nrecords * RECORD_SIZE > len)
+      throw new IOException("Corrupted GribRecordTable nrecords = "+nrecords+" len = "+len);
+  }
+
+  public int getCdmHash() {
+    return cdmHash;
+  }
+
+  public int getNRecords() {
+    return nrecords;
+  }
+
+  public int getFileno(int recordIndex) {
+    return bb.getInt(offset(recordIndex));
+  }
+
+  public long getPos(int recordIndex) {
+    return bb.getLong(offset(recordIndex) + 4);
+  }
+
+  public long getBmsPos(int recordIndex) {
+    return bb.getLong(offset(recordIndex) + 12);
+  }
+
+  /**
+   * Make a Record object for one record. The Record is not kept.
+   * @param recordIndex which record, as from GribCollection.calcIndex()
+   * @return new Record
+   */
+  public GribCollection.Record getRecord(int recordIndex) {
+    int offset = offset(recordIndex);
+    GribCollection.Record r = new GribCollection.Record(bb.getInt(offset), bb.getLong(offset + 4), bb.getLong(offset + 12), false);
+    return r;
+  }
+
+  /**
+   * Make Record objects for all the records.
+   * @return new array of Records
+   */
+  public GribCollection.Record[] getRecords() {
+    GribCollection.Record[] result = new GribCollection.Record[nrecords];
+    for (int i = 0; i < nrecords; i++)
+      result[i] = getRecord(i);
+    return result;
+  }
+
+  private int offset(int recordIndex) {
+    if (recordIndex < 0 || recordIndex >= nrecords)
+      throw new ArrayIndexOutOfBoundsException(recordIndex);
+    return start + HEADER_SIZE + recordIndex * RECORD_SIZE;
+  }
+
+  ///////////////////////////////////////////////////////////
+
+  /**
+   * Memory map part of an open file, read only.
+   * The file that is open is mapped, so a new index later renamed over its path is not seen.
+   * The mapping stays valid after the file is closed, until the ByteBuffer is garbage collected.
+   *
+   * @param raf map this open file
+   * @param pos starting here
+   * @param len this many bytes
+   * @return mapped ByteBuffer, or null if it cant be mapped, eg raf is not a local file
+   */
+  static ByteBuffer map(RandomAccessFile raf, long pos, long len) {
+    if (len > Integer.MAX_VALUE) return null;
+    java.io.RandomAccessFile file = raf.getRandomAccessFile();
+    if (file == null) return null;
+    try {
+      return file.getChannel().map(FileChannel.MapMode.READ_ONLY, pos, len);
+    } catch (IOException e) {
+      logger.warn("GribRecordTable cant map " + raf.getLocation(), e);
+      return null;
+    }
+  }
+
+  ///////////////////////////////////////////////////////////
+  // Convert existing indexes
+
+  /**
+   * Rewrite a GribCollection index (ncx) file, converting each variable's records into a packed table.
+   * Partition indexes, which have no records, and indexes that are already packed are left alone.
+   * Only indexes of the current version, or the one before packed tables, are converted, and get the current version.
+   * Single file indexes should not be converted, since earlier readers accept any later version of those.
+   * The new index is written next to the old one, then renamed, so readers that already have the old one open are not affected.
+   *
+   * @param indexFile the ncx file
+   * @return true if the index was rewritten
+   * @throws IOException on read or write error
+   */
+  static public boolean rewriteIndex(File indexFile) throws IOException {
+    File tempFile = new File(indexFile.getPath() + ".tmp");
+    boolean ok = false;
+
+    RandomAccessFile in = new RandomAccessFile(indexFile.getPath(), "r");
+    RandomAccessFile out = null;
+    try {
+      in.order(RandomAccessFile.BIG_ENDIAN);
+
+      // header
+      String magic = Grib2CollectionBuilder.MAGIC_START;
+      byte[] b = new byte[magic.length()];
+      in.readFully(b);
+      String found = new String(b, "UTF-8");
+      if (!found.equals(Grib1CollectionBuilder.MAGIC_START) && !found.equals(Grib2CollectionBuilder.MAGIC_START)) {
+        logger.info("GribRecordTable.rewriteIndex: {} is not a GribCollection index ({})", indexFile.getPath(), found);
+        return false;
+      }
+      // the version before packed tables differs only by them, so it can be converted to the current one
+      int current = found.equals(Grib1CollectionBuilder.MAGIC_START) ? Grib1CollectionBuilder.version : Grib2CollectionBuilder.version;
+      int version = in.readInt();
+      if (version != current && version != current - 1) {
+        logger.info("GribRecordTable.rewriteIndex: {} has version {}, can only convert {} or {}", new Object[] {indexFile.getPath(), version, current - 1, current});
+        return false;
+      }
+      long recordsLen = in.readLong();
+      if (recordsLen == 0) return false; // no records
+      in.skipBytes(recordsLen);
+      int size = NcStream.readVInt(in);
+      byte[] m = new byte[size];
+      in.readFully(m);
+      GribCollectionProto.GribCollectionIndex proto = GribCollectionProto.GribCollectionIndex.parseFrom(m);
+
+      GribCollectionProto.GribCollectionIndex.Builder indexBuilder = proto.toBuilder();
+      out = new RandomAccessFile(tempFile.getPath(), "rw");
+      out.order(RandomAccessFile.BIG_ENDIAN);
+      out.write(found.getBytes("UTF-8"));
+      out.writeInt(current);
+      long lenPos = out.getFilePointer();
+      out.writeLong(0); // save space to write the length of the record section
+
+      boolean changed = false;
+      long countBytes = 0;
+      for (int g = 0; g < indexBuilder.getGroupsCount(); g++) {
+        GribCollectionProto.Group.Builder groupBuilder = indexBuilder.getGroupsBuilder(g);
+        for (int v = 0; v < groupBuilder.getVariablesCount(); v++) {
+          GribCollectionProto.Variable.Builder varBuilder = groupBuilder.getVariablesBuilder(v);
+          byte[] rb = new byte[varBuilder.getRecordsLen()];
+          in.readFullyAt(varBuilder.getRecordsPos(), rb, 0, rb.length);
+          if (!isPacked(rb)) {
+            GribCollectionProto.VariableRecords vr = GribCollectionProto.VariableRecords.parseFrom(rb);
+            int n = vr.getRecordsCount();
+            GribCollection.Record[] records = new GribCollection.Record[n];
+            for (int i = 0; i < n; i++) {
+              GribCollectionProto.Record pr = vr.getRecords(i);
+              records[i] = new GribCollection.Record(pr.getFileno(), pr.getPos(), pr.getBmsPos(), pr.getMissing());
+            }
+            rb = encode(vr.getCdmHash(), records);
+            changed = true;
+          }
+          varBuilder.setRecordsPos(out.getFilePointer());
+          varBuilder.setRecordsLen(rb.length);
+          out.write(rb);
+          countBytes += rb.length;
+        }
+      }
+
+      if (!changed) return false;
+
+      long pos = out.getFilePointer();
+      out.seek(lenPos);
+      out.writeLong(countBytes);
+      out.seek(pos);
+
+      byte[] ib = indexBuilder.build().toByteArray();
+      NcStream.writeVInt(out, ib.length);
+      out.write(ib);
+      ok = true;
+
+    } finally {
+      in.close();
+      if (out != null) out.close();
+      if (!ok && tempFile.exists() && !tempFile.delete())
+        logger.warn("GribRecordTable.rewriteIndex: cant delete {}", tempFile.getPath());
+    }
+
+    // keep the original modification time, so the collection isnt seen as out of date
+    long lastModified = indexFile.lastModified();
+    if (!tempFile.renameTo(indexFile)) { // windows wont rename over an existing file
+      if (!indexFile.delete() || !tempFile.renameTo(indexFile))
+        throw new IOException("GribRecordTable.rewriteIndex: cant rename " + tempFile.getPath() + " to " + indexFile.getPath());
+    }
+    if (!indexFile.setLastModified(lastModified))
+      logger.warn("GribRecordTable.rewriteIndex: cant set lastModified on {}", indexFile.getPath());
+    logger.debug("GribRecordTable.rewriteIndex: rewrote {}", indexFile.getPath());
+    return true;
+  }
+
+  /**
+   * Rewrite the index files given on the command line, converting records into packed tables.
+   * @param args index file names
+   * @throws IOException on read or write error
+   */
+  static public void main(String[] args) throws IOException {
+    for (String arg : args) {
+      boolean done = rewriteIndex(new File(arg));
+      System.out.printf("%s %s%n", arg, done ? "rewritten" : "not changed");
+    }
+  }
+}
@@ -45,6 +45,7 @@ import ucar.unidata.util.Parameter;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Build a GribCollection object for Grib-1 files. Manage grib collection index (ncx).
@@ -56,7 +57,7 @@ import java.util.*;
  */
 public class Grib1CollectionBuilder extends GribCollectionBuilder {
   protected static final int minVersionSingle = 9; // if single file, this version and above is ok
-  protected static final int version = 10;
+  public static final int version = 11; // 11: record tables may be packed, see GribRecordTable
   public static final String MAGIC_START = "Grib1CollectionIndex";
 
   // from a single file, read in the index, create if it doesnt exist or is out of date
@@ -197,7 +198,7 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
       }
 
       gc.version = raf.readInt();
-      boolean versionOk = isSingleFile ? gc.version >= minVersionSingle : gc.version >= version;
+      boolean versionOk = isSingleFile ? gc.version >= minVersionSingle : gc.version == version;
       if (!versionOk) {
         logger.warn("Grib1Collection {}: index found version={}, want version= {} on file {}", gc.getName(), gc.version, version, raf.getLocation());
         return false;
@@ -439,14 +440,15 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
       logger.error("Grib1CollectionBuilder "+gc.getName()+" : cannot create new index ");
       throw new IllegalStateException();
     }
-    long start = System.currentTimeMillis();
-
+    long start = startBuild();
     ArrayList<MFile> files = new ArrayList<MFile>();
-    List<Group> groups = makeAggregatedGroups(files);
-    createIndex(indexFile, groups, files);
-
-    long took = System.currentTimeMillis() - start;
-    if (logger.isDebugEnabled()) logger.debug("That took {} msecs", took);
+    try {
+      List<Group> groups = makeAggregatedGroups(files);
+      createIndex(indexFile, groups, files);
+    } finally {
+      String took = finishBuild(gc.getName(), files.size() + " files", start);
+      if (isSingleFile) logger.debug(took); else logger.info(took);
+    }
     return true;
   }
 
@@ -454,72 +456,90 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
   // divide into groups based on GDS hash
   // each group has an arraylist of all records that belong to it.
   // for each group, run rectlizer to derive the coordinates and variables
-  public List<Group> makeAggregatedGroups(ArrayList<MFile> files) throws IOException {
-    Map<Integer, Group> gdsMap = new HashMap<Integer, Group>();
+  public List<Group> makeAggregatedGroups(final ArrayList<MFile> files) throws IOException {
+    final Map<Integer, Group> gdsMap = new HashMap<Integer, Group>();
     Map<Integer, Integer> gdsConvert = null;
     Map<String, Boolean> pdsConvert = null;
-    Grib1Rectilyser.Counter stats = new Grib1Rectilyser.Counter();
+    final Grib1Rectilyser.Counter stats = new Grib1Rectilyser.Counter();
     //boolean intvMerge = intvMergeDefault;
 
     logger.debug("GribCollection {}: makeAggregatedGroups%n", gc.getName());
-    int fileno = 0;
     logger.debug(" dcm= {}%n", dcm);
 
-    FeatureCollectionConfig.GribConfig config = (FeatureCollectionConfig.GribConfig) dcm.getAuxInfo(FeatureCollectionConfig.AUX_GRIB_CONFIG);
+    final FeatureCollectionConfig.GribConfig config = (FeatureCollectionConfig.GribConfig) dcm.getAuxInfo(FeatureCollectionConfig.AUX_GRIB_CONFIG);
     if (config != null) gdsConvert = config.gdsHash;
     if (config != null) pdsConvert = config.pdsHash;
-    FeatureCollectionConfig.GribIntvFilter intvMap = (config != null) ?  config.intvFilter : null;
+    final Map<Integer, Integer> gdsConvertF = gdsConvert;
+    final FeatureCollectionConfig.GribIntvFilter intvMap = (config != null) ?  config.intvFilter : null;
     // intvMerge = (config == null) || (config.intvMerge == null) ? intvMergeDefault : config.intvMerge;
 
-    for (MFile mfile : dcm.getFiles()) {
-      // f.format("%3d: %s%n", fileno, mfile.getPath());
-
-      Grib1Index index;
-      try {
-        index = (Grib1Index) GribIndex.readOrCreateIndexFromSingleFile(true, !isSingleFile, mfile, config, CollectionManager.Force.test, logger);
-        files.add(mfile);  // only add on success
-
-      } catch (IOException ioe) {
-        logger.error("Grib1CollectionBuilder "+gc.getName()+" : reading/Creating gbx9 index for file "+ mfile.getPath()+" failed", ioe);
-        continue;
+    // the gbx9 indexes may be read or created in parallel, but the records are added in file order
+    runInOrder(dcm.getFiles(), new OrderedTask<MFile, Grib1Index>() {
+      public Grib1Index call(MFile mfile) throws IOException {
+        return (Grib1Index) GribIndex.readOrCreateIndexFromSingleFile(true, !isSingleFile, mfile, config, CollectionManager.Force.test, logger);
       }
 
-      for (Grib1Record gr : index.getRecords()) {
-        gr.setFile(fileno); // each record tracks which file it belongs to
-        int gdsHash = gr.getGDSsection().getGDS().hashCode();      // use GDS hash code to group records
-        if (gdsConvert != null && gdsConvert.get(gdsHash) != null) // allow external config to muck with gdsHash. Why? because of error in encoding
-          gdsHash = gdsConvert.get(gdsHash);                       // and we need exact hash matching
-        if (cust == null)
-          cust = Grib1Customizer.factory(gr, null);
-        if (config != null)
-          cust.setTimeUnitConverter(config.getTimeUnitConverter());
-        if (intvMap != null && filterOut(gr, intvMap)) {
-          stats.filter++;
-          continue; // skip
-        }
-
-        Group g = gdsMap.get(gdsHash);
-        if (g == null) {
-          g = new Group(gr.getGDSsection(), gdsHash);
-          gdsMap.put(gdsHash, g);
-          //g.nameOverride = setGroupNameOverride(gdsHash, gdsNamer, groupNamer, mfile);
+      public void receive(MFile mfile, Grib1Index index, IOException failed) throws IOException {
+        if (failed != null) {
+          logger.error("Grib1CollectionBuilder "+gc.getName()+" : reading/Creating gbx9 index for file "+ mfile.getPath()+" failed", failed);
+          return;
         }
-        g.records.add(gr);
+        // f.format("%3d: %s%n", files.size(), mfile.getPath());
+        addRecords(files.size(), index, config, gdsConvertF, intvMap, gdsMap, stats);
+        files.add(mfile);  // only add on success
       }
-      fileno++;
-      stats.recordsTotal += index.getRecords().size();
-    }
+    });
 
     List<Group> result = new ArrayList<Group>(gdsMap.values());
-    for (Group g : result) {
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(result.size());
+    final List<Grib1Rectilyser.Counter> counters = new ArrayList<Grib1Rectilyser.Counter>(result.size());
+    for (final Group g : result) {
+      final Grib1Rectilyser.Counter counter = new Grib1Rectilyser.Counter();
+      counters.add(counter);
       g.rect = new Grib1Rectilyser(cust, g.records, g.gdsHash, pdsConvert);
-      g.rect.make(stats);
+      tasks.add(new Callable<Void>() {
+        public Void call() throws IOException {
+          g.rect.make(counter);
+          return null;
+        }
+      });
     }
+    runAll(tasks); // each group is rectilysed independently
+    for (Grib1Rectilyser.Counter counter : counters)
+      stats.add(counter);
 
     if (logger.isDebugEnabled()) logger.debug(stats.show());
     return result;
   }
 
+  // add the records of one file to the groups
+  private void addRecords(int fileno, Grib1Index index, FeatureCollectionConfig.GribConfig config, Map<Integer, Integer> gdsConvert,
+                          FeatureCollectionConfig.GribIntvFilter intvMap, Map<Integer, Group> gdsMap, Grib1Rectilyser.Counter stats) {
+    for (Grib1Record gr : index.getRecords()) {
+      gr.setFile(fileno); // each record tracks which file it belongs to
+      int gdsHash = gr.getGDSsection().getGDS().hashCode();      // use GDS hash code to group records
+      if (gdsConvert != null && gdsConvert.get(gdsHash) != null) // allow external config to muck with gdsHash. Why? because of error in encoding
+        gdsHash = gdsConvert.get(gdsHash);                       // and we need exact hash matching
+      if (cust == null)
+        cust = Grib1Customizer.factory(gr, null);
+      if (config != null)
+        cust.setTimeUnitConverter(config.getTimeUnitConverter());
+      if (intvMap != null && filterOut(gr, intvMap)) {
+        stats.filter++;
+        continue; // skip
+      }
+
+      Group g = gdsMap.get(gdsHash);
+      if (g == null) {
+        g = new Group(gr.getGDSsection(), gdsHash);
+        gdsMap.put(gdsHash, g);
+        //g.nameOverride = setGroupNameOverride(gdsHash, gdsNamer, groupNamer, mfile);
+      }
+      g.records.add(gr);
+    }
+    stats.recordsTotal += index.getRecords().size();
+  }
+
     // true means remove
   private boolean filterOut(Grib1Record gr, FeatureCollectionConfig.GribIntvFilter intvFilter) {
     Grib1SectionProductDefinition pdss = gr.getPDSsection();
@@ -567,15 +587,13 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
 
   private void createIndex(File indexFile, List<Group> groups, ArrayList<MFile> files) throws IOException {
     Grib1Record first = null; // take global metadata from here
-    boolean deleteOnClose = false;
+    boolean ok = false;
 
-    if (indexFile.exists()) {
-      if (!indexFile.delete())
-        logger.warn(" gc1 cant delete index file {}", indexFile.getPath());
-    }
+    // write it next to the index, then rename, so the index is never seen half written
+    File tempFile = makeTempFile(indexFile);
     logger.debug(" createIndex for {}", indexFile.getPath());
 
-    RandomAccessFile raf = new RandomAccessFile(indexFile.getPath(), "rw");
+    RandomAccessFile raf = new RandomAccessFile(tempFile.getPath(), "rw");
     raf.order(RandomAccessFile.BIG_ENDIAN);
     try {
       //// header message
@@ -589,8 +607,7 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
         g.fileSet = new HashSet<Integer>();
         for (Grib1Rectilyser.VariableBag vb : g.rect.getGribvars()) {
           if (first == null) first = vb.first;
-          GribCollectionProto.VariableRecords vr = writeRecordsProto(vb, g.fileSet);
-          byte[] b = vr.toByteArray();
+          byte[] b = packRecords() ? writeRecordsPacked(vb, g.fileSet) : writeRecordsProto(vb, g.fileSet).toByteArray();
           vb.pos = raf.getFilePointer();
           vb.length = b.length;
           raf.write(b);
@@ -603,7 +620,6 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
         logger.debug("  write RecordMaps: bytes = {} records = {} bytesPerRecord={}", countBytes, countRecords, bytesPerRecord);
 
       if (first == null) {
-        deleteOnClose = true;
         logger.error("GribCollection {}: has no files", gc.getName());
         throw new IOException("GribCollection " + gc.getName() + " has no files");
       }
@@ -645,15 +661,17 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
       NcStream.writeVInt(raf, b.length); // message size
       raf.write(b);  // message  - all in one gulp
       logger.debug("  write GribCollectionIndex= {} bytes", b.length);
+      ok = true;
 
     } finally {
       logger.debug("  file size =  %d bytes", raf.length());
       raf.close();
 
       // remove it on failure
-      if (deleteOnClose && !indexFile.delete())
-        logger.error(" gc1 cant deleteOnClose index file {}", indexFile.getPath());
+      if (!ok && !tempFile.delete())
+        logger.error(" gc1 cant delete temp index file {}", tempFile.getPath());
     }
+    publishIndex(tempFile, indexFile);
   }
 
   private GribCollectionProto.VariableRecords writeRecordsProto(Grib1Rectilyser.VariableBag vb, Set<Integer> fileSet) throws IOException {
@@ -678,6 +696,21 @@ public class Grib1CollectionBuilder extends GribCollectionBuilder {
     return b.build();
   }
 
+  private byte[] writeRecordsPacked(Grib1Rectilyser.VariableBag vb, Set<Integer> fileSet) throws IOException {
+    GribCollection.Record[] records = new GribCollection.Record[vb.recordMap.length];
+    for (int i = 0; i < vb.recordMap.length; i++) {
+      Grib1Rectilyser.Record ar = vb.recordMap[i];
+      if (ar == null || ar.gr == null) {
+        records[i] = new GribCollection.Record(0, 0, 0, true); // missing : cant use 0 since that may be a valid value
+
+      } else {
+        fileSet.add(ar.gr.getFile());
+        records[i] = new GribCollection.Record(ar.gr.getFile(), ar.gr.getIs().getStartPos(), 0, false); // start of entire message
+      }
+    }
+    return GribRecordTable.encode(vb.cdmHash, records);
+  }
+
   private GribCollectionProto.Group writeGroupProto(Group g) throws IOException {
     GribCollectionProto.Group.Builder b = GribCollectionProto.Group.newBuilder();
 
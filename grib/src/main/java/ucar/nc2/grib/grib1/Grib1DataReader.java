@@ -95,6 +95,11 @@ value R, the binary scale factor E and the decimal scale factor D by means of th
     this.startPos = startPos;
   }
 
+  // bytes needed for n packed values; section 4 length is not trusted for very large records
+  static private int packedLength(int n, int numbits) {
+    return (int) (((long) n * numbits + 7) / 8);
+  }
+
   public float[] getData(RandomAccessFile raf, byte[] bitmap) throws IOException {
     raf.seek(startPos); // go to the data section
 
@@ -131,12 +136,21 @@ value R, the binary scale factor E and the decimal scale factor D by means of th
         logger.error("Bitmap section length = {} != grid length {} ({},{}) for {}", bitmap.length, nx * ny, nx, ny, raf.getLocation());
         throw new IllegalStateException("Bitmap section length!= grid length");
       }
-      BitReader reader = new BitReader(raf, startPos+11);
+      int[] packed = null;
+      if (!isConstant) {
+        int npacked = 0;
+        for (int i = 0; i < nx * ny; i++)
+          if ((bitmap[i / 8] & GribNumbers.bitmask[i % 8]) != 0) npacked++;
+        packed = new int[npacked];
+        BitReader reader = new BitReader(raf, startPos+11, packedLength(npacked, numbits));
+        reader.bits2UInt(numbits, npacked, packed, 0);
+      }
       values = new float[nx * ny];
+      int idx = 0;
       for (int i = 0; i <nx * ny; i++) {
         if ((bitmap[i / 8] & GribNumbers.bitmask[i % 8]) != 0) {
           if (!isConstant) {
-            values[i] = ref + scale * reader.bits2UInt(numbits);
+            values[i] = ref + scale * (packed[idx++] & 0xffffffffL);
           } else {  // rdg - added this to handle a constant valued parameter
             values[i] = ref;
           }
@@ -153,9 +167,11 @@ value R, the binary scale factor E and the decimal scale factor D by means of th
         } else {
           values = new float[((msgLength - 11) * 8 - unusedbits) / numbits];
         }
-        BitReader reader = new BitReader(raf, startPos+11);
+        int[] packed = new int[values.length];
+        BitReader reader = new BitReader(raf, startPos+11, packedLength(values.length, numbits));
+        reader.bits2UInt(numbits, values.length, packed, 0);
         for (int i = 0; i < values.length; i++) {
-          values[i] = ref + scale * reader.bits2UInt(numbits);
+          values[i] = ref + scale * (packed[i] & 0xffffffffL);
         }
         scanningModeCheck(values, scanMode, nx);
 
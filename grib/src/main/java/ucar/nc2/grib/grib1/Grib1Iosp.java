@@ -535,7 +535,7 @@ public class Grib1Iosp extends GribIosp {
           }
 
           if (recordIndex >= 0)  {
-            GribCollection.Record record = vindex.records[recordIndex];
+            GribCollection.Record record = vindex.getRecord(recordIndex);
             dataReader.addRecord(vindex, partno, record.fileno, record.pos, resultIndex);  // add this record to be read
           }
         }
@@ -563,43 +563,32 @@ public class Grib1Iosp extends GribIosp {
 
     void read(DataReceiver dataReceiver) throws IOException {
       Collections.sort(records);
-
-      int currPartno = -1;
-      int currFile = -1;
-      RandomAccessFile rafData = null;
-      for (DataRecord dr : records) {
-        if (dr.partno != currPartno || dr.fileno != currFile) {
-          if (rafData != null) rafData.close();
-          rafData = timePartition.getRaf(dr.partno, dr.fileno);
-          currFile = dr.fileno;
-          currPartno = dr.partno;
-        }
-        if (dr.pos == GribCollection.MISSING_RECORD) continue; // skip missing data
-
-        if (debugRead) {
-          rafData.seek(dr.pos);
-          show(new Grib1Record(rafData), dr.pos);
+      GribReadPipeline pipeline = makeReadPipeline();
+
+      // read all the records in one file at a time
+      int start = 0;
+      while (start < records.size()) {
+        DataRecord first = records.get(start);
+        int end = start + 1;
+        while (end < records.size() && records.get(end).partno == first.partno && records.get(end).fileno == first.fileno)
+          end++;
+
+        RandomAccessFile rafData = timePartition.getRaf(first.partno, first.fileno);
+        try {
+          readFile(pipeline, rafData, records.subList(start, end), dataReceiver);
+        } finally {
+          rafData.close();
         }
-
-        float[] data = Grib1Record.readData(rafData, dr.pos);
-        dataReceiver.addData(data, dr.resultIndex, dr.vindex.group.hcs.nx);
+        start = end;
       }
-      if (rafData != null) rafData.close();
     }
 
-    private class DataRecord implements Comparable<DataRecord> {
+    private class DataRecord extends DataRecordBase implements Comparable<DataRecord> {
       int partno; // partition index
-      GribCollection.VariableIndex vindex; // the vindex of the partition
-      int resultIndex; // where does this record go in the result array?
-      int fileno;
-      long pos;
 
       DataRecord(int partno, GribCollection.VariableIndex vindex, int resultIndex, int fileno, long pos) {
+        super(vindex, resultIndex, fileno, pos);
         this.partno = partno;
-        this.vindex = vindex;
-        this.resultIndex = resultIndex;
-        this.fileno = fileno;
-        this.pos = pos;
       }
 
       @Override
@@ -619,8 +608,7 @@ public class Grib1Iosp extends GribIosp {
     GribCollection.VariableIndex vindex = (GribCollection.VariableIndex) v.getSPobject();
 
     // first time, read records and keep in memory
-    if (vindex.records == null)
-      vindex.readRecords();
+    vindex.readRecords();
 
     // canonical order: time, ens, z, y, x
     int rangeIdx = 0;
@@ -660,48 +648,40 @@ public class Grib1Iosp extends GribIosp {
 
     void addRecord(int ensIdx, int timeIdx, int levIdx, int resultIndex) {
       int recordIndex = GribCollection.calcIndex(timeIdx, ensIdx, levIdx, vindex.nens, vindex.nverts);
-      GribCollection.Record record = vindex.records[recordIndex];
+      GribCollection.Record record = vindex.getRecord(recordIndex);
       records.add(new DataRecord(timeIdx, ensIdx, levIdx, resultIndex, record.fileno, record.pos));
     }
 
     void read(DataReceiver dataReceiver) throws IOException {
       Collections.sort(records);
-
-      int currFile = -1;
-      RandomAccessFile rafData = null;
-      for (DataRecord dr : records) {
-        if (dr.fileno != currFile) {
-          if (rafData != null) rafData.close();
-          rafData = gribCollection.getDataRaf(dr.fileno);
-          currFile = dr.fileno;
-        }
-
-        if (dr.pos == GribCollection.MISSING_RECORD) continue;
-
-        if (debugRead) {
-          rafData.seek(dr.pos);
-          show(new Grib1Record(rafData), dr.pos);
+      GribReadPipeline pipeline = makeReadPipeline();
+
+      // read all the records in one file at a time
+      int start = 0;
+      while (start < records.size()) {
+        int fileno = records.get(start).fileno;
+        int end = start + 1;
+        while (end < records.size() && records.get(end).fileno == fileno)
+          end++;
+
+        RandomAccessFile rafData = gribCollection.getDataRaf(fileno);
+        try {
+          readFile(pipeline, rafData, records.subList(start, end), dataReceiver);
+        } finally {
+          rafData.close();
         }
-
-        float[] data = Grib1Record.readData(rafData, dr.pos);
-        dataReceiver.addData(data, dr.resultIndex, vindex.group.hcs.nx);
+        start = end;
       }
-      if (rafData != null) rafData.close();
     }
 
-    private class DataRecord implements Comparable<DataRecord> {
+    private class DataRecord extends DataRecordBase implements Comparable<DataRecord> {
       int ensIdx, timeIdx, levIdx;
-      int resultIndex; // index in the ens / time / vert array
-      int fileno;
-      long pos;
 
       DataRecord(int timeIdx, int ensIdx, int levIdx, int resultIndex, int fileno, long pos) {
+        super(DataReader.this.vindex, resultIndex, fileno, pos);
         this.ensIdx = ensIdx;
         this.timeIdx = timeIdx;
         this.levIdx = levIdx;
-        this.resultIndex = resultIndex;
-        this.fileno = fileno;
-        this.pos = pos;
       }
 
       @Override
@@ -713,6 +693,57 @@ public class Grib1Iosp extends GribIosp {
     }
   }
 
+  // where a record is in its data file, and where its data goes in the result
+  static private class DataRecordBase {
+    GribCollection.VariableIndex vindex;
+    int resultIndex; // index in the ens / time / vert array
+    int fileno;
+    long pos;
+
+    DataRecordBase(GribCollection.VariableIndex vindex, int resultIndex, int fileno, long pos) {
+      this.vindex = vindex;
+      this.resultIndex = resultIndex;
+      this.fileno = fileno;
+      this.pos = pos;
+    }
+  }
+
+  // decode a whole record
+  static private final GribReadPipeline.Decoder<DataRecordBase> decoder = new GribReadPipeline.Decoder<DataRecordBase>() {
+    public long getStartPos(DataRecordBase dr) {
+      return dr.pos;
+    }
+
+    public int getLength(RandomAccessFile raf, DataRecordBase dr) throws IOException {
+      return Grib1Record.getRecordLength(raf, dr.pos);
+    }
+
+    public float[] decode(RandomAccessFile raf, DataRecordBase dr) throws IOException {
+      return Grib1Record.readData(raf, dr.pos);
+    }
+  };
+
+  // read the records from one data file, all sorted by position
+  private <R extends DataRecordBase> void readFile(GribReadPipeline pipeline, RandomAccessFile rafData, List<R> records,
+                                                   final DataReceiver dataReceiver) throws IOException {
+    List<R> wanted = new ArrayList<R>(records.size());
+    for (R dr : records) {
+      if (dr.pos == GribCollection.MISSING_RECORD) continue; // skip missing data
+
+      if (debugRead) {
+        rafData.seek(dr.pos);
+        show(new Grib1Record(rafData), dr.pos);
+      }
+      wanted.add(dr);
+    }
+
+    pipeline.read(rafData, wanted, decoder, new GribReadPipeline.Receiver<DataRecordBase>() {
+      public void receive(DataRecordBase dr, float[] data) throws IOException {
+        dataReceiver.addData(data, dr.resultIndex, dr.vindex.group.hcs.nx);
+      }
+    });
+  }
+
   private class DataReceiver {
     Array dataArray;
     Range yRange, xRange;
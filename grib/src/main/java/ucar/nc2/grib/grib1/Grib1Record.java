@@ -32,6 +32,7 @@
 
 package ucar.nc2.grib.grib1;
 
+import ucar.nc2.grib.GribNumbers;
 import ucar.nc2.grib.QuasiRegular;
 import ucar.nc2.time.CalendarDate;
 import ucar.unidata.io.RandomAccessFile;
@@ -170,6 +171,23 @@ public class Grib1Record {
     return gr.readData(raf);
   }
 
+  /**
+   * Find the number of bytes that readData(raf, startPos) reads, from the indicator section.
+   * Uses only positional reads, so does not move the file pointer.
+   *
+   * @param raf  from this RandomAccessFile
+   * @param startPos message starts here
+   * @return message length in bytes, or -1 if not known
+   * @throws IOException on read error
+   */
+  static public int getRecordLength(RandomAccessFile raf, long startPos) throws IOException {
+    byte[] b = new byte[8];
+    raf.readFullyAt(startPos, b, 0, 8);
+    if (b[0] != 'G' || b[1] != 'R' || b[2] != 'I' || b[3] != 'B' || b[7] != 1) return -1;
+    int length = GribNumbers.int3(b[4] & 0xff, b[5] & 0xff, b[6] & 0xff);
+    return (length > 0) ? length : -1;
+  }
+
   /*
    * Read data array: use when you want to be independent of the GribRecord
    *
@@ -259,6 +259,14 @@ public class Grib1Rectilyser {
     int dups;
     int vars;
 
+    public void add(Counter other) {
+      recordsTotal += other.recordsTotal;
+      recordsUnique += other.recordsUnique;
+      dups += other.dups;
+      filter += other.filter;
+      vars += other.vars;
+    }
+
     public String show () {
       Formatter f = new Formatter();
       float dupPercent = ((float) dups) / (recordsTotal - filter);
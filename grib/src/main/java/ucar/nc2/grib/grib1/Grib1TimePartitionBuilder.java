@@ -125,7 +125,12 @@ public class Grib1TimePartitionBuilder extends Grib1CollectionBuilder {
     // otherwise, we're good as long as the index file exists and can be read
     if (force || !idx.exists() || !readIndex(idx.getPath()) )  {
       logger.info("{}: createIndex {}", gc.getName(), idx.getPath());
-      createPartitionedIndex();   // write out index
+      long start = startBuild();
+      try {
+        createPartitionedIndex();   // write out index
+      } finally {
+        logger.info(finishBuild(gc.getName(), tp.getPartitions().size() + " partitions", start));
+      }
       readIndex(idx.getPath()); // read back in index
       return true;
     }
@@ -156,16 +161,7 @@ public class Grib1TimePartitionBuilder extends Grib1CollectionBuilder {
       tp.addPartition(dcm);
     }
 
-    List<TimePartition.Partition> bad = new ArrayList<TimePartition.Partition>();
-    for (TimePartition.Partition tpp : tp.getPartitions()) {
-      try {
-        tpp.gc = tpp.makeGribCollection(CollectionManager.Force.always);    // force all partitions to be recreated
-        logger.debug(" Open partition {}", tpp.getDcm().getCollectionName());
-      } catch (Throwable t) {
-        logger.error(" Failed to open partition " + tpp.getName(), t);
-        bad.add(tpp);  // LOOK may be a file leak ?
-      }
-    }
+    List<TimePartition.Partition> bad = makePartitionCollections(tp.getPartitions());
 
     // remove ones that failed
     for (TimePartition.Partition p : bad)
@@ -44,7 +44,9 @@ import ucar.unidata.io.RandomAccessFile;
 import ucar.unidata.util.Parameter;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Build a GribCollection object for Grib-2 files. Manage grib collection index.
@@ -58,14 +60,14 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
 
   public static final String MAGIC_START = "Grib2CollectionIndex";
   protected static final int minVersionSingle = 11;
-  protected static final int version = 12;
+  public static final int version = 13; // 13: record tables may be packed, see GribRecordTable
   private static final boolean showFiles = false;
 
     // called by tdm
   static public boolean update(CollectionManager dcm, org.slf4j.Logger logger) throws IOException {
     Grib2CollectionBuilder builder = new Grib2CollectionBuilder(dcm, logger);
     if (!builder.needsUpdate()) return false;
-    builder.readOrCreateIndex(CollectionManager.Force.always);
+    builder.readOrCreateIndex(CollectionManager.Force.test); // needs update, so test allows an incremental update
     builder.gc.close();
     return true;
   }
@@ -103,6 +105,7 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
 
   protected GribCollection gc;
   protected Grib2Customizer tables; // only gets created in makeAggGroups
+  private KeyStream keys; // only when streaming
 
   // single file
   private Grib2CollectionBuilder(MFile file, FeatureCollectionConfig.GribConfig config, org.slf4j.Logger logger) throws IOException {
@@ -141,6 +144,16 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
 
     // otherwise, we're good as long as the index file exists
     File idx = gc.getIndexFile();
+
+    // try to update the existing index for new files, unless a new index was asked for
+    if (force && (ff == CollectionManager.Force.test) && incrementalUpdate && !isSingleFile && idx.exists()) {
+      try {
+        if (updateIndex(idx) && readIndex(idx.getPath())) return;
+      } catch (IOException ioe) {
+        logger.warn("{}: failed to update index {}, make a new one: {}", new Object[] {gc.getName(), idx.getPath(), ioe.getMessage()});
+      }
+    }
+
     if (force || !idx.exists() || !readIndex(idx.getPath()) )  {
        // write out index
        idx = gc.makeNewIndexFile(logger); // make sure we have a writeable index
@@ -417,6 +430,13 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
       this.gdss = gdss;
       this.gdsHash = gdsHash;
     }
+
+    private void add(Grib2Record gr) throws IOException {
+      if (keys != null)
+        keys.add(this, gr);
+      else
+        records.add(gr);
+    }
   }
 
   ///////////////////////////////////////////////////
@@ -428,84 +448,261 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
       throw new IllegalStateException();
     }
 
-    long start = System.currentTimeMillis();
-
+    long start = startBuild();
     ArrayList<MFile> files = new ArrayList<MFile>();
-    List<Group> groups = makeAggregatedGroups(files);
-    createIndex(indexFile, groups, files);
+    if (streamingBuild && !isSingleFile) keys = new KeyStream();
+    try {
+      List<Group> groups = makeAggregatedGroups(files);
+      createIndex(indexFile, groups, files);
+    } finally {
+      if (keys != null) {
+        keys.sorter.close();
+        keys = null;
+      }
+      String took = finishBuild(gc.getName(), files.size() + " files", start);
+      if (isSingleFile) logger.debug(took); else logger.info(took);
+    }
+    return true;
+  }
+
+  /*
+   Update an existing index for files that were added to the end of the collection.
+   The old files keep their file numbers and the new files are numbered after them, as in a new index.
+   Groups that the new files have no records in are copied, along with their record tables.
+   Groups that they do have records in are made again, from the records of the group's old files plus the new ones.
+   Return false if the index cant be updated this way, and a new one must be made.
+   */
+  private boolean updateIndex(File indexFile) throws IOException {
+    if (dcm == null) return false;
 
-    long took = System.currentTimeMillis() - start;
-    logger.debug("That took {} msecs", took);
+    long start = startBuild();
+    int nnew = 0;
+    boolean ok = false;
+    File tempFile = null;
+    RandomAccessFile in = new RandomAccessFile(indexFile.getPath(), "r");
+    try {
+      in.order(RandomAccessFile.BIG_ENDIAN);
+      if (!NcStream.readAndTest(in, MAGIC_START.getBytes("UTF-8"))) return false;
+      if (in.readInt() != version) return false;
+      long recordsLen = in.readLong();
+      in.skipBytes(recordsLen);
+      int size = NcStream.readVInt(in);
+      if ((size < 0) || (size > 100 * 1000 * 1000)) return false;
+      byte[] m = new byte[size];
+      in.readFully(m);
+      GribCollectionProto.GribCollectionIndex proto = GribCollectionProto.GribCollectionIndex.parseFrom(m);
+
+      // the files in the index must be the start of the collection, and not have changed
+      List<MFile> current = new ArrayList<MFile>();
+      for (MFile mfile : dcm.getFiles())
+        current.add(mfile);
+      List<GcMFile> gcmfiles = makeFiles(gc.getDirectory(), current);
+      int nold = proto.getMfilesCount();
+      if (nold == 0 || nold > current.size()) return false;
+      for (int i = 0; i < nold; i++) {
+        GribCollectionProto.MFile old = proto.getMfiles(i);
+        GcMFile now = gcmfiles.get(i);
+        if (!old.getFilename().equals(now.name) || old.getLastModified() != now.lastModified) {
+          logger.debug("{}: file {} was removed or changed, cant update index", gc.getName(), old.getFilename());
+          return false;
+        }
+      }
+      nnew = current.size() - nold;
+      if (nnew == 0) {
+        logger.debug("{}: index {} is up to date", gc.getName(), indexFile.getPath());
+        return true;
+      }
+
+      final FeatureCollectionConfig.GribConfig config = (FeatureCollectionConfig.GribConfig) dcm.getAuxInfo(FeatureCollectionConfig.AUX_GRIB_CONFIG);
+      final Map<Integer, Integer> gdsConvert = (config != null) ?  config.gdsHash : null;
+      final FeatureCollectionConfig.GribIntvFilter intvMap = (config != null) ?  config.intvFilter : null;
+      Map<String, Boolean> pdsConvert = (config != null) ? config.pdsHash : null;
+      this.tables = Grib2Customizer.factory(proto.getCenter(), proto.getSubcenter(), proto.getMaster(), proto.getLocal());
+      if (config != null) tables.setTimeUnitConverter(config.getTimeUnitConverter());
+      final Grib2Rectilyser.Counter stats = new Grib2Rectilyser.Counter();
+
+      // the records of the new files
+      final List<MFile> files = new ArrayList<MFile>(current.subList(0, nold));
+      final Map<Integer, Group> newMap = new HashMap<Integer, Group>();
+      runInOrder(current.subList(nold, current.size()), new OrderedTask<MFile, Grib2Index>() {
+        public Grib2Index call(MFile mfile) throws IOException {
+          return (Grib2Index) GribIndex.readOrCreateIndexFromSingleFile(false, true, mfile, config, CollectionManager.Force.test, logger);
+        }
+
+        public void receive(MFile mfile, Grib2Index index, IOException failed) throws IOException {
+          if (failed != null) {
+            logger.error("Grib2CollectionBuilder "+gc.getName()+" : reading/Creating gbx9 index for file "+ mfile.getPath()+" failed", failed);
+            return;
+          }
+          addRecords(files.size(), index, config, gdsConvert, intvMap, newMap, stats, null);
+          files.add(mfile);  // add on success
+        }
+      });
+
+      // the records of the old files, in the groups that the new files have records in
+      Set<Integer> oldFilenos = new TreeSet<Integer>();
+      for (GribCollectionProto.Group pg : proto.getGroupsList()) {
+        if (newMap.containsKey(pg.getGdsHash()))
+          oldFilenos.addAll(pg.getFilenoList());
+      }
+      final Set<Integer> affected = newMap.keySet();
+      final Map<Integer, Group> gdsMap = new HashMap<Integer, Group>();
+      runInOrder(oldFilenos, new OrderedTask<Integer, Grib2Index>() {
+        public Grib2Index call(Integer fileno) throws IOException {
+          return (Grib2Index) GribIndex.readOrCreateIndexFromSingleFile(false, true, files.get(fileno), config, CollectionManager.Force.test, logger);
+        }
+
+        public void receive(Integer fileno, Grib2Index index, IOException failed) throws IOException {
+          if (failed != null) throw failed; // the group cant be made the same as before
+          addRecords(fileno, index, config, gdsConvert, intvMap, gdsMap, stats, affected);
+        }
+      });
+
+      // old records come first, since the new files are numbered after the old ones
+      List<Group> groups = new ArrayList<Group>(newMap.size());
+      Map<Integer, Group> remade = new HashMap<Integer, Group>();
+      for (Group ng : newMap.values()) {
+        Group g = gdsMap.get(ng.gdsHash);
+        if (g == null)
+          g = ng;
+        else
+          g.records.addAll(ng.records);
+        groups.add(g);
+        remade.put(g.gdsHash, g);
+      }
+      rectilyse(groups, pdsConvert, files, stats);
+      if (logger.isDebugEnabled()) logger.debug(stats.show());
+
+      tempFile = makeTempFile(indexFile);
+      RandomAccessFile out = new RandomAccessFile(tempFile.getPath(), "rw");
+      try {
+        out.order(RandomAccessFile.BIG_ENDIAN);
+        out.write(MAGIC_START.getBytes("UTF-8"));
+        out.writeInt(version);
+        long lenPos = out.getFilePointer();
+        out.writeLong(0); // save space to write the length of the record section
+        long countBytes = 0;
+
+        // groups keep their order, new groups go at the end
+        GribCollectionProto.GribCollectionIndex.Builder indexBuilder = proto.toBuilder();
+        indexBuilder.clearGroups();
+        for (GribCollectionProto.Group pg : proto.getGroupsList()) {
+          Group g = remade.remove(pg.getGdsHash());
+          if (g == null) { // copy the record tables
+            GribCollectionProto.Group.Builder groupBuilder = pg.toBuilder();
+            for (int v = 0; v < groupBuilder.getVariablesCount(); v++) {
+              GribCollectionProto.Variable.Builder varBuilder = groupBuilder.getVariablesBuilder(v);
+              byte[] rb = new byte[varBuilder.getRecordsLen()];
+              in.readFullyAt(varBuilder.getRecordsPos(), rb, 0, rb.length);
+              varBuilder.setRecordsPos(out.getFilePointer());
+              out.write(rb);
+              countBytes += rb.length;
+            }
+            indexBuilder.addGroups(groupBuilder);
+
+          } else {
+            if (pg.hasName()) g.nameOverride = pg.getName();
+            countBytes += writeRecords(out, g);
+            indexBuilder.addGroups(writeGroupProto(g));
+          }
+        }
+        for (Group g : groups) {
+          if (remade.containsKey(g.gdsHash)) {
+            countBytes += writeRecords(out, g);
+            indexBuilder.addGroups(writeGroupProto(g));
+          }
+        }
+
+        long pos = out.getFilePointer();
+        out.seek(lenPos);
+        out.writeLong(countBytes);
+        out.seek(pos); // back to the output.
+
+        indexBuilder.setName(gc.getName());
+        indexBuilder.setDirName(gc.getDirectory().getPath());
+        for (GcMFile gcmfile : makeFiles(gc.getDirectory(), files.subList(nold, files.size())))
+          indexBuilder.addMfiles(gcmfile.makeProto());
+
+        byte[] b = indexBuilder.build().toByteArray();
+        NcStream.writeVInt(out, b.length); // message size
+        out.write(b);  // message  - all in one gulp
+        ok = true;
+
+      } finally {
+        out.close();
+      }
+
+    } finally {
+      in.close();
+      if (!ok && tempFile != null && !tempFile.delete())
+        logger.error(" gc2 cant delete temp index file {}", tempFile.getPath());
+      String took = finishBuild(gc.getName(), "update of " + nnew + " new files", start);
+      if (ok) logger.info(took);
+    }
+
+    publishIndex(tempFile, indexFile);
     return true;
   }
 
+  // write the record tables of one group
+  private long writeRecords(RandomAccessFile raf, Group g) throws IOException {
+    long countBytes = 0;
+    g.fileSet = new HashSet<Integer>();
+    for (Grib2Rectilyser.VariableBag vb : g.rect.getGribvars()) {
+      byte[] b = packRecords() ? writeRecordsPacked(vb, g.fileSet) : writeRecordsProto(vb, g.fileSet).toByteArray();
+      vb.pos = raf.getFilePointer();
+      vb.length = b.length;
+      raf.write(b);
+      countBytes += b.length;
+    }
+    return countBytes;
+  }
+
   // read all records in all files,
   // divide into groups based on GDS hash
   // each group has an arraylist of all records that belong to it.
   // for each group, run rectlizer to derive the coordinates and variables
-  public List<Group> makeAggregatedGroups(List<MFile> files) throws IOException {
-    Map<Integer, Group> gdsMap = new HashMap<Integer, Group>();
+  public List<Group> makeAggregatedGroups(final List<MFile> files) throws IOException {
+    final Map<Integer, Group> gdsMap = new HashMap<Integer, Group>();
     Map<String, Boolean> pdsConvert = null;
 
     //boolean intvMerge = intvMergeDefault;
     //boolean useGenType = false;
 
     logger.debug("GribCollection {}: makeAggregatedGroups", gc.getName());
-    int fileno = 0;
-    Grib2Rectilyser.Counter stats = new Grib2Rectilyser.Counter(); // debugging
+    final Grib2Rectilyser.Counter stats = new Grib2Rectilyser.Counter(); // debugging
 
     logger.debug(" dcm={}", dcm);
-    FeatureCollectionConfig.GribConfig config = (FeatureCollectionConfig.GribConfig) dcm.getAuxInfo(FeatureCollectionConfig.AUX_GRIB_CONFIG);
-    Map<Integer, Integer> gdsConvert = (config != null) ?  config.gdsHash : null;
-    FeatureCollectionConfig.GribIntvFilter intvMap = (config != null) ?  config.intvFilter : null;
+    final FeatureCollectionConfig.GribConfig config = (FeatureCollectionConfig.GribConfig) dcm.getAuxInfo(FeatureCollectionConfig.AUX_GRIB_CONFIG);
+    final Map<Integer, Integer> gdsConvert = (config != null) ?  config.gdsHash : null;
+    final FeatureCollectionConfig.GribIntvFilter intvMap = (config != null) ?  config.intvFilter : null;
     if (config != null) pdsConvert = config.pdsHash;
     //intvMerge = (config == null) || (config.intvMerge == null) ? intvMergeDefault : config.intvMerge;
     //useGenType = (config == null) || (config.useGenType == null) ? false : config.useGenType;
 
-    for (MFile mfile : dcm.getFiles()) {
-      if (showFiles) logger.debug("{}: {}", fileno, mfile.getPath());
-
-      Grib2Index index = null;
-      try {
-        index = (Grib2Index) GribIndex.readOrCreateIndexFromSingleFile(false, !isSingleFile, mfile, config, CollectionManager.Force.test, logger);
-        files.add(mfile);  // add on success
-
-      } catch (IOException ioe) {
-        logger.error("Grib2CollectionBuilder "+gc.getName()+" : reading/Creating gbx9 index for file "+ mfile.getPath()+" failed", ioe);
-        continue;
+    // the gbx9 indexes may be read or created in parallel, but the records are added in file order
+    runInOrder(dcm.getFiles(), new OrderedTask<MFile, Grib2Index>() {
+      public Grib2Index call(MFile mfile) throws IOException {
+        return (Grib2Index) GribIndex.readOrCreateIndexFromSingleFile(false, !isSingleFile, mfile, config, CollectionManager.Force.test, logger);
       }
 
-      for (Grib2Record gr : index.getRecords()) {
-        if (this.tables == null) {
-          Grib2SectionIdentification ids = gr.getId(); // so all records must use the same table (!)
-          this.tables = Grib2Customizer.factory(ids.getCenter_id(), ids.getSubcenter_id(), ids.getMaster_table_version(), ids.getLocal_table_version());
-          if (config != null) tables.setTimeUnitConverter(config.getTimeUnitConverter());
-        }
-        if (intvMap != null && filterOut(gr, intvMap)) {
-          stats.filter++;
-          continue; // skip
-        }
-
-        gr.setFile(fileno); // each record tracks which file it belongs to
-        int gdsHash = gr.getGDSsection().getGDS().hashCode();  // use GDS hash code to group records
-        if (gdsConvert != null && gdsConvert.get(gdsHash) != null) // allow external config to muck with gdsHash. Why? because of error in encoding
-          gdsHash = gdsConvert.get(gdsHash);             // and we need exact hash matching
-
-        Group g = gdsMap.get(gdsHash);
-        if (g == null) {
-          g = new Group(gr.getGDSsection(), gdsHash);
-          gdsMap.put(gdsHash, g);
+      public void receive(MFile mfile, Grib2Index index, IOException failed) throws IOException {
+        if (failed != null) {
+          logger.error("Grib2CollectionBuilder "+gc.getName()+" : reading/Creating gbx9 index for file "+ mfile.getPath()+" failed", failed);
+          return;
         }
-        g.records.add(gr);
+        addRecords(files.size(), index, config, gdsConvert, intvMap, gdsMap, stats, null);
+        files.add(mfile);  // add on success
+        if (showFiles) logger.debug("{}: {}", files.size() - 1, mfile.getPath());
       }
-      fileno++;
-        stats.recordsTotal += index.getRecords().size();
-    }
+    });
 
     List<Group> result = new ArrayList<Group>(gdsMap.values());
-    for (Group g : result) {
-      g.rect = new Grib2Rectilyser(tables, g.records, g.gdsHash, pdsConvert);
-      g.rect.make(stats, files);
+    if (keys != null) { // streaming: only the coordinates now, the record tables are made when the index is written
+      for (Group g : result)
+        g.rect.makeCoords();
+    } else {
+      rectilyse(result, pdsConvert, files, stats);
     }
 
     // debugging and validation
@@ -514,6 +711,58 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
     return result;
   }
 
+  // each group is rectilysed independently
+  private void rectilyse(List<Group> groups, Map<String, Boolean> pdsConvert, final List<MFile> files, Grib2Rectilyser.Counter stats) throws IOException {
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(groups.size());
+    List<Grib2Rectilyser.Counter> counters = new ArrayList<Grib2Rectilyser.Counter>(groups.size());
+    for (final Group g : groups) {
+      final Grib2Rectilyser.Counter counter = new Grib2Rectilyser.Counter();
+      counters.add(counter);
+      g.rect = new Grib2Rectilyser(tables, g.records, g.gdsHash, pdsConvert);
+      tasks.add(new Callable<Void>() {
+        public Void call() throws IOException {
+          g.rect.make(counter, files);
+          return null;
+        }
+      });
+    }
+    runAll(tasks);
+    for (Grib2Rectilyser.Counter counter : counters)
+      stats.add(counter);
+  }
+
+  // add the records of one file to the groups, only to the groups in onlyGds if not null
+  private void addRecords(int fileno, Grib2Index index, FeatureCollectionConfig.GribConfig config, Map<Integer, Integer> gdsConvert,
+                          FeatureCollectionConfig.GribIntvFilter intvMap, Map<Integer, Group> gdsMap, Grib2Rectilyser.Counter stats,
+                          Set<Integer> onlyGds) throws IOException {
+    for (Grib2Record gr : index.getRecords()) {
+      if (this.tables == null) {
+        Grib2SectionIdentification ids = gr.getId(); // so all records must use the same table (!)
+        this.tables = Grib2Customizer.factory(ids.getCenter_id(), ids.getSubcenter_id(), ids.getMaster_table_version(), ids.getLocal_table_version());
+        if (config != null) tables.setTimeUnitConverter(config.getTimeUnitConverter());
+      }
+      if (intvMap != null && filterOut(gr, intvMap)) {
+        stats.filter++;
+        continue; // skip
+      }
+
+      gr.setFile(fileno); // each record tracks which file it belongs to
+      int gdsHash = gr.getGDSsection().getGDS().hashCode();  // use GDS hash code to group records
+      if (gdsConvert != null && gdsConvert.get(gdsHash) != null) // allow external config to muck with gdsHash. Why? because of error in encoding
+        gdsHash = gdsConvert.get(gdsHash);             // and we need exact hash matching
+      if (onlyGds != null && !onlyGds.contains(gdsHash))
+        continue;
+
+      Group g = gdsMap.get(gdsHash);
+      if (g == null) {
+        g = new Group(gr.getGDSsection(), gdsHash);
+        gdsMap.put(gdsHash, g);
+      }
+      g.add(gr);
+    }
+    stats.recordsTotal += index.getRecords().size();
+  }
+
   // true means remove
   private boolean filterOut(Grib2Record gr, FeatureCollectionConfig.GribIntvFilter intvFilter) {
     int[] intv = tables.getForecastTimeIntervalOffset(gr);
@@ -555,16 +804,13 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
 
   private void createIndex(File indexFile, List<Group> groups, List<MFile> files) throws IOException {
     Grib2Record first = null; // take global metadata from here
-    boolean deleteOnClose = false;
+    boolean ok = false;
 
-    if (indexFile.exists()) {
-      if (!indexFile.delete()) {
-        logger.error("gc2 cant delete index file {}", indexFile.getPath());
-      }
-    }
+    // write it next to the index, then rename, so the index is never seen half written
+    File tempFile = makeTempFile(indexFile);
     logger.debug(" createIndex for {}", indexFile.getPath());
 
-    RandomAccessFile raf = new RandomAccessFile(indexFile.getPath(), "rw");
+    RandomAccessFile raf = new RandomAccessFile(tempFile.getPath(), "rw");
     raf.order(RandomAccessFile.BIG_ENDIAN);
     try {
       //// header message
@@ -574,24 +820,29 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
       raf.writeLong(0); // save space to write the length of the record section
       long countBytes = 0;
       int countRecords = 0;
-      for (Group g : groups) {
-        g.fileSet = new HashSet<Integer>();
-        for (Grib2Rectilyser.VariableBag vb : g.rect.getGribvars()) {
-          if (first == null) first = vb.first;
-          GribCollectionProto.VariableRecords vr = writeRecordsProto(vb, g.fileSet);
-          byte[] b = vr.toByteArray();
-          vb.pos = raf.getFilePointer();
-          vb.length = b.length;
-          raf.write(b);
-          countBytes += b.length;
-          countRecords += vb.recordMap.length;
+      if (keys != null) {
+        countBytes = keys.writeRecords(raf, groups);
+        countRecords = keys.countRecords;
+        if (groups.size() > 0) first = groups.get(0).rect.getGribvars().get(0).first;
+
+      } else {
+        for (Group g : groups) {
+          g.fileSet = new HashSet<Integer>();
+          for (Grib2Rectilyser.VariableBag vb : g.rect.getGribvars()) {
+            if (first == null) first = vb.first;
+            byte[] b = packRecords() ? writeRecordsPacked(vb, g.fileSet) : writeRecordsProto(vb, g.fileSet).toByteArray();
+            vb.pos = raf.getFilePointer();
+            vb.length = b.length;
+            raf.write(b);
+            countBytes += b.length;
+            countRecords += vb.recordMap.length;
+          }
         }
       }
       long bytesPerRecord = countBytes / ((countRecords == 0) ? 1 : countRecords);
       if (logger.isDebugEnabled()) logger.debug("  write RecordMaps: bytes = {} record = {} bytesPerRecord={}", new Object[] {countBytes, countRecords, bytesPerRecord});
 
       if (first == null) {
-        deleteOnClose = true;
         logger.error("GribCollection {}: has no files", gc.getName());
         throw new IOException("GribCollection " + gc.getName() + " has no files");
       }
@@ -638,15 +889,17 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
       NcStream.writeVInt(raf, b.length); // message size
       raf.write(b);  // message  - all in one gulp
       logger.debug("  write GribCollectionIndex= {} bytes", b.length);
+      ok = true;
 
     } finally {
       logger.debug("  file size =  {} bytes", raf.length());
       if (raf != null) raf.close();
 
             // remove it on failure
-      if (deleteOnClose && !indexFile.delete())
-        logger.error(" gc2 cant deleteOnClose index file {}", indexFile.getPath());
+      if (!ok && !tempFile.delete())
+        logger.error(" gc2 cant delete temp index file {}", tempFile.getPath());
     }
+    publishIndex(tempFile, indexFile);
   }
 
   /* private void createIndexForGroup(Group group, ArrayList<String> filenames) throws IOException {
@@ -746,6 +999,141 @@ public class Grib2CollectionBuilder extends GribCollectionBuilder {
     return b.build();
   }
 
+  private byte[] writeRecordsPacked(Grib2Rectilyser.VariableBag vb, Set<Integer> fileSet) throws IOException {
+    GribCollection.Record[] records = new GribCollection.Record[vb.recordMap.length];
+    for (int i = 0; i < vb.recordMap.length; i++) {
+      Grib2Rectilyser.Record ar = vb.recordMap[i];
+      if (ar == null || ar.gr == null) {
+        records[i] = new GribCollection.Record(0, 0, 0, false); // missing : ok to use 0 since drsPos > 0
+
+      } else {
+        fileSet.add(ar.gr.getFile());
+        long drsPos = ar.gr.getDataRepresentationSection().getStartingPosition();
+        long bmsPos = ar.gr.isBmsReplaced() ? ar.gr.getBitmapSection().getStartingPosition() : 0;
+        records[i] = new GribCollection.Record(ar.gr.getFile(), drsPos, bmsPos, false);
+      }
+    }
+    return GribRecordTable.encode(vb.cdmHash, records);
+  }
+
+  ///////////////////////////////////////////////////
+  // streaming build, see setStreamingBuild()
+
+  // fileno, drsPos, bmsPos, and the time, vert and ens coordinate ids from Grib2Rectilyser.addRecord()
+  static private final int keySize = 4 + 8 + 8 + 4 + 4 + 4;
+
+  // each record is turned into a key when its file is read, so the records are not kept.
+  // the keys are sorted by variable, so only one variable's record table is in memory when the index is written
+  private class KeyStream {
+    final GribKeySorter sorter = new GribKeySorter(keySize, keysInMemory, null);
+    final List<Grib2Rectilyser.VariableBag> vars = new ArrayList<Grib2Rectilyser.VariableBag>(); // index is the bucket
+    final List<Group> varGroups = new ArrayList<Group>(); // group of each variable
+    final Map<String, Boolean> pdsConvert;
+    final byte[] key = new byte[keySize];
+    final ByteBuffer bb = ByteBuffer.wrap(key);
+    final int[] coordIds = new int[3];
+    int countRecords;
+
+    KeyStream() {
+      FeatureCollectionConfig.GribConfig config = (FeatureCollectionConfig.GribConfig) dcm.getAuxInfo(FeatureCollectionConfig.AUX_GRIB_CONFIG);
+      this.pdsConvert = (config != null) ? config.pdsHash : null;
+    }
+
+    void add(Group g, Grib2Record gr) throws IOException {
+      if (g.rect == null)
+        g.rect = new Grib2Rectilyser(tables, g.records, g.gdsHash, pdsConvert);
+      Grib2Rectilyser.VariableBag vb = g.rect.addRecord(gr, coordIds);
+      if (vb.bucket < 0) {
+        vb.bucket = vars.size();
+        vars.add(vb);
+        varGroups.add(g);
+      }
+
+      bb.clear();
+      bb.putInt(gr.getFile());
+      bb.putLong(gr.getDataRepresentationSection().getStartingPosition());
+      bb.putLong(gr.isBmsReplaced() ? gr.getBitmapSection().getStartingPosition() : 0);
+      bb.putInt(coordIds[0]);
+      bb.putInt(coordIds[1]);
+      bb.putInt(coordIds[2]);
+      sorter.add(vb.bucket, key);
+    }
+
+    // sort the keys, then make and write the record table of each variable. return number of bytes written
+    long writeRecords(RandomAccessFile raf, List<Group> groups) throws IOException {
+      for (Group g : groups)
+        g.fileSet = new HashSet<Integer>();
+      sorter.sort();
+
+      long countBytes = 0;
+      int dups = 0;
+      boolean more = sorter.next();
+      while (more) {
+        int bucket = sorter.getBucket();
+        Grib2Rectilyser.VariableBag vb = vars.get(bucket);
+        Group g = varGroups.get(bucket);
+        GribCollection.Record[] table = new GribCollection.Record[g.rect.getRecordTableSize(vb)];
+
+        // later records overwrite earlier ones with same index, the sort keeps them in order
+        do {
+          ByteBuffer k = sorter.getKey();
+          int fileno = k.getInt();
+          long drsPos = k.getLong();
+          long bmsPos = k.getLong();
+          int timeId = k.getInt();
+          int vertId = k.getInt();
+          int ensId = k.getInt();
+          int index = g.rect.getIndex(vb, timeId, vertId, ensId);
+          GribCollection.Record r = table[index];
+          if (r == null) {
+            table[index] = new GribCollection.Record(fileno, drsPos, bmsPos, false);
+          } else {
+            dups++;
+            r.fileno = fileno;
+            r.pos = drsPos;
+            r.bmsPos = bmsPos;
+          }
+          more = sorter.next();
+        } while (more && sorter.getBucket() == bucket);
+
+        byte[] b = writeRecordTable(vb, table, g.fileSet);
+        vb.pos = raf.getFilePointer();
+        vb.length = b.length;
+        raf.write(b);
+        countBytes += b.length;
+        countRecords += table.length;
+      }
+
+      logger.debug("GribCollection {}: streamed {} records of {} variables, {} dups, {} sort runs",
+              new Object[] {gc.getName(), sorter.getTotal(), vars.size(), dups, sorter.getNumRuns()});
+      return countBytes;
+    }
+  }
+
+  // a streamed record table, null means missing
+  private byte[] writeRecordTable(Grib2Rectilyser.VariableBag vb, GribCollection.Record[] table, Set<Integer> fileSet) throws IOException {
+    for (int i = 0; i < table.length; i++) {
+      if (table[i] == null)
+        table[i] = new GribCollection.Record(0, 0, 0, false); // missing : ok to use 0 since drsPos > 0
+      else
+        fileSet.add(table[i].fileno);
+    }
+    if (packRecords())
+      return GribRecordTable.encode(vb.cdmHash, table);
+
+    GribCollectionProto.VariableRecords.Builder b = GribCollectionProto.VariableRecords.newBuilder();
+    b.setCdmHash(vb.cdmHash);
+    for (GribCollection.Record r : table) {
+      GribCollectionProto.Record.Builder br = GribCollectionProto.Record.newBuilder();
+      br.setFileno(r.fileno);
+      br.setPos(r.pos);
+      if (r.bmsPos != 0)
+        br.setBmsPos(r.bmsPos);
+      b.addRecords(br);
+    }
+    return b.build().toByteArray();
+  }
+
   private GribCollectionProto.Group writeGroupProto(Group g) throws IOException {
     GribCollectionProto.Group.Builder b = GribCollectionProto.Group.newBuilder();
 
@@ -32,7 +32,6 @@
 
 package ucar.nc2.grib.grib2;
 
-import ucar.jpeg.jj2000.j2k.decoder.Grib2JpegDecoder;
 import ucar.nc2.grib.GribNumbers;
 import ucar.nc2.grib.QuasiRegular;
 import ucar.nc2.iosp.BitReader;
@@ -155,16 +154,25 @@ public class Grib2DataReader {
     //   X2 = scaled encoded value
     //   data[ i ] = (R + ( X1 + X2) * EE)/DD ;
 
-    BitReader reader = new BitReader(raf, startPos+5);
+    BitReader reader = new BitReader(raf, startPos+5, dataLength-5);
     if (bitmap == null) {
+      int[] packed = new int[totalNPoints];
+      reader.bits2UInt(nb, totalNPoints, packed, 0);
       for (int i = 0; i < totalNPoints; i++) {
         //data[ i ] = (R + ( X1 + X2) * EE)/DD ;
-        data[i] = (R + reader.bits2UInt(nb) * EE) / DD;
+        data[i] = (R + unsigned(packed[i]) * EE) / DD;
       }
     } else {
+      int npacked = 0;
+      for (int i = 0; i < totalNPoints; i++)
+        if ((bitmap[i / 8] & GribNumbers.bitmask[i % 8]) != 0) npacked++;
+      int[] packed = new int[npacked];
+      reader.bits2UInt(nb, npacked, packed, 0);
+
+      int idx = 0;
       for (int i = 0; i < totalNPoints; i++) {
         if ((bitmap[i / 8] & GribNumbers.bitmask[i % 8]) != 0) {
-          data[i] = (R + reader.bits2UInt(nb) * EE) / DD;
+          data[i] = (R + unsigned(packed[idx++]) * EE) / DD;
         } else {
           data[i] = staticMissingValue;  // LOOK ??
           //data[i] = R / DD;
@@ -175,6 +183,20 @@ public class Grib2DataReader {
     return data;
   }
 
+  // largest group length, sizes the scratch array the group values are unpacked into.
+  // a group cant be longer than the number of points, so a bad length doesnt allocate a huge array
+  static private int maxLength(int[] L, int npoints) {
+    int max = 0;
+    for (int len : L)
+      if (len > max) max = len;
+    return Math.min(max, npoints);
+  }
+
+  // a 32 bit packed value comes back from the bulk read as a negative int
+  static private long unsigned(int packed) {
+    return packed & 0xffffffffL;
+  }
+
   // Grid point data - complex packing
   private float[] getData2(RandomAccessFile raf, Grib2Drs.Type2 gdrs) throws IOException {
     int mvm = gdrs.missingValueManagement;
@@ -187,23 +209,20 @@ public class Grib2DataReader {
       return data;
     }
 
-    BitReader reader = new BitReader(raf, startPos+5);
+    BitReader reader = new BitReader(raf, startPos+5, dataLength-5);
 
     // 6-xx  Get reference values for groups (X1's)
     int[] X1 = new int[NG];
     int nb = gdrs.numberOfBits;
-    if (nb != 0) {
-      for (int i = 0; i < NG; i++)
-        X1[i] = (int) reader.bits2UInt(nb);
-    }
+    if (nb != 0)
+      reader.bits2UInt(nb, NG, X1, 0);
 
     // [xx +1 ]-yy Get number of bits used to encode each group
     int[] NB = new int[NG];
     nb = gdrs.bitsGroupWidths;
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++)
-        NB[i] = (int) reader.bits2UInt(nb);
+      reader.bits2UInt(nb, NG, NB, 0);
     }
 
     // [yy +1 ]-zz Get the scaled group lengths using formula
@@ -216,8 +235,9 @@ public class Grib2DataReader {
     nb = gdrs.bitsScaledGroupLength;
 
     reader.incrByte();
+    reader.bits2UInt(nb, NG, L, 0);
     for (int i = 0; i < NG; i++)
-      L[i] = ref + (int) reader.bits2UInt(nb) * len_inc;
+      L[i] = ref + L[i] * len_inc;
     L[NG - 1] = gdrs.lengthLastGroup; // enter Length of Last Group
 
     int D = gdrs.decimalScaleFactor;
@@ -239,8 +259,11 @@ public class Grib2DataReader {
 //                     E = THE BINARY SCALE FACTOR
 //                     D = THE DECIMAL SCALE FACTOR
     int count = 0;
+    int[] X2s = new int[maxLength(L, totalNPoints)];
     reader.incrByte();
     for (int i = 0; i < NG; i++) {
+      if (NB[i] != 0)
+        reader.bits2UInt(NB[i], L[i], X2s, 0);
       for (int j = 0; j < L[i]; j++) {
         if (NB[i] == 0) {
           if (mvm == 0) {  // X2 = 0
@@ -249,7 +272,7 @@ public class Grib2DataReader {
             data[count++] = mv;
           }
         } else {
-          int X2 = (int) reader.bits2UInt(NB[i]);
+          int X2 = X2s[j];
           if (mvm == 0) {
             data[count++] = (R + (X1[i] + X2) * EE) / DD;
           } else { //if (mvm == 1) || (mvm == 2 )
@@ -285,7 +308,7 @@ public class Grib2DataReader {
     int mvm = gdrs.missingValueManagement;
     float mv = getMissingValue(gdrs);
 
-    BitReader reader = new BitReader(raf, startPos+5);
+    BitReader reader = new BitReader(raf, startPos+5, dataLength-5);
 
     int ival1 = 0;
     int ival2 = 0;
@@ -336,9 +359,7 @@ public class Grib2DataReader {
     int nb = gdrs.numberOfBits;
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++) {
-        X1[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, X1, 0);
     }
 
     // [xx +1 ]-yy Get number of bits used to encode each group
@@ -347,9 +368,7 @@ public class Grib2DataReader {
     nb = gdrs.bitsGroupWidths;
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++) {
-        NB[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, NB, 0);
     }
 
     int referenceGroupWidths = gdrs.referenceGroupWidths;
@@ -368,9 +387,7 @@ public class Grib2DataReader {
 
     if (nb != 0) {
       reader.incrByte();
-      for (int i = 0; i < NG; i++) {
-        L[i] = (int) reader.bits2UInt(nb);
-      }
+      reader.bits2UInt(nb, NG, L, 0);
     }
 
     int totalL = 0;
@@ -423,14 +440,16 @@ public class Grib2DataReader {
 //                     E = THE BINARY SCALE FACTOR
 //                     D = THE DECIMAL SCALE FACTOR
     int count = 0;
+    int[] X2s = new int[maxLength(L, totalNPoints)];
     reader.incrByte();
     int dataSize = 0;
     boolean[] dataBitMap = null;
     if (mvm == 0) {
       for (int i = 0; i < NG; i++) {
         if (NB[i] != 0) {
+          reader.bits2UInt(NB[i], L[i], X2s, 0);
           for (int j = 0; j < L[i]; j++)
-            data[count++] = (int) reader.bits2UInt(NB[i]) + X1[i];
+            data[count++] = X2s[j] + X1[i];
         } else {
           for (int j = 0; j < L[i]; j++)
             data[count++] = X1[i];
@@ -445,8 +464,9 @@ public class Grib2DataReader {
         if (NB[i] != 0) {
           int msng1 = bitsmv1[NB[i]];
           int msng2 = msng1 - 1;
+          reader.bits2UInt(NB[i], L[i], X2s, 0);
           for (int j = 0; j < L[i]; j++) {
-            data[count] = (int) reader.bits2UInt(NB[i]);
+            data[count] = X2s[j];
             if (data[count] == msng1 || mvm == 2 && data[count] == msng2) {
               dataBitMap[count] = false;
             } else {
@@ -567,65 +587,45 @@ public class Grib2DataReader {
     int E = gdrs.binaryScaleFactor;
     float EE = (float) java.lang.Math.pow((double) 2.0, (double) E);
 
-    Grib2JpegDecoder g2j = null;
-    try {
-      if (nb != 0) {  // there's data to decode
-        String[] argv = new String[6];
-        argv[0] = "-rate";
-        argv[1] = Integer.toString(nb);
-        argv[2] = "-verbose";
-        argv[3] = "off";
-        argv[4] = "-debug" ;
-        argv[5] = "on" ;
-        //argv[ 2 ] = "-nocolorspace" ;
-        //argv[ 3 ] = "-Rno_roi" ;
-        //argv[ 4 ] = "-cdstr_info" ;
-        //argv[ 5 ] = "-verbose" ;
-        g2j = new Grib2JpegDecoder(argv);
-        // how jpeg2000.jar use to decode, used raf
-        //g2j.decode(raf, length - 5);
-        // jpeg-1.0.jar added method to have the data read first
-        byte[] buf = new byte[dataLength - 5];
-        raf.read(buf);
-        g2j.decode(buf);
-        gdrs.hasSignedProblem = g2j.hasSignedProblem();
-      }
-
-      float[] data = new float[totalNPoints];
-
-      if (nb == 0) {  // no data to decoded, set to reference or  MissingValue
-        for (int i = 0; i < dataNPoints; i++)
-          data[i] = R;
-      } else if (bitmap == null) {
-        if (g2j.data.length != dataNPoints) {
-          data = null;
-          return data;
-        }
-        for (int i = 0; i < dataNPoints; i++) {
-          // Y * 10^D = R + (X1 + X2) * 2^E ; // regulation 92.9.4
-          //Y = (R + ( 0 + X2) * EE)/DD ;
-          data[i] = (R + g2j.data[i] * EE) / DD;
-        }
-      } else {  // use bitmap
-        for (int i = 0, j = 0; i < totalNPoints; i++) {
-          if ((bitmap[i / 8] & GribNumbers.bitmask[i % 8]) != 0) {
-            data[i] = (R + g2j.data[j++] * EE) / DD;
-          } else {
-            data[i] = staticMissingValue;  // LOOK ??
-          }
-        }
-      }
+    float[] data = new float[totalNPoints];
+    if (nb == 0) {  // no data to decoded, set to reference or  MissingValue
+      for (int i = 0; i < dataNPoints; i++)
+        data[i] = R;
       return data;
+    }
 
-    } catch (NullPointerException npe) {
-
+    // the decoder and its buffers are reused by this thread
+    Grib2JpegUnpacker unpacker = Grib2JpegUnpacker.get();
+    int[] packed = unpacker.decode(raf, startPos + 5, dataLength - 5, nb);
+    if (packed == null) {
       log.error("Grib2DataSection.jpeg2000Unpacking: bit rate too small nb =" + nb + " for file" + raf.getLocation());
-      float[] data = new float[dataNPoints];
+      data = new float[dataNPoints];
       for (int i = 0; i < dataNPoints; i++) {
         data[i] = staticMissingValue;  // LOOK ??
       }
       return data;
     }
+    gdrs.hasSignedProblem = unpacker.hasSignedProblem();
+    int shift = unpacker.getLevelShift();
+
+    if (bitmap == null) {
+      if (packed.length != dataNPoints)
+        return null;
+      for (int i = 0; i < dataNPoints; i++) {
+        // Y * 10^D = R + (X1 + X2) * 2^E ; // regulation 92.9.4
+        //Y = (R + ( 0 + X2) * EE)/DD ;
+        data[i] = (R + (packed[i] + shift) * EE) / DD;
+      }
+    } else {  // use bitmap
+      for (int i = 0, j = 0; i < totalNPoints; i++) {
+        if ((bitmap[i / 8] & GribNumbers.bitmask[i % 8]) != 0) {
+          data[i] = (R + (packed[j++] + shift) * EE) / DD;
+        } else {
+          data[i] = staticMissingValue;  // LOOK ??
+        }
+      }
+    }
+    return data;
   }
 
   // Rearrange the data array using the scanning mode.
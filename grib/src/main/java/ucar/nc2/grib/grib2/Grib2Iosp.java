@@ -784,13 +784,13 @@ public class Grib2Iosp extends GribIosp {
           }
 
           if (recordIndex >= 0)  {
-            if (recordIndex < vindex.records.length)  {
-              GribCollection.Record record = vindex.records[recordIndex];
+            if (recordIndex < vindex.getNRecords())  {
+              GribCollection.Record record = vindex.getRecord(recordIndex);
               dataReader.addRecord(vindex, partno, record.fileno, record.pos, record.bmsPos, resultIndex);  // add this record to be read
 
             } else {
               Formatter f = new Formatter();
-              f.format("recordIndex=%d size=%d%n", recordIndex,  vindex.records.length);
+              f.format("recordIndex=%d size=%d%n", recordIndex,  vindex.getNRecords());
               if (flag == 0) f.format("time=%d, ens=%d, level=%d, nens=%d, nverts=%d", val.getIndex(), ensIdx, levelIdx, vindex.nens, vindex.nverts);
               else  f.format("time=%d, ens=%d, level=%d, flag=%d, nens=%s, vert=%s ensp=%s, vertp=%s", val.getIndex(), ensIdx, levelIdx, flag,
                       vindex.getEnsCoord(), vindex.getVertCoord(), vindexP.getEnsCoord(), vindexP.getVertCoord());
@@ -823,46 +823,32 @@ public class Grib2Iosp extends GribIosp {
 
     void read(DataReceiver dataReceiver) throws IOException {
       Collections.sort(records);
-
-      int currPartno = -1;
-      int currFile = -1;
-      RandomAccessFile rafData = null;
-      for (DataRecord dr : records) {
-        if (dr.partno != currPartno || dr.fileno != currFile) {
-          if (rafData != null) rafData.close();
-          rafData = timePartition.getRaf(dr.partno, dr.fileno);
-          currFile = dr.fileno;
-          currPartno = dr.partno;
-        }
-
-        if (dr.drsPos == GribCollection.MISSING_RECORD) continue;
-
-        if (debugRead) { // for validation
-          show( Grib2RecordScanner.findRecordByDrspos(rafData, dr.drsPos), dr.drsPos);
+      GribReadPipeline pipeline = makeReadPipeline();
+
+      // read all the records in one file at a time
+      int start = 0;
+      while (start < records.size()) {
+        DataRecord first = records.get(start);
+        int end = start + 1;
+        while (end < records.size() && records.get(end).partno == first.partno && records.get(end).fileno == first.fileno)
+          end++;
+
+        RandomAccessFile rafData = timePartition.getRaf(first.partno, first.fileno);
+        try {
+          readFile(pipeline, rafData, records.subList(start, end), dataReceiver);
+        } finally {
+          rafData.close();
         }
-
-        float[] data = Grib2Record.readData(rafData, dr.drsPos, dr.bmsPos, dr.vindex.group.hcs.gdsNumberPoints, dr.vindex.group.hcs.scanMode,
-                dr.vindex.group.hcs.nxRaw,  dr.vindex.group.hcs.nyRaw, dr.vindex.group.hcs.nptsInLine);
-        dataReceiver.addData(data, dr.resultIndex, dr.vindex.group.hcs.nx);
+        start = end;
       }
-      if (rafData != null) rafData.close();
     }
 
-    private class DataRecord implements Comparable<DataRecord> {
+    private class DataRecord extends DataRecordBase implements Comparable<DataRecord> {
       int partno; // partition index
-      GribCollection.VariableIndex vindex; // the vindex of the partition
-      int resultIndex; // where does this record go in the result array?
-      int fileno;
-      long drsPos;
-      long bmsPos;  // if non zero, use alernate bms
 
       DataRecord(int partno, GribCollection.VariableIndex vindex, int resultIndex, int fileno, long drsPos, long bmsPos) {
+        super(vindex, resultIndex, fileno, (drsPos == 0) ? GribCollection.MISSING_RECORD : drsPos, bmsPos); // 0 also means missing in Grib2
         this.partno = partno;
-        this.vindex = vindex;
-        this.resultIndex = resultIndex;
-        this.fileno = fileno;
-        this.drsPos = (drsPos == 0) ? GribCollection.MISSING_RECORD : drsPos; // 0 also means missing in Grib2
-        this.bmsPos = bmsPos;
       }
 
       @Override
@@ -882,8 +868,7 @@ public class Grib2Iosp extends GribIosp {
     GribCollection.VariableIndex vindex = (GribCollection.VariableIndex) v.getSPobject();
 
     // first time, read records and keep in memory
-    if (vindex.records == null)
-      vindex.readRecords();
+    vindex.readRecords();
 
     // canonical order: time, ens, z, y, x
     int rangeIdx = 0;
@@ -917,8 +902,7 @@ public class Grib2Iosp extends GribIosp {
     GribCollection.VariableIndex vindex = (GribCollection.VariableIndex) v.getSPobject();
 
     // first time, read records and keep in memory
-    if (vindex.records == null)
-      vindex.readRecords();
+    vindex.readRecords();
 
     // canonical order: time, ens, z, y, x
     int rangeIdx = 0;
@@ -958,50 +942,40 @@ public class Grib2Iosp extends GribIosp {
 
     void addRecord(int ensIdx, int timeIdx, int levIdx, int resultIndex) {
       int recordIndex = GribCollection.calcIndex(timeIdx, ensIdx, levIdx, vindex.nens, vindex.nverts);
-      GribCollection.Record record = vindex.records[recordIndex];
+      GribCollection.Record record = vindex.getRecord(recordIndex);
       records.add(new DataRecord(timeIdx, ensIdx, levIdx, resultIndex, record.fileno, record.pos, record.bmsPos));
     }
 
     void read(DataReceiverIF dataReceiver) throws IOException {
       Collections.sort(records);
-
-      int currFile = -1;
-      RandomAccessFile rafData = null;
-      for (DataRecord dr : records) {
-        if (dr.fileno != currFile) {
-          if (rafData != null) rafData.close();
-          rafData = gribCollection.getDataRaf(dr.fileno);
-          currFile = dr.fileno;
-        }
-
-        if (dr.drsPos == GribCollection.MISSING_RECORD) continue;
-
-        if (debugRead) { // for validation
-          show(Grib2RecordScanner.findRecordByDrspos(rafData, dr.drsPos), dr.drsPos);
+      GribReadPipeline pipeline = makeReadPipeline();
+
+      // read all the records in one file at a time
+      int start = 0;
+      while (start < records.size()) {
+        int fileno = records.get(start).fileno;
+        int end = start + 1;
+        while (end < records.size() && records.get(end).fileno == fileno)
+          end++;
+
+        RandomAccessFile rafData = gribCollection.getDataRaf(fileno);
+        try {
+          readFile(pipeline, rafData, records.subList(start, end), dataReceiver);
+        } finally {
+          rafData.close();
         }
-
-        float[] data = Grib2Record.readData(rafData, dr.drsPos, dr.bmsPos, vindex.group.hcs.gdsNumberPoints, vindex.group.hcs.scanMode,
-                vindex.group.hcs.nxRaw, vindex.group.hcs.nyRaw, vindex.group.hcs.nptsInLine);
-        dataReceiver.addData(data, dr.resultIndex, vindex.group.hcs.nx);
+        start = end;
       }
-      if (rafData != null) rafData.close();
     }
 
-    private class DataRecord implements Comparable<DataRecord> {
+    private class DataRecord extends DataRecordBase implements Comparable<DataRecord> {
       int ensIdx, timeIdx, levIdx;
-      int resultIndex; // index in the ens / time / vert array
-      int fileno;
-      long drsPos;
-      long bmsPos;
 
       DataRecord(int timeIdx, int ensIdx, int levIdx, int resultIndex, int fileno, long drsPos, long bmsPos) {
+        super(DataReader.this.vindex, resultIndex, fileno, drsPos, bmsPos);
         this.ensIdx = ensIdx;
         this.timeIdx = timeIdx;
         this.levIdx = levIdx;
-        this.resultIndex = resultIndex;
-        this.fileno = fileno;
-        this.drsPos = drsPos;
-        this.bmsPos = bmsPos;
       }
 
       @Override
@@ -1013,6 +987,60 @@ public class Grib2Iosp extends GribIosp {
     }
   }
 
+  // where a record is in its data file, and where its data goes in the result
+  static private class DataRecordBase {
+    GribCollection.VariableIndex vindex;
+    int resultIndex; // index in the ens / time / vert array
+    int fileno;
+    long drsPos;
+    long bmsPos;  // if non zero, use alernate bms
+
+    DataRecordBase(GribCollection.VariableIndex vindex, int resultIndex, int fileno, long drsPos, long bmsPos) {
+      this.vindex = vindex;
+      this.resultIndex = resultIndex;
+      this.fileno = fileno;
+      this.drsPos = drsPos;
+      this.bmsPos = bmsPos;
+    }
+  }
+
+  // decode a record from its data representation section, so sections 5-7 are all that needs to be read
+  static private final GribReadPipeline.Decoder<DataRecordBase> decoder = new GribReadPipeline.Decoder<DataRecordBase>() {
+    public long getStartPos(DataRecordBase dr) {
+      return dr.drsPos;
+    }
+
+    public int getLength(RandomAccessFile raf, DataRecordBase dr) throws IOException {
+      if (dr.bmsPos > 0) return -1; // the bitmap is somewhere else in the file
+      return Grib2Record.getDataLength(raf, dr.drsPos);
+    }
+
+    public float[] decode(RandomAccessFile raf, DataRecordBase dr) throws IOException {
+      GdsHorizCoordSys hcs = dr.vindex.group.hcs;
+      return Grib2Record.readData(raf, dr.drsPos, dr.bmsPos, hcs.gdsNumberPoints, hcs.scanMode, hcs.nxRaw, hcs.nyRaw, hcs.nptsInLine);
+    }
+  };
+
+  // read the records from one data file, all sorted by position
+  private <R extends DataRecordBase> void readFile(GribReadPipeline pipeline, RandomAccessFile rafData, List<R> records,
+                                                   final DataReceiverIF dataReceiver) throws IOException {
+    List<R> wanted = new ArrayList<R>(records.size());
+    for (R dr : records) {
+      if (dr.drsPos == GribCollection.MISSING_RECORD) continue;
+
+      if (debugRead) { // for validation
+        show(Grib2RecordScanner.findRecordByDrspos(rafData, dr.drsPos), dr.drsPos);
+      }
+      wanted.add(dr);
+    }
+
+    pipeline.read(rafData, wanted, decoder, new GribReadPipeline.Receiver<DataRecordBase>() {
+      public void receive(DataRecordBase dr, float[] data) throws IOException {
+        dataReceiver.addData(data, dr.resultIndex, dr.vindex.group.hcs.nx);
+      }
+    });
+  }
+
   private interface DataReceiverIF {
     void addData(float[] data, int resultIndex, int nx) throws IOException;
   }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib.grib2;
+
+import ucar.jpeg.jj2000.j2k.decoder.Grib2JpegDecoder;
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decodes the JPEG2000 packed data of Data Representation Template 5.40.
+ * Each thread keeps its own decoder and read buffer, so decoding a record does not
+ * rebuild the decoder parameters or allocate a new buffer for the packed bytes.
+ * The decoded values are not kept between records.
+ * The unsigned level shift is added in the same pass that copies or scales the values.
+ *
+ * @since Oct 18, 2026
+ */
+public class Grib2JpegUnpacker {
+  static private final int MAX_KEEP = 4 * 1000 * 1000; // dont hold on to read buffers bigger than this
+
+  static private final ThreadLocal<Grib2JpegUnpacker> pool = new ThreadLocal<Grib2JpegUnpacker>() {
+    protected Grib2JpegUnpacker initialValue() {
+      return new Grib2JpegUnpacker();
+    }
+  };
+
+  /**
+   * Get the unpacker for the calling thread. Do not hand it to other threads.
+   * @return this thread's unpacker
+   */
+  static public Grib2JpegUnpacker get() {
+    return pool.get();
+  }
+
+  ///////////////////////////////////////////////
+
+  private final Grib2JpegDecoder decoder;
+  private byte[] buf = new byte[0];
+
+  private Grib2JpegUnpacker() {
+    decoder = new Grib2JpegDecoder(0, false);
+    decoder.setApplyLevelShift(false);
+  }
+
+  /**
+   * Decode the packed data. The level shift is not added, see getLevelShift().
+   * A record cut short by the end of the file is decoded with zeroes for the missing bytes, as it always was.
+   *
+   * @param raf    read from here
+   * @param pos    start of the JPEG2000 code stream
+   * @param nbytes length of the code stream
+   * @param nbits  number of bits of the packed values
+   * @return the decoded values, not kept by the unpacker; null if decoding failed
+   * @throws IOException on read error
+   */
+  public int[] decode(RandomAccessFile raf, long pos, int nbytes, int nbits) throws IOException {
+    byte[] b = (nbytes <= buf.length) ? buf : new byte[nbytes];
+    if (b != buf && nbytes <= MAX_KEEP) buf = b;
+
+    raf.seek(pos);
+    int n = 0;
+    while (n < nbytes) {
+      int count = raf.read(b, n, nbytes - n);
+      if (count < 0) break;
+      n += count;
+    }
+    if (n < nbytes) Arrays.fill(b, n, nbytes, (byte) 0); // buffer is reused
+
+    decoder.setNBits(nbits);
+    decoder.decode(b, nbytes);
+    int[] result = decoder.getExitCode() == 0 ? decoder.getGdata() : null;
+    decoder.clearData(); // a large grid would otherwise stay reachable from this thread
+    return result;
+  }
+
+  /**
+   * The level shift to add to the values of the last decode().
+   * @return level shift, 0 for signed data
+   */
+  public int getLevelShift() {
+    return decoder.getLevelShift();
+  }
+
+  /**
+   * Did the last decode() find a bit depth different from the one in the data representation section.
+   * @return true if the unsigned data may be wrong
+   */
+  public boolean hasSignedProblem() {
+    return decoder.hasSignedProblem();
+  }
+
+}
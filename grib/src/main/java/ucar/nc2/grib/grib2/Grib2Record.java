@@ -1,5 +1,6 @@
 package ucar.nc2.grib.grib2;
 
+import ucar.nc2.grib.GribNumbers;
 import ucar.nc2.grib.QuasiRegular;
 import ucar.nc2.time.CalendarDate;
 import ucar.unidata.io.RandomAccessFile;
@@ -291,4 +292,26 @@ public class Grib2Record {
     return data;
   }
 
+  /**
+   * Find the number of bytes that readData() reads, from the start of the data representation section
+   * to the end of the data section. Uses only positional reads, so does not move the file pointer.
+   *
+   * @param raf    from this RandomAccessFile
+   * @param drsPos Grib2SectionDataRepresentation starts here
+   * @return length of sections 5, 6 and 7 in bytes, or -1 if not known
+   * @throws IOException on read error
+   */
+  static public int getDataLength(RandomAccessFile raf, long drsPos) throws IOException {
+    byte[] b = new byte[5];
+    long pos = drsPos;
+    for (int section = 5; section <= 7; section++) {
+      raf.readFullyAt(pos, b, 0, 5);
+      int length = GribNumbers.int4(b[0] & 0xff, b[1] & 0xff, b[2] & 0xff, b[3] & 0xff);
+      if (length <= 0 || b[4] != section) return -1;
+      pos += length;
+    }
+    long total = pos - drsPos;
+    return (total > Integer.MAX_VALUE) ? -1 : (int) total;
+  }
+
 }
@@ -122,76 +122,31 @@ public class Grib2Rectilyser {
     gribvars = new ArrayList<VariableBag>(vbHash.values());
     Collections.sort(gribvars); // make it deterministic by sorting
 
-    // create and assign time coordinate
-    // uniform or not X isInterval or not
+    // the coordinates of each record, found the same way as when streaming
+    int[] coordIds = new int[3];
     for (VariableBag vb : gribvars) {
-      setTimeUnit(vb);
-      TimeCoord use = null;
-      if (vb.first.getPDS().isTimeInterval()) {
-        use = makeTimeCoordsIntv(vb);
-      } else {
-        boolean isUniform = checkTimeCoordsUniform(vb);
-        use = makeTimeCoords(vb, isUniform);
-      }
-      vb.timeCoordIndex = TimeCoord.findCoord(timeCoords, use); // share coordinates when possible
-    }
-
-    // create and assign vert coordinate
-    for (VariableBag vb : gribvars) {
-      VertCoord vc = makeVertCoord(vb);
-      if (vc.isVertDimensionUsed()) {
-        vb.vertCoordIndex = VertCoord.findCoord(vertCoords, vc); // share coordinates when possible
-      }
-    }
-
-    // create and assign ens coordinate
-    for (VariableBag vb : gribvars) {
-      EnsCoord ec = makeEnsCoord(vb);
-      if (ec != null) {
-        vb.ensCoordIndex = EnsCoord.findCoord(ensCoords, ec); // share coordinates when possible
+      vb.coords = new RecordCoords(vb);
+      for (Record r : vb.atomList) {
+        vb.coords.add(r.gr, coordIds);
+        r.timeId = coordIds[0];
+        r.vertId = coordIds[1];
+        r.ensId = coordIds[2];
       }
     }
+    assignCoords();
 
     int tot_used = 0;
     int tot_dups = 0;
 
     // for each variable, create recordMap, which maps index (time, ens, vert) -> Grib2Record
     for (VariableBag vb : gribvars) {
-      TimeCoord tc = timeCoords.get(vb.timeCoordIndex);
-      VertCoord vc = (vb.vertCoordIndex < 0) ? null : vertCoords.get(vb.vertCoordIndex);
-      EnsCoord ec = (vb.ensCoordIndex < 0) ? null : ensCoords.get(vb.ensCoordIndex);
-
-      int ntimes = tc.getSize();
-      int nverts = (vc == null) ? 1 : vc.getSize();
-      int nens = (ec == null) ? 1 : ec.getSize();
-      vb.recordMap = new Record[ntimes * nverts * nens];
-
+      vb.recordMap = new Record[getRecordTableSize(vb)];
       for (Record r : vb.atomList) {
-        int timeIdx = (r.tcIntvCoord != null) ? r.tcIntvCoord.index : tc.findIdx(r.tcCoord);
-        if (timeIdx < 0) {
-          timeIdx = (r.tcIntvCoord != null) ? r.tcIntvCoord.index : tc.findIdx(r.tcCoord); // debug
-          throw new IllegalStateException("Cant find time coord " + r.tcCoord);
-        }
-
-        int vertIdx = (vb.vertCoordIndex < 0) ? 0 : vc.findIdx(r.vcCoord);
-        if (vertIdx < 0) {
-          vertIdx = vc.findIdx(r.vcCoord); // debug
-          throw new IllegalStateException("Cant find vert coord " + r.vcCoord);
-        }
-
-        int ensIdx = (vb.ensCoordIndex < 0) ? 0 : ec.findIdx(r.ecCoord);
-        if (ensIdx < 0) {
-          ensIdx = ec.findIdx(r.ecCoord); // debug
-          throw new IllegalStateException("Cant find ens coord " + r.ecCoord);
-        }
-
         // later records overwrite earlier ones with same index. so atomList must be ordered
-        int index = GribCollection.calcIndex(timeIdx, ensIdx, vertIdx, nens, nverts);
+        int index = getIndex(vb, r.timeId, r.vertId, r.ensId);
         if (vb.recordMap[index] != null) tot_dups++; else tot_used++;
         vb.recordMap[index] = r;
       }
-      //System.out.printf("%d: recordMap %d = records %d - dups %d (%d)%n", vb.first.cdmVariableHash(),
-      //        vb.recordMap.length, vb.atomList.size(), dups, vb.atomList.size() - vb.recordMap.length);
     }
     counter.recordsUnique += tot_used;
     counter.dups += tot_dups;
@@ -205,6 +160,14 @@ public class Grib2Rectilyser {
     public int filter;
     public int vars;
 
+    public void add(Counter other) {
+      recordsTotal += other.recordsTotal;
+      recordsUnique += other.recordsUnique;
+      dups += other.dups;
+      filter += other.filter;
+      vars += other.vars;
+    }
+
     public String show () {
       Formatter f = new Formatter();
       float dupPercent = ((float) dups) / (recordsTotal - filter);
@@ -216,162 +179,289 @@ public class Grib2Rectilyser {
 
   public class Record {
     Grib2Record gr;
-    int tcCoord;
-    TimeCoord.TinvDate tcIntvCoord;
-    VertCoord.Level vcCoord;
-    EnsCoord.Coord ecCoord;
+    int timeId, vertId, ensId; // coordinate ids, see RecordCoords
 
     private Record(Grib2Record gr) {
       this.gr = gr;
     }
   }
 
-  private VertCoord makeVertCoord(VariableBag vb) {
-    Grib2Pds pdsFirst = vb.first.getPDS();
-    VertCoord.VertUnit vertUnit = Grib2Utils.getLevelUnit(pdsFirst.getLevelType1());
-    boolean isLayer = Grib2Utils.isLayer(vb.first);
-
-    Set<VertCoord.Level> coords = new HashSet<VertCoord.Level>();
+  ////////////////////////////////////////////////////////////////////////////////////
+  // streaming : records are added one at a time and only their coordinates are kept.
+  // make() finds the coordinates the same way, so this gives the same variables and coordinates,
+  // as long as the records are added in the same order
 
-    for (Record r : vb.atomList) {
-      Grib2Pds pds = r.gr.getPDS();
-      r.vcCoord = new VertCoord.Level(pds.getLevelValue1(), pds.getLevelValue2());
-      coords.add(r.vcCoord);
-    }
+  private Map<Integer, VariableBag> vbStream;
 
-    List<VertCoord.Level> vlist = new ArrayList<VertCoord.Level>(coords);
-    Collections.sort(vlist);
-    if (!vertUnit.isPositiveUp()) {
-      Collections.reverse(vlist);
+  /**
+   * Streaming: add a record to its variable. Instead of keeping the record, its time, vert and ens coordinates
+   * are given small ids, which are turned into its index in the variable's record table by getIndex(), after makeCoords().
+   *
+   * @param gr       the record
+   * @param coordIds on return, the time, vert and ens coordinate ids of the record
+   * @return the variable that the record belongs to
+   */
+  public VariableBag addRecord(Grib2Record gr, int[] coordIds) {
+    if (vbStream == null) vbStream = new HashMap<Integer, VariableBag>(100);
+    int cdmHash = cdmVariableHash(gr, gdsHash);
+    VariableBag vb = vbStream.get(cdmHash);
+    if (vb == null) {
+      vb = new VariableBag(gr, cdmHash);
+      vb.coords = new RecordCoords(vb);
+      vbStream.put(cdmHash, vb);
     }
+    vb.coords.add(gr, coordIds);
+    return vb;
+  }
 
-    return new VertCoord(vlist, vertUnit, isLayer);
+  /**
+   * Streaming: all records have been added, make the variables and their coordinates.
+   */
+  public void makeCoords() {
+    gribvars = new ArrayList<VariableBag>(vbStream.values());
+    Collections.sort(gribvars); // make it deterministic by sorting
+    assignCoords();
   }
 
+  // make the coordinates of each variable, share them when possible, and map each variable's coordinate ids to indexes
+  private void assignCoords() {
+    for (VariableBag vb : gribvars)
+      vb.timeCoordIndex = TimeCoord.findCoord(timeCoords, vb.coords.makeTimeCoord()); // share coordinates when possible
 
-  private EnsCoord makeEnsCoord(VariableBag vb) {
-    if (!vb.first.getPDS().isEnsemble()) return null;
+    for (VariableBag vb : gribvars) {
+      VertCoord vc = vb.coords.makeVertCoord();
+      if (vc.isVertDimensionUsed()) {
+        vb.vertCoordIndex = VertCoord.findCoord(vertCoords, vc); // share coordinates when possible
+      }
+    }
 
-    Set<EnsCoord.Coord> coords = new HashSet<EnsCoord.Coord>();
-    for (Record r : vb.atomList) {
-      Grib2Pds pds = r.gr.getPDS();
-      r.ecCoord = new EnsCoord.Coord(pds.getPerturbationType(), pds.getPerturbationNumber());
-      coords.add(r.ecCoord);
+    for (VariableBag vb : gribvars) {
+      EnsCoord ec = vb.coords.makeEnsCoord();
+      if (ec != null) {
+        vb.ensCoordIndex = EnsCoord.findCoord(ensCoords, ec); // share coordinates when possible
+      }
     }
-    List<EnsCoord.Coord> elist = new ArrayList<EnsCoord.Coord>(coords);
-    Collections.sort(elist);
-    return new EnsCoord(elist);
-  }
 
-  private CalendarPeriod convertTimeDuration(int timeUnit) {
-    return Grib2Utils.getCalendarPeriod( cust.convertTimeUnit(timeUnit));
+    for (VariableBag vb : gribvars)
+      vb.coords.makeIndex();
   }
 
-  private void setTimeUnit(VariableBag vb) {
-    Record first = vb.atomList.get(0);
-    Grib2Pds pds = first.gr.getPDS();
-    int unit = cust.convertTimeUnit(pds.getTimeUnit());
-    vb.timeUnit = Grib2Utils.getCalendarPeriod(unit);
+  /**
+   * The size of a variable's record table, after makeCoords() or make().
+   */
+  public int getRecordTableSize(VariableBag vb) {
+    return vb.coords.ntimes * vb.coords.nverts * vb.coords.nens;
   }
 
   /**
-   * check if refDate and timeUnit is the same for all atoms.
-   * set vb refDate, timeUnit fields as side effect. if not true, refDate is earliest
-   *
-   * @param vb check this collection
-   * @return true if refDate, timeUnit are the same for all records
+   * The index in the variable's record table of a record, from the coordinate ids given by addRecord().
    */
-  private boolean checkTimeCoordsUniform(VariableBag vb) {
+  public int getIndex(VariableBag vb, int timeId, int vertId, int ensId) {
+    RecordCoords sc = vb.coords;
+    return GribCollection.calcIndex(sc.timeIdx[timeId], sc.ensIdx[ensId], sc.vertIdx[vertId], sc.nens, sc.nverts);
+  }
+
+  // a reference date, time unit and forecast time, the time coordinate of a record that is not an interval
+  static private class TimeKey {
+    final CalendarDate refDate;
+    final int unit, time;
+
+    TimeKey(CalendarDate refDate, int unit, int time) {
+      this.refDate = refDate;
+      this.unit = unit;
+      this.time = time;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof TimeKey)) return false;
+      TimeKey that = (TimeKey) o;
+      return unit == that.unit && time == that.time && refDate.equals(that.refDate);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = refDate.hashCode();
+      result = 31 * result + unit;
+      result = 31 * result + time;
+      return result;
+    }
+  }
+
+  // the distinct coordinates of one variable's records, in the order they were first seen, which are their ids
+  private class RecordCoords {
+    final VariableBag vb;
+    final boolean isInterval, isEnsemble;
+
+    // time. uniform if refDate and time unit are the same for all records, else refDate is the earliest one
     boolean isUniform = true;
-    CalendarDate refDate = null;
-    int timeUnit = -1;
     boolean timeUnitOk = true;
+    int timeUnit = -1;
+    CalendarDate refDate;
+    Map<TimeKey, Integer> times = new HashMap<TimeKey, Integer>();
+
+    // time intervals, keyed by hashCode()
+    int timeIntvCode = 999;
+    Map<Integer, Integer> intvIds = new HashMap<Integer, Integer>();
+    List<TimeCoord.TinvDate> intervals = new ArrayList<TimeCoord.TinvDate>();
+
+    Map<VertCoord.Level, Integer> levels = new HashMap<VertCoord.Level, Integer>();
+    Map<EnsCoord.Coord, Integer> ens = new HashMap<EnsCoord.Coord, Integer>();
+
+    // coordinate id -> index in the coordinate
+    int[] timeIdx, vertIdx, ensIdx;
+    int ntimes, nverts = 1, nens = 1;
+
+    RecordCoords(VariableBag vb) {
+      this.vb = vb;
+      Grib2Pds pds = vb.first.getPDS();
+      this.isInterval = pds.isTimeInterval();
+      this.isEnsemble = pds.isEnsemble();
+      vb.timeUnit = Grib2Utils.getCalendarPeriod(cust.convertTimeUnit(pds.getTimeUnit())); // of the first record, till makeTimeCoord()
+    }
 
-    for (Record r : vb.atomList) {
-      Grib2Pds pds = r.gr.getPDS();
-      int unit = cust.convertTimeUnit(pds.getTimeUnit());
-      if (timeUnit < 0) { // first one
-        timeUnit = unit;
-      } else if (unit != timeUnit) {
-        isUniform = false;
-      }
+    void add(Grib2Record gr, int[] coordIds) {
+      Grib2Pds pds = gr.getPDS();
 
-      CalendarDate cd = r.gr.getReferenceDate();
-      if (refDate == null) {
-        refDate = cd;
+      if (isInterval) {
+        if (timeIntvCode == 999) timeIntvCode = pds.getStatisticalProcessType();
+        TimeCoord.TinvDate mine = cust.getForecastTimeInterval(gr);
+        coordIds[0] = getId(intvIds, mine.hashCode());
+        if (coordIds[0] == intervals.size()) intervals.add(mine);
 
-      } else if (!cd.equals(refDate)) {
-        isUniform = false;
-        if (cd.compareTo(refDate) < 0) // earliest one
+      } else {
+        int unit = cust.convertTimeUnit(pds.getTimeUnit());
+        if (timeUnit < 0) { // first one
+          timeUnit = unit;
+        } else if (unit != timeUnit) {
+          isUniform = false;
+        }
+
+        CalendarDate cd = gr.getReferenceDate();
+        if (refDate == null) {
           refDate = cd;
+
+        } else if (!cd.equals(refDate)) {
+          isUniform = false;
+          if (cd.compareTo(refDate) < 0) // earliest one
+            refDate = cd;
+        }
+
+        int time = pds.getForecastTime();
+        CalendarDate date1 = cd.add(Grib2Utils.getCalendarPeriod(unit).multiply(time));  // actual forecast date
+        int offset = TimeCoord.getOffset(refDate, date1, vb.timeUnit);
+        CalendarDate date2 = refDate.add(vb.timeUnit.multiply(offset));  // forecast date using offset
+        if (!date1.equals(date2)) {
+          timeUnitOk = false;
+        }
+        coordIds[0] = getId(times, new TimeKey(cd, unit, time));
       }
 
-      // LOOK - cant you just compare time units ??
-      int time = pds.getForecastTime();
-      CalendarDate date1 = cd.add(Grib2Utils.getCalendarPeriod(unit).multiply(time));  // actual forecast date
-      int offset = TimeCoord.getOffset(refDate, date1, vb.timeUnit);
-      CalendarDate date2 = refDate.add(vb.timeUnit.multiply(offset));  // forecast date using offset
-      if (!date1.equals(date2)) {
-        timeUnitOk = false;
+      coordIds[1] = getId(levels, new VertCoord.Level(pds.getLevelValue1(), pds.getLevelValue2()));
+      coordIds[2] = isEnsemble ? getId(ens, new EnsCoord.Coord(pds.getPerturbationType(), pds.getPerturbationNumber())) : 0;
+    }
+
+    private <K> int getId(Map<K, Integer> ids, K key) {
+      Integer id = ids.get(key);
+      if (id == null) {
+        id = ids.size();
+        ids.put(key, id);
       }
+      return id;
     }
 
-    // drop down to minutes if the time unit in the grib record is not accurate
-    if (!timeUnitOk)
-      timeUnit = 0; // minutes
+    TimeCoord makeTimeCoord() {
+      if (isInterval) {
+        List<TimeCoord.TinvDate> tlist = new ArrayList<TimeCoord.TinvDate>(intervals);
+        Collections.sort(tlist);
+        return new TimeCoord(timeIntvCode, vb.refDate, vb.timeUnit, tlist); // sets the index of each interval
+      }
+
+      // drop down to minutes if the time unit in the grib record is not accurate
+      if (!timeUnitOk)
+        timeUnit = 0; // minutes
+      vb.timeUnit = Grib2Utils.getCalendarPeriod(timeUnit);
+      vb.refDate = refDate;
+
+      Set<Integer> tset = new HashSet<Integer>();
+      for (TimeKey tk : times.keySet())
+        tset.add(getTimeCoord(tk));
+      List<Integer> tlist = new ArrayList<Integer>(tset);
+      Collections.sort(tlist);
+      return new TimeCoord(0, vb.refDate, vb.timeUnit, tlist);
+    }
 
-    vb.timeUnit = Grib2Utils.getCalendarPeriod(timeUnit);
-    vb.refDate = refDate;
-    return isUniform;
-  }
+    private int getTimeCoord(TimeKey tk) {
+      if (isUniform) return tk.time;
+      CalendarDate date = tk.refDate.add(Grib2Utils.getCalendarPeriod(tk.unit).multiply(tk.time));
+      return TimeCoord.getOffset(vb.refDate, date, vb.timeUnit);
+    }
 
-  private TimeCoord makeTimeCoords(VariableBag vb, boolean uniform) {
-    Set<Integer> times = new HashSet<Integer>();
-    for (Record r : vb.atomList) {
-      Grib2Pds pds = r.gr.getPDS();
-      int time = pds.getForecastTime();
-      CalendarPeriod duration = convertTimeDuration(pds.getTimeUnit());
+    VertCoord makeVertCoord() {
+      Grib2Pds pdsFirst = vb.first.getPDS();
+      VertCoord.VertUnit vertUnit = Grib2Utils.getLevelUnit(pdsFirst.getLevelType1());
+      boolean isLayer = Grib2Utils.isLayer(vb.first);
 
-      if (uniform) {
-        r.tcCoord = time;
-      } else {
-        CalendarDate refDate = r.gr.getReferenceDate();
-        CalendarDate date = refDate.add(duration.multiply(time));
-        r.tcCoord = TimeCoord.getOffset(vb.refDate, date, vb.timeUnit);
+      List<VertCoord.Level> vlist = new ArrayList<VertCoord.Level>(levels.keySet());
+      Collections.sort(vlist);
+      if (!vertUnit.isPositiveUp()) {
+        Collections.reverse(vlist);
       }
-      times.add(r.tcCoord);
+      return new VertCoord(vlist, vertUnit, isLayer);
     }
-    List<Integer> tlist = new ArrayList<Integer>(times);
-    Collections.sort(tlist);
-    return new TimeCoord(0, vb.refDate, vb.timeUnit, tlist);
-  }
 
-  private TimeCoord makeTimeCoordsIntv(VariableBag vb) {
-    int timeIntvCode = 999; // just for documentation in the time coord attribute
-    Map<Integer, TimeCoord.TinvDate> times = new HashMap<Integer, TimeCoord.TinvDate>();
-    for (Record r : vb.atomList) {
-      Grib2Pds pds = r.gr.getPDS();
-      if (timeIntvCode == 999) timeIntvCode = pds.getStatisticalProcessType();
-      TimeCoord.TinvDate mine = cust.getForecastTimeInterval(r.gr);
-      TimeCoord.TinvDate org = times.get(mine.hashCode());
-      if (org == null) times.put(mine.hashCode(), mine);
-      r.tcIntvCoord = (org == null) ? mine : org; // always point to the one thats in the HashMap
+    EnsCoord makeEnsCoord() {
+      if (!isEnsemble) return null;
+      List<EnsCoord.Coord> elist = new ArrayList<EnsCoord.Coord>(ens.keySet());
+      Collections.sort(elist);
+      return new EnsCoord(elist);
     }
 
-     /* if (uniform) {
-        r.tcIntvCoord = org;
-        times.add(r.tcIntvCoord);
-
+    // map the coordinate ids to indexes in the shared coordinates
+    void makeIndex() {
+      TimeCoord tc = timeCoords.get(vb.timeCoordIndex);
+      ntimes = tc.getSize();
+      if (isInterval) {
+        timeIdx = new int[intervals.size()];
+        for (int i = 0; i < intervals.size(); i++)
+          timeIdx[i] = intervals.get(i).index;
       } else {
-        int timeUnit = cust.convertTimeUnit(pds.getTimeUnit());
-        CalendarPeriod fromUnit = Grib2Utils.getCalendarPeriod(timeUnit);
-        r.tcIntvCoord = org.convertReferenceDate(r.gr.getReferenceDate(), fromUnit, vb.refDate, vb.timeUnit); // LOOK heres the magic
-        times.add(r.tcIntvCoord);
+        timeIdx = new int[times.size()];
+        for (Map.Entry<TimeKey, Integer> entry : times.entrySet()) {
+          int tcCoord = getTimeCoord(entry.getKey());
+          timeIdx[entry.getValue()] = checkIdx(tc.findIdx(tcCoord), "time", tcCoord);
+        }
       }
-    } */
-    List<TimeCoord.TinvDate> tlist = new ArrayList<TimeCoord.TinvDate>(times.values());
-    Collections.sort(tlist);
-    return new TimeCoord(timeIntvCode, vb.refDate, vb.timeUnit, tlist);
+
+      vertIdx = new int[levels.size()];
+      if (vb.vertCoordIndex >= 0) {
+        VertCoord vc = vertCoords.get(vb.vertCoordIndex);
+        nverts = vc.getSize();
+        for (Map.Entry<VertCoord.Level, Integer> entry : levels.entrySet())
+          vertIdx[entry.getValue()] = checkIdx(vc.findIdx(entry.getKey()), "vert", entry.getKey());
+      }
+
+      ensIdx = new int[Math.max(1, ens.size())];
+      if (vb.ensCoordIndex >= 0) {
+        EnsCoord ec = ensCoords.get(vb.ensCoordIndex);
+        nens = ec.getSize();
+        for (Map.Entry<EnsCoord.Coord, Integer> entry : ens.entrySet())
+          ensIdx[entry.getValue()] = checkIdx(ec.findIdx(entry.getKey()), "ens", entry.getKey());
+      }
+
+      // only the ids are needed now
+      times = null;
+      levels = null;
+      ens = null;
+      intvIds = null;
+      intervals = null;
+    }
+
+    private int checkIdx(int idx, String what, Object coord) {
+      if (idx < 0) throw new IllegalStateException("Cant find " + what + " coord " + coord);
+      return idx;
+    }
   }
 
   public void dump(Formatter f, Grib2Customizer tables) {
@@ -418,6 +508,8 @@ public class Grib2Rectilyser {
     Record[] recordMap;
     long pos;
     int length;
+    RecordCoords coords;
+    int bucket = -1;     // streaming only, set by the builder
 
     private VariableBag(Grib2Record first, int cdmHash) {
       this.first = first;
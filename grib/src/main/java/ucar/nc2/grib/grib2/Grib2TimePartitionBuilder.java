@@ -144,7 +144,12 @@ public class Grib2TimePartitionBuilder extends Grib2CollectionBuilder {
     // otherwise, we're good as long as the index file exists and can be read
     if (force || !idx.exists() || !readIndex(idx.getPath()) )  {
       logger.info("{}: createIndex {}", gc.getName(), idx.getPath());
-      createPartitionedIndex();  // LOOK at this point we are going to remake the whole thing
+      long start = startBuild();
+      try {
+        createPartitionedIndex();  // LOOK at this point we are going to remake the whole thing
+      } finally {
+        logger.info(finishBuild(gc.getName(), tp.getPartitions().size() + " partitions", start));
+      }
       readIndex(idx.getPath()); // read back in index
       return true;
     }
@@ -178,16 +183,7 @@ public class Grib2TimePartitionBuilder extends Grib2CollectionBuilder {
       tp.addPartition(dcm);
     }
 
-    List<TimePartition.Partition> bad = new ArrayList<TimePartition.Partition>();
-    for (TimePartition.Partition tpp : tp.getPartitions()) {
-      try {
-        tpp.gc = tpp.makeGribCollection(CollectionManager.Force.always);    // force all partitions to be recreated
-        if (trace) logger.debug(" Open partition {}", tpp.getDcm().getCollectionName());
-      } catch (Throwable t) {
-        logger.error(" Failed to open partition " + tpp.getName(), t);
-        bad.add(tpp);
-      }
-    }
+    List<TimePartition.Partition> bad = makePartitionCollections(tp.getPartitions());
 
     // remove ones that failed
     for (TimePartition.Partition tpp : bad)
@@ -0,0 +1,243 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import thredds.inventory.CollectionManager;
+import thredds.inventory.MFileCollectionManager;
+import ucar.nc2.grib.grib2.Grib2CollectionBuilder;
+import ucar.nc2.util.IO;
+import ucar.unidata.test.util.TestDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the ways of building a GRIB2 collection index all make the same ncx as the plain build.
+ * The collection is made from copies of a one record file, each with a different parameter number.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGrib2CollectionIndex {
+  static private final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestGrib2CollectionIndex.class);
+  static private final String testFile = "../tds/src/test/resources/WEB-INF/altContent/startup/public/testdata/testData2.grib2";
+  static private final int paramNumberPos = 146; // octet 11 of section 4, after 18 bytes before "GRIB"
+
+  private File dir;
+  private ExecutorService exec;
+  private File idxFile; // of the last buildIndex()
+
+  @Before
+  public void makeDir() {
+    dir = new File(TestDir.temporaryLocalDataDir + "TestGrib2CollectionIndex/");
+    clear();
+    assertTrue(dir.mkdirs());
+  }
+
+  @After
+  public void reset() {
+    GribCollectionBuilder.setIndexExecutor(null);
+    GribCollectionBuilder.setIndexParallel(8);
+    GribCollectionBuilder.setIncrementalUpdate(false);
+    GribCollectionBuilder.setStreamingBuild(false);
+    GribCollectionBuilder.setKeysInMemory(1000 * 1000);
+    GribCollectionBuilder.setWritePackedRecords(false);
+    if (exec != null) exec.shutdownNow();
+    clear();
+  }
+
+  private void clear() {
+    if (!dir.exists()) return;
+    for (File f : dir.listFiles()) f.delete();
+    dir.delete();
+  }
+
+  // write part<start> .. part<end-1>, the parameter number of each is 2 + its number
+  private void makeParts(int start, int end) throws IOException {
+    byte[] data = IO.readFileToByteArray(testFile);
+    assertEquals("GRIB", new String(data, 18, 4, "UTF-8"));
+    for (int i = start; i < end; i++) {
+      data[paramNumberPos] = (byte) (2 + i);
+      IO.writeToFile(data, new File(dir, "part" + i + ".grib2"));
+    }
+  }
+
+  // build the collection index and return its contents
+  private byte[] buildIndex(CollectionManager.Force force) throws IOException {
+    MFileCollectionManager dcm = new MFileCollectionManager("TestGrib2CollectionIndex", dir.getPath() + "/.*grib2$", new Formatter(), logger);
+    dcm.scan(false);
+    GribCollection gc = Grib2CollectionBuilder.factory(dcm, force, logger);
+    idxFile = gc.getIndexFile();
+    gc.close();
+    return IO.readFileToByteArray(idxFile.getPath());
+  }
+
+  private void deleteIndex() {
+    for (File f : dir.listFiles()) {
+      if (f.getName().endsWith(GribCollection.NCX_IDX)) assertTrue(f.delete());
+    }
+  }
+
+  @Test
+  public void testParallel() throws IOException {
+    makeParts(0, 6);
+    byte[] serial = buildIndex(CollectionManager.Force.always);
+    assertTrue(serial.length > 0);
+
+    deleteIndex();
+    exec = Executors.newFixedThreadPool(2);
+    GribCollectionBuilder.setIndexExecutor(exec);
+    GribCollectionBuilder.setIndexParallel(2);
+    byte[] parallel = buildIndex(CollectionManager.Force.always);
+    assertTrue("parallel build differs from serial", Arrays.equals(serial, parallel));
+  }
+
+  @Test
+  public void testIncrementalUpdate() throws IOException {
+    GribCollectionBuilder.setIncrementalUpdate(true);
+    makeParts(0, 3);
+    buildIndex(CollectionManager.Force.always);
+
+    // append files, newer than the index
+    makeParts(3, 6);
+    long later = System.currentTimeMillis() + 10 * 1000;
+    for (int i = 3; i < 6; i++)
+      assertTrue(new File(dir, "part" + i + ".grib2").setLastModified(later));
+    byte[] updated = buildIndex(CollectionManager.Force.test);
+
+    deleteIndex();
+    byte[] full = buildIndex(CollectionManager.Force.always);
+    assertTrue("updated index differs from a new one", Arrays.equals(full, updated));
+  }
+
+  @Test
+  public void testPackedVersion() throws IOException {
+    makeParts(0, 3);
+    GribCollectionBuilder.setWritePackedRecords(true);
+    byte[] packed = buildIndex(CollectionManager.Force.always);
+    int versionPos = Grib2CollectionBuilder.MAGIC_START.length();
+    assertEquals(Grib2CollectionBuilder.version, readInt(packed, versionPos));
+
+    // an index with the version from before packed tables is not read, but made again
+    packed[versionPos + 3]--;
+    IO.writeToFile(packed, idxFile);
+    byte[] again = buildIndex(CollectionManager.Force.nocheck);
+    assertEquals(Grib2CollectionBuilder.version, readInt(again, versionPos));
+  }
+
+  // a collection opened before a new index is published keeps reading its own index
+  @Test
+  public void testOpenedBeforePublish() throws IOException {
+    GribCollectionBuilder.setIncrementalUpdate(true);
+    GribCollectionBuilder.setWritePackedRecords(true);
+    makeParts(0, 3);
+    buildIndex(CollectionManager.Force.always);
+
+    GribCollection expected = openIndex();
+    GribCollection before = openIndex();
+    try {
+      int nvars = 0;
+      for (GribCollection.GroupHcs g : expected.getGroups()) {
+        for (GribCollection.VariableIndex v : g.varIndex) {
+          v.readRecords();
+          nvars++;
+        }
+      }
+      assertEquals(3, nvars);
+
+      // the updated index is made in a temporary file and renamed over the one that is open
+      makeParts(3, 6);
+      long later = System.currentTimeMillis() + 10 * 1000;
+      for (int i = 3; i < 6; i++)
+        assertTrue(new File(dir, "part" + i + ".grib2").setLastModified(later));
+      buildIndex(CollectionManager.Force.test);
+
+      List<GribCollection.GroupHcs> groups = before.getGroups();
+      assertEquals(expected.getGroups().size(), groups.size());
+      for (int i = 0; i < groups.size(); i++) {
+        List<GribCollection.VariableIndex> vars = groups.get(i).varIndex;
+        List<GribCollection.VariableIndex> expectedVars = expected.getGroups().get(i).varIndex;
+        assertEquals(expectedVars.size(), vars.size());
+        for (int j = 0; j < vars.size(); j++) {
+          GribCollection.VariableIndex v = vars.get(j);
+          GribCollection.VariableIndex ev = expectedVars.get(j);
+          v.readRecords(); // first use of the records, after the update
+          assertEquals(ev.getNRecords(), v.getNRecords());
+          for (int k = 0; k < v.getNRecords(); k++) {
+            GribCollection.Record r = v.getRecord(k);
+            GribCollection.Record er = ev.getRecord(k);
+            assertEquals(er.fileno, r.fileno);
+            assertEquals(er.pos, r.pos);
+            assertEquals(er.bmsPos, r.bmsPos);
+          }
+        }
+      }
+
+    } finally {
+      before.close();
+      expected.close();
+    }
+  }
+
+  private GribCollection openIndex() throws IOException {
+    MFileCollectionManager dcm = new MFileCollectionManager("TestGrib2CollectionIndex", dir.getPath() + "/.*grib2$", new Formatter(), logger);
+    dcm.scan(false);
+    return Grib2CollectionBuilder.factory(dcm, CollectionManager.Force.nocheck, logger);
+  }
+
+  private int readInt(byte[] b, int pos) {
+    return ((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16) | ((b[pos + 2] & 0xff) << 8) | (b[pos + 3] & 0xff);
+  }
+
+  @Test
+  public void testStreaming() throws IOException {
+    makeParts(0, 6);
+    byte[] inMemory = buildIndex(CollectionManager.Force.always);
+
+    deleteIndex();
+    GribCollectionBuilder.setStreamingBuild(true);
+    GribCollectionBuilder.setKeysInMemory(2); // sort the keys through temporary files
+    byte[] streamed = buildIndex(CollectionManager.Force.always);
+    assertTrue("streaming build differs from in memory", Arrays.equals(inMemory, streamed));
+  }
+
+}
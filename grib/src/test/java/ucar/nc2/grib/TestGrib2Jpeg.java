@@ -0,0 +1,138 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import org.junit.Test;
+import ucar.jpeg.jj2000.j2k.decoder.Grib2JpegDecoder;
+import ucar.nc2.grib.grib2.*;
+import ucar.unidata.io.InMemoryRandomAccessFile;
+import ucar.unidata.io.RandomAccessFile;
+import ucar.unidata.test.util.TestDir;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compare the pooled JPEG2000 decoding of template 5.40 records with a new decoder for each record,
+ * the way it used to be done, for whole records and for records cut short by the end of the file.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGrib2Jpeg {
+  private int nrecords;
+
+  @Test
+  public void compareGrib2Files() throws IOException {
+    TestDir.actOnAll(TestDir.cdmUnitTestDir + "formats/grib2", new Grib2Filter(), new CompareAct(), true);
+    assertTrue("no jpeg2000 records", nrecords > 0);
+  }
+
+  private class Grib2Filter implements FileFilter {
+    public boolean accept(File file) {
+      if (file.isDirectory()) return false;
+      String path = file.getPath();
+      return path.endsWith(".grib2") || path.endsWith(".grb2");
+    }
+  }
+
+  private class CompareAct implements TestDir.Act {
+    public int doAct(String filename) throws IOException {
+      int count = 0;
+      RandomAccessFile raf = new RandomAccessFile(filename, "r");
+      try {
+        Grib2RecordScanner scan = new Grib2RecordScanner(raf);
+        while (scan.hasNext()) {
+          Grib2Record gr = scan.next();
+          if (gr.getDataRepresentationSection().getDataTemplate() != 40) continue;
+          Grib2Drs.Type40 drs = (Grib2Drs.Type40) gr.getDataRepresentationSection().getDrs(raf);
+          if (drs.numberOfBits == 0) continue;
+          compare(filename, raf, gr.getDataSection(), drs.numberOfBits);
+          count++;
+        }
+      } finally {
+        raf.close();
+      }
+      nrecords += count;
+      return count;
+    }
+  }
+
+  private void compare(String filename, RandomAccessFile raf, Grib2SectionData ds, int nbits) throws IOException {
+    long pos = ds.getStartingPosition() + 5;
+    int nbytes = ds.getMsgLength() - 5;
+    String where = filename + " at " + pos;
+
+    byte[] buf = new byte[nbytes];
+    raf.seek(pos);
+    raf.readFully(buf);
+    int[] expect = decodeOld(buf, nbits);
+    assertNotNull(where, expect);
+    assertArrayEquals(where, expect, decodeNew(raf, pos, nbytes, nbits));
+
+    // the same record with its second half missing: the old reader decoded zeroes for the missing bytes
+    int half = nbytes / 2;
+    byte[] truncated = new byte[half];
+    System.arraycopy(buf, 0, truncated, 0, half);
+    byte[] padded = new byte[nbytes];
+    System.arraycopy(buf, 0, padded, 0, half);
+    int[] expectTruncated = decodeOld(padded, nbits);
+    int[] gotTruncated = decodeNew(new InMemoryRandomAccessFile(where, truncated), 0, nbytes, nbits);
+    if (expectTruncated == null)
+      assertNull(where + " truncated", gotTruncated);
+    else
+      assertArrayEquals(where + " truncated", expectTruncated, gotTruncated);
+  }
+
+  // a new decoder for the record, with the level shift added; null if it fails
+  private int[] decodeOld(byte[] buf, int nbits) {
+    Grib2JpegDecoder g2j = new Grib2JpegDecoder(new String[] {"-rate", Integer.toString(nbits), "-verbose", "off"});
+    g2j.decode(buf);
+    return (g2j.getExitCode() == 0) ? g2j.data : null;
+  }
+
+  // the pooled decoder, with the level shift added; null if it fails
+  private int[] decodeNew(RandomAccessFile raf, long pos, int nbytes, int nbits) throws IOException {
+    Grib2JpegUnpacker unpacker = Grib2JpegUnpacker.get();
+    int[] packed = unpacker.decode(raf, pos, nbytes, nbits);
+    if (packed == null) return null;
+    int shift = unpacker.getLevelShift();
+    int[] result = new int[packed.length];
+    for (int i = 0; i < packed.length; i++)
+      result[i] = packed[i] + shift;
+    return result;
+  }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the parallel helpers of GribCollectionBuilder: results in order, failures passed on, nested builds on a small pool.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGribIndexParallel {
+  static private final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestGribIndexParallel.class);
+
+  private ExecutorService exec;
+
+  private GribCollectionBuilder makeBuilder(int nthreads, int maxParallel) {
+    exec = Executors.newFixedThreadPool(nthreads);
+    GribCollectionBuilder.setIndexExecutor(exec);
+    GribCollectionBuilder.setIndexParallel(maxParallel);
+    return new GribCollectionBuilder(null, false, logger);
+  }
+
+  @After
+  public void reset() {
+    GribCollectionBuilder.setIndexExecutor(null);
+    if (exec != null) exec.shutdownNow();
+  }
+
+  private List<Integer> makeItems(int n) {
+    List<Integer> items = new ArrayList<Integer>(n);
+    for (int i = 0; i < n; i++) items.add(i);
+    return items;
+  }
+
+  private GribCollectionBuilder.OrderedTask<Integer, String> squares(final List<Integer> got, final int failOn) {
+    final Random random = new Random(11);
+    return new GribCollectionBuilder.OrderedTask<Integer, String>() {
+      public String call(Integer item) throws IOException {
+        try {
+          Thread.sleep(random.nextInt(5));
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        if (item == failOn) throw new IOException("failed " + item);
+        return Integer.toString(item * item);
+      }
+
+      public void receive(Integer item, String result, IOException failed) throws IOException {
+        if (item == failOn) {
+          assertNull(result);
+          assertEquals("failed " + item, failed.getMessage());
+        } else {
+          assertNull(failed);
+          assertEquals(Integer.toString(item * item), result);
+        }
+        got.add(item);
+      }
+    };
+  }
+
+  @Test
+  public void testInOrder() throws IOException {
+    GribCollectionBuilder builder = makeBuilder(4, 6);
+    List<Integer> items = makeItems(100);
+    List<Integer> got = new ArrayList<Integer>();
+    builder.runInOrder(items, squares(got, 37));
+    assertEquals(items, got);
+  }
+
+  @Test
+  public void testSerial() throws IOException {
+    GribCollectionBuilder builder = new GribCollectionBuilder(null, false, logger);
+    List<Integer> items = makeItems(20);
+    List<Integer> got = new ArrayList<Integer>();
+    builder.runInOrder(items, squares(got, -1));
+    assertEquals(items, got);
+  }
+
+  @Test
+  public void testNested() throws IOException {
+    final GribCollectionBuilder builder = makeBuilder(2, 4); // fewer threads than tasks waiting on other tasks
+    final AtomicInteger count = new AtomicInteger();
+    List<Callable<Void>> outer = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < 6; i++) {
+      outer.add(new Callable<Void>() {
+        public Void call() throws Exception {
+          List<Integer> got = new ArrayList<Integer>();
+          builder.runInOrder(makeItems(10), squares(got, -1));
+          assertEquals(makeItems(10), got);
+          count.incrementAndGet();
+          return null;
+        }
+      });
+    }
+    builder.runAll(outer);
+    assertEquals(6, count.get());
+  }
+
+  @Test
+  public void testRunAllFails() {
+    GribCollectionBuilder builder = makeBuilder(3, 3);
+    final AtomicInteger count = new AtomicInteger();
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < 5; i++) {
+      final int n = i;
+      tasks.add(new Callable<Void>() {
+        public Void call() throws IOException {
+          count.incrementAndGet();
+          if (n == 2) throw new IOException("task 2");
+          return null;
+        }
+      });
+    }
+    try {
+      builder.runAll(tasks);
+      fail("task failure was not passed on");
+    } catch (IOException e) {
+      assertEquals("task 2", e.getMessage());
+    }
+    assertEquals(5, count.get()); // all were run
+  }
+
+  @Test
+  public void testRunAllBounded() throws IOException {
+    GribCollectionBuilder builder = makeBuilder(8, 3); // more threads than allowed in flight
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger most = new AtomicInteger();
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < 20; i++) {
+      tasks.add(new Callable<Void>() {
+        public Void call() throws Exception {
+          int now = running.incrementAndGet();
+          synchronized (most) {
+            if (now > most.get()) most.set(now);
+          }
+          Thread.sleep(5);
+          running.decrementAndGet();
+          return null;
+        }
+      });
+    }
+    builder.runAll(tasks);
+    assertTrue("in flight " + most.get(), most.get() <= 3);
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import org.junit.Test;
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that a new collection index replaces the old one without disturbing readers of the old one.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGribIndexPublish {
+  static private final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestGribIndexPublish.class);
+
+  private void write(File f, String s) throws IOException {
+    FileOutputStream out = new FileOutputStream(f);
+    try {
+      out.write(s.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+
+  private String read(RandomAccessFile raf) throws IOException {
+    byte[] b = new byte[(int) raf.length()];
+    raf.readFullyAt(0, b, 0, b.length);
+    return new String(b, "UTF-8");
+  }
+
+  @Test
+  public void testPublish() throws IOException {
+    File indexFile = File.createTempFile("TestGribIndexPublish", ".ncx");
+    indexFile.deleteOnExit();
+    write(indexFile, "old index");
+
+    GribCollectionBuilder builder = new GribCollectionBuilder(null, false, logger);
+    RandomAccessFile reader = new RandomAccessFile(indexFile.getPath(), "r");
+    try {
+      File tempFile = builder.makeTempFile(indexFile);
+      tempFile.deleteOnExit();
+      assertFalse(tempFile.exists());
+      write(tempFile, "the new index");
+
+      GribCollectionBuilder.publishIndex(tempFile, indexFile);
+      assertFalse(tempFile.exists());
+      assertEquals("old index", read(reader)); // still reading the old one
+
+      RandomAccessFile reader2 = new RandomAccessFile(indexFile.getPath(), "r");
+      try {
+        assertEquals("the new index", read(reader2));
+      } finally {
+        reader2.close();
+      }
+
+    } finally {
+      reader.close();
+      if (!indexFile.delete()) logger.warn("cant delete {}", indexFile.getPath());
+    }
+  }
+
+  @Test
+  public void testLeftOver() throws IOException {
+    File indexFile = File.createTempFile("TestGribIndexPublish", ".ncx");
+    File leftOver = new File(indexFile.getPath() + ".tmp");
+    leftOver.deleteOnExit();
+    write(leftOver, "from a failed build");
+
+    GribCollectionBuilder builder = new GribCollectionBuilder(null, false, logger);
+    File tempFile = builder.makeTempFile(indexFile);
+    assertEquals(leftOver, tempFile);
+    assertFalse(tempFile.exists());
+    if (!indexFile.delete()) logger.warn("cant delete {}", indexFile.getPath());
+  }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test GribKeySorter: keys come back by bucket, in the order they were added within a bucket, in memory or from disk.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGribKeySorter {
+  static private final int keySize = 12;
+
+  // add n keys to random buckets, the key holds its bucket and sequence number
+  private List<List<Long>> add(GribKeySorter sorter, int n, int nbuckets) throws IOException {
+    List<List<Long>> expect = new ArrayList<List<Long>>();
+    for (int i = 0; i < nbuckets; i++) expect.add(new ArrayList<Long>());
+
+    Random random = new Random(17);
+    byte[] key = new byte[keySize];
+    ByteBuffer bb = ByteBuffer.wrap(key);
+    for (long seq = 0; seq < n; seq++) {
+      int bucket = random.nextInt(nbuckets);
+      bb.clear();
+      bb.putInt(bucket);
+      bb.putLong(seq);
+      sorter.add(bucket, key);
+      expect.get(bucket).add(seq);
+    }
+    return expect;
+  }
+
+  private void check(GribKeySorter sorter, List<List<Long>> expect, int n) throws IOException {
+    sorter.sort();
+    int count = 0;
+    int lastBucket = -1;
+    Iterator<Long> iter = null;
+    while (sorter.next()) {
+      int bucket = sorter.getBucket();
+      assertTrue(bucket >= lastBucket);
+      if (bucket != lastBucket) {
+        if (iter != null) assertFalse(iter.hasNext());
+        iter = expect.get(bucket).iterator();
+        lastBucket = bucket;
+      }
+      ByteBuffer key = sorter.getKey();
+      assertEquals(bucket, key.getInt());
+      assertEquals(iter.next().longValue(), key.getLong());
+      count++;
+    }
+    assertEquals(n, count);
+    assertEquals(n, sorter.getTotal());
+  }
+
+  @Test
+  public void testInMemory() throws IOException {
+    GribKeySorter sorter = new GribKeySorter(keySize, 10000, null);
+    try {
+      List<List<Long>> expect = add(sorter, 5000, 37);
+      check(sorter, expect, 5000);
+      assertEquals(0, sorter.getNumRuns());
+    } finally {
+      sorter.close();
+    }
+  }
+
+  @Test
+  public void testRuns() throws IOException {
+    GribKeySorter sorter = new GribKeySorter(keySize, 1000, null);
+    try {
+      List<List<Long>> expect = add(sorter, 20500, 50);
+      check(sorter, expect, 20500);
+      assertEquals(21, sorter.getNumRuns());
+    } finally {
+      sorter.close();
+    }
+  }
+
+  @Test
+  public void testManyRuns() throws IOException {
+    GribKeySorter sorter = new GribKeySorter(keySize, 100, null); // more runs than are merged at once
+    try {
+      List<List<Long>> expect = add(sorter, 20000, 7);
+      check(sorter, expect, 20000);
+      assertTrue(sorter.getNumRuns() <= 64);
+    } finally {
+      sorter.close();
+    }
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    GribKeySorter sorter = new GribKeySorter(keySize, 100, null);
+    sorter.sort();
+    assertFalse(sorter.next());
+    sorter.close();
+  }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import org.junit.Test;
+import ucar.unidata.io.RandomAccessFile;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test GribReadPipeline on a file of fake records: a 4 byte length, then floats.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGribReadPipeline {
+
+  // fake record
+  static private class Rec {
+    long pos;
+    int n;         // number of floats
+    int index;     // order in the list
+    boolean lies;  // reported length is too short, so decoding must fall back to the file
+    boolean bad;   // decoding fails
+
+    Rec(long pos, int n, int index) {
+      this.pos = pos;
+      this.n = n;
+      this.index = index;
+    }
+  }
+
+  static private class RecDecoder implements GribReadPipeline.Decoder<Rec> {
+    public long getStartPos(Rec rec) {
+      return rec.pos;
+    }
+
+    public int getLength(RandomAccessFile raf, Rec rec) throws IOException {
+      if (rec.index % 7 == 3) return -1; // read directly
+      byte[] b = new byte[4];
+      raf.readFullyAt(rec.pos, b, 0, 4);
+      int len = new DataInputStream(new ByteArrayInputStream(b)).readInt();
+      return rec.lies ? len / 2 : len;
+    }
+
+    public float[] decode(RandomAccessFile raf, Rec rec) throws IOException {
+      if (rec.bad) throw new IOException("bad record " + rec.index);
+      raf.seek(rec.pos);
+      int len = raf.readInt();
+      float[] data = new float[(len - 4) / 4];
+      raf.readFloat(data, 0, data.length);
+      return data;
+    }
+  }
+
+  private File makeFile(List<Rec> recs) throws IOException {
+    File f = File.createTempFile("TestGribReadPipeline", ".dat");
+    f.deleteOnExit();
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+    try {
+      long pos = 0;
+      for (int i = 0; i < 200; i++) {
+        if (i % 10 == 5) { // a gap
+          int gap = (i % 20 == 5) ? 100 : 100 * 1000;
+          out.write(new byte[gap]);
+          pos += gap;
+        }
+        int n = 10 + (i * 37) % 1000;
+        Rec rec = new Rec(pos, n, i);
+        rec.lies = (i % 11 == 4);
+        recs.add(rec);
+        out.writeInt(4 + 4 * n);
+        for (int j = 0; j < n; j++)
+          out.writeFloat(i * 10000 + j);
+        pos += 4 + 4 * n;
+      }
+    } finally {
+      out.close();
+    }
+    return f;
+  }
+
+  private void read(File f, List<Rec> recs, GribReadPipeline pipeline) throws IOException {
+    final List<Rec> got = new ArrayList<Rec>();
+    RandomAccessFile raf = new RandomAccessFile(f.getPath(), "r");
+    raf.order(RandomAccessFile.BIG_ENDIAN);
+    try {
+      pipeline.read(raf, recs, new RecDecoder(), new GribReadPipeline.Receiver<Rec>() {
+        public void receive(Rec rec, float[] data) throws IOException {
+          assertEquals(rec.n, data.length);
+          for (int j = 0; j < data.length; j++)
+            assertEquals(rec.index * 10000 + j, data[j], 0.0);
+          got.add(rec);
+        }
+      });
+    } finally {
+      raf.close();
+    }
+    assertEquals(recs, got); // all of them, in order
+  }
+
+  @Test
+  public void testSerial() throws IOException {
+    List<Rec> recs = new ArrayList<Rec>();
+    File f = makeFile(recs);
+    read(f, recs, new GribReadPipeline(null, 4));
+  }
+
+  @Test
+  public void testParallel() throws IOException {
+    List<Rec> recs = new ArrayList<Rec>();
+    File f = makeFile(recs);
+    ExecutorService exec = Executors.newFixedThreadPool(4);
+    try {
+      for (int maxParallel = 2; maxParallel < 10; maxParallel += 3)
+        read(f, recs, new GribReadPipeline(exec, maxParallel));
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+  @Test
+  public void testDecodeError() throws IOException {
+    List<Rec> recs = new ArrayList<Rec>();
+    File f = makeFile(recs);
+    recs.get(20).bad = true;
+    ExecutorService exec = Executors.newFixedThreadPool(2);
+    try {
+      read(f, recs, new GribReadPipeline(exec, 3));
+      fail("decode error was not passed on");
+    } catch (IOException e) {
+      assertEquals("bad record 20", e.getMessage());
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.grib;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test GribRecordTable
+ *
+ * @since Oct 18, 2026
+ */
+public class TestGribRecordTable {
+
+  private GribCollection.Record[] makeRecords(int n) {
+    GribCollection.Record[] records = new GribCollection.Record[n];
+    for (int i = 0; i < n; i++)
+      records[i] = new GribCollection.Record(i % 3, 1000L * i + (1L << 33), (i % 5 == 0) ? 77L * i : 0, i % 7 == 1);
+    return records;
+  }
+
+  private void check(GribCollection.Record[] records, GribRecordTable table) {
+    assertEquals(records.length, table.getNRecords());
+    for (int i = 0; i < records.length; i++) {
+      GribCollection.Record r = table.getRecord(i);
+      assertEquals(records[i].fileno, r.fileno);
+      assertEquals(records[i].pos, r.pos);
+      assertEquals(records[i].bmsPos, r.bmsPos);
+      assertEquals(records[i].pos, table.getPos(i));
+    }
+    assertEquals(GribCollection.MISSING_RECORD, table.getPos(1));
+  }
+
+  @Test
+  public void testHeap() throws IOException {
+    GribCollection.Record[] records = makeRecords(100);
+    byte[] b = GribRecordTable.encode(1234, records);
+    assertEquals(GribRecordTable.HEADER_SIZE + 100 * GribRecordTable.RECORD_SIZE, b.length);
+    assertTrue(GribRecordTable.isPacked(b));
+
+    GribRecordTable table = new GribRecordTable(ByteBuffer.wrap(b), 0, b.length);
+    assertEquals(1234, table.getCdmHash());
+    check(records, table);
+
+    try {
+      table.getRecord(100);
+      fail();
+    } catch (ArrayIndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMapped() throws IOException {
+    GribCollection.Record[] records1 = makeRecords(10);
+    GribCollection.Record[] records2 = makeRecords(1000);
+    byte[] b1 = GribRecordTable.encode(1, records1);
+    byte[] b2 = GribRecordTable.encode(2, records2);
+
+    File f = File.createTempFile("TestGribRecordTable", ".ncx");
+    f.deleteOnExit();
+    RandomAccessFile raf = new RandomAccessFile(f, "rw");
+    try {
+      raf.write(new byte[33]); // header
+      raf.write(b1);
+      raf.write(b2);
+      raf.write(new byte[44]); // index
+    } finally {
+      raf.close();
+    }
+
+    ByteBuffer bb = GribRecordTable.map(f, 33, b1.length + b2.length);
+    assertNotNull(bb);
+    check(records1, new GribRecordTable(bb, 0, b1.length));
+    check(records2, new GribRecordTable(bb, b1.length, b2.length));
+  }
+
+  @Test
+  public void testNotPacked() {
+    byte[] proto = new byte[]{0x08, (byte) 0x96, 0x01, 0x12, 0x02, 0x08, 0x01};
+    assertFalse(GribRecordTable.isPacked(proto));
+    try {
+      new GribRecordTable(ByteBuffer.wrap(new byte[20]), 0, 20);
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+}
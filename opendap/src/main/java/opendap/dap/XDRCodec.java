@@ -0,0 +1,363 @@
+/////////////////////////////////////////////////////////////////////////////
+// This file is part of the "Java-DAP" project, a Java implementation
+// of the OPeNDAP Data Access Protocol.
+//
+// Copyright (c) 2010, OPeNDAP, Inc.
+// Copyright (c) 2002,2003 OPeNDAP, Inc.
+// 
+// Author: James Gallagher <jgallagher@opendap.org>
+// 
+// All rights reserved.
+// 
+// Redistribution and use in source and binary forms,
+// with or without modification, are permitted provided
+// that the following conditions are met:
+// 
+// - Redistributions of source code must retain the above copyright
+//   notice, this list of conditions and the following disclaimer.
+// 
+// - Redistributions in binary form must reproduce the above copyright
+//   notice, this list of conditions and the following disclaimer in the
+//   documentation and/or other materials provided with the distribution.
+// 
+// - Neither the name of the OPeNDAP nor the names of its contributors may
+//   be used to endorse or promote products derived from this software
+//   without specific prior written permission.
+// 
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+// IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+// TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+// PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+// LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+// NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+/////////////////////////////////////////////////////////////////////////////
+
+package opendap.dap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Reads and writes arrays of primitives in XDR (big-endian) order, a block at a time,
+ * instead of one value at a time through <code>DataInputStream</code>/<code>DataOutputStream</code>.
+ * Each thread reuses its own block buffer. On reading, the <code>StatusUI</code> is updated and checked for
+ * cancellation once per block.
+ * <p/>
+ * As in DAP2, 16 bit integers are sent as 32 bit integers, and bytes are padded to a multiple of four.
+ *
+ * @see PrimitiveVector
+ * @since Oct 18, 2026
+ */
+public final class XDRCodec {
+
+    static private final int BLOCK_SIZE = 64 * 1024; // bytes, a multiple of 8
+
+    // the block buffer and its views, one per thread
+    static private class Block {
+        final byte[] bytes = new byte[BLOCK_SIZE];
+        final ByteBuffer bb = ByteBuffer.wrap(bytes); // big endian by default
+        final IntBuffer ib = bb.asIntBuffer();
+        final FloatBuffer fb = bb.asFloatBuffer();
+        final DoubleBuffer db = bb.asDoubleBuffer();
+    }
+
+    static private final ThreadLocal<Block> blocks = new ThreadLocal<Block>() {
+        protected Block initialValue() {
+            return new Block();
+        }
+    };
+
+    private XDRCodec() {
+    }
+
+    static private void progress(StatusUI statusUI, int nbytes) throws DataReadException {
+        if (statusUI != null) {
+            statusUI.incrementByteCount(nbytes);
+            if (statusUI.userCancelled())
+                throw new DataReadException("User cancelled");
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////
+    // read
+
+    /**
+     * Read vals.length doubles.
+     *
+     * @param source   read from here
+     * @param vals     read into here
+     * @param statusUI progress and cancellation, may be null
+     * @throws IOException       on read error
+     * @throws DataReadException if the user cancels
+     */
+    static public void readDoubles(DataInputStream source, double[] vals, StatusUI statusUI)
+            throws IOException, DataReadException {
+        Block block = blocks.get();
+        int done = 0;
+        while (done < vals.length) {
+            int n = Math.min(vals.length - done, BLOCK_SIZE / 8);
+            source.readFully(block.bytes, 0, 8 * n);
+            block.db.clear();
+            block.db.get(vals, done, n);
+            done += n;
+            progress(statusUI, 8 * n);
+        }
+    }
+
+    /**
+     * Read vals.length floats.
+     *
+     * @param source   read from here
+     * @param vals     read into here
+     * @param statusUI progress and cancellation, may be null
+     * @throws IOException       on read error
+     * @throws DataReadException if the user cancels
+     */
+    static public void readFloats(DataInputStream source, float[] vals, StatusUI statusUI)
+            throws IOException, DataReadException {
+        Block block = blocks.get();
+        int done = 0;
+        while (done < vals.length) {
+            int n = Math.min(vals.length - done, BLOCK_SIZE / 4);
+            source.readFully(block.bytes, 0, 4 * n);
+            block.fb.clear();
+            block.fb.get(vals, done, n);
+            done += n;
+            progress(statusUI, 4 * n);
+        }
+    }
+
+    /**
+     * Read vals.length 32 bit integers.
+     *
+     * @param source   read from here
+     * @param vals     read into here
+     * @param statusUI progress and cancellation, may be null
+     * @throws IOException       on read error
+     * @throws DataReadException if the user cancels
+     */
+    static public void readInts(DataInputStream source, int[] vals, StatusUI statusUI)
+            throws IOException, DataReadException {
+        Block block = blocks.get();
+        int done = 0;
+        while (done < vals.length) {
+            int n = Math.min(vals.length - done, BLOCK_SIZE / 4);
+            source.readFully(block.bytes, 0, 4 * n);
+            block.ib.clear();
+            block.ib.get(vals, done, n);
+            done += n;
+            progress(statusUI, 4 * n);
+        }
+    }
+
+    /**
+     * Read vals.length 16 bit integers, each sent as a 32 bit integer.
+     *
+     * @param source   read from here
+     * @param vals     read into here
+     * @param statusUI progress and cancellation, may be null
+     * @throws IOException       on read error
+     * @throws DataReadException if the user cancels
+     */
+    static public void readShorts(DataInputStream source, short[] vals, StatusUI statusUI)
+            throws IOException, DataReadException {
+        Block block = blocks.get();
+        int done = 0;
+        while (done < vals.length) {
+            int n = Math.min(vals.length - done, BLOCK_SIZE / 4);
+            source.readFully(block.bytes, 0, 4 * n);
+            IntBuffer ib = block.ib;
+            for (int k = 0; k < n; k++)
+                vals[done + k] = (short) ib.get(k);
+            done += n;
+            progress(statusUI, 4 * n);
+        }
+    }
+
+    /**
+     * Read vals.length bytes, and the padding to a multiple of four.
+     *
+     * @param source   read from here
+     * @param vals     read into here
+     * @param statusUI progress and cancellation, may be null
+     * @throws IOException       on read error
+     * @throws DataReadException if the user cancels
+     */
+    static public void readBytes(DataInputStream source, byte[] vals, StatusUI statusUI)
+            throws IOException, DataReadException {
+        int done = 0;
+        while (done < vals.length) {
+            int n = Math.min(vals.length - done, BLOCK_SIZE);
+            source.readFully(vals, done, n);
+            done += n;
+            progress(statusUI, n);
+        }
+
+        int pad = pad(vals.length);
+        if (pad > 0) {
+            source.readFully(blocks.get().bytes, 0, pad);
+            progress(statusUI, pad);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////
+    // write
+
+    /**
+     * Write vals[i], for i=start; i&lt;=stop; i+=stride.
+     *
+     * @param sink   write to here
+     * @param vals   write these
+     * @param start  starting index
+     * @param stop   ending index, inclusive
+     * @param stride index stride
+     * @throws IOException on write error
+     */
+    static public void writeDoubles(DataOutputStream sink, double[] vals, int start, int stop, int stride)
+            throws IOException {
+        Block block = blocks.get();
+        int i = start;
+        while (i <= stop) {
+            int n = Math.min(count(i, stop, stride), BLOCK_SIZE / 8);
+            block.db.clear();
+            if (stride == 1) {
+                block.db.put(vals, i, n);
+                i += n;
+            } else {
+                for (int k = 0; k < n; k++, i += stride)
+                    block.db.put(k, vals[i]);
+            }
+            sink.write(block.bytes, 0, 8 * n);
+        }
+    }
+
+    /**
+     * Write vals[i], for i=start; i&lt;=stop; i+=stride.
+     *
+     * @param sink   write to here
+     * @param vals   write these
+     * @param start  starting index
+     * @param stop   ending index, inclusive
+     * @param stride index stride
+     * @throws IOException on write error
+     */
+    static public void writeFloats(DataOutputStream sink, float[] vals, int start, int stop, int stride)
+            throws IOException {
+        Block block = blocks.get();
+        int i = start;
+        while (i <= stop) {
+            int n = Math.min(count(i, stop, stride), BLOCK_SIZE / 4);
+            block.fb.clear();
+            if (stride == 1) {
+                block.fb.put(vals, i, n);
+                i += n;
+            } else {
+                for (int k = 0; k < n; k++, i += stride)
+                    block.fb.put(k, vals[i]);
+            }
+            sink.write(block.bytes, 0, 4 * n);
+        }
+    }
+
+    /**
+     * Write vals[i], for i=start; i&lt;=stop; i+=stride, as 32 bit integers.
+     *
+     * @param sink   write to here
+     * @param vals   write these
+     * @param start  starting index
+     * @param stop   ending index, inclusive
+     * @param stride index stride
+     * @throws IOException on write error
+     */
+    static public void writeInts(DataOutputStream sink, int[] vals, int start, int stop, int stride)
+            throws IOException {
+        Block block = blocks.get();
+        int i = start;
+        while (i <= stop) {
+            int n = Math.min(count(i, stop, stride), BLOCK_SIZE / 4);
+            block.ib.clear();
+            if (stride == 1) {
+                block.ib.put(vals, i, n);
+                i += n;
+            } else {
+                for (int k = 0; k < n; k++, i += stride)
+                    block.ib.put(k, vals[i]);
+            }
+            sink.write(block.bytes, 0, 4 * n);
+        }
+    }
+
+    /**
+     * Write vals[i], for i=start; i&lt;=stop; i+=stride, as 32 bit integers.
+     *
+     * @param sink   write to here
+     * @param vals   write these
+     * @param start  starting index
+     * @param stop   ending index, inclusive
+     * @param stride index stride
+     * @throws IOException on write error
+     */
+    static public void writeShorts(DataOutputStream sink, short[] vals, int start, int stop, int stride)
+            throws IOException {
+        Block block = blocks.get();
+        int i = start;
+        while (i <= stop) {
+            int n = Math.min(count(i, stop, stride), BLOCK_SIZE / 4);
+            for (int k = 0; k < n; k++, i += stride)
+                block.ib.put(k, vals[i]);
+            sink.write(block.bytes, 0, 4 * n);
+        }
+    }
+
+    /**
+     * Write vals[i], for i=start; i&lt;=stop; i+=stride, then pad to a multiple of four bytes.
+     *
+     * @param sink   write to here
+     * @param vals   write these
+     * @param start  starting index
+     * @param stop   ending index, inclusive
+     * @param stride index stride
+     * @throws IOException on write error
+     */
+    static public void writeBytes(DataOutputStream sink, byte[] vals, int start, int stop, int stride)
+            throws IOException {
+        int total = count(start, stop, stride);
+        if (stride == 1) {
+            if (total > 0) sink.write(vals, start, total);
+        } else {
+            byte[] bytes = blocks.get().bytes;
+            int i = start;
+            while (i <= stop) {
+                int n = Math.min(count(i, stop, stride), BLOCK_SIZE);
+                for (int k = 0; k < n; k++, i += stride)
+                    bytes[k] = vals[i];
+                sink.write(bytes, 0, n);
+            }
+        }
+
+        int pad = pad(total);
+        for (int k = 0; k < pad; k++)
+            sink.writeByte(0);
+    }
+
+    // number of indices in start:stop:stride
+    static private int count(int start, int stop, int stride) {
+        return (stop < start) ? 0 : 1 + (stop - start) / stride;
+    }
+
+    // number of bytes to pad n bytes out to a multiple of four
+    static int pad(int n) {
+        int modFour = n % 4;
+        return (modFour != 0) ? (4 - modFour) : 0;
+    }
+}
@@ -164,6 +164,36 @@ public class DODSNetcdfFile extends ucar.nc2.NetcdfFile
         preloadCoordVarSize = size;
     }
 
+    // opt-in client read modes, used by files opened afterwards
+    static private int batchMaxConcurrent = 0; // 0 = off
+    static private int batchMaxReads = 20;
+    static private long sectionCacheSize = 0; // 0 = off
+
+    /**
+     * Coalesce concurrent section reads. At most maxConcurrent requests are sent to the server at once
+     * for each file; reads that arrive while they are busy are merged, up to maxBatch variables into one
+     * constraint expression. Default is off, each read is its own request.
+     *
+     * @param maxConcurrent maximum concurrent requests to the server per file, 0 to turn off
+     * @param maxBatch maximum number of variables in one request
+     */
+    static public void setBatchReads(int maxConcurrent, int maxBatch)
+    {
+        batchMaxConcurrent = maxConcurrent;
+        batchMaxReads = maxBatch;
+    }
+
+    /**
+     * Keep recently read sections of each file in an LRU cache of this many bytes. A read of a section
+     * inside one that is cached is answered from the cache. Default is off.
+     *
+     * @param maxBytes maximum bytes per file, 0 to turn off
+     */
+    static public void setSectionCacheSize(long maxBytes)
+    {
+        sectionCacheSize = maxBytes;
+    }
+
     /**
      * Create the canonical form of the URL.
      * If the urlName starts with "http:" or "https:", change it to start with "dods:", otherwise
@@ -186,6 +216,8 @@ public class DODSNetcdfFile extends ucar.nc2.NetcdfFile
     //////////////////////////////////////////////////////////////////////////////////
     private ConvertD2N convertD2N = new ConvertD2N();
     private DConnect2 dodsConnection = null;
+    private final DodsReadBatcher batcher = (batchMaxConcurrent > 0) ? new DodsReadBatcher(this, batchMaxConcurrent, batchMaxReads) : null;
+    private final DodsSectionCache sectionCache = (sectionCacheSize > 0) ? new DodsSectionCache(sectionCacheSize) : null;
     private DDS dds;
     private DAS das;
 
@@ -202,6 +234,12 @@ public class DODSNetcdfFile extends ucar.nc2.NetcdfFile
         this(datasetURL, null);
     }
 
+    // for testing
+    DODSNetcdfFile()
+    {
+        super();
+    }
+
     /**
      * Open a DODS file, allow user control over preloading string arrays and making structure data
      * available through netcdf API.
@@ -1631,10 +1669,55 @@ if(OLDGROUPCODE) {
         //if (unlocked)
         //    throw new IllegalStateException("File is unlocked - cannot use");
 
+        boolean canBatch = !v.isVariableLength() && !v.isMemberOfStructure() &&
+                (v.getDataType().isNumeric() || (v.getDataType() == DataType.CHAR));
+        if (!canBatch || ((batcher == null) && (sectionCache == null)))
+            return readDataDirect(v, section);
+
+        if (sectionCache != null) {
+            Array data = sectionCache.get(v.getFullName(), section);
+            if (data != null) return data;
+        }
+
+        Array data = (batcher != null) ? batcher.read(v, section) : readDataDirect(v, section);
+
+        if (sectionCache != null) {
+            sectionCache.put(v.getFullName(), section, data);
+            data = data.copy();
+        }
+        return data;
+    }
+
+    // one request for this section of the variable
+    Array readDataDirect(ucar.nc2.Variable v, Section section) throws IOException, InvalidRangeException
+    {
         // LOOK: what if theres already a CE !!!!
         // create the constraint expression
         StringBuilder buff = new StringBuilder(100);
-        buff.setLength(0);
+        appendConstraint(buff, v, section);
+
+        Array dataArray;
+        try {
+            // DodsV root = DodsV.parseDDS( readDataDDSfromServer(buff.toString()));
+            // data = convertD2N( (DodsV) root.children.get(0), v, section, false); // can only be one
+
+            DataDDS dataDDS = readDataDDSfromServer(buff.toString());
+            DodsV root = DodsV.parseDataDDS(dataDDS);
+            DodsV want = root.children.get(0); // can only be one
+            dataArray = convertD2N.convertTopVariable(v, section.getRanges(), want);
+        } catch (DAP2Exception ex) {
+            ex.printStackTrace();
+            throw new IOException(ex.getMessage());
+        } catch (ParseException ex) {
+            ex.printStackTrace();
+            throw new IOException(ex.getMessage());
+        }
+
+        return dataArray;
+    }
+
+    private void appendConstraint(StringBuilder buff, Variable v, Section section)
+    {
         buff.append(getDODSConstraintName(v));
 
         // add the selector if not a Sequence
@@ -1647,25 +1730,44 @@ if(OLDGROUPCODE) {
             }
             makeSelector(buff, dodsSection);
         }
+    }
 
-        Array dataArray;
-        try {
-            // DodsV root = DodsV.parseDDS( readDataDDSfromServer(buff.toString()));
-            // data = convertD2N( (DodsV) root.children.get(0), v, section, false); // can only be one
+    /**
+     * Read sections of several top level variables in one request.
+     * The variables must all be different.
+     *
+     * @param vars     read these variables
+     * @param sections the section of each variable
+     * @return the data for each variable, null if it was not found in the response
+     * @throws IOException on error
+     */
+    Array[] readDataBatch(List<Variable> vars, List<Section> sections) throws IOException
+    {
+        StringBuilder buff = new StringBuilder(100);
+        for (int i = 0; i < vars.size(); i++) {
+            if (i > 0) buff.append(",");
+            appendConstraint(buff, vars.get(i), sections.get(i));
+        }
 
+        Array[] result = new Array[vars.size()];
+        try {
             DataDDS dataDDS = readDataDDSfromServer(buff.toString());
             DodsV root = DodsV.parseDataDDS(dataDDS);
-            DodsV want = root.children.get(0); // can only be one
-            dataArray = convertD2N.convertTopVariable(v, section.getRanges(), want);
+            for (int i = 0; i < vars.size(); i++) {
+                Variable v = vars.get(i);
+                DodsV dataV = root.findDataV((DodsV) v.getSPobject());
+                if (dataV != null)
+                    result[i] = convertD2N.convertTopVariable(v, sections.get(i).getRanges(), dataV);
+            }
+
         } catch (DAP2Exception ex) {
-            ex.printStackTrace();
+            logger.error("ERROR readDataBatch on " + buff, ex);
             throw new IOException(ex.getMessage());
         } catch (ParseException ex) {
-            ex.printStackTrace();
+            logger.error("ERROR readDataBatch on " + buff, ex);
             throw new IOException(ex.getMessage());
         }
-
-        return dataArray;
+        return result;
     }
 
     @Override
@@ -2312,6 +2414,9 @@ if(OLDGROUPCODE) {
         buffOS = new ByteArrayOutputStream(8000);
         das.print(buffOS);
         f.format("%s%n", buffOS.toString());
+
+        if (batcher != null) batcher.showStats(f);
+        if (sectionCache != null) sectionCache.showStats(f);
     }
 
     public String getFileTypeId()
@@ -0,0 +1,204 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.dods;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.Variable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Coalesces concurrent section reads on one DODSNetcdfFile into fewer server requests.
+ * <p/>
+ * At most maxConcurrent requests are sent to the server at once. A read that arrives while they are all busy is
+ * queued; when a request finishes, its thread takes up to maxBatch queued reads of different variables and sends
+ * them as one constraint expression. A thread keeps sending batches until its own read is done. A read that has been
+ * taken into another thread's batch waits for that batch, and does not send requests itself.
+ *
+ * @since Oct 18, 2026
+ */
+@ThreadSafe
+class DodsReadBatcher {
+  private final DODSNetcdfFile ncfile;
+  private final int maxConcurrent, maxBatch;
+
+  @GuardedBy("this")
+  private final LinkedList<Pending> queue = new LinkedList<Pending>();
+  @GuardedBy("this")
+  private int active;
+
+  // stats
+  @GuardedBy("this")
+  private int nreads, nrequests;
+
+  DodsReadBatcher(DODSNetcdfFile ncfile, int maxConcurrent, int maxBatch) {
+    this.ncfile = ncfile;
+    this.maxConcurrent = Math.max(1, maxConcurrent);
+    this.maxBatch = Math.max(1, maxBatch);
+  }
+
+  Array read(Variable v, Section section) throws IOException, InvalidRangeException {
+    Pending mine = new Pending(v, section);
+    synchronized (this) {
+      nreads++;
+      queue.add(mine);
+    }
+
+    while (true) {
+      // wait until mine is done, or it is still queued and a request can be sent
+      synchronized (this) {
+        while (!mine.done && (mine.taken || (active >= maxConcurrent))) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            if (!mine.taken) queue.remove(mine);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting to read " + v.getFullName());
+          }
+        }
+        if (mine.done) break;
+        active++;
+      }
+
+      // send batches until this read is done, or another thread has taken it
+      try {
+        while (!mine.done) {
+          List<Pending> batch = takeBatch();
+          if (batch.isEmpty()) break; // mine is in another thread's batch
+          send(batch);
+        }
+      } finally {
+        synchronized (this) {
+          active--;
+          notifyAll();
+        }
+      }
+    }
+
+    Throwable t = mine.error; // rethrown in each reader of the batch
+    if (t == null) return mine.result;
+    if (t instanceof IOException) throw (IOException) t;
+    if (t instanceof InvalidRangeException) throw (InvalidRangeException) t;
+    if (t instanceof RuntimeException) throw (RuntimeException) t;
+    if (t instanceof Error) throw (Error) t;
+    throw new IOException(t);
+  }
+
+  // up to maxBatch queued reads, of different variables
+  private synchronized List<Pending> takeBatch() {
+    List<Pending> batch = new ArrayList<Pending>();
+    Iterator<Pending> iter = queue.iterator();
+    while (iter.hasNext() && batch.size() < maxBatch) {
+      Pending p = iter.next();
+      boolean dup = false;
+      for (Pending b : batch)
+        if (b.v == p.v) dup = true;
+      if (dup) continue;
+      batch.add(p);
+      p.taken = true;
+      iter.remove();
+    }
+    return batch;
+  }
+
+  private void send(List<Pending> batch) {
+    try {
+      synchronized (this) {
+        nrequests++;
+      }
+
+      Array[] results = null;
+      if (batch.size() > 1) {
+        List<Variable> vars = new ArrayList<Variable>(batch.size());
+        List<Section> sections = new ArrayList<Section>(batch.size());
+        for (Pending p : batch) {
+          vars.add(p.v);
+          sections.add(p.section);
+        }
+        try {
+          results = ncfile.readDataBatch(vars, sections);
+        } catch (IOException ioe) {
+          results = null; // try them one at a time
+        }
+      }
+
+      for (int i = 0; i < batch.size(); i++) {
+        Pending p = batch.get(i);
+        try {
+          p.result = (results != null) ? results[i] : null;
+          if (p.result == null)
+            p.result = ncfile.readDataDirect(p.v, p.section);
+        } catch (Throwable t) {
+          p.error = t;
+        }
+      }
+
+    } catch (Throwable t) { // eg a RuntimeException from readDataBatch: the reads not done yet fail with it
+      for (Pending p : batch)
+        if ((p.result == null) && (p.error == null)) p.error = t;
+
+    } finally {
+      synchronized (this) {
+        for (Pending p : batch) p.done = true;
+        notifyAll();
+      }
+    }
+  }
+
+  synchronized void showStats(java.util.Formatter f) {
+    f.format("  batched reads= %d server requests= %d maxConcurrent= %d maxBatch= %d%n", nreads, nrequests, maxConcurrent, maxBatch);
+  }
+
+  static private class Pending {
+    final Variable v;
+    final Section section;
+    volatile boolean done; // set after the result
+    boolean taken; // in a batch, guarded by the DodsReadBatcher
+    Array result;
+    Throwable error; // instead of the result
+
+    Pending(Variable v, Section section) {
+      this.v = v;
+      this.section = section;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.dods;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Range;
+import ucar.ma2.Section;
+
+import java.util.*;
+
+/**
+ * An LRU cache of the sections recently read from one DODSNetcdfFile, bounded by their size in bytes.
+ * A read is answered from a cached section of the same variable that is equal to it or contains it.
+ * Arrays are copied on the way out, so callers may modify them.
+ *
+ * @since Oct 18, 2026
+ */
+@ThreadSafe
+class DodsSectionCache {
+  private final long maxBytes;
+
+  @GuardedBy("this")
+  private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<String, Entry>(100, .75f, true);
+  @GuardedBy("this")
+  private final Map<String, List<Entry>> byVar = new HashMap<String, List<Entry>>();
+  @GuardedBy("this")
+  private long bytes;
+  @GuardedBy("this")
+  private int hits, misses;
+
+  DodsSectionCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Get a section of a variable from the cache.
+   * @param varName the variable's full name
+   * @param want the wanted section
+   * @return a copy of the data, or null if no cached section contains it
+   */
+  Array get(String varName, Section want) {
+    Entry found;
+    List<Range> subset = null;
+    synchronized (this) {
+      found = lru.get(makeKey(varName, want));
+      if (found == null) {
+        List<Entry> entries = byVar.get(varName);
+        if (entries != null) {
+          for (Entry e : entries) {
+            subset = e.subset(want);
+            if (subset != null) {
+              found = e;
+              lru.get(e.key); // most recently used
+              break;
+            }
+          }
+        }
+      }
+      if (found == null) {
+        misses++;
+        return null;
+      }
+      hits++;
+    }
+
+    if (subset == null) return found.data.copy();
+    try {
+      return found.data.sectionNoReduce(subset).copy();
+    } catch (InvalidRangeException e) {
+      throw new IllegalStateException(e.getMessage()); // subset() only makes ranges inside the data
+    }
+  }
+
+  /**
+   * Add a section of a variable, replacing the same section if cached.
+   * @param varName the variable's full name
+   * @param section the section that was read
+   * @param data its data, not modified afterwards
+   */
+  synchronized void put(String varName, Section section, Array data) {
+    long size = data.getSizeBytes();
+    if (size > maxBytes) return;
+    Entry e = new Entry(varName, section, data);
+    Entry old = lru.put(e.key, e);
+    if (old != null) remove(old);
+    bytes += size;
+    List<Entry> entries = byVar.get(varName);
+    if (entries == null) {
+      entries = new ArrayList<Entry>();
+      byVar.put(varName, entries);
+    }
+    entries.add(e);
+
+    Iterator<Entry> iter = lru.values().iterator();
+    while (bytes > maxBytes && iter.hasNext()) {
+      Entry evict = iter.next();
+      iter.remove();
+      remove(evict);
+    }
+  }
+
+  // the entry is no longer in lru
+  @GuardedBy("this")
+  private void remove(Entry e) {
+    bytes -= e.data.getSizeBytes();
+    List<Entry> entries = byVar.get(e.varName);
+    if (entries == null) return;
+    entries.remove(e);
+    if (entries.isEmpty()) byVar.remove(e.varName);
+  }
+
+  synchronized void showStats(Formatter f) {
+    f.format("  section cache hits= %d miss= %d nsections= %d bytes= %d maxBytes= %d%n", hits, misses, lru.size(), bytes, maxBytes);
+  }
+
+  static private String makeKey(String varName, Section section) {
+    return varName + section;
+  }
+
+  static private class Entry {
+    final String key, varName;
+    final Section section;
+    final Array data;
+    final boolean canSubset; // data has the shape of section
+
+    Entry(String varName, Section section, Array data) {
+      this.key = makeKey(varName, section);
+      this.varName = varName;
+      this.section = section;
+      this.data = data;
+      this.canSubset = isComplete(section) && Arrays.equals(data.getShape(), section.getShape());
+    }
+
+    static private boolean isComplete(Section section) {
+      for (Range r : section.getRanges())
+        if ((r == null) || (r == Range.VLEN)) return false;
+      return true;
+    }
+
+    // the ranges of want within data, or null if section does not contain want
+    List<Range> subset(Section want) {
+      if (!canSubset || (want.getRank() != section.getRank())) return null;
+      List<Range> result = new ArrayList<Range>(want.getRank());
+      for (int i = 0; i < want.getRank(); i++) {
+        Range have = section.getRange(i);
+        Range r = want.getRange(i);
+        if ((r == null) || (r == Range.VLEN) || (r.length() == 0)) return null;
+        if ((r.first() < have.first()) || (r.last() > have.last())) return null;
+        int offset = r.first() - have.first();
+        int stride = (r.length() > 1) ? r.stride() : have.stride();
+        if ((offset % have.stride() != 0) || (stride % have.stride() != 0)) return null;
+        try {
+          result.add(new Range(offset / have.stride(), (r.last() - have.first()) / have.stride(), stride / have.stride()));
+        } catch (InvalidRangeException e) {
+          return null;
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package opendap.test;
+
+import junit.framework.TestCase;
+import opendap.dap.DataReadException;
+import opendap.dap.StatusUI;
+import opendap.dap.XDRCodec;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Test XDRCodec against the one value at a time DataOutputStream encoding.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestXDRCodec extends TestCase {
+
+  public TestXDRCodec(String name) {
+    super(name);
+  }
+
+  private static final int N = 40001; // more than one block
+
+  private DataInputStream in(ByteArrayOutputStream bos) {
+    return new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+  }
+
+  public void testDoubles() throws Exception {
+    double[] vals = new double[N];
+    for (int i = 0; i < N; i++) vals[i] = i * 1.5 - 7;
+
+    ByteArrayOutputStream expect = new ByteArrayOutputStream();
+    DataOutputStream dout = new DataOutputStream(expect);
+    for (double v : vals) dout.writeDouble(v);
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    XDRCodec.writeDoubles(new DataOutputStream(bos), vals, 0, N - 1, 1);
+    assertTrue(Arrays.equals(expect.toByteArray(), bos.toByteArray()));
+
+    double[] result = new double[N];
+    XDRCodec.readDoubles(in(bos), result, null);
+    assertTrue(Arrays.equals(vals, result));
+  }
+
+  public void testFloatsStrided() throws Exception {
+    float[] vals = new float[N];
+    for (int i = 0; i < N; i++) vals[i] = i * .25f;
+
+    ByteArrayOutputStream expect = new ByteArrayOutputStream();
+    DataOutputStream dout = new DataOutputStream(expect);
+    for (int i = 3; i <= N - 2; i += 7) dout.writeFloat(vals[i]);
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    XDRCodec.writeFloats(new DataOutputStream(bos), vals, 3, N - 2, 7);
+    assertTrue(Arrays.equals(expect.toByteArray(), bos.toByteArray()));
+
+    float[] result = new float[expect.size() / 4];
+    XDRCodec.readFloats(in(bos), result, null);
+    for (int k = 0; k < result.length; k++)
+      assertEquals(vals[3 + 7 * k], result[k]);
+  }
+
+  public void testShortsAsInts() throws Exception {
+    short[] vals = new short[N];
+    for (int i = 0; i < N; i++) vals[i] = (short) (i - 20000);
+
+    ByteArrayOutputStream expect = new ByteArrayOutputStream();
+    DataOutputStream dout = new DataOutputStream(expect);
+    for (short v : vals) dout.writeInt(v);
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    XDRCodec.writeShorts(new DataOutputStream(bos), vals, 0, N - 1, 1);
+    assertTrue(Arrays.equals(expect.toByteArray(), bos.toByteArray()));
+
+    short[] result = new short[N];
+    XDRCodec.readShorts(in(bos), result, null);
+    assertTrue(Arrays.equals(vals, result));
+  }
+
+  public void testBytesPadded() throws Exception {
+    byte[] vals = new byte[]{1, 2, 3, 4, 5, 6, 7};
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    XDRCodec.writeBytes(new DataOutputStream(bos), vals, 0, 6, 2); // 1, 3, 5, 7
+    assertTrue(Arrays.equals(new byte[]{1, 3, 5, 7}, bos.toByteArray()));
+
+    bos = new ByteArrayOutputStream();
+    DataOutputStream dout = new DataOutputStream(bos);
+    XDRCodec.writeBytes(dout, vals, 0, 6, 1);
+    dout.writeInt(99);
+    assertEquals(12, bos.size());
+
+    byte[] result = new byte[7];
+    DataInputStream din = in(bos);
+    XDRCodec.readBytes(din, result, null);
+    assertTrue(Arrays.equals(vals, result));
+    assertEquals(99, din.readInt()); // padding was skipped
+  }
+
+  public void testCancel() throws Exception {
+    int[] vals = new int[N];
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    XDRCodec.writeInts(new DataOutputStream(bos), vals, 0, N - 1, 1);
+
+    final int[] count = new int[1];
+    StatusUI cancelAfterFirstBlock = new StatusUI() {
+      public void incrementByteCount(int bytes) { count[0] += bytes; }
+      public boolean userCancelled() { return count[0] > 0; }
+      public void finished() { }
+    };
+    try {
+      XDRCodec.readInts(in(bos), new int[N], cancelAfterFirstBlock);
+      fail();
+    } catch (DataReadException e) {
+      assertTrue(count[0] < 4 * N);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.dods;
+
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.Variable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Concurrent reads through DodsReadBatcher, on a DODSNetcdfFile that answers without a server.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestDodsReadBatcher {
+  static private final int nvars = 8, len = 100;
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    StubFile ncfile = new StubFile(-1);
+    DodsReadBatcher batcher = new DodsReadBatcher(ncfile, 2, 4);
+    List<Integer> results = readAll(ncfile, batcher, 16, 200);
+    assertEquals(16 * 200, results.size());
+    assertTrue("max requests at once= " + ncfile.maxInFlight.get(), ncfile.maxInFlight.get() <= 2);
+  }
+
+  @Test
+  public void testSingleRequest() throws Exception {
+    StubFile ncfile = new StubFile(-1);
+    DodsReadBatcher batcher = new DodsReadBatcher(ncfile, 1, 1);
+    readAll(ncfile, batcher, 8, 50);
+    assertEquals(1, ncfile.maxInFlight.get());
+  }
+
+  @Test
+  public void testReadException() throws Exception {
+    int bad = 3;
+    StubFile ncfile = new StubFile(bad);
+    DodsReadBatcher batcher = new DodsReadBatcher(ncfile, 2, 4);
+    ExecutorService exec = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+      for (int t = 0; t < 8; t++)
+        for (int i = 0; i < nvars; i++)
+          futures.add(exec.submit(new Reader(ncfile, batcher, i, (t * 7) % len)));
+
+      int nfail = 0;
+      for (int k = 0; k < futures.size(); k++) {
+        int varno = k % nvars;
+        try {
+          int val = futures.get(k).get();
+          assertTrue(varno != bad);
+          assertEquals(expected(varno, ((k / nvars) * 7) % len), val);
+        } catch (ExecutionException e) {
+          assertEquals(bad, varno);
+          assertTrue(e.getCause().toString(), e.getCause() instanceof IOException);
+          nfail++;
+        }
+      }
+      assertEquals(8, nfail);
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+  @Test
+  public void testBatchRuntimeException() throws Exception {
+    StubFile ncfile = new StubFile(-1);
+    ncfile.failBatch = true;
+    DodsReadBatcher batcher = new DodsReadBatcher(ncfile, 1, 4);
+    ExecutorService exec = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+      for (int t = 0; t < 8; t++)
+        for (int i = 0; i < nvars; i++)
+          futures.add(exec.submit(new Reader(ncfile, batcher, i, t)));
+
+      // reads sent alone succeed, reads in a batch all fail with its exception; none return null
+      int nfail = 0;
+      for (int k = 0; k < futures.size(); k++) {
+        try {
+          assertEquals(expected(k % nvars, k / nvars), futures.get(k).get().intValue());
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause().toString(), e.getCause() instanceof IllegalStateException);
+          nfail++;
+        }
+      }
+      assertTrue(nfail > 0);
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+  // nthreads each do nreads random reads, and check the results
+  private List<Integer> readAll(StubFile ncfile, DodsReadBatcher batcher, int nthreads, int nreads) throws Exception {
+    ExecutorService exec = Executors.newFixedThreadPool(nthreads);
+    try {
+      Random random = new Random(nthreads * nreads);
+      List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+      List<Integer> want = new ArrayList<Integer>();
+      for (int i = 0; i < nthreads * nreads; i++) {
+        int varno = random.nextInt(nvars);
+        int start = random.nextInt(len);
+        futures.add(exec.submit(new Reader(ncfile, batcher, varno, start)));
+        want.add(expected(varno, start));
+      }
+
+      List<Integer> results = new ArrayList<Integer>();
+      for (int i = 0; i < futures.size(); i++) {
+        Integer val = futures.get(i).get();
+        assertEquals("read " + i, want.get(i), val);
+        results.add(val);
+      }
+      return results;
+
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+  static private int expected(int varno, int start) {
+    return varno * 1000 + start;
+  }
+
+  static private class Reader implements Callable<Integer> {
+    final DodsReadBatcher batcher;
+    final Variable v;
+    final Section section;
+
+    Reader(StubFile ncfile, DodsReadBatcher batcher, int varno, int start) throws InvalidRangeException {
+      this.batcher = batcher;
+      this.v = ncfile.vars[varno];
+      this.section = new Section(new int[]{start}, new int[]{1});
+    }
+
+    public Integer call() throws Exception {
+      Array data = batcher.read(v, section);
+      assertNotNull(v.getShortName() + " " + section, data);
+      return data.getInt(0);
+    }
+  }
+
+  // answers reads from the variable number and section origin, and counts the requests at once
+  static private class StubFile extends DODSNetcdfFile {
+    final Variable[] vars = new Variable[nvars];
+    final int bad;
+    volatile boolean failBatch; // readDataBatch throws a RuntimeException
+    final AtomicInteger inFlight = new AtomicInteger(), maxInFlight = new AtomicInteger();
+
+    StubFile(int bad) throws InvalidRangeException {
+      this.bad = bad;
+      for (int i = 0; i < nvars; i++) {
+        vars[i] = new Variable(this, null, null, "v" + i);
+        vars[i].setDataType(DataType.INT);
+        vars[i].setDimensionsAnonymous(new int[]{len});
+      }
+    }
+
+    @Override
+    Array readDataDirect(Variable v, Section section) throws IOException, InvalidRangeException {
+      enter();
+      try {
+        return answer(v, section);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    @Override
+    Array[] readDataBatch(List<Variable> vars, List<Section> sections) throws IOException {
+      enter();
+      try {
+        if (failBatch) throw new IllegalStateException("batch of " + vars.size());
+        Array[] results = new Array[vars.size()];
+        for (int i = 0; i < results.length; i++)
+          results[i] = answer(vars.get(i), sections.get(i));
+        return results;
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    private void enter() throws IOException {
+      int n = inFlight.incrementAndGet();
+      while (true) {
+        int max = maxInFlight.get();
+        if (n <= max || maxInFlight.compareAndSet(max, n)) break;
+      }
+      try {
+        Thread.sleep(1); // let the other readers queue up
+      } catch (InterruptedException e) {
+        throw new IOException("interrupted");
+      }
+    }
+
+    private Array answer(Variable v, Section section) throws IOException {
+      int varno = Integer.parseInt(v.getShortName().substring(1));
+      if (varno == bad) throw new IOException("cant read " + v.getShortName());
+      Array data = Array.factory(DataType.INT, new int[]{1});
+      data.setInt(0, expected(varno, section.getOrigin(0)));
+      return data;
+    }
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package ucar.nc2.dods;
+
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.Index;
+import ucar.ma2.Section;
+
+import java.util.Formatter;
+
+import static org.junit.Assert.*;
+
+/**
+ * DodsSectionCache hits, misses, sections inside a cached one, and eviction.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestDodsSectionCache {
+
+  // the data of section, each value from its index in the variable: 100 * row + col
+  static private Array makeData(Section section) {
+    Array data = Array.factory(DataType.INT, section.getShape());
+    Index ima = data.getIndex();
+    int[] shape = section.getShape();
+    for (int i = 0; i < shape[0]; i++)
+      for (int j = 0; j < shape[1]; j++)
+        data.setInt(ima.set(i, j), 100 * (section.getOrigin(0) + i * section.getStride(0)) + section.getOrigin(1) + j * section.getStride(1));
+    return data;
+  }
+
+  static private void check(Section want, Array got) {
+    assertNotNull(want.toString(), got);
+    assertArrayEquals(want.toString(), want.getShape(), got.getShape());
+    Array expected = makeData(want);
+    for (int i = 0; i < expected.getSize(); i++)
+      assertEquals(want.toString(), expected.getInt(i), got.getInt(i));
+  }
+
+  @Test
+  public void testHitsAndMisses() throws Exception {
+    DodsSectionCache cache = new DodsSectionCache(1000 * 1000);
+    Section section = new Section("2:11,0:4");
+    cache.put("v", section, makeData(section));
+
+    Array got = cache.get("v", new Section("2:11,0:4"));
+    check(section, got);
+    got.setInt(0, -1); // a copy
+    check(section, cache.get("v", section));
+
+    assertNull(cache.get("w", section)); // other variable
+    assertNull(cache.get("v", new Section("2:12,0:4"))); // partly outside
+    assertNull(cache.get("v", new Section("0:1,0:4"))); // outside
+
+    Formatter f = new Formatter();
+    cache.showStats(f);
+    assertTrue(f.toString(), f.toString().contains("hits= 2 miss= 3 nsections= 1"));
+  }
+
+  @Test
+  public void testContainedSection() throws Exception {
+    DodsSectionCache cache = new DodsSectionCache(1000 * 1000);
+    Section section = new Section("2:11,0:4");
+    cache.put("v", section, makeData(section));
+
+    for (String spec : new String[]{"3:7:2,1:3", "11,4", "2:11:9,0:4:4", "5:6,2"}) {
+      Section want = new Section(spec);
+      check(want, cache.get("v", want));
+    }
+
+    // strided cached section: only wants on its grid are inside it
+    Section strided = new Section("0:20:2,0:9:3");
+    cache.put("s", strided, makeData(strided));
+    check(new Section("4:16:4,3:9:6"), cache.get("s", new Section("4:16:4,3:9:6")));
+    check(new Section("6,9"), cache.get("s", new Section("6,9")));
+    assertNull(cache.get("s", new Section("1:5:2,0:9:3"))); // odd rows
+    assertNull(cache.get("s", new Section("0:20:2,0:9:1"))); // every column
+    assertNull(cache.get("s", new Section("0:20:2,1"))); // column between
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    Section section1 = new Section("0:9,0:1");
+    Section section2 = new Section("10:19,0:1");
+    Section section3 = new Section("20:29,0:1");
+    long size = makeData(section1).getSizeBytes();
+    DodsSectionCache cache = new DodsSectionCache(2 * size);
+
+    cache.put("v", section1, makeData(section1));
+    cache.put("v", section2, makeData(section2));
+    assertNotNull(cache.get("v", new Section("0:3,0"))); // section1 is now the most recently used
+    cache.put("v", section3, makeData(section3));
+
+    assertNull(cache.get("v", new Section("12:13,0:1")));
+    check(new Section("1:2,1"), cache.get("v", new Section("1:2,1")));
+    check(new Section("25:29,0"), cache.get("v", new Section("25:29,0")));
+
+    cache.put("v", section1, makeData(section1)); // replaced, not added
+    Formatter f = new Formatter();
+    cache.showStats(f);
+    assertTrue(f.toString(), f.toString().contains("nsections= 2 bytes= " + (2 * size)));
+  }
+}
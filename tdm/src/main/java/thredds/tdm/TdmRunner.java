@@ -51,6 +51,7 @@ import thredds.inventory.*;
 import thredds.util.LoggerFactorySpecial;
 import thredds.util.ThreddsConfigReader;
 import ucar.nc2.grib.GribCollection;
+import ucar.nc2.grib.GribCollectionBuilder;
 import ucar.nc2.grib.TimePartition;
 import ucar.nc2.time.CalendarDate;
 import ucar.nc2.time.CalendarPeriod;
@@ -65,6 +66,7 @@ import java.io.PrintStream;
 import java.net.ConnectException;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -161,6 +163,23 @@ public class TdmRunner {
     gribCache.setAlwaysUseCache(gribIndexAlwaysUse);
     GribCollection.setDiskCache2(gribCache);
 
+    // read or create the gbx9 indexes of a collection, and rectilyse its groups, in parallel
+    int indexThreads = reader.getInt("GribIndex.threads", 0);
+    int indexParallel = reader.getInt("GribIndex.maxParallel", 2 * indexThreads);
+    if (indexThreads > 0) {
+      GribCollectionBuilder.setIndexExecutor(Executors.newFixedThreadPool(indexThreads));
+      GribCollectionBuilder.setIndexParallel(indexParallel);
+      log.info("GribCollectionBuilder.setIndexExecutor threads= {} maxParallel= {}", indexThreads, indexParallel);
+    }
+    boolean incrementalUpdate = reader.getBoolean("GribIndex.incremental", false);
+    GribCollectionBuilder.setIncrementalUpdate(incrementalUpdate);
+    log.info("GribCollectionBuilder.setIncrementalUpdate= {}", incrementalUpdate);
+    boolean streaming = reader.getBoolean("GribIndex.streaming", false);
+    int keysInMemory = reader.getInt("GribIndex.keysInMemory", 1000 * 1000);
+    GribCollectionBuilder.setStreamingBuild(streaming);
+    GribCollectionBuilder.setKeysInMemory(keysInMemory);
+    log.info("GribCollectionBuilder.setStreamingBuild= {} keysInMemory= {}", streaming, keysInMemory);
+
     return true;
   }
 
@@ -183,7 +183,10 @@ public class CdmRemoteController extends AbstractCommandController implements La
           StringTokenizer stoke = new StringTokenizer(query, ";"); // need UTF/%decode
           while (stoke.hasMoreTokens()) {
             ParsedSectionSpec cer = ParsedSectionSpec.parseVariableSection(ncfile, stoke.nextToken());
-            size += ncWriter.sendData(cer.v, cer.section, out, false);
+            if (qb.isChunked()) // bounded memory, client reassembles
+              size += ncWriter.sendDataChunked(cer.v, cer.section, out, qb.isDeflate());
+            else
+              size += ncWriter.sendData(cer.v, cer.section, out, qb.isDeflate());
           }
         }
       } // end switch on req type
@@ -76,6 +76,9 @@ public class CdmRemoteQueryBean {
   private String variables; // (forms) all some
   private String var;
 
+  // ncstream data: send in bounded chunks, deflate each chunk
+  private boolean chunked, deflate;
+
   //// spatial selection
   private String spatial; // (forms) all, bb, point, stns
   private TemporalSelection temporalSelection;
@@ -372,6 +375,22 @@ public class CdmRemoteQueryBean {
     this.var = var;
   }
 
+  public void setChunked(boolean chunked) {
+    this.chunked = chunked;
+  }
+
+  public boolean isChunked() {
+    return chunked;
+  }
+
+  public void setDeflate(boolean deflate) {
+    this.deflate = deflate;
+  }
+
+  public boolean isDeflate() {
+    return deflate;
+  }
+
   public String getVar() {
     return var;
   }
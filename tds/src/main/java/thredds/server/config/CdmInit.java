@@ -37,6 +37,8 @@ import java.io.File;
 import java.util.Calendar;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.log4j.Level;
 import org.slf4j.MDC;
@@ -56,15 +58,21 @@ import thredds.servlet.ServletUtil;
 import thredds.servlet.ThreddsConfig;
 import thredds.util.LoggerFactorySpecial;
 import ucar.nc2.dataset.NetcdfDataset;
+import ucar.nc2.ft.point.collection.CompositeDatasetFactory;
 import ucar.nc2.grib.GribCollection;
+import ucar.nc2.grib.GribCollectionBuilder;
+import ucar.nc2.grib.GribIosp;
 import ucar.nc2.grib.TimePartition;
 import ucar.nc2.iosp.grid.GridServiceProvider;
+import ucar.nc2.iosp.hdf5.H5chunkCache;
+import ucar.nc2.iosp.hdf5.H5iosp;
 import ucar.nc2.jni.netcdf.Nc4Iosp;
 import ucar.nc2.ncml.Aggregation;
 import ucar.nc2.thredds.ThreddsDataFactory;
 import ucar.nc2.util.DiskCache;
 import ucar.nc2.util.DiskCache2;
 import ucar.nc2.util.cache.FileCache;
+import ucar.nc2.util.cache.FileCacheConcurrent;
 import ucar.nc2.util.log.LoggerFactory;
 
 /**
@@ -81,6 +89,10 @@ public class CdmInit implements InitializingBean,  DisposableBean{
 
   private DiskCache2 aggCache, gribCache, cdmrCache;
   private Timer timer;
+  private ExecutorService gribDecodeExecutor;
+  private ExecutorService gribIndexExecutor;
+  private ExecutorService hdf5ChunkExecutor;
+  private ExecutorService pointCollectionExecutor;
   private thredds.inventory.MController cacheManager;
   
   @Autowired
@@ -178,13 +190,22 @@ public class CdmInit implements InitializingBean,  DisposableBean{
     //AggregationFmrc.setDefinitionDirectory(new File(tdsContext.getRootDirectory(), fmrcDefinitionDirectory));
     // FmrcInventoryServlet.setDefinitionDirectory(new File(tdsContext.getRootDirectory(), fmrcDefinitionDirectory));
 
+    // memory map local files opened read-only
+    boolean memoryMapped = ThreddsConfig.getBoolean("RandomAccessFile.memoryMapped", false);
+    ucar.unidata.io.RandomAccessFile.setReadOnlyMemoryMapped(memoryMapped);
+    startupLog.info("CdmInit: RandomAccessFile.memoryMapped= "+memoryMapped);
+
     // NetcdfFileCache : default is allow 50 - 100 open files, cleanup every 11 minutes
     int min = ThreddsConfig.getInt("NetcdfFileCache.minFiles", 50);
     int max = ThreddsConfig.getInt("NetcdfFileCache.maxFiles", 100);
     int secs = ThreddsConfig.getSeconds("NetcdfFileCache.scour", 11 * 60);
+    boolean concurrent = ThreddsConfig.getBoolean("NetcdfFileCache.concurrent", false);
     if (max > 0) {
-      NetcdfDataset.initNetcdfFileCache(min, max, secs);
-      startupLog.info("CdmInit  private boolean isNetcdf4Available = false;: NetcdfDataset.initNetcdfFileCache= ["+min+","+max+"] scour = "+secs);
+      if (concurrent)
+        NetcdfDataset.initNetcdfFileCache(new FileCacheConcurrent("NetcdfFileCache ", min, max, -1, secs));
+      else
+        NetcdfDataset.initNetcdfFileCache(min, max, secs);
+      startupLog.info("CdmInit  private boolean isNetcdf4Available = false;: NetcdfDataset.initNetcdfFileCache= ["+min+","+max+"] scour = "+secs+" concurrent = "+concurrent);
     }
 
     // GribCollection partitions: default is allow 50 - 100 open files, cleanup every 12 minutes
@@ -200,10 +221,75 @@ public class CdmInit implements InitializingBean,  DisposableBean{
     min = ThreddsConfig.getInt("GribCollection.minFiles", 50);
     max = ThreddsConfig.getInt("GribCollection.maxFiles", 100);
     secs = ThreddsConfig.getSeconds("GribCollection.scour", 13 * 60);
+    concurrent = ThreddsConfig.getBoolean("GribCollection.concurrent", false);
     if (max > 0) {
-      GribCollection.initDataRafCache(min, max, secs);
-      startupLog.info("CdmInit: GribCollection.initDataRafCache= ["+min+","+max+"] scour = "+secs);
+      if (concurrent)
+        GribCollection.initDataRafCache(new FileCacheConcurrent("GribCollectionDataRafCache ", min, max, -1, secs));
+      else
+        GribCollection.initDataRafCache(min, max, secs);
+      startupLog.info("CdmInit: GribCollection.initDataRafCache= ["+min+","+max+"] scour = "+secs+" concurrent = "+concurrent);
+    }
+
+    // GribCollection indexes : write packed record tables, which are memory mapped instead of read into the heap
+    boolean packedRecords = ThreddsConfig.getBoolean("GribCollection.packedRecords", false);
+    GribCollectionBuilder.setWritePackedRecords(packedRecords);
+    startupLog.info("CdmInit: GribCollectionBuilder.setWritePackedRecords= "+packedRecords);
+
+    // GribCollection record decoding : default is to decode in the request thread
+    int decodeThreads = ThreddsConfig.getInt("GribCollection.decodeThreads", 0);
+    int maxParallel = ThreddsConfig.getInt("GribCollection.maxParallel", 4);
+    if (decodeThreads > 0) {
+      gribDecodeExecutor = Executors.newFixedThreadPool(decodeThreads);
+      GribIosp.setExecutor(gribDecodeExecutor);
+      GribIosp.setMaxParallelDefault(maxParallel);
+      startupLog.info("CdmInit: GribIosp.setExecutor decodeThreads= "+decodeThreads+" maxParallel = "+maxParallel);
+    }
+
+    // GribCollection index building : default is to read or create the gbx9 indexes one at a time
+    int indexThreads = ThreddsConfig.getInt("GribIndex.threads", 0);
+    int indexParallel = ThreddsConfig.getInt("GribIndex.maxParallel", 2 * indexThreads);
+    if (indexThreads > 0) {
+      gribIndexExecutor = Executors.newFixedThreadPool(indexThreads);
+      GribCollectionBuilder.setIndexExecutor(gribIndexExecutor);
+      GribCollectionBuilder.setIndexParallel(indexParallel);
+      startupLog.info("CdmInit: GribCollectionBuilder.setIndexExecutor threads= "+indexThreads+" maxParallel = "+indexParallel);
+    }
+    boolean incrementalUpdate = ThreddsConfig.getBoolean("GribIndex.incremental", false);
+    GribCollectionBuilder.setIncrementalUpdate(incrementalUpdate);
+    startupLog.info("CdmInit: GribCollectionBuilder.setIncrementalUpdate= "+incrementalUpdate);
+    boolean streaming = ThreddsConfig.getBoolean("GribIndex.streaming", false);
+    int keysInMemory = ThreddsConfig.getInt("GribIndex.keysInMemory", 1000 * 1000);
+    GribCollectionBuilder.setStreamingBuild(streaming);
+    GribCollectionBuilder.setKeysInMemory(keysInMemory);
+    startupLog.info("CdmInit: GribCollectionBuilder.setStreamingBuild= "+streaming+" keysInMemory = "+keysInMemory);
+
+    // HDF5 / NetCDF-4 filtered chunks : default is to decompress in the request thread
+    int chunkThreads = ThreddsConfig.getInt("NetCDF4.chunkDecodeThreads", 0);
+    int chunkReadAhead = ThreddsConfig.getInt("NetCDF4.chunkReadAhead", 16);
+    if (chunkThreads > 0) {
+      hdf5ChunkExecutor = Executors.newFixedThreadPool(chunkThreads);
+      H5iosp.setChunkExecutor(hdf5ChunkExecutor);
+      H5iosp.setChunkReadAhead(chunkReadAhead);
+      startupLog.info("CdmInit: H5iosp.setChunkExecutor chunkDecodeThreads= "+chunkThreads+" chunkReadAhead = "+chunkReadAhead);
     }
+    long chunkCacheSize = ThreddsConfig.getBytes("NetCDF4.chunkCacheSize", (long) 20 * 1000 * 1000);
+    H5chunkCache.getDefault().setMaxBytes(chunkCacheSize);
+    startupLog.info("CdmInit: H5chunkCache.setMaxBytes= "+chunkCacheSize);
+
+    // Point feature collections : default is to read the files of a collection one at a time in the request thread
+    int pointThreads = ThreddsConfig.getInt("PointCollection.readThreads", 0);
+    int pointParallel = ThreddsConfig.getInt("PointCollection.maxParallel", 4);
+    boolean pointTimeOrder = ThreddsConfig.getBoolean("PointCollection.timeOrder", true);
+    if (pointThreads > 0) {
+      pointCollectionExecutor = Executors.newFixedThreadPool(pointThreads);
+      CompositeDatasetFactory.setExecutor(pointCollectionExecutor);
+      CompositeDatasetFactory.setMaxParallel(pointParallel);
+      CompositeDatasetFactory.setTimeOrder(pointTimeOrder);
+      startupLog.info("CdmInit: CompositeDatasetFactory.setExecutor readThreads= "+pointThreads+" maxParallel = "+pointParallel+" timeOrder = "+pointTimeOrder);
+    }
+    boolean pointSummaryIndex = ThreddsConfig.getBoolean("PointCollection.summaryIndex", false);
+    CompositeDatasetFactory.setSummaryIndex(pointSummaryIndex);
+    startupLog.info("CdmInit: CompositeDatasetFactory.setSummaryIndex= "+pointSummaryIndex);
 
     // HTTP file access : // allow 10 - 20 open datasets, cleanup every 17 minutes
     min = ThreddsConfig.getInt("HTTPFileCache.minFiles", 10);
@@ -242,6 +328,11 @@ public class CdmInit implements InitializingBean,  DisposableBean{
     Aggregation.setTypicalDatasetMode(typicalDataset);
     startupLog.info("CdmInit: Aggregation.setTypicalDatasetMode= "+typicalDataset);
 
+    // memory for cached coordinate / promoted values of all aggregations; the rest spills to the AggregationCache
+    long cacheVarMemory = ThreddsConfig.getBytes("Aggregation.cacheVarMemory", (long) 64 * 1000 * 1000);
+    Aggregation.setCacheVarMemory(cacheVarMemory);
+    startupLog.info("CdmInit: Aggregation.cacheVarMemory= "+cacheVarMemory);
+
     // Nj22 disk cache
     dir = ThreddsConfig.get("DiskCache.dir", new File( tdsContext.getContentDirectory(), "/cache/cdm/" ).getPath());
     boolean alwaysUse = ThreddsConfig.getBoolean("DiskCache.alwaysUse", false);
@@ -286,6 +377,10 @@ public class CdmInit implements InitializingBean,  DisposableBean{
   public void destroy() throws Exception {
     if (timer != null) timer.cancel();
     FileCache.shutdown();
+    if (gribDecodeExecutor != null) gribDecodeExecutor.shutdownNow();
+    if (gribIndexExecutor != null) gribIndexExecutor.shutdownNow();
+    if (hdf5ChunkExecutor != null) hdf5ChunkExecutor.shutdownNow();
+    if (pointCollectionExecutor != null) pointCollectionExecutor.shutdownNow();
     if (aggCache != null) aggCache.exit();
     if (gribCache != null) gribCache.exit();
     if (cdmrCache != null) cdmrCache.exit();
@@ -1,25 +1,22 @@
 package thredds.server.ncSubset.view;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import org.jfree.util.Log;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 
-import thredds.server.ncSubset.util.NcssRequestUtils;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Attribute;
-import ucar.nc2.dataset.CoordinateAxis1D;
-import ucar.nc2.dt.GridCoordSystem;
 import ucar.nc2.dt.GridDataset;
 import ucar.nc2.dt.GridDatatype;
 import ucar.nc2.dt.grid.GridAsPointDataset;
@@ -31,11 +28,15 @@ class CSVPointDataWriter implements PointDataWriter  {
 
 	static private Logger log = LoggerFactory.getLogger(CSVPointDataWriter.class);
 
+	//Rows are written through a bounded buffer, and flushed to the response every ROWS_PER_BATCH rows
+	static private final int BUFFER_SIZE = 16 * 1024;
+	static private final int ROWS_PER_BATCH = 256;
+
 	private PrintWriter printWriter;
 
-	private Map<String,List<String>> allVars;
+	private Map<String, GridPointColumns> allColumns;
 
-	private Map<String, GridAsPointDataset> gridAsPointDatasets=new HashMap<String, GridAsPointDataset>();
+	private int rows = 0;
 
 	private boolean headersSet = false;
 
@@ -43,7 +44,7 @@ class CSVPointDataWriter implements PointDataWriter  {
 	private HttpHeaders httpHeaders;
 
 	private CSVPointDataWriter(OutputStream os){
-		printWriter= new PrintWriter(os);
+		printWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(os), BUFFER_SIZE));
 	}
 
 	public static CSVPointDataWriter createCSVPointDataWriter(OutputStream os){
@@ -54,10 +55,7 @@ class CSVPointDataWriter implements PointDataWriter  {
 
 	public boolean header(Map<String,List<String>> groupedVars, GridDataset gridDataset, List<CalendarDate> wDates, List<Attribute> timeDimAtts, LatLonPoint point, Double vertCoord) {		
 
-		allVars = groupedVars; 
-		for(Entry<String, List<String>> entry : groupedVars.entrySet()){
-			gridAsPointDatasets.put( entry.getKey() , NcssRequestUtils.buildGridAsPointDataset(gridDataset, entry.getValue()));
-		}
+		allColumns = GridPointColumns.build(gridDataset, groupedVars);
 
 		return true;
 
@@ -80,21 +78,19 @@ class CSVPointDataWriter implements PointDataWriter  {
 		int contKeys = 1;
 		for(String key : keys){
 
-			List<String> varsGroup = groupedVars.get(key);
-			boolean hasEnsembleDim =gds.findGridByShortName(varsGroup.get(0)).getEnsembleDimension() !=null;			
-			writeGroupHeader(varsGroup, gds, hasEnsembleDim, !wDates.isEmpty());
+			GridPointColumns cols = allColumns.get(key);
+			boolean hasEnsembleDim = cols.grids.get(0).getEnsembleDimension() !=null;
+			writeGroupHeader(cols, hasEnsembleDim, !wDates.isEmpty());
 			boolean pointRead =true;
 			if(wDates.isEmpty()){
-				//pointRead = write(varsGroup, gds, point, vertCoord);
-				pointRead = write(key, gds, point, vertCoord);
+				pointRead = writeGroup(cols, point, vertCoord);
 			}else{
 				//Loop over time
 				CalendarDate date;
 				Iterator<CalendarDate> it = wDates.iterator();				
 				while( pointRead && it.hasNext() ){
 					date = it.next();
-					//pointRead = write(varsGroup, gds, date, point, vertCoord);
-					pointRead = write(key, gds, date, point, vertCoord);
+					pointRead = writeGroup(cols, date, point, vertCoord);
 				}
 			}
 
@@ -111,36 +107,18 @@ class CSVPointDataWriter implements PointDataWriter  {
 	/*
 	 * Write method for datasets without time dimension
 	 */
-	private boolean write(String keyVarsGroup, GridDataset gridDataset, LatLonPoint point, Double targetLevel) {
+	private boolean writeGroup(GridPointColumns cols, LatLonPoint point, Double targetLevel) {
 
 		boolean allDone = true;
 
-		List<String> varsGroup = allVars.get(keyVarsGroup);
-		GridAsPointDataset gap = gridAsPointDatasets.get(keyVarsGroup);
-
-		CoordinateAxis1D verticalAxisForGroup = gridDataset.findGridDatatype(varsGroup.get(0)).getCoordinateSystem().getVerticalAxis();
-		if(verticalAxisForGroup ==null){
+		if(cols.zAxis ==null){
 			//Read and write vars--> point
-			allDone = allDone && write(varsGroup, gridDataset, gap, point);
+			allDone = allDone && write(cols, point);
 		}else{
 			//read and write time, verCoord for each variable in group
-			if(targetLevel != null){
-				Double vertCoord = NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, targetLevel);
-				allDone = write(varsGroup, gridDataset, gap,  point, vertCoord, verticalAxisForGroup.getUnitsString() );
-			}else{//All levels
-				for(Double vertCoord : verticalAxisForGroup.getCoordValues() ){
-					/////Fix axis!!!!
-					if(verticalAxisForGroup.getCoordValues().length ==1  )
-						vertCoord =NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, vertCoord);
-
-					allDone = allDone && write(varsGroup, gridDataset, gap, point, vertCoord, verticalAxisForGroup.getUnitsString() );
-
-				}
-			}				
-
-		}			
-		//printWriter.println();
-		//}
+			for(Double vertCoord : cols.getVertCoords(targetLevel) )
+				allDone = allDone && write(cols, point, vertCoord );
+		}
 
 		return allDone;
 	}	
@@ -148,51 +126,26 @@ class CSVPointDataWriter implements PointDataWriter  {
 	/*
 	 * write method for grids with time dimension
 	 */
-	private boolean write(String keyVarsGroup,	GridDataset gridDataset, CalendarDate date, LatLonPoint point, Double targetLevel) throws InvalidRangeException {
+	private boolean writeGroup(GridPointColumns cols, CalendarDate date, LatLonPoint point, Double targetLevel) throws InvalidRangeException {
 		boolean allDone = true;
 
-		List<String> varsGroup = allVars.get(keyVarsGroup);
-		GridAsPointDataset gap = gridAsPointDatasets.get(keyVarsGroup) ;
-
-		CoordinateAxis1D verticalAxisForGroup = gridDataset.findGridDatatype( varsGroup.get(0)).getCoordinateSystem().getVerticalAxis();
-
 		//Ensemble handling...
-		GridDatatype refGrid = gridDataset.findGridDatatype( varsGroup.get(0));
-		CoordinateAxis1D ensembleAxisForGroup = refGrid.getCoordinateSystem().getEnsembleAxis();
-		double[] ensCoords = new double[]{-1};
-		if(ensembleAxisForGroup != null){
-			ensCoords = ensembleAxisForGroup.getCoordValues(); 
-		}
-
-		for(double ensCoord : ensCoords){		
+		for(double ensCoord : cols.ensCoords){		
 
-			if(verticalAxisForGroup ==null){
+			if(cols.zAxis ==null){
 				//Read and write vars--> time, point
-				allDone = allDone && write(varsGroup, gridDataset, gap, date, point, ensCoord);
+				allDone = allDone && write(cols, date, point, ensCoord);
 			}else{
-
-
 				//read and write [ensCoord], time, verCoord for each variable in group			
-				if(targetLevel != null){
-					Double vertCoord = NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, targetLevel);
-					allDone = write(varsGroup, gridDataset, gap, date, point, ensCoord, vertCoord, verticalAxisForGroup.getUnitsString() );
-				}else{//All levels
-					for(Double vertCoord : verticalAxisForGroup.getCoordValues() ){
-						/////Fix axis!!!!
-						if(verticalAxisForGroup.getCoordValues().length ==1  )
-							vertCoord =NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, vertCoord);
-
-						allDone = allDone && write(varsGroup, gridDataset, gap, date, point, ensCoord, vertCoord, verticalAxisForGroup.getUnitsString() );
-
-					}
-				}				
+				for(Double vertCoord : cols.getVertCoords(targetLevel) )
+					allDone = allDone && write(cols, date, point, ensCoord, vertCoord );
 			}
 		}
 
 		return allDone;
 	}	
 
-	private void writeGroupHeader(List<String> varGroup, GridDataset gridDataset, boolean hasEnsAxis, boolean hasTimeAxis){
+	private void writeGroupHeader(GridPointColumns cols, boolean hasEnsAxis, boolean hasTimeAxis){
 
 		StringBuilder sb = new StringBuilder();		
 		if(hasTimeAxis)
@@ -203,121 +156,119 @@ class CSVPointDataWriter implements PointDataWriter  {
 		if(hasEnsAxis)
 			sb.append("ensMember,");
 
-		GridCoordSystem coordSystem = gridDataset.findGridDatatype(varGroup.get(0)).getCoordinateSystem();
-		CoordinateAxis1D zAxis = coordSystem.getVerticalAxis();
-
-		if(zAxis != null)
-			sb.append("vertCoord[unit=\""+zAxis.getUnitsString() +"\"],");
+		if(cols.zAxis != null)
+			sb.append("vertCoord[unit=\""+cols.zUnits +"\"],");
 
-		VerticalTransform vt = coordSystem.getVerticalTransform();
+		VerticalTransform vt = cols.vt;
 		if(vt != null){
 			sb.append("vertCoord[unit=\""+vt.getUnitString() +"\"],");
 		}
 
-		Iterator<String> it = varGroup.iterator();
+		Iterator<GridDatatype> it = cols.grids.iterator();
 		while(it.hasNext()){
-			GridDatatype grid = gridDataset.findGridDatatype(it.next());
+			GridDatatype grid = it.next();
 			sb.append(grid.getName());			
 			if( grid.getUnitsString()!=null ) sb.append("[unit=\"" + grid.getUnitsString() + "\"]");			
 			if(it.hasNext()) sb.append(",");
 		}
 
 		printWriter.write(sb.toString());
-		printWriter.println();					
+		printWriter.println();
+		printWriter.flush();
+	}
+
+	//end of a row: send a batch of rows on to the client
+	private void endRow(){
+		printWriter.println();
+		rows++;
+		if(rows % ROWS_PER_BATCH == 0)
+			printWriter.flush();
 	}
 
 
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap,  LatLonPoint point,	Double targetLevel, String zUnits) {
+	private boolean write(GridPointColumns cols, LatLonPoint point, Double targetLevel) {
 
 		boolean allDone = false;
+		GridAsPointDataset gap = cols.gap;
+		int n = cols.size();
 
-		int contVars= 0;					 
-		Iterator<String> itVars = vars.iterator();
 		try{
-			while (itVars.hasNext()) {
-				GridDatatype grid = gridDataset.findGridDatatype(itVars.next());
+			for(int i = 0; i < n; i++) {
+				GridDatatype grid = cols.grids.get(i);
 				if (  gap.hasVert(grid, targetLevel) ) {
 					GridAsPointDataset.Point p = gap.readData(grid, null, targetLevel, point.getLatitude(), point.getLongitude());
-					if(contVars == 0){
-						//printWriter.write(Double.valueOf(p.lat).toString()+"," );
-						//printWriter.write(Double.valueOf(p.lon).toString()+"," );
-						printWriter.write(Double.valueOf(point.getLatitude() ).toString()+"," );
-						printWriter.write(Double.valueOf(point.getLongitude()).toString()+"," );						
-						printWriter.write(Double.valueOf(p.z).toString()+"," );
+					if(i == 0){
+						printWriter.write(Double.toString(point.getLatitude())+"," );
+						printWriter.write(Double.toString(point.getLongitude())+"," );
+						printWriter.write(Double.toString(p.z)+"," );
 					}							
-					printWriter.write(Double.valueOf(p.dataValue).toString());
-					if(itVars.hasNext()) printWriter.write(",");
+					printWriter.write(Double.toString(p.dataValue));
 
 				} else {
 					// write missingvalues!!!
-					if(contVars==0){
+					if(i == 0){
 						printWriter.write( point.getLatitude()+"," );
 						printWriter.write( point.getLongitude() +"," );
 						printWriter.write( targetLevel +"," );
 					}
-					printWriter.write( Double.valueOf(gap.getMissingValue(grid)).toString() );
-					if(itVars.hasNext()) printWriter.write(",");
+					printWriter.write( Double.toString(gap.getMissingValue(grid)) );
 				}					
-				contVars++;
+				if(i < n - 1) printWriter.write(",");
 			}
 			allDone = true;
 		}catch(IOException ioe){
 			Log.error("Error reading data", ioe);
 		}	
-		printWriter.println();	
+		endRow();
 		return allDone;
 
 	}	
 
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap, CalendarDate date, LatLonPoint point,	Double ensCoord,Double targetLevel, String zUnits) throws InvalidRangeException {
+	private boolean write(GridPointColumns cols, CalendarDate date, LatLonPoint point,	Double ensCoord,Double targetLevel) throws InvalidRangeException {
 
 		boolean allDone = false;
+		GridAsPointDataset gap = cols.gap;
+		int n = cols.size();
+
 		printWriter.write(date.toString()+",");
-		int contVars= 0;					 
-		Iterator<String> itVars = vars.iterator();
 		try{
-			while (itVars.hasNext()) {
-				GridDatatype grid = gridDataset.findGridDatatype(itVars.next());
+			double actualLevel = cols.getActualVertLevel(date, point, targetLevel);
 
-				double actualLevel = NcssRequestUtils.getActualVertLevel(grid, date, point, targetLevel);
+			for(int i = 0; i < n; i++) {
+				GridDatatype grid = cols.grids.get(i);
 
 				if ( gap.hasTime(grid, date) && gap.hasVert(grid, targetLevel) ) {
 					GridAsPointDataset.Point p = gap.readData(grid, date, ensCoord, targetLevel, point.getLatitude(), point.getLongitude());
-					if(contVars == 0){							
-						//printWriter.write(Double.valueOf(p.lat).toString()+"," );
-						//printWriter.write(Double.valueOf(p.lon).toString()+"," );
+					if(i == 0){							
 						printWriter.write( point.getLatitude()+"," );
 						printWriter.write( point.getLongitude() +"," );						
 						if( ensCoord >= 0 )
-							printWriter.write(Double.valueOf(p.ens).toString()+"," );
+							printWriter.write(Double.toString(p.ens)+"," );
 
-						printWriter.write(Double.valueOf(p.z).toString()+"," );
+						printWriter.write(Double.toString(p.z)+"," );
 
 						if(actualLevel != -9999.9)//Print the actual level
-							printWriter.write(Double.valueOf(actualLevel).toString()+"," );
+							printWriter.write(Double.toString(actualLevel)+"," );
 
 					}							
-					printWriter.write(Double.valueOf(p.dataValue).toString());
-					if(itVars.hasNext()) printWriter.write(",");
+					printWriter.write(Double.toString(p.dataValue));
 
 				} else {
 					// write missingvalues!!!
-					if(contVars==0){
+					if(i == 0){
 						printWriter.write( point.getLatitude()+"," );
 						printWriter.write( point.getLongitude() +"," );
 						printWriter.write( targetLevel +"," );
 					}
-					printWriter.write( Double.valueOf(gap.getMissingValue(grid)).toString() );
-					if(itVars.hasNext()) printWriter.write(",");
+					printWriter.write( Double.toString(gap.getMissingValue(grid)) );
 				}					
-				contVars++;
-
+				if(i < n - 1) printWriter.write(",");
 			}
 			allDone = true;
 		}catch(IOException ioe){
 			Log.error("Error reading data", ioe);
 		}	
-		printWriter.println();	
+		endRow();
 		return allDone;
 
 	}
@@ -325,83 +276,68 @@ class CSVPointDataWriter implements PointDataWriter  {
 	/*
 	 * Write method for grids without time and vertical dimensions
 	 */
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap, LatLonPoint point) {
+	private boolean write(GridPointColumns cols, LatLonPoint point) {
 
 		boolean allDone = false;
-		int contVars= 0;					 
-		Iterator<String> itVars = vars.iterator();
+		GridAsPointDataset gap = cols.gap;
+		int n = cols.size();
+
 		try{
-			while (itVars.hasNext()) {
-				GridDatatype grid = gridDataset.findGridDatatype(itVars.next());
-				//if (gap.hasTime(grid, date) ) {
+			for(int i = 0; i < n; i++) {
+				GridDatatype grid = cols.grids.get(i);
 				GridAsPointDataset.Point p = gap.readData(grid, null, point.getLatitude(), point.getLongitude());
-				if(contVars == 0){
-					//printWriter.write(Double.valueOf(p.lat).toString()+"," );
-					//printWriter.write(Double.valueOf(p.lon).toString()+"," );
+				if(i == 0){
 					printWriter.write( point.getLatitude()+"," );
 					printWriter.write( point.getLongitude() +"," );					
 				}							
-				printWriter.write(Double.valueOf(p.dataValue).toString());
-				if(itVars.hasNext()) printWriter.write(",");
-
-				//} else {
-				// write missingvalues!!!
-				//	if(contVars==0){
-				//		printWriter.write( point.getLatitude()+"," );
-				//		printWriter.write( point.getLongitude() +"," );
-				//	}
-				//	printWriter.write( Double.valueOf(gap.getMissingValue(grid)).toString() );
-				//}					
-				contVars++;
+				printWriter.write(Double.toString(p.dataValue));
+				if(i < n - 1) printWriter.write(",");
 			}
 			allDone = true;
 		}catch(IOException ioe){
 			Log.error("Error reading data", ioe);
 		}	
-		printWriter.println();	
+		endRow();
 		return allDone;
 
 	}	
 
 
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap, CalendarDate date, LatLonPoint point, Double ensCoord) {
+	private boolean write(GridPointColumns cols, CalendarDate date, LatLonPoint point, Double ensCoord) {
 
 		boolean allDone = false;
+		GridAsPointDataset gap = cols.gap;
+		int n = cols.size();
+
 		printWriter.write(date.toString()+",");
-		int contVars= 0;					 
-		Iterator<String> itVars = vars.iterator();
 		try{
-			while (itVars.hasNext()) {
-				GridDatatype grid = gridDataset.findGridDatatype(itVars.next());
+			for(int i = 0; i < n; i++) {
+				GridDatatype grid = cols.grids.get(i);
 				if (gap.hasTime(grid, date) ) {
 					GridAsPointDataset.Point p = gap.readData(grid, date, ensCoord, -1, point.getLatitude(), point.getLongitude());
-					if(contVars == 0){
-						//printWriter.write(Double.valueOf(p.lat).toString()+"," );
-						//printWriter.write(Double.valueOf(p.lon).toString()+"," );
+					if(i == 0){
 						printWriter.write( point.getLatitude()+"," );
 						printWriter.write( point.getLongitude() +"," );						
 						if(ensCoord >= 0)
-							printWriter.write(Double.valueOf(p.ens).toString()+"," );
+							printWriter.write(Double.toString(p.ens)+"," );
 					}							
-					printWriter.write(Double.valueOf(p.dataValue).toString());
-					if(itVars.hasNext()) printWriter.write(",");
+					printWriter.write(Double.toString(p.dataValue));
 
 				} else {
 					// write missingvalues!!!
-					if(contVars==0){
+					if(i == 0){
 						printWriter.write( point.getLatitude()+"," );
 						printWriter.write( point.getLongitude() +"," );
 					}
-					printWriter.write( Double.valueOf(gap.getMissingValue(grid)).toString() );
-					if(itVars.hasNext()) printWriter.write(",");
+					printWriter.write( Double.toString(gap.getMissingValue(grid)) );
 				}					
-				contVars++;
+				if(i < n - 1) printWriter.write(",");
 			}
 			allDone = true;
 		}catch(IOException ioe){
 			Log.error("Error reading data", ioe);
 		}	
-		printWriter.println();	
+		endRow();
 		return allDone;
 
 	}
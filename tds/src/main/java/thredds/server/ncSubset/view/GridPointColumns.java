@@ -0,0 +1,130 @@
+package thredds.server.ncSubset.view;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import thredds.server.ncSubset.util.NcssRequestUtils;
+import ucar.ma2.ArrayDouble;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.dataset.CoordinateAxis1D;
+import ucar.nc2.dataset.CoordinateAxis1DTime;
+import ucar.nc2.dt.GridCoordSystem;
+import ucar.nc2.dt.GridDataset;
+import ucar.nc2.dt.GridDatatype;
+import ucar.nc2.dt.grid.GridAsPointDataset;
+import ucar.nc2.time.CalendarDate;
+import ucar.unidata.geoloc.LatLonPoint;
+import ucar.unidata.geoloc.vertical.VerticalTransform;
+
+/**
+ * The columns of one group of variables (same vertical levels) in a grid as point request,
+ * resolved once when the header is written, so writing a row does no lookups by name.
+ * The actual levels of a vertical transform are read once per time, not once per variable.
+ *
+ * @since Oct 18, 2026
+ */
+class GridPointColumns {
+
+	final List<String> names;
+	final List<GridDatatype> grids;
+	final GridAsPointDataset gap;
+	final GridCoordSystem coordSys; // of the first variable
+	final CoordinateAxis1D zAxis;   // may be null
+	final String zUnits;
+	final VerticalTransform vt;     // may be null
+	final double[] ensCoords;       // {-1} if no ensemble axis
+	final double[][] gridEnsCoords; // of each grid, null if it has no ensemble axis
+
+	private int[] xy;               // index of the point, when there is a vertical transform
+	private int levelsTime = -1;
+	private ArrayDouble.D1 levels;  // actual levels at levelsTime
+
+	private GridPointColumns(GridDataset gds, List<String> vars){
+
+		names = vars;
+		grids = new ArrayList<GridDatatype>(vars.size());
+		gridEnsCoords = new double[vars.size()][];
+		for(String var : vars){
+			GridDatatype grid = gds.findGridDatatype(var);
+			CoordinateAxis1D ensAxis = grid.getCoordinateSystem().getEnsembleAxis();
+			if(ensAxis != null)
+				gridEnsCoords[grids.size()] = ensAxis.getCoordValues();
+			grids.add(grid);
+		}
+
+		gap = new GridAsPointDataset(grids);
+		coordSys = grids.get(0).getCoordinateSystem();
+		zAxis = coordSys.getVerticalAxis();
+		zUnits = (zAxis == null) ? null : zAxis.getUnitsString();
+		vt = coordSys.getVerticalTransform();
+
+		CoordinateAxis1D ensAxis = coordSys.getEnsembleAxis();
+		ensCoords = (ensAxis != null) ? ensAxis.getCoordValues() : new double[]{-1};
+	}
+
+	/**
+	 * Resolve the columns of each group, in the order of the groups.
+	 */
+	static Map<String, GridPointColumns> build(GridDataset gds, Map<String, List<String>> groupedVars){
+
+		Map<String, GridPointColumns> columns = new LinkedHashMap<String, GridPointColumns>();
+		for(Map.Entry<String, List<String>> entry : groupedVars.entrySet())
+			columns.put(entry.getKey(), new GridPointColumns(gds, entry.getValue()));
+
+		return columns;
+	}
+
+	int size(){
+		return grids.size();
+	}
+
+	/**
+	 * The vertical coordinates to write for this group: just the target level if there is one, else all of them.
+	 * Empty if the group has no vertical axis.
+	 */
+	List<Double> getVertCoords(Double targetLevel){
+
+		List<Double> result = new ArrayList<Double>();
+		if(zAxis == null) return result;
+
+		if(targetLevel != null){
+			result.add(NcssRequestUtils.getTargetLevelForVertCoord(zAxis, targetLevel));
+		}else{
+			double[] coords = zAxis.getCoordValues();
+			for(double vertCoord : coords){
+				/////Fix axis!!!!
+				if(coords.length == 1)
+					result.add(NcssRequestUtils.getTargetLevelForVertCoord(zAxis, vertCoord));
+				else
+					result.add(vertCoord);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Same as NcssRequestUtils.getActualVertLevel() for each grid of the group,
+	 * but reads the column of actual levels once for each time.
+	 */
+	double getActualVertLevel(CalendarDate date, LatLonPoint point, double targetLevel) throws IOException, InvalidRangeException {
+
+		if(vt == null) return -9999.9;
+
+		if(xy == null){
+			xy = new int[2];
+			coordSys.findXYindexFromLatLon(point.getLatitude(), point.getLongitude(), xy);
+		}
+
+		CoordinateAxis1DTime timeAxis = coordSys.getTimeAxis1D();
+		int timeIndex = (timeAxis == null) ? 0 : timeAxis.findTimeIndexFromCalendarDate(date);
+		if(levels == null || timeIndex != levelsTime){
+			levels = vt.getCoordinateArray1D(timeIndex, xy[0], xy[1]);
+			levelsTime = timeIndex;
+		}
+
+		return levels.get(zAxis.findCoordElement(targetLevel));
+	}
+}
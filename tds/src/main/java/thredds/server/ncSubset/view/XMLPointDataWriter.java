@@ -8,7 +8,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Map.Entry;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -18,30 +17,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 
-import thredds.server.ncSubset.exception.OutOfBoundariesException;
-import thredds.server.ncSubset.util.NcssRequestUtils;
-import ucar.ma2.ArrayDouble;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Attribute;
 import ucar.nc2.constants.CDM;
-import ucar.nc2.dataset.CoordinateAxis1D;
-import ucar.nc2.dataset.CoordinateAxis1DTime;
-import ucar.nc2.dt.GridCoordSystem;
 import ucar.nc2.dt.GridDataset;
 import ucar.nc2.dt.GridDatatype;
 import ucar.nc2.dt.grid.GridAsPointDataset;
 import ucar.nc2.time.CalendarDate;
-import ucar.nc2.units.DateUnit;
 import ucar.unidata.geoloc.LatLonPoint;
-import ucar.unidata.geoloc.vertical.VerticalTransform;
 
 class XMLPointDataWriter implements PointDataWriter {
 
 	static private Logger log = LoggerFactory.getLogger(XMLPointDataWriter.class);
 
-	private Map<String,List<String>> allVars;	
-	private Map<String, GridAsPointDataset> gridAsPointDatasets=new HashMap<String, GridAsPointDataset>();	
+	//Points are flushed to the response every POINTS_PER_BATCH points
+	static private final int POINTS_PER_BATCH = 128;
+
+	private Map<String, GridPointColumns> allColumns;
 	private XMLStreamWriter xmlStreamWriter;
+	private int points = 0;
 
 	private XMLPointDataWriter(OutputStream os) {
 
@@ -54,10 +48,7 @@ class XMLPointDataWriter implements PointDataWriter {
 
 	//public boolean header(Map<String, List<String>> vars, GridDataset gridDataset, List<CalendarDate> wDates, DateUnit dateUnit,LatLonPoint point, Double vertCoord) {
 	public boolean header(Map<String, List<String>> groupedVars, GridDataset gridDataset, List<CalendarDate> wDates, List<Attribute> timeDimAtts,LatLonPoint point, Double vertCoord) {
-		allVars = groupedVars; 
-		for(Entry<String, List<String>> entry : groupedVars.entrySet() ){
-			gridAsPointDatasets.put( entry.getKey(), NcssRequestUtils.buildGridAsPointDataset(gridDataset, entry.getValue()	)  );
-		}		
+		allColumns = GridPointColumns.build(gridDataset, groupedVars);
 
 		boolean headerWritten = false;
 		try {
@@ -65,6 +56,7 @@ class XMLPointDataWriter implements PointDataWriter {
 			xmlStreamWriter.writeStartElement("grid");
 			xmlStreamWriter.writeAttribute("dataset",
 					gridDataset.getLocationURI());
+			xmlStreamWriter.flush();
 			headerWritten = true;
 		} catch (XMLStreamException xse) {
 			log.error("Error writting xml header", xse);
@@ -74,38 +66,21 @@ class XMLPointDataWriter implements PointDataWriter {
 	}
 
 
-	private boolean write(List<String> groupsKeys,	GridDataset gridDataset, CalendarDate date, LatLonPoint point, Double targetLevel) throws InvalidRangeException {
+	private boolean write(List<String> groupsKeys, CalendarDate date, LatLonPoint point, Double targetLevel) throws InvalidRangeException {
 
 		boolean allDone = true;
 
-		//List<String> keys =new ArrayList<String>(groupedVars.keySet());
 		//loop over variable groups
-		//for(String key : keys){
 		for(String key : groupsKeys){
 			//get wanted vertCoords for group (all if vertCoord==null just one otherwise)
-			List<String> varsGroup = allVars.get(key);
-			//GridAsPointDataset gap = NcssRequestUtils.buildGridAsPointDataset(gridDataset,	varsGroup);
-			GridAsPointDataset gap = gridAsPointDatasets.get(key);
-			CoordinateAxis1D verticalAxisForGroup = gridDataset.findGridDatatype(varsGroup.get(0)).getCoordinateSystem().getVerticalAxis();
-			if(verticalAxisForGroup ==null){
+			GridPointColumns cols = allColumns.get(key);
+			if(cols.zAxis ==null){
 				//Read and write vars--> time, point
-				allDone = allDone && write(varsGroup, gridDataset, gap, date, point);
+				allDone = allDone && write(cols, date, point);
 			}else{
 				//read and write time, verCoord for each variable in group
-				if(targetLevel != null){
-					Double vertCoord = NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, targetLevel);
-					allDone = write(varsGroup, gridDataset, gap, date, point, vertCoord, verticalAxisForGroup.getUnitsString() );
-				}else{//All levels
-					for(Double vertCoord : verticalAxisForGroup.getCoordValues() ){
-						/////Fix axis!!!!
-						if(verticalAxisForGroup.getCoordValues().length ==1  )
-							vertCoord =NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, vertCoord);
-
-						allDone = allDone && write(varsGroup, gridDataset, gap, date, point, vertCoord, verticalAxisForGroup.getUnitsString() );
-
-					}
-				}				
-
+				for(Double vertCoord : cols.getVertCoords(targetLevel) )
+					allDone = allDone && write(cols, date, point, vertCoord );
 			}			
 
 		}
@@ -121,51 +96,31 @@ class XMLPointDataWriter implements PointDataWriter {
 		List<String> keysAsList = new ArrayList<String>(groupedVars.keySet()); 
 		//Check wDates -> Could be empty (dataset with not time axis)
 		if( wDates.isEmpty() ){
-			//pointRead = write(groupedVars, gds, point, vertCoord);
-			pointRead = write(keysAsList, gds, point, vertCoord);
+			pointRead = write(keysAsList, point, vertCoord);
 		}else{
 			while( pointRead && it.hasNext() ){
 				date = it.next();
-				//pointRead = write(groupedVars, gds, date, point, vertCoord);
-				pointRead = write(keysAsList , gds, date, point, vertCoord);
+				pointRead = write(keysAsList, date, point, vertCoord);
 			}		
 		}
 		return pointRead;
 	}	
 
-	//private boolean write(Map<String, List<String>> groupedVars, GridDataset gds, LatLonPoint point, Double targetLevel) {
-	private boolean write(List<String> groupsKeys, GridDataset gds, LatLonPoint point, Double targetLevel) {
+	private boolean write(List<String> groupsKeys, LatLonPoint point, Double targetLevel) {
 
 		boolean allDone = true;
 
-		//List<String> keys =new ArrayList<String>(groupedVars.keySet());
 		//loop over variable groups
 		for(String key : groupsKeys){
 			//get wanted vertCoords for group (all if vertCoord==null just one otherwise)
-			//List<String> varsGroup = groupedVars.get(key);
-			List<String> varsGroup = allVars.get(key);
-			//GridAsPointDataset gap = NcssRequestUtils.buildGridAsPointDataset(gds,	varsGroup);
-			GridAsPointDataset gap = gridAsPointDatasets.get(key);
-			CoordinateAxis1D verticalAxisForGroup = gds.findGridDatatype(varsGroup.get(0)).getCoordinateSystem().getVerticalAxis();
-			if(verticalAxisForGroup ==null){
+			GridPointColumns cols = allColumns.get(key);
+			if(cols.zAxis ==null){
 				//Read and write vars--> time, point
-				allDone = allDone && write(varsGroup, gds, gap, point);
+				allDone = allDone && write(cols, point);
 			}else{
 				//read and write time, verCoord for each variable in group
-				if(targetLevel != null){
-					Double vertCoord = NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, targetLevel);
-					allDone = write(varsGroup, gds, gap, point, vertCoord, verticalAxisForGroup.getUnitsString() );
-				}else{//All levels
-					for(Double vertCoord : verticalAxisForGroup.getCoordValues() ){
-						/////Fix axis!!!!
-						if(verticalAxisForGroup.getCoordValues().length ==1  )
-							vertCoord =NcssRequestUtils.getTargetLevelForVertCoord(verticalAxisForGroup, vertCoord);
-
-						allDone = allDone && write(varsGroup, gds, gap, point, vertCoord, verticalAxisForGroup.getUnitsString() );
-
-					}
-				}				
-
+				for(Double vertCoord : cols.getVertCoords(targetLevel) )
+					allDone = allDone && write(cols, point, vertCoord );
 			}			
 
 		}
@@ -173,9 +128,17 @@ class XMLPointDataWriter implements PointDataWriter {
 
 	}
 
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap, CalendarDate date, LatLonPoint point, Double targetLevel, String zUnits) throws InvalidRangeException {
+	//end of a point: send a batch of points on to the client
+	private void endPoint() throws XMLStreamException {
+		xmlStreamWriter.writeEndElement(); //Closes point
+		points++;
+		if(points % POINTS_PER_BATCH == 0)
+			xmlStreamWriter.flush();
+	}
+
+	private boolean write(GridPointColumns cols, CalendarDate date, LatLonPoint point, Double targetLevel) throws InvalidRangeException {
 
-		Iterator<String> itVars = vars.iterator();
+		GridAsPointDataset gap = cols.gap;
 		boolean pointDone=false;
 		try {
 			xmlStreamWriter.writeStartElement("point");
@@ -183,21 +146,17 @@ class XMLPointDataWriter implements PointDataWriter {
 			attributes.put("name", "date");
 			writeDataTag( xmlStreamWriter, attributes, date.toString() );
 			attributes.clear();
+
+			double actualLevel = cols.getActualVertLevel(date, point, targetLevel);
+
 			int contVars = 0;
-			while (itVars.hasNext()) {
-				String varName = itVars.next();
-				GridDatatype grid = gridDataset.findGridDatatype(varName);
+			for(int i = 0; i < cols.size(); i++) {
+				String varName = cols.names.get(i);
+				GridDatatype grid = cols.grids.get(i);
+
 				//Handling the ensemble dimension...
-				CoordinateAxis1D ensembleAxis = grid.getCoordinateSystem().getEnsembleAxis();
-				boolean hasEnsembleDim = false;
-				double[] ensCoords = new double[]{-1};
-				if(ensembleAxis !=null ){
-					ensCoords = ensembleAxis.getCoordValues();
-					hasEnsembleDim = true;
-				}
-				
-				
-				double actualLevel = NcssRequestUtils.getActualVertLevel(grid, date, point, targetLevel);
+				boolean hasEnsembleDim = (cols.gridEnsCoords[i] != null);
+				double[] ensCoords = hasEnsembleDim ? cols.gridEnsCoords[i] : new double[]{-1};
 
 				for(double ensCoord : ensCoords){
 
@@ -205,18 +164,17 @@ class XMLPointDataWriter implements PointDataWriter {
 						GridAsPointDataset.Point p = gap.readData(grid, date, ensCoord, targetLevel, point.getLatitude(),	point.getLongitude());
 
 						if (contVars == 0) {
-							//writeCoordinates(xmlStreamWriter, Double.valueOf(p.lat), Double.valueOf(p.lon));
 							writeCoordinates(xmlStreamWriter, Double.valueOf(point.getLatitude()), Double.valueOf(point.getLongitude()));
 							attributes.put("name", "vertCoord");
-							attributes.put("units", zUnits);						
-							writeDataTag(xmlStreamWriter, attributes, Double.valueOf(p.z).toString());
+							attributes.put("units", cols.zUnits);						
+							writeDataTag(xmlStreamWriter, attributes, Double.toString(p.z));
 							attributes.clear();
 							
 							if(actualLevel != -9999.9){
 								
 								attributes.put("name", "vertCoord");
-								attributes.put("units", grid.getCoordinateSystem().getVerticalTransform().getUnitString() );
-								writeDataTag(xmlStreamWriter, attributes, Double.valueOf(actualLevel).toString());
+								attributes.put("units", cols.vt.getUnitString() );
+								writeDataTag(xmlStreamWriter, attributes, Double.toString(actualLevel));
 								attributes.clear();								
 								
 							}
@@ -225,10 +183,9 @@ class XMLPointDataWriter implements PointDataWriter {
 						attributes.put("name", varName);
 						attributes.put("units", grid.getUnitsString());
 						if(hasEnsembleDim)
-							//attributes.put("ensMember", Integer.valueOf((int)ensCoord).toString() );
-							attributes.put("ensMember", Double.valueOf(p.ens).toString() );
+							attributes.put("ensMember", Double.toString(p.ens) );
 
-						writeDataTag(xmlStreamWriter, attributes, Double.valueOf(p.dataValue).toString());
+						writeDataTag(xmlStreamWriter, attributes, Double.toString(p.dataValue));
 						attributes.clear();
 
 					} else {
@@ -238,13 +195,13 @@ class XMLPointDataWriter implements PointDataWriter {
 						}
 						attributes.put("name", varName);
 						attributes.put("units", grid.getUnitsString());
-						writeDataTag(xmlStreamWriter, attributes, Double.valueOf(gap.getMissingValue(grid)).toString());
+						writeDataTag(xmlStreamWriter, attributes, Double.toString(gap.getMissingValue(grid)));
 						attributes.clear();
 					}
 					contVars++;
 				}
 			}
-			xmlStreamWriter.writeEndElement(); //Closes point
+			endPoint();
 			pointDone = true;
 		} catch (XMLStreamException xse) {
 			log.error("Error writting tag point", xse);
@@ -259,57 +216,48 @@ class XMLPointDataWriter implements PointDataWriter {
 	 * 
 	 * Write method when the grid has no time axis but has vertical axis
 	 * 
-	 * @param vars
-	 * @param gridDataset
-	 * @param gap
+	 * @param cols
 	 * @param point
 	 * @param targetLevel
-	 * @param zUnits
 	 * @return
 	 */
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap,  LatLonPoint point, Double targetLevel, String zUnits) {
+	private boolean write(GridPointColumns cols, LatLonPoint point, Double targetLevel) {
 
-		Iterator<String> itVars = vars.iterator();
+		GridAsPointDataset gap = cols.gap;
 		boolean pointDone=false;
 		try {
 			xmlStreamWriter.writeStartElement("point");
 			Map<String, String> attributes = new HashMap<String, String>();
-			//attributes.put("name", "date");
-			//writeDataTag( xmlStreamWriter, attributes, date.toString() );
-			//attributes.clear();
-			int contVars = 0;
-			while (itVars.hasNext()) {
-				String varName = itVars.next();
-				GridDatatype grid = gridDataset.findGridDatatype(varName);
+			for(int i = 0; i < cols.size(); i++) {
+				String varName = cols.names.get(i);
+				GridDatatype grid = cols.grids.get(i);
 
 				if ( gap.hasVert(grid, targetLevel)) {
 					GridAsPointDataset.Point p = gap.readData(grid, null, targetLevel, point.getLatitude(),	point.getLongitude());
-					if (contVars == 0) {
-						//writeCoordinates(xmlStreamWriter, Double.valueOf(p.lat), Double.valueOf(p.lon));
+					if (i == 0) {
 						writeCoordinates(xmlStreamWriter, Double.valueOf(point.getLatitude()), Double.valueOf(point.getLongitude()));
 						attributes.put("name", "vertCoord");
-						attributes.put("units", zUnits);
-						writeDataTag(xmlStreamWriter, attributes, Double.valueOf(p.z).toString());
+						attributes.put("units", cols.zUnits);
+						writeDataTag(xmlStreamWriter, attributes, Double.toString(p.z));
 						attributes.clear();
 					}
 					attributes.put("name", varName);
 					attributes.put("units", grid.getUnitsString());
-					writeDataTag(xmlStreamWriter, attributes, Double.valueOf(p.dataValue).toString());
+					writeDataTag(xmlStreamWriter, attributes, Double.toString(p.dataValue));
 					attributes.clear();
 
 				} else {
 					// write missingvalues!!!
-					if (contVars == 0) {
+					if (i == 0) {
 						writeCoordinates(xmlStreamWriter, Double.valueOf(point.getLatitude()), Double.valueOf(point.getLongitude()));
 					}
 					attributes.put("name", varName);
 					attributes.put("units", grid.getUnitsString());
-					writeDataTag(xmlStreamWriter, attributes, Double.valueOf(gap.getMissingValue(grid)).toString());
+					writeDataTag(xmlStreamWriter, attributes, Double.toString(gap.getMissingValue(grid)));
 					attributes.clear();
 				}
-				contVars++;
 			}
-			xmlStreamWriter.writeEndElement(); //Closes point
+			endPoint();
 			pointDone = true;
 		} catch (XMLStreamException xse) {
 			log.error("Error writting tag point", xse);
@@ -324,39 +272,32 @@ class XMLPointDataWriter implements PointDataWriter {
 	 * 
 	 * Write method when the grid has no time axis and no vertical axis
 	 * 
-	 * @param vars
-	 * @param gridDataset
-	 * @param gap
+	 * @param cols
 	 * @param point
 	 * @return
 	 */
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap, LatLonPoint point){
+	private boolean write(GridPointColumns cols, LatLonPoint point){
 
-		Iterator<String> itVars = vars.iterator();
+		GridAsPointDataset gap = cols.gap;
 		boolean pointDone=false;
 		try {
 			xmlStreamWriter.writeStartElement("point");
 			Map<String, String> attributes = new HashMap<String, String>();
-			attributes.clear();
-			int contVars = 0;
-			while (itVars.hasNext()) {
-				String varName = itVars.next();
-				GridDatatype grid = gridDataset.findGridDatatype(varName);
+			for(int i = 0; i < cols.size(); i++) {
+				String varName = cols.names.get(i);
+				GridDatatype grid = cols.grids.get(i);
 
 				GridAsPointDataset.Point p = gap.readData(grid, null, point.getLatitude(),	point.getLongitude());
-				if (contVars == 0) {
-					//writeCoordinates(xmlStreamWriter, Double.valueOf(p.lat), Double.valueOf(p.lon));
+				if (i == 0) {
 					writeCoordinates(xmlStreamWriter, point.getLatitude(),	point.getLongitude());
 					attributes.clear();
 				}
 				attributes.put("name", varName);
 				attributes.put("units", grid.getUnitsString());
-				writeDataTag(xmlStreamWriter, attributes, Double.valueOf(p.dataValue).toString());
+				writeDataTag(xmlStreamWriter, attributes, Double.toString(p.dataValue));
 				attributes.clear();
-
-				contVars++;
 			}
-			xmlStreamWriter.writeEndElement(); //Closes point
+			endPoint();
 			pointDone = true;
 		} catch (XMLStreamException xse) {
 			log.error("Error writting tag point", xse);
@@ -372,16 +313,14 @@ class XMLPointDataWriter implements PointDataWriter {
 	 * 
 	 * Write method for grids with time axis but not vertical level
 	 * 
-	 * @param vars
-	 * @param gridDataset
-	 * @param gap
+	 * @param cols
 	 * @param date
 	 * @param point
 	 * @return
 	 */
-	private boolean write(List<String> vars, GridDataset gridDataset, GridAsPointDataset gap, CalendarDate date, LatLonPoint point){
+	private boolean write(GridPointColumns cols, CalendarDate date, LatLonPoint point){
 
-		Iterator<String> itVars = vars.iterator();
+		GridAsPointDataset gap = cols.gap;
 		boolean pointDone=false;
 		try {
 			xmlStreamWriter.writeStartElement("point");
@@ -390,18 +329,13 @@ class XMLPointDataWriter implements PointDataWriter {
 			writeDataTag( xmlStreamWriter, attributes, date.toString() );
 			attributes.clear();
 			int contVars = 0;
-			while (itVars.hasNext()) {
-				String varName = itVars.next();
-				GridDatatype grid = gridDataset.findGridDatatype(varName);
+			for(int i = 0; i < cols.size(); i++) {
+				String varName = cols.names.get(i);
+				GridDatatype grid = cols.grids.get(i);
 
 				//Handling the ensemble dimension...
-				CoordinateAxis1D ensembleAxis = grid.getCoordinateSystem().getEnsembleAxis();
-				boolean hasEnsembleDim = false;
-				double[] ensCoords = new double[]{-1};
-				if(ensembleAxis !=null ){
-					ensCoords = ensembleAxis.getCoordValues();
-					hasEnsembleDim = true;
-				}
+				boolean hasEnsembleDim = (cols.gridEnsCoords[i] != null);
+				double[] ensCoords = hasEnsembleDim ? cols.gridEnsCoords[i] : new double[]{-1};
 
 				for(double ensCoord : ensCoords){				
 
@@ -414,9 +348,9 @@ class XMLPointDataWriter implements PointDataWriter {
 						attributes.put("name", varName);
 						attributes.put("units", grid.getUnitsString());
 						if(hasEnsembleDim)
-							attributes.put("ensMember", Double.valueOf(p.ens).toString() );
+							attributes.put("ensMember", Double.toString(p.ens) );
 						
-							writeDataTag(xmlStreamWriter, attributes, Double.valueOf(p.dataValue).toString());
+						writeDataTag(xmlStreamWriter, attributes, Double.toString(p.dataValue));
 						
 						attributes.clear();
 
@@ -427,13 +361,13 @@ class XMLPointDataWriter implements PointDataWriter {
 						}
 						attributes.put("name", varName);
 						attributes.put("units", grid.getUnitsString());
-						writeDataTag(xmlStreamWriter, attributes, Double.valueOf(gap.getMissingValue(grid)).toString());
+						writeDataTag(xmlStreamWriter, attributes, Double.toString(gap.getMissingValue(grid)));
 						attributes.clear();
 					}
 					contVars++;
 				}
 			}
-			xmlStreamWriter.writeEndElement(); //Closes point
+			endPoint();
 			pointDone = true;
 		} catch (XMLStreamException xse) {
 			log.error("Error writting tag point", xse);
@@ -0,0 +1,292 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package thredds.server.opendap;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+import opendap.dap.BaseType;
+import opendap.dap.DConstructor;
+import opendap.dap.DVector;
+import ucar.ma2.DataType;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.util.*;
+
+/**
+ * Shares the DDS and DAS made from a dataset between requests, instead of making them each time the dataset is opened.
+ * <p/>
+ * Templates are keyed by request path and dataset location, so there is at most one for each dataset. It is made
+ * again when the dataset's lastModified changes, eg when the file or feature collection is updated. A template does not hold the netcdf Variables or the NetcdfFile it was made from: its DDS
+ * records the name, type and shape of the Variable each node reads from, and getDDS() binds a copy to the Variables of
+ * the file it is given. So a template outlives the NetcdfFile it was made from, eg when the file cache closes and
+ * reopens the dataset. A template is only used for a file whose Variables still match it.
+ * Templates must not be modified: GuardedDataset hands out copies of the DDS and DAS.
+ *
+ * @since Oct 18, 2026
+ */
+@ThreadSafe
+public class DatasetTemplateCache {
+  static private final DatasetTemplateCache defaultCache = new DatasetTemplateCache(100);
+
+  /**
+   * The cache used by the OPeNDAP server.
+   * @return the shared cache
+   */
+  static public DatasetTemplateCache getDefault() {
+    return defaultCache;
+  }
+
+  //////////////////////////////////////////////////////////////////////////
+
+  @GuardedBy("this")
+  private int maxEntries;
+  @GuardedBy("this")
+  private final LinkedHashMap<Key, Template> lru = new LinkedHashMap<Key, Template>(100, .75f, true);
+
+  // stats
+  @GuardedBy("this")
+  private long hits, misses;
+
+  /**
+   * Constructor.
+   * @param maxEntries keep at most this many templates, 0 to not cache
+   */
+  public DatasetTemplateCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Set the number of templates to keep, dropping the least recently used if needed.
+   * @param maxEntries keep at most this many templates, 0 to not cache
+   */
+  public synchronized void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+    evict();
+  }
+
+  /**
+   * Get the template for this dataset, making it if not cached or out of date.
+   * Call once for each time the dataset is opened, it checks the dataset's lastModified.
+   *
+   * @param reqPath the dataset request path, used as the DDS name
+   * @param ncfile the open dataset
+   * @return the template
+   */
+  public Template get(String reqPath, NetcdfFile ncfile) {
+    String location = ncfile.getLocation();
+    Key key = new Key(reqPath, location == null ? ncfile.getCacheName() : location);
+    long lastModified = ncfile.getLastModified();
+    Template t;
+    synchronized (this) {
+      t = lru.get(key);
+    }
+    boolean hit = (t != null) && (t.lastModified == lastModified) && t.matches(ncfile);
+    synchronized (this) {
+      if (hit) hits++;
+      else misses++;
+    }
+    if (hit) return t;
+
+    // make it outside the lock; two requests may both make it, the last one is kept
+    t = new Template(reqPath, ncfile, lastModified);
+    synchronized (this) {
+      if (maxEntries > 0) {
+        lru.put(key, t);
+        evict();
+      }
+    }
+    return t;
+  }
+
+  @GuardedBy("this")
+  private void evict() {
+    Iterator<Template> iter = lru.values().iterator();
+    while (lru.size() > maxEntries && iter.hasNext()) {
+      iter.next();
+      iter.remove();
+    }
+  }
+
+  /**
+   * Remove all templates.
+   */
+  public synchronized void clearCache() {
+    lru.clear();
+  }
+
+  /**
+   * Add stat report (hits, misses, etc) to formatter.
+   *
+   * @param format add to this
+   */
+  public synchronized void showStats(Formatter format) {
+    format.format("  hits= %d miss= %d elems= %d maxElems= %d\n", hits, misses, lru.size(), maxEntries);
+  }
+
+  /**
+   * The DDS and DAS for one version of a dataset, not bound to an open file. Do not modify them.
+   */
+  @Immutable
+  static public class Template {
+    private final String name;
+    private final NcDDS dds; // its nodes have no Variable
+    private final NcDAS das;
+    private final long lastModified;
+    // for each node that reads from a Variable, in the order of findVariableNodes()
+    private final String[] varNames;
+    private final DataType[] dataTypes;
+    private final int[][] shapes;
+
+    Template(String name, NetcdfFile ncfile, long lastModified) {
+      this.name = name;
+      this.dds = new NcDDS(name, ncfile);
+      this.das = new NcDAS(ncfile);
+      this.lastModified = lastModified;
+
+      List<BaseType> nodes = findVariableNodes(dds);
+      int n = nodes.size();
+      varNames = new String[n];
+      dataTypes = new DataType[n];
+      shapes = new int[n][];
+      for (int i = 0; i < n; i++) {
+        Variable v = getVariable(nodes.get(i));
+        varNames[i] = v.getFullNameEscaped();
+        dataTypes[i] = v.getDataType();
+        shapes[i] = v.getShape();
+        setVariable(nodes.get(i), null);
+      }
+    }
+
+    /**
+     * Get a DDS for the open dataset: a copy of the template that reads from its Variables.
+     * If the dataset no longer matches the template, eg it was synced since, a new DDS is made from it.
+     *
+     * @param ncfile the open dataset
+     * @return DDS that can be modified
+     */
+    public NcDDS getDDS(NetcdfFile ncfile) {
+      NcDDS result = (NcDDS) dds.clone();
+      List<BaseType> nodes = findVariableNodes(result);
+      for (int i = 0; i < nodes.size(); i++) {
+        Variable v = findVariable(ncfile, i);
+        if (v == null) return new NcDDS(name, ncfile);
+        setVariable(nodes.get(i), v);
+      }
+      return result;
+    }
+
+    /**
+     * The DAS. Do not modify, use a clone.
+     * @return the shared DAS
+     */
+    public NcDAS getDAS() {
+      return das;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    // true if every node's Variable is in ncfile, with the same type and shape
+    boolean matches(NetcdfFile ncfile) {
+      for (int i = 0; i < varNames.length; i++)
+        if (findVariable(ncfile, i) == null) return false;
+      return true;
+    }
+
+    private Variable findVariable(NetcdfFile ncfile, int i) {
+      Variable v = ncfile.findVariable(varNames[i]);
+      if (v == null || v.getDataType() != dataTypes[i] || !Arrays.equals(v.getShape(), shapes[i])) return null;
+      return v;
+    }
+
+    // the nodes that read from a Variable, in the same order for a DDS and its clones
+    static private List<BaseType> findVariableNodes(NcDDS dds) {
+      List<BaseType> result = new ArrayList<BaseType>();
+      findVariableNodes(dds.getVariables(), result);
+      return result;
+    }
+
+    static private void findVariableNodes(Enumeration vars, List<BaseType> result) {
+      while (vars.hasMoreElements())
+        findVariableNodes((BaseType) vars.nextElement(), result);
+    }
+
+    static private void findVariableNodes(BaseType bt, List<BaseType> result) {
+      if (bt == null) return;
+      if ((bt instanceof HasNetcdfVariable) || (bt instanceof NcSDStructure))
+        result.add(bt);
+      if (bt instanceof DVector)  // the element type, eg NcSDArray of NcSDFloat32
+        findVariableNodes(((DVector) bt).getContainerVar(), result);
+      if (bt instanceof DConstructor)  // grid array and maps, structure members
+        findVariableNodes(((DConstructor) bt).getVariables(), result);
+    }
+
+    static private Variable getVariable(BaseType bt) {
+      return (bt instanceof NcSDStructure) ? ((NcSDStructure) bt).getVariable() : ((HasNetcdfVariable) bt).getVariable();
+    }
+
+    static private void setVariable(BaseType bt, Variable v) {
+      if (bt instanceof NcSDStructure)
+        ((NcSDStructure) bt).setVariable(v);
+      else
+        ((HasNetcdfVariable) bt).setVariable(v);
+    }
+  }
+
+  @Immutable
+  static private class Key {
+    private final String reqPath;
+    private final String location;
+
+    Key(String reqPath, String location) {
+      this.reqPath = reqPath;
+      this.location = location;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return reqPath.equals(key.reqPath) && (location == null ? key.location == null : location.equals(key.location));
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * reqPath.hashCode() + (location == null ? 0 : location.hashCode());
+    }
+  }
+}
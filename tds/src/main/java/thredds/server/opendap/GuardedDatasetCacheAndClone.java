@@ -39,7 +39,7 @@ import ucar.nc2.NetcdfFile;
 import java.io.IOException;
 
 /**
- * This creates and caches DDS, DAS, then clones them when they are needed.
+ * This gets the DDS, DAS template from the DatasetTemplateCache when opened, and copies them when they are needed.
  */
 @Immutable
 public class GuardedDatasetCacheAndClone implements GuardedDataset {
@@ -47,8 +47,7 @@ public class GuardedDatasetCacheAndClone implements GuardedDataset {
 
   private final boolean hasSession;
   private final NetcdfFile org_file;
-  private final NcDDS dds;
-  private final NcDAS das;
+  private final DatasetTemplateCache.Template template;
 
   public void release() {
     if (!hasSession)
@@ -65,17 +64,16 @@ public class GuardedDatasetCacheAndClone implements GuardedDataset {
 
   public GuardedDatasetCacheAndClone(String reqPath, NetcdfFile ncfile, boolean hasSession) {
     this.org_file = ncfile;
-    this.dds = new NcDDS(reqPath, ncfile);
-    this.das = new NcDAS(ncfile);
     this.hasSession = hasSession;
+    this.template = DatasetTemplateCache.getDefault().get(reqPath, ncfile);
   }
 
   public opendap.servers.ServerDDS getDDS() {
-    return (opendap.servers.ServerDDS) dds.clone();
+    return template.getDDS(org_file);
   }
 
   public opendap.dap.DAS getDAS() {
-    return (opendap.dap.DAS) das.clone();
+    return (opendap.dap.DAS) template.getDAS().clone();
   }
 
   public String toString() {
@@ -135,6 +135,12 @@ public class NcDDS extends ServerDDS {
         bt = createVariable(ncfile, cv);
       addVariable(bt);
     }
+
+    // only needed while building; dont keep the file reachable from here
+    coordvars.clear();
+    ddsvars.clear();
+    gridarrays.clear();
+    used.clear();
   }
 
   // turn Variable into opendap variable
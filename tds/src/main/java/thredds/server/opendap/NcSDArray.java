@@ -34,6 +34,8 @@
 package thredds.server.opendap;
 
 import opendap.dap.InvalidDimensionException;
+import opendap.dap.NoSuchVariableException;
+import opendap.dap.XDRCodec;
 import ucar.ma2.*;
 import ucar.nc2.*;
 
@@ -41,10 +43,14 @@ import opendap.servers.*;
 import opendap.dap.BaseType;
 import opendap.dap.DArrayDimension;
 import opendap.dap.PrimitiveVector;
+import ucar.nc2.dataset.NetcdfDataset;
+import ucar.nc2.iosp.netcdf3.N3iosp;
 
 import java.io.IOException;
 import java.io.EOFException;
 import java.io.DataOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,6 +64,17 @@ import java.util.List;
 public class NcSDArray extends SDArray implements HasNetcdfVariable {
   static private org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NcSDArray.class);
 
+  // serialize() reads and writes at most this many bytes at a time
+  static private long maxSliceBytes = 1000 * 1000;
+
+  /**
+   * Set the size of the slices that serialize() reads from the Variable and writes to the response.
+   * @param maxBytes maximum slice size in bytes
+   */
+  static public void setMaxSliceBytes(long maxBytes) {
+    maxSliceBytes = maxBytes;
+  }
+
   private boolean debug = false, debugRead = false;
   private Variable ncVar = null;
   //ignore protected BaseType elemType;
@@ -87,6 +104,10 @@ public class NcSDArray extends SDArray implements HasNetcdfVariable {
     return ncVar;
   }
 
+  public void setVariable(Variable v) {
+    this.ncVar = v;
+  }
+
   /**
    * Read the data values (parameters are ignored).
    * Use the start, stop and stride values, typically set by the constraint evaluator.
@@ -144,6 +165,125 @@ public class NcSDArray extends SDArray implements HasNetcdfVariable {
     return (false);
   }
 
+  /**
+   * Write the requested data to the sink, a slice at a time, without reading it all into the PrimitiveVector.
+   * Numeric arrays are read in slices of at most maxSliceBytes and written directly as XDR.
+   * Netcdf-3 data of types whose XDR encoding is the same as on disk are copied with readToByteChannel.
+   * Other types, structure members and already read data go through SDArray.serialize().
+   */
+  @Override
+  public void serialize(String dataset, DataOutputStream sink, CEEvaluator ce, Object specialO)
+          throws NoSuchVariableException, DAP2ServerSideException, IOException {
+
+    DataType dtype = ncVar.getDataType();
+    boolean streamable = (dtype == DataType.DOUBLE) || (dtype == DataType.FLOAT) || (dtype == DataType.INT) ||
+            (dtype == DataType.SHORT) || (dtype == DataType.BYTE);
+    if (isRead() || !streamable || (ncVar.getParentStructure() != null)) {
+      super.serialize(dataset, sink, ce, specialO);
+      return;
+    }
+
+    if (!ce.evalClauses(specialO)) return;
+
+    long tstart = System.currentTimeMillis();
+    Section section;
+    try {
+      int n = numDimensions();
+      List<Range> ranges = new ArrayList<Range>(n);
+      for (int i = 0; i < n; i++)
+        ranges.add(new Range(getStart(i), getStop(i), getStride(i)));
+      section = new Section(ranges);
+
+    } catch (InvalidDimensionException e) {
+      log.error(getRequestedRange(), e);
+      throw new IllegalStateException("NcSDArray InvalidDimensionException=" + e.getMessage());
+
+    } catch (InvalidRangeException e) {
+      log.error(getRequestedRange(), e);
+      throw new IllegalStateException("NcSDArray InvalidRangeException=" + e.getMessage());
+    }
+
+    // both XDR and OPeNDAP read the length, so write it twice
+    int length = (int) section.computeSize();
+    sink.writeInt(length);
+    sink.writeInt(length);
+
+    // on disk big endian, same as XDR (shorts are sent as ints, so they must be converted)
+    // a NetcdfDataset shares the iosp of the file it wraps, but its Variables dont read directly from it
+    NetcdfFile ncfile = ncVar.getParentGroup().getNetcdfFile();
+    boolean sameAsDisk = (dtype != DataType.SHORT) && !ncVar.hasCachedData() && (ncfile != null) &&
+            !(ncfile instanceof NetcdfDataset) && (ncfile.getIosp() instanceof N3iosp);
+    WritableByteChannel channel = sameAsDisk ? Channels.newChannel(sink) : null;
+
+    int elemSize = (dtype == DataType.SHORT) ? 4 : dtype.getSize();
+    long maxSliceElems = Math.max(1, maxSliceBytes / elemSize);
+    int count = 0;
+    try {
+      FileWriter2.ChunkingIndex index = new FileWriter2.ChunkingIndex(section.getShape());
+      while (index.currentElement() < index.getSize()) {
+        int[] sliceOrigin = index.getCurrentCounter();
+        int[] sliceShape = index.computeChunkShape(maxSliceElems);
+        Section slice = section.compose(new Section(sliceOrigin, sliceShape));
+
+        try {
+          if (sameAsDisk) {
+            ncVar.readToByteChannel(slice, channel);
+          } else {
+            Array a = ncVar.read(slice);
+            writeXDR(sink, a);
+          }
+
+        } catch (java.lang.ArrayIndexOutOfBoundsException t) {
+          log.error(getRequestedRange(), t);
+          throw new RuntimeException("NcSDArray java.lang.ArrayIndexOutOfBoundsException=" + t.getMessage() +
+              " for request= " + getRequestedRange() + " section= " + slice + " dataset= " + dataset);
+        }
+
+        index.setCurrentCounter(index.currentElement() + (int) Index.computeSize(sliceShape));
+        count++;
+      }
+
+    } catch (InvalidRangeException e) {
+      log.error(getRequestedRange(), e);
+      throw new IllegalStateException("NcSDArray InvalidRangeException=" + e.getMessage());
+    }
+
+    if (dtype == DataType.BYTE) { // pad out to a multiple of four bytes
+      int modFour = length % 4;
+      int pad = (modFour != 0) ? (4 - modFour) : 0;
+      for (int i = 0; i < pad; i++)
+        sink.writeByte(0);
+    }
+
+    if (log.isDebugEnabled()) {
+      long tookTime = System.currentTimeMillis() - tstart;
+      log.debug("NcSDArray serialize " + length + " elems in " + count + " slices: " + tookTime * .001 + " seconds");
+    }
+  }
+
+  // write a slice, without the byte padding
+  private void writeXDR(DataOutputStream sink, Array a) throws IOException {
+    Object pa = a.get1DJavaArray(a.getElementType());
+    if (pa instanceof double[]) {
+      double[] vals = (double[]) pa;
+      XDRCodec.writeDoubles(sink, vals, 0, vals.length - 1, 1);
+    } else if (pa instanceof float[]) {
+      float[] vals = (float[]) pa;
+      XDRCodec.writeFloats(sink, vals, 0, vals.length - 1, 1);
+    } else if (pa instanceof int[]) {
+      int[] vals = (int[]) pa;
+      XDRCodec.writeInts(sink, vals, 0, vals.length - 1, 1);
+    } else if (pa instanceof short[]) {
+      short[] vals = (short[]) pa;
+      XDRCodec.writeShorts(sink, vals, 0, vals.length - 1, 1);
+    } else if (pa instanceof byte[]) {
+      byte[] vals = (byte[]) pa;
+      sink.write(vals, 0, vals.length);
+    } else {
+      throw new IllegalStateException("NcSDArray serialize unexpected type " + a.getElementType());
+    }
+  }
+
   private String getRequestedRange() {
     try {
       StringBuilder sbuff = new StringBuilder();
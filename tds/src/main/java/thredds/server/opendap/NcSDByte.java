@@ -61,6 +61,7 @@ public class NcSDByte extends SDByte implements HasNetcdfVariable {
   }
 
   public Variable getVariable() { return ncVar; }
+  public void setVariable(Variable v) { this.ncVar = v; }
 
 
   /**
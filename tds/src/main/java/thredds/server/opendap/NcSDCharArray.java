@@ -83,6 +83,7 @@ public class NcSDCharArray extends SDArray implements HasNetcdfVariable {
   }
 
   public Variable getVariable() { return ncVar; }
+  public void setVariable(Variable v) { this.ncVar = v; }
 
 
   /**
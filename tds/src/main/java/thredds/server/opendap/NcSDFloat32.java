@@ -61,6 +61,7 @@ public class NcSDFloat32 extends SDFloat32 implements HasNetcdfVariable {
   }
 
   public Variable getVariable() { return ncVar; }
+  public void setVariable(Variable v) { this.ncVar = v; }
 
 
   /**
@@ -61,6 +61,7 @@ public class NcSDInt16 extends SDInt16 implements HasNetcdfVariable {
   }
 
   public Variable getVariable() { return ncVar; }
+  public void setVariable(Variable v) { this.ncVar = v; }
 
   /**
    * Read the value (parameters are ignored).
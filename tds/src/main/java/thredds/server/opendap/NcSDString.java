@@ -113,6 +113,7 @@ public class NcSDString extends SDString implements HasNetcdfVariable {
   }
 
   public Variable getVariable() { return ncVar; }
+  public void setVariable(Variable v) { this.ncVar = v; }
   public void serialize(DataOutputStream sink, StructureData sdata, StructureMembers.Member m) throws IOException {
     localVal = sdata.getScalarString(m);
     setValue(localVal);
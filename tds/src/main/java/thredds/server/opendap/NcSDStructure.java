@@ -81,6 +81,7 @@ public class NcSDStructure extends SDStructure  {
   }
 
    public Variable getVariable() { return ncVar; }
+   public void setVariable(Variable v) { this.ncVar = (Structure) v; }
 
   // called if its scalar
   public boolean read(String datasetName, Object specialO) throws NoSuchVariableException,
@@ -93,6 +93,9 @@ public class OpendapServlet extends AbstractServlet {
     this.binLimit = ThreddsConfig.getInt("Opendap.binLimit", binLimit);
 
     this.odapVersionString = ThreddsConfig.get("Opendap.serverVersion", odapVersionString);
+    int templateCacheSize = ThreddsConfig.getInt("Opendap.templateCacheSize", 100);
+    DatasetTemplateCache.getDefault().setMaxEntries(templateCacheSize);
+    logServerStartup.info(getClass().getName() + " templateCacheSize = " + templateCacheSize);
     logServerStartup.info(getClass().getName() + " version= " + odapVersionString + " ascLimit = " + ascLimit + " binLimit = " + binLimit);
 
     // debugging actions
@@ -652,6 +655,23 @@ public class OpendapServlet extends AbstractServlet {
     };
     debugHandler.addAction(act);
 
+    act = new DebugHandler.Action("showTemplateCache", "Show DDS/DAS template cache") {
+      public void doAction(DebugHandler.Event e) {
+        Formatter f = new Formatter(e.pw);
+        DatasetTemplateCache.getDefault().showStats(f);
+        f.flush();
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugHandler.Action("clearTemplateCache", "Clear DDS/DAS template cache") {
+      public void doAction(DebugHandler.Event e) {
+        DatasetTemplateCache.getDefault().clearCache();
+        e.pw.println("  clearTemplateCache ok");
+      }
+    };
+    debugHandler.addAction(act);
+
   }
 
   public String getServerName() {
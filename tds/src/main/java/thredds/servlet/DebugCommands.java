@@ -36,6 +36,7 @@ package thredds.servlet;
 import ucar.nc2.dataset.NetcdfDataset;
 import ucar.nc2.grib.GribCollection;
 import ucar.nc2.grib.TimePartition;
+import ucar.nc2.iosp.hdf5.H5chunkCache;
 import ucar.nc2.util.IO;
 
 import java.util.*;
@@ -98,6 +99,13 @@ public class DebugCommands {
           fc.showCache(f);
         }
 
+        H5chunkCache h5cache = H5chunkCache.getDefault();
+        if (!h5cache.isEnabled()) f.format("\nH5chunkCache : turned off\n");
+        else {
+          f.format("%n%n");
+          h5cache.showCache(f);
+        }
+
         e.pw.flush();
       }
     };
@@ -109,6 +117,7 @@ public class DebugCommands {
          GribCollection.getDataRafCache().clearCache(false);
          TimePartition.getDataRafCache().clearCache(false);
          ServletUtil.getFileCache().clearCache(false);
+         H5chunkCache.getDefault().clearCache();
          e.pw.println("  ClearCache ok");
        }
      };
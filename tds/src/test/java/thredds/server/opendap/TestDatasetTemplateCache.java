@@ -0,0 +1,171 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package thredds.server.opendap;
+
+import opendap.dap.BaseType;
+import opendap.dap.DConstructor;
+import opendap.dap.DVector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.DataType;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriteable;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Formatter;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check that DatasetTemplateCache reuses a template after the dataset is closed and opened again, that the DDS it
+ * hands out reads from the open file, and that the template is made again when the file changes.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestDatasetTemplateCache {
+  private File file;
+
+  @Before
+  public void makeFile() throws Exception {
+    file = File.createTempFile("TestDatasetTemplateCache", ".nc");
+    write(5);
+  }
+
+  @After
+  public void deleteFile() {
+    if (file != null) file.delete();
+  }
+
+  // t is a grid, s an array, c a scalar
+  private void write(int nx) throws Exception {
+    NetcdfFileWriteable ncfile = NetcdfFileWriteable.createNew(file.getPath(), false);
+    ncfile.addDimension("x", nx);
+    ncfile.addDimension("y", 3);
+    ncfile.addVariable("x", DataType.DOUBLE, "x");
+    ncfile.addVariable("y", DataType.DOUBLE, "y");
+    ncfile.addVariable("t", DataType.FLOAT, "x y");
+    ncfile.addVariable("s", DataType.INT, "y");
+    ncfile.addVariable("c", DataType.INT, new ArrayList<Dimension>());
+    ncfile.create();
+    ncfile.close();
+  }
+
+  @Test
+  public void testReusedAfterReopen() throws Exception {
+    DatasetTemplateCache cache = new DatasetTemplateCache(10);
+
+    NetcdfFile ncfile1 = NetcdfFile.open(file.getPath());
+    DatasetTemplateCache.Template t1 = cache.get("test", ncfile1);
+    NcDDS dds1 = t1.getDDS(ncfile1);
+    checkBound(dds1, ncfile1);
+    ncfile1.close();
+
+    NetcdfFile ncfile2 = NetcdfFile.open(file.getPath());
+    try {
+      DatasetTemplateCache.Template t2 = cache.get("test", ncfile2);
+      assertSame(t1, t2);
+      NcDDS dds2 = t2.getDDS(ncfile2);
+      checkBound(dds2, ncfile2);
+      checkBound(dds1, ncfile1); // copies are separate
+      assertEquals(5, ((NcSDArray) dds2.getVariable("x")).getVariable().read().getSize());
+
+    } finally {
+      ncfile2.close();
+    }
+
+    Formatter f = new Formatter();
+    cache.showStats(f);
+    assertTrue(f.toString(), f.toString().contains("hits= 1 miss= 1"));
+  }
+
+  @Test
+  public void testRemadeWhenChanged() throws Exception {
+    DatasetTemplateCache cache = new DatasetTemplateCache(10);
+    long lastModified = file.lastModified();
+
+    NetcdfFile ncfile = NetcdfFile.open(file.getPath());
+    DatasetTemplateCache.Template t1 = cache.get("test", ncfile);
+    ncfile.close();
+
+    // rewritten with the same lastModified: the Variables dont match the template
+    write(7);
+    assertTrue(file.setLastModified(lastModified));
+    ncfile = NetcdfFile.open(file.getPath());
+    DatasetTemplateCache.Template t2;
+    try {
+      t2 = cache.get("test", ncfile);
+      assertNotSame(t1, t2);
+      NcDDS dds = t2.getDDS(ncfile);
+      checkBound(dds, ncfile);
+      assertEquals(7, ((NcSDArray) dds.getVariable("x")).getDimension(0).getSize());
+    } finally {
+      ncfile.close();
+    }
+
+    // same Variables, new lastModified
+    assertTrue(file.setLastModified(lastModified + 10000));
+    ncfile = NetcdfFile.open(file.getPath());
+    try {
+      assertNotSame(t2, cache.get("test", ncfile));
+    } finally {
+      ncfile.close();
+    }
+  }
+
+  // every node that reads from a Variable reads from one in ncfile
+  private void checkBound(NcDDS dds, NetcdfFile ncfile) {
+    List<BaseType> nodes = new ArrayList<BaseType>();
+    addNodes(dds.getVariables(), nodes);
+    assertEquals(13, nodes.size()); // arrays x, y, s and their elements: 6; grid t: 6; scalar c
+    for (BaseType bt : nodes) {
+      Variable v = ((HasNetcdfVariable) bt).getVariable();
+      assertNotNull(bt.getEncodedName(), v);
+      assertSame(bt.getEncodedName(), ncfile, v.getParentGroup().getNetcdfFile());
+    }
+  }
+
+  private void addNodes(Enumeration vars, List<BaseType> nodes) {
+    while (vars.hasMoreElements()) {
+      BaseType bt = (BaseType) vars.nextElement();
+      if (bt instanceof HasNetcdfVariable) nodes.add(bt);
+      if (bt instanceof DVector) nodes.add(((DVector) bt).getContainerVar());
+      if (bt instanceof DConstructor) addNodes(((DConstructor) bt).getVariables(), nodes);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 1998-2009 University Corporation for Atmospheric Research/Unidata
+ *
+ * Portions of this software were developed by the Unidata Program at the
+ * University Corporation for Atmospheric Research.
+ *
+ * Access and use of this software shall impose the following obligations
+ * and understandings on the user. The user is granted the right, without
+ * any fee or cost, to use, copy, modify, alter, enhance and distribute
+ * this software, and any derivative works thereof, and its supporting
+ * documentation for any purpose whatsoever, provided that this entire
+ * notice appears in all copies of the software, derivative works and
+ * supporting documentation.  Further, UCAR requests that the user credit
+ * UCAR/Unidata in any publications that result from the use of this
+ * software or in any product that includes this software. The names UCAR
+ * and/or Unidata, however, may not be used in any advertising or publicity
+ * to endorse or promote any products or commercial entity unless specific
+ * written permission is obtained from UCAR/Unidata. The user also
+ * understands that UCAR/Unidata is not obligated to provide the user with
+ * any support, consulting, training or assistance of any kind with regard
+ * to the use, operation and performance of this software nor to provide
+ * the user with any updates, revisions, new versions or "bug fixes."
+ *
+ * THIS SOFTWARE IS PROVIDED BY UCAR/UNIDATA "AS IS" AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL UCAR/UNIDATA BE LIABLE FOR ANY SPECIAL,
+ * INDIRECT OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING
+ * FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT,
+ * NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION
+ * WITH THE ACCESS, USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package thredds.server.opendap;
+
+import opendap.servers.CEEvaluator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.Index;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriteable;
+import ucar.nc2.dataset.NetcdfDataset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check that NcSDArray.serialize(), which writes the data a slice at a time, sends the same bytes as SDArray.serialize()
+ * on the data read into memory, for netcdf-3 files and for NetcdfDatasets wrapping them.
+ *
+ * @since Oct 18, 2026
+ */
+public class TestNcSDArraySerialize {
+  static private final String[] varNames = {"b", "i", "f", "d"};
+
+  private File file;
+
+  @Before
+  public void makeFile() throws Exception {
+    file = File.createTempFile("TestNcSDArraySerialize", ".nc");
+    NetcdfFileWriteable ncfile = NetcdfFileWriteable.createNew(file.getPath(), false);
+    ncfile.addDimension("x", 7);
+    ncfile.addDimension("y", 13);
+    ncfile.addVariable("b", DataType.BYTE, "x y");
+    ncfile.addVariable("i", DataType.INT, "x y");
+    ncfile.addVariable("f", DataType.FLOAT, "x y");
+    ncfile.addVariable("d", DataType.DOUBLE, "x y");
+    ncfile.create();
+
+    int[] shape = new int[]{7, 13};
+    for (String name : varNames) {
+      Array data = Array.factory(ncfile.findVariable(name).getDataType(), shape);
+      Index ima = data.getIndex();
+      for (int x = 0; x < 7; x++)
+        for (int y = 0; y < 13; y++)
+          data.setDouble(ima.set(x, y), x * 13 + y - 40 + .25);
+      ncfile.write(name, data);
+    }
+    ncfile.close();
+  }
+
+  @After
+  public void deleteFile() {
+    if (file != null) file.delete();
+  }
+
+  @Test
+  public void testNetcdf3() throws Exception {
+    NetcdfFile ncfile = NetcdfFile.open(file.getPath());
+    try {
+      compareAll(ncfile);
+    } finally {
+      ncfile.close();
+    }
+  }
+
+  @Test
+  public void testNetcdfDataset() throws Exception {
+    NetcdfDataset ncd = NetcdfDataset.openDataset(file.getPath());
+    try {
+      compareAll(ncd);
+    } finally {
+      ncd.close();
+    }
+  }
+
+  private void compareAll(NetcdfFile ncfile) throws Exception {
+    NcSDArray.setMaxSliceBytes(100); // several slices for each variable
+    try {
+      for (String name : varNames) {
+        compare(ncfile, name, null);
+        compare(ncfile, name, new int[]{1, 2, 6, 3, 4, 11}); // start, stride, stop for each dimension
+      }
+    } finally {
+      NcSDArray.setMaxSliceBytes(1000 * 1000);
+    }
+  }
+
+  private void compare(NetcdfFile ncfile, String name, int[] projection) throws Exception {
+    byte[] want = serialize(ncfile, name, projection, true);
+    byte[] got = serialize(ncfile, name, projection, false);
+    assertTrue(ncfile.getLocation() + " " + name + " length", want.length == got.length);
+    assertTrue(ncfile.getLocation() + " " + name, Arrays.equals(want, got));
+  }
+
+  private byte[] serialize(NetcdfFile ncfile, String name, int[] projection, boolean readFirst) throws Exception {
+    NcDDS dds = new NcDDS("test", ncfile);
+    CEEvaluator ce = new CEEvaluator(dds);
+    ce.parseConstraint("", null);
+
+    NcSDArray array = (NcSDArray) dds.getVariable(name);
+    array.setProject(true);
+    if (projection != null) {
+      for (int i = 0; i < projection.length; i += 3)
+        array.setProjection(i / 3, projection[i], projection[i + 1], projection[i + 2]);
+    }
+
+    if (readFirst) { // then SDArray.serialize() writes what was read
+      array.read("test", null);
+      array.setRead(true);
+    }
+
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    DataOutputStream sink = new DataOutputStream(bout);
+    array.serialize("test", sink, ce, null);
+    sink.flush();
+    return bout.toByteArray();
+  }
+
+}